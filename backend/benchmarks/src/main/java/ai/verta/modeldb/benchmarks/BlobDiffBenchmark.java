@@ -0,0 +1,103 @@
+package ai.verta.modeldb.benchmarks;
+
+import ai.verta.modeldb.common.exceptions.ModelDBException;
+import ai.verta.modeldb.versioning.Blob;
+import ai.verta.modeldb.versioning.BlobDiff;
+import ai.verta.modeldb.versioning.ConfigBlob;
+import ai.verta.modeldb.versioning.HyperparameterConfigBlob;
+import ai.verta.modeldb.versioning.HyperparameterValuesConfigBlob;
+import ai.verta.modeldb.versioning.autogenerated._public.modeldb.versioning.model.AutogenBlob;
+import ai.verta.modeldb.versioning.autogenerated._public.modeldb.versioning.model.AutogenBlobDiff;
+import ai.verta.modeldb.versioning.blob.diff.ConflictGenerator;
+import ai.verta.modeldb.versioning.blob.diff.DiffComputer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Blob diffing and merge conflict generation on config blobs. Every other hyperparameter differs
+ * between the two sides, and both sides change the same hyperparameters relative to the parent so
+ * that every change conflicts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlobDiffBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int hyperparameterCount;
+
+  private Blob parentBlob;
+  private Blob blobA;
+  private Blob blobB;
+  private AutogenBlob autogenBlobA;
+  private AutogenBlob autogenBlobB;
+  private BlobDiff baseDiff;
+  private List<BlobDiff> diffsA;
+  private List<BlobDiff> diffsB;
+
+  @Setup
+  public void setup() {
+    parentBlob = getConfigBlob(0);
+    blobA = getConfigBlob(1);
+    blobB = getConfigBlob(2);
+    autogenBlobA = AutogenBlob.fromProto(blobA);
+    autogenBlobB = AutogenBlob.fromProto(blobB);
+
+    final List<String> location = Collections.singletonList("config");
+    final BlobDiff diffA =
+        computeDiff(parentBlob, blobA).toBuilder().addAllLocation(location).build();
+    final BlobDiff diffB =
+        computeDiff(parentBlob, blobB).toBuilder().addAllLocation(location).build();
+    baseDiff = BlobDiff.newBuilder().addAllLocation(location).setStatus(diffA.getStatus()).build();
+    diffsA = Collections.singletonList(diffA);
+    diffsB = Collections.singletonList(diffB);
+  }
+
+  private Blob getConfigBlob(int variant) {
+    ConfigBlob.Builder config = ConfigBlob.newBuilder();
+    for (int i = 0; i < hyperparameterCount; i++) {
+      final long value = i % 2 == 0 ? i : i * 10L + variant;
+      config.addHyperparameters(
+          HyperparameterConfigBlob.newBuilder()
+              .setName("hyperparameter-" + i)
+              .setValue(HyperparameterValuesConfigBlob.newBuilder().setIntValue(value)));
+    }
+    return Blob.newBuilder().setConfig(config).build();
+  }
+
+  private static BlobDiff computeDiff(Blob a, Blob b) {
+    return DiffComputer.computeBlobDiff(AutogenBlob.fromProto(a), AutogenBlob.fromProto(b))
+        .toProto()
+        .build();
+  }
+
+  @Benchmark
+  public AutogenBlobDiff computeBlobDiff() {
+    return DiffComputer.computeBlobDiff(autogenBlobA, autogenBlobB);
+  }
+
+  @Benchmark
+  public BlobDiff computeBlobDiffFromProto() {
+    return computeDiff(blobA, blobB);
+  }
+
+  @Benchmark
+  public List<BlobDiff> setConflictBlobsInDiff() throws ModelDBException {
+    return ConflictGenerator.setConflictBlobsInDiff(baseDiff, diffsA, diffsB, parentBlob);
+  }
+}
@@ -0,0 +1,106 @@
+package ai.verta.modeldb.benchmarks;
+
+import ai.verta.common.KeyValue;
+import ai.verta.common.ValueTypeEnum.ValueType;
+import ai.verta.modeldb.ExperimentRun;
+import ai.verta.modeldb.ModelDBConstants;
+import ai.verta.modeldb.Observation;
+import ai.verta.modeldb.entities.ExperimentRunEntity;
+import ai.verta.modeldb.entities.KeyValueEntity;
+import ai.verta.modeldb.utils.RdbmsUtils;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Conversion between the ExperimentRun proto and its Hibernate entities, in both directions. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExperimentRunConversionBenchmark {
+
+  // Number of metrics, hyperparameters, attributes and observations each
+  @Param({"10", "100", "1000"})
+  public int fieldCount;
+
+  private ExperimentRun experimentRun;
+  private ExperimentRunEntity experimentRunEntity;
+  private List<KeyValue> metrics;
+  private List<KeyValueEntity> metricEntities;
+
+  @Setup
+  public void setup() throws InvalidProtocolBufferException {
+    ExperimentRun.Builder builder =
+        ExperimentRun.newBuilder()
+            .setId("run-id")
+            .setProjectId("project-id")
+            .setExperimentId("experiment-id")
+            .setName("run-name")
+            .setDescription("run-description")
+            .setDateCreated(1L)
+            .setDateUpdated(1L)
+            .addTags("tag");
+    for (int i = 0; i < fieldCount; i++) {
+      builder.addMetrics(getKeyValue("metric-" + i, i));
+      builder.addHyperparameters(getKeyValue("hyperparameter-" + i, i));
+      builder.addAttributes(getKeyValue("attribute-" + i, i));
+      builder.addObservations(
+          Observation.newBuilder()
+              .setAttribute(getKeyValue("observation-" + (i % 10), i))
+              .setEpochNumber(Value.newBuilder().setNumberValue(i / 10))
+              .setTimestamp(i));
+    }
+    experimentRun = builder.build();
+    experimentRunEntity = new ExperimentRunEntity(experimentRun);
+    metrics = new ArrayList<>(experimentRun.getMetricsList());
+    Collections.shuffle(metrics);
+    metricEntities =
+        RdbmsUtils.convertKeyValuesFromKeyValueEntityList(
+            experimentRunEntity, ModelDBConstants.METRICS, metrics);
+  }
+
+  private static KeyValue getKeyValue(String key, double value) {
+    return KeyValue.newBuilder()
+        .setKey(key)
+        .setValue(Value.newBuilder().setNumberValue(value))
+        .setValueType(ValueType.NUMBER)
+        .build();
+  }
+
+  @Benchmark
+  public ExperimentRunEntity protoToEntity() throws InvalidProtocolBufferException {
+    return new ExperimentRunEntity(experimentRun);
+  }
+
+  @Benchmark
+  public ExperimentRun entityToProto() throws InvalidProtocolBufferException {
+    return experimentRunEntity.getProtoObject();
+  }
+
+  @Benchmark
+  public List<KeyValueEntity> keyValuesToEntities() throws InvalidProtocolBufferException {
+    return RdbmsUtils.convertKeyValuesFromKeyValueEntityList(
+        experimentRunEntity, ModelDBConstants.METRICS, metrics);
+  }
+
+  @Benchmark
+  public List<KeyValue> keyValueEntitiesToProtos() throws InvalidProtocolBufferException {
+    return RdbmsUtils.convertKeyValueEntityListFromKeyValues(metricEntities);
+  }
+}
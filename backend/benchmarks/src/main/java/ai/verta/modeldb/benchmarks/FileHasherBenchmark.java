@@ -0,0 +1,69 @@
+package ai.verta.modeldb.benchmarks;
+
+import ai.verta.modeldb.versioning.FileHasher;
+import ai.verta.modeldb.versioning.InternalFolder;
+import ai.verta.modeldb.versioning.InternalFolderElement;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Hashing of folder protos, as done for every folder of a commit tree. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileHasherBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int elementCount;
+
+  private final FileHasher fileHasher = new FileHasher();
+  private InternalFolder folder;
+  private String folderString;
+
+  @Setup
+  public void setup() throws NoSuchAlgorithmException {
+    InternalFolder.Builder builder = InternalFolder.newBuilder();
+    for (int i = 0; i < elementCount; i++) {
+      InternalFolderElement element =
+          InternalFolderElement.newBuilder()
+              .setElementName("element-" + i)
+              .setElementSha(FileHasher.getSha("blob-" + i))
+              .build();
+      if (i % 10 == 0) {
+        builder.addSubFolders(element);
+      } else {
+        builder.addBlobs(element);
+      }
+    }
+    folder = builder.build();
+    folderString = folder.toString();
+  }
+
+  @Benchmark
+  public String getShaOfProto() throws NoSuchAlgorithmException {
+    return fileHasher.getSha(folder);
+  }
+
+  @Benchmark
+  public String getShaOfString() throws NoSuchAlgorithmException {
+    return FileHasher.getSha(folderString);
+  }
+
+  @Benchmark
+  public String protoToString() {
+    return folder.toString();
+  }
+}
@@ -0,0 +1,58 @@
+package ai.verta.modeldb.benchmarks;
+
+import ai.verta.modeldb.utils.ModelDBHibernateUtil;
+import java.util.Properties;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+
+/**
+ * Session factory over an in-memory H2 database with the schema generated from the backend
+ * entities. Stands in for the Postgres/MySQL database in the DAO level benchmarks, so the numbers
+ * cover the Hibernate and JDBC overhead but not the network round trips to a real server.
+ */
+public class H2SessionFactory implements AutoCloseable {
+  private final String url;
+  private final StandardServiceRegistry registry;
+  private final SessionFactory sessionFactory;
+
+  public H2SessionFactory(String databaseName) {
+    url =
+        "jdbc:h2:mem:"
+            + databaseName
+            + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+    Properties settings = new Properties();
+    settings.put(Environment.DRIVER, "org.h2.Driver");
+    settings.put(Environment.URL, url);
+    settings.put(Environment.USER, "sa");
+    settings.put(Environment.PASS, "");
+    settings.put(Environment.DIALECT, "org.hibernate.dialect.H2Dialect");
+    settings.put(Environment.HBM2DDL_AUTO, "create-drop");
+    settings.put(Environment.SHOW_SQL, "false");
+    settings.put(Environment.STATEMENT_BATCH_SIZE, "50");
+
+    registry = new StandardServiceRegistryBuilder().applySettings(settings).build();
+    MetadataSources metaDataSrc = new MetadataSources(registry);
+    for (Class<?> entity : ModelDBHibernateUtil.MODELDB_ENTITIES) {
+      metaDataSrc.addAnnotatedClass(entity);
+    }
+    sessionFactory = metaDataSrc.buildMetadata().buildSessionFactory();
+  }
+
+  /** JDBC url of the database, for benchmarks that connect to it without Hibernate. */
+  public String getUrl() {
+    return url;
+  }
+
+  public SessionFactory getSessionFactory() {
+    return sessionFactory;
+  }
+
+  @Override
+  public void close() {
+    sessionFactory.close();
+    StandardServiceRegistryBuilder.destroy(registry);
+  }
+}
@@ -0,0 +1,228 @@
+package ai.verta.modeldb.benchmarks;
+
+import ai.verta.common.KeyValue;
+import ai.verta.common.ValueTypeEnum.ValueType;
+import ai.verta.modeldb.Observation;
+import ai.verta.modeldb.common.futures.FutureJdbi;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.modeldb.entities.KeyValueEntity;
+import ai.verta.modeldb.exceptions.InvalidArgumentException;
+import ai.verta.modeldb.experimentRun.subtypes.ObservationHandler;
+import ai.verta.modeldb.utils.ModelDBUtils;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.SqlStatements;
+import org.jdbi.v3.core.statement.TemplateEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Observation logging of a run through {@link ObservationHandler#logObservations}, which logs all
+ * observations of a request in one transaction with batched inserts, against logging them one at a
+ * time as the handler did before. Every invocation logs into a new run of {@link
+ * H2SessionFactory}, so the epoch lookups of both paths see the same amount of earlier rows.
+ *
+ * <p>The handler SQL quotes its string literals with double quotes, as MySQL does. H2 reads them as
+ * identifiers, so the statements are rendered with single quotes instead. The runs have no
+ * experiment_run row, so the foreign keys of the observation table are not checked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObservationLoggingBenchmark {
+  private static final int KEY_COUNT = 4;
+  private static final int THREAD_COUNT = 4;
+
+  @Param({"10", "100", "1000"})
+  public int observationCount;
+
+  private H2SessionFactory h2SessionFactory;
+  private ExecutorService executor;
+  private FutureJdbi jdbi;
+  private ObservationHandler observationHandler;
+  private List<Observation> observations;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    h2SessionFactory = new H2SessionFactory("observation_logging_benchmark");
+    executor = Executors.newFixedThreadPool(THREAD_COUNT);
+
+    Jdbi h2Jdbi = Jdbi.create(h2SessionFactory.getUrl(), "sa", "");
+    TemplateEngine templateEngine = h2Jdbi.getConfig(SqlStatements.class).getTemplateEngine();
+    h2Jdbi.setTemplateEngine(
+        (template, ctx) -> templateEngine.render(template, ctx).replace('"', '\''));
+    h2Jdbi.useHandle(handle -> handle.execute("SET REFERENTIAL_INTEGRITY FALSE"));
+    jdbi = new FutureJdbi(h2Jdbi, executor);
+    // H2SessionFactory runs H2 in PostgreSQL mode, the observation rollup is not maintained
+    observationHandler = new ObservationHandler(executor, jdbi, 0, true);
+
+    observations = new ArrayList<>();
+    for (int i = 0; i < observationCount; i++) {
+      observations.add(
+          Observation.newBuilder()
+              .setAttribute(
+                  KeyValue.newBuilder()
+                      .setKey("key-" + (i % KEY_COUNT))
+                      .setValue(Value.newBuilder().setNumberValue(i))
+                      .setValueType(ValueType.NUMBER))
+              .build());
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void removeObservations() throws Exception {
+    jdbi.useHandle(
+            handle -> {
+              handle.execute("DELETE FROM observation");
+              handle.execute("DELETE FROM keyvalue");
+            })
+        .get();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdown();
+    h2SessionFactory.close();
+  }
+
+  @Benchmark
+  public void logObservations() throws Exception {
+    observationHandler
+        .logObservations(UUID.randomUUID().toString(), observations, System.currentTimeMillis())
+        .get();
+  }
+
+  @Benchmark
+  public void logObservationsSequentially() throws Exception {
+    logObservationsSequentially(
+            UUID.randomUUID().toString(), observations, System.currentTimeMillis())
+        .get();
+  }
+
+  /**
+   * Logs the observations one at a time, with an epoch lookup and two single row inserts per
+   * observation, as {@link ObservationHandler#logObservations} did before it batched them.
+   */
+  private InternalFuture<Void> logObservationsSequentially(
+      String runId, List<Observation> observations, long now) {
+    // Validate input
+    var currentFuture =
+        InternalFuture.runAsync(
+            () -> {
+              for (final var observation : observations) {
+                if (observation.getAttribute().getKey().isEmpty()) {
+                  throw new InvalidArgumentException("Empty observation key");
+                }
+              }
+            },
+            executor);
+
+    // Log observations
+    for (final var observation : observations) {
+      final var attribute = observation.getAttribute();
+      currentFuture =
+          currentFuture
+              .thenCompose(
+                  unused -> {
+                    // If the epoch is specified, save it directly
+                    if (observation.hasEpochNumber()) {
+                      if (observation.getEpochNumber().getKindCase()
+                          != Value.KindCase.NUMBER_VALUE) {
+                        String invalidEpochMessage =
+                            "Observations can only have numeric epoch_number, condition not met in "
+                                + observation;
+                        throw new InvalidArgumentException(invalidEpochMessage);
+                      }
+                      return InternalFuture.completedInternalFuture(
+                          (long) observation.getEpochNumber().getNumberValue());
+                    } else {
+                      // Otherwise, infer at runtime. We can't do this in the same SQL command as
+                      // we'll be updating these tables and some SQL implementations don't support
+                      // select together with updates
+                      final var sql =
+                          "select max(o.epoch_number) from "
+                              + "(select keyvaluemapping_id, epoch_number from observation "
+                              + "where experiment_run_id =:run_id and entity_name = \"ExperimentRunEntity\") o, "
+                              + "(select id from keyvalue where kv_key =:name and entity_name IS NULL) k "
+                              + "where o.keyvaluemapping_id = k.id";
+                      return jdbi.withHandle(
+                          handle ->
+                              handle
+                                  .createQuery(sql)
+                                  .bind("run_id", runId)
+                                  .bind("name", attribute.getKey())
+                                  .mapTo(Long.class)
+                                  .findOne()
+                                  .map(x -> x + 1)
+                                  .orElse(0L));
+                    }
+                  },
+                  executor)
+              .thenCompose(
+                  epoch ->
+                      // Insert into KV table
+                      jdbi.useHandle(
+                          handle -> {
+                            final var kvId =
+                                handle
+                                    .createUpdate(
+                                        "insert into keyvalue (field_type, kv_key, kv_value, kv_value_num, value_type) "
+                                            + "values (\"attributes\", :key, :value, :value_num, :type)")
+                                    .bind("key", attribute.getKey())
+                                    .bind(
+                                        "value",
+                                        ModelDBUtils.getStringFromProtoObject(attribute.getValue()))
+                                    .bind(
+                                        "value_num",
+                                        KeyValueEntity.getNumericValue(attribute.getValue()))
+                                    .bind("type", attribute.getValueTypeValue())
+                                    .executeAndReturnGeneratedKeys()
+                                    .mapTo(Long.class)
+                                    .one();
+
+                            // Insert to observation table
+                            // We don't need transaction here since it's fine to add to the kv table
+                            // and fail to insert into the observation table, as the value will be
+                            // just ignored
+                            handle
+                                .createUpdate(
+                                    "insert into observation (entity_name, field_type, timestamp, experiment_run_id, keyvaluemapping_id, epoch_number) "
+                                        + "values (\"ExperimentRunEntity\", \"observations\", :timestamp, :run_id, :kvid, :epoch)")
+                                .bind(
+                                    "timestamp",
+                                    observation.getTimestamp() == 0
+                                        ? now
+                                        : observation.getTimestamp())
+                                .bind("run_id", runId)
+                                .bind("kvid", kvId)
+                                .bind("epoch", epoch)
+                                .executeAndReturnGeneratedKeys()
+                                .mapTo(Long.class)
+                                .one();
+                          }),
+                  executor);
+    }
+
+    return currentFuture;
+  }
+}
@@ -0,0 +1,142 @@
+package ai.verta.modeldb.benchmarks;
+
+import ai.verta.common.KeyValueQuery;
+import ai.verta.common.ModelDBResourceEnum.ModelDBServiceResourceTypes;
+import ai.verta.common.OperatorEnum.Operator;
+import ai.verta.common.ValueTypeEnum.ValueType;
+import ai.verta.modeldb.ModelDBConstants;
+import ai.verta.modeldb.config.Config;
+import ai.verta.modeldb.entities.ExperimentRunEntity;
+import ai.verta.modeldb.utils.RdbmsUtils;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Criteria predicate building for findExperimentRuns, with a mix of metric, hyperparameter,
+ * attribute and tag predicates. The session comes from {@link H2SessionFactory}. Owner and
+ * versioned input predicates need UAC and are not covered.
+ *
+ * <p>Numeric predicates pick their SQL from the database type of the backend {@link Config}, so
+ * {@code VERTA_MODELDB_CONFIG} must point to a config file, see the README.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryPredicatesBenchmark {
+  private static final String ENTITY_NAME = "experimentRunEntity";
+  private static final String[] FIELDS = {
+    ModelDBConstants.METRICS,
+    ModelDBConstants.HYPERPARAMETERS,
+    ModelDBConstants.ATTRIBUTES,
+    ModelDBConstants.TAGS
+  };
+
+  @Param({"1", "5", "20"})
+  public int predicateCount;
+
+  private H2SessionFactory h2SessionFactory;
+  private Session session;
+  private List<KeyValueQuery> predicates;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    if (System.getenv(ModelDBConstants.VERTA_MODELDB_CONFIG) == null) {
+      throw new IllegalStateException(
+          ModelDBConstants.VERTA_MODELDB_CONFIG
+              + " must point to a backend config file, such as ../config/config.yaml");
+    }
+    // Loaded here so that a missing or invalid config fails the setup, not the first iteration
+    Config.getInstance();
+
+    h2SessionFactory = new H2SessionFactory("query_predicates_benchmark");
+    session = h2SessionFactory.getSessionFactory().openSession();
+
+    predicates = new ArrayList<>();
+    for (int i = 0; i < predicateCount; i++) {
+      final String field = FIELDS[i % FIELDS.length];
+      if (field.equals(ModelDBConstants.TAGS)) {
+        predicates.add(
+            KeyValueQuery.newBuilder()
+                .setKey(field)
+                .setValue(Value.newBuilder().setStringValue("tag-" + i))
+                .setValueType(ValueType.STRING)
+                .setOperator(Operator.EQ)
+                .build());
+      } else {
+        predicates.add(
+            KeyValueQuery.newBuilder()
+                .setKey(field + ".key-" + i)
+                .setValue(Value.newBuilder().setNumberValue(i))
+                .setValueType(ValueType.NUMBER)
+                .setOperator(i % 2 == 0 ? Operator.GTE : Operator.LT)
+                .build());
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    session.close();
+    h2SessionFactory.close();
+  }
+
+  private CriteriaQuery<ExperimentRunEntity> buildQuery() throws Exception {
+    CriteriaBuilder builder = session.getCriteriaBuilder();
+    CriteriaQuery<ExperimentRunEntity> criteriaQuery =
+        builder.createQuery(ExperimentRunEntity.class);
+    Root<ExperimentRunEntity> experimentRunRoot = criteriaQuery.from(ExperimentRunEntity.class);
+    experimentRunRoot.alias(ENTITY_NAME);
+    List<Predicate> queryPredicates =
+        RdbmsUtils.getQueryPredicatesFromPredicateList(
+            ENTITY_NAME,
+            predicates,
+            builder,
+            criteriaQuery,
+            experimentRunRoot,
+            null,
+            null,
+            ModelDBServiceResourceTypes.EXPERIMENT_RUN);
+    criteriaQuery.select(experimentRunRoot);
+    criteriaQuery.where(builder.and(queryPredicates.toArray(new Predicate[0])));
+    return criteriaQuery;
+  }
+
+  @Benchmark
+  public CriteriaQuery<ExperimentRunEntity> buildPredicates() throws Exception {
+    return buildQuery();
+  }
+
+  @Benchmark
+  public String buildAndCompileQuery() throws Exception {
+    // Includes the criteria to HQL to SQL translation done before every execution
+    return session.createQuery(buildQuery()).getQueryString();
+  }
+
+  @Benchmark
+  public List<ExperimentRunEntity> buildAndExecuteQuery() throws Exception {
+    return session.createQuery(buildQuery()).setMaxResults(10).getResultList();
+  }
+}
@@ -0,0 +1,115 @@
+package ai.verta.modeldb.versioning;
+
+import static ai.verta.modeldb.versioning.blob.factory.BlobFactory.CONFIG_BLOB;
+
+import ai.verta.modeldb.benchmarks.H2SessionFactory;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Commit tree construction in {@link TreeElem#saveFolders}. Lives in the versioning package because
+ * the tree API is package private. {@code hashFolders} passes a set that already contains every
+ * folder element, which skips all writes and leaves only the hashing; {@code saveFolders} and
+ * {@code saveFoldersInBatches} also write the folder elements to {@link H2SessionFactory} and roll
+ * them back afterwards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeElemBenchmark {
+  private static final int FOLDER_FAN_OUT = 10;
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({"100", "1000", "10000"})
+  public int blobCount;
+
+  private final FileHasher fileHasher = new FileHasher();
+  private H2SessionFactory h2SessionFactory;
+  private Session session;
+  private TreeElem rootTree;
+  private Set<String> savedHashes;
+
+  @Setup(Level.Trial)
+  public void setup() throws NoSuchAlgorithmException {
+    h2SessionFactory = new H2SessionFactory("tree_elem_benchmark");
+    session = h2SessionFactory.getSessionFactory().openSession();
+
+    rootTree = new TreeElem();
+    for (int i = 0; i < blobCount; i++) {
+      // Spread the blobs over a tree with FOLDER_FAN_OUT children per folder
+      rootTree.push(
+          Arrays.asList(
+              "",
+              "folder-" + (i % FOLDER_FAN_OUT),
+              "folder-" + (i / FOLDER_FAN_OUT % FOLDER_FAN_OUT),
+              "blob-" + i),
+          FileHasher.getSha("blob-" + i),
+          CONFIG_BLOB);
+    }
+
+    savedHashes = new HashSet<>();
+    Transaction transaction = session.beginTransaction();
+    rootTree.saveFolders(session, fileHasher, savedHashes);
+    session.flush();
+    transaction.rollback();
+    session.clear();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    session.close();
+    h2SessionFactory.close();
+  }
+
+  @Benchmark
+  public InternalFolderElement hashFolders() throws NoSuchAlgorithmException {
+    return rootTree.saveFolders(session, fileHasher, savedHashes);
+  }
+
+  @Benchmark
+  public InternalFolderElement saveFolders() throws NoSuchAlgorithmException {
+    Transaction transaction = session.beginTransaction();
+    try {
+      InternalFolderElement rootElement =
+          rootTree.saveFolders(session, fileHasher, new HashSet<>());
+      session.flush();
+      return rootElement;
+    } finally {
+      transaction.rollback();
+      session.clear();
+    }
+  }
+
+  @Benchmark
+  public InternalFolderElement saveFoldersInBatches() throws NoSuchAlgorithmException {
+    Transaction transaction = session.beginTransaction();
+    try {
+      // H2SessionFactory runs H2 in PostgreSQL mode
+      return rootTree.saveFoldersInBatches(session, fileHasher, BATCH_SIZE, true);
+    } finally {
+      transaction.rollback();
+      session.clear();
+    }
+  }
+}
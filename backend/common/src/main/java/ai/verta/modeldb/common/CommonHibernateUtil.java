@@ -5,6 +5,7 @@ import ai.verta.modeldb.common.config.DatabaseConfig;
 import ai.verta.modeldb.common.config.RdbConfig;
 import ai.verta.modeldb.common.exceptions.ModelDBException;
 import ai.verta.modeldb.common.exceptions.UnavailableException;
+import ai.verta.modeldb.common.monitoring.RequestTimingSessionListener;
 import io.grpc.health.v1.HealthCheckResponse;
 import liquibase.Contexts;
 import liquibase.LabelExpression;
@@ -92,6 +93,9 @@ public abstract class CommonHibernateUtil {
         settings.put("hibernate.hikari.connectionTimeout", config.connectionTimeout);
         settings.put(Environment.QUERY_PLAN_CACHE_MAX_SIZE, 200);
         settings.put(Environment.QUERY_PLAN_CACHE_PARAMETER_METADATA_MAX_SIZE, 20);
+        settings.put(
+            Environment.AUTO_SESSION_EVENTS_LISTENER,
+            RequestTimingSessionListener.class.getName());
         configuration.setProperties(settings);
 
         LOGGER.trace("connectionString {}", connectionString);
@@ -6,6 +6,7 @@ import ai.verta.modeldb.common.CommonUtils;
 import ai.verta.modeldb.common.config.Config;
 import ai.verta.modeldb.common.exceptions.InternalErrorException;
 import ai.verta.modeldb.common.exceptions.UnavailableException;
+import ai.verta.modeldb.common.monitoring.RequestTimingClientInterceptor;
 import ai.verta.uac.*;
 import ai.verta.uac.versioning.AuditLogServiceGrpc;
 import io.grpc.*;
@@ -86,7 +87,7 @@ public class AuthServiceChannel implements AutoCloseable {
 
     ClientInterceptor clientInterceptor = MetadataUtils.newAttachHeadersInterceptor(requestHeaders);
     stub = config.getTracingClientInterceptor().map(stub::withInterceptors).orElse((T) stub);
-    stub = stub.withInterceptors(clientInterceptor);
+    stub = stub.withInterceptors(clientInterceptor, new RequestTimingClientInterceptor());
     return (T) stub;
   }
 
@@ -0,0 +1,206 @@
+package ai.verta.modeldb.common.authservice;
+
+import ai.verta.common.ModelDBResourceEnum.ModelDBServiceResourceTypes;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.modeldb.common.interceptors.MetadataForwarder;
+import ai.verta.uac.ModelDBActionEnum;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.grpc.Metadata;
+import io.prometheus.client.Counter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Short lived cache of UAC authorization decisions keyed by (caller credentials, action, resource
+ * type, resource ids). Both allowed and denied decisions are cached. In-flight lookups are shared,
+ * so concurrent checks for the same key result in a single UAC call. Failed lookups are never
+ * cached.
+ */
+public class AuthzDecisionCache {
+  private static final Logger LOGGER = LogManager.getLogger(AuthzDecisionCache.class);
+
+  // Request headers that identify the caller towards UAC
+  private static final String[] CREDENTIAL_HEADERS = {
+    "email", "developer_key", "developer-key", "bearer_access_token", "cookie"
+  };
+
+  private static final Counter authz_cache_hits =
+      Counter.build()
+          .name("verta_backend_authz_cache_hits_total")
+          .help("Total authorization checks answered from the authorization decision cache.")
+          .register();
+  private static final Counter authz_cache_misses =
+      Counter.build()
+          .name("verta_backend_authz_cache_misses_total")
+          .help("Total authorization checks that required a call to the UAC server.")
+          .register();
+
+  // Null when the cache is disabled
+  private final Cache<Key, CompletableFuture<Boolean>> decisions;
+
+  /** A {@code ttlMillis} of 0 disables the cache, every check is then sent to UAC. */
+  public AuthzDecisionCache(long ttlMillis, long maxSize) {
+    this(ttlMillis, maxSize, Ticker.systemTicker());
+  }
+
+  AuthzDecisionCache(long ttlMillis, long maxSize, Ticker ticker) {
+    if (ttlMillis <= 0) {
+      this.decisions = null;
+    } else {
+      this.decisions =
+          CacheBuilder.newBuilder()
+              .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+              .maximumSize(maxSize)
+              .ticker(ticker)
+              .build();
+    }
+  }
+
+  /**
+   * Returns the cached decision for the current caller, or runs {@code uacCall} and caches its
+   * result. The call is made without caching when the caller cannot be identified from the request
+   * metadata.
+   */
+  public InternalFuture<Boolean> isSelfAllowed(
+      ModelDBActionEnum.ModelDBServiceActions action,
+      ModelDBServiceResourceTypes resourceType,
+      List<String> resourceIds,
+      Supplier<InternalFuture<Boolean>> uacCall) {
+    if (decisions == null) {
+      return uacCall.get();
+    }
+    final Optional<String> maybeCaller = getCallerFingerprint();
+    if (!maybeCaller.isPresent()) {
+      authz_cache_misses.inc();
+      return uacCall.get();
+    }
+
+    final List<String> sortedResourceIds = new ArrayList<>(resourceIds);
+    Collections.sort(sortedResourceIds);
+    final Key key = new Key(maybeCaller.get(), action, resourceType, sortedResourceIds);
+
+    final boolean[] loaded = {false};
+    final CompletableFuture<Boolean> decision;
+    try {
+      decision =
+          decisions.get(
+              key,
+              () -> {
+                loaded[0] = true;
+                return uacCall.get().toCompletionStage().toCompletableFuture();
+              });
+    } catch (ExecutionException e) {
+      return InternalFuture.failedStage(e.getCause());
+    }
+
+    if (loaded[0]) {
+      authz_cache_misses.inc();
+      decision.whenComplete(
+          (allowed, t) -> {
+            if (t != null) {
+              decisions.asMap().remove(key, decision);
+            }
+          });
+    } else {
+      authz_cache_hits.inc();
+    }
+    return InternalFuture.from(decision);
+  }
+
+  /** Drops every cached decision that involves {@code resourceId}. */
+  public void invalidateResource(String resourceId) {
+    if (decisions == null) {
+      return;
+    }
+    LOGGER.trace("Invalidating cached authorization decisions for resource {}", resourceId);
+    decisions.asMap().keySet().removeIf(key -> key.resourceIds.contains(resourceId));
+  }
+
+  public void invalidateAll() {
+    if (decisions == null) {
+      return;
+    }
+    LOGGER.trace("Invalidating all cached authorization decisions");
+    decisions.invalidateAll();
+  }
+
+  // Identifies the caller by its credential headers, empty if the request carries none
+  static Optional<String> getCallerFingerprint() {
+    final Metadata requestHeaders = MetadataForwarder.METADATA_INFO.get();
+    if (requestHeaders == null) {
+      return Optional.empty();
+    }
+
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      boolean hasCredentials = false;
+      for (String header : CREDENTIAL_HEADERS) {
+        final String value =
+            requestHeaders.get(Metadata.Key.of(header, Metadata.ASCII_STRING_MARSHALLER));
+        if (value != null) {
+          hasCredentials = true;
+          digest.update(header.getBytes(StandardCharsets.UTF_8));
+          digest.update((byte) 0);
+          digest.update(value.getBytes(StandardCharsets.UTF_8));
+          digest.update((byte) 0);
+        }
+      }
+      if (!hasCredentials) {
+        return Optional.empty();
+      }
+      return Optional.of(Base64.getEncoder().encodeToString(digest.digest()));
+    } catch (NoSuchAlgorithmException e) {
+      LOGGER.warn("Unable to fingerprint caller credentials: {}", e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private static class Key {
+    private final String caller;
+    private final ModelDBActionEnum.ModelDBServiceActions action;
+    private final ModelDBServiceResourceTypes resourceType;
+    private final List<String> resourceIds;
+
+    private Key(
+        String caller,
+        ModelDBActionEnum.ModelDBServiceActions action,
+        ModelDBServiceResourceTypes resourceType,
+        List<String> resourceIds) {
+      this.caller = caller;
+      this.action = action;
+      this.resourceType = resourceType;
+      this.resourceIds = resourceIds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key) o;
+      return caller.equals(key.caller)
+          && action == key.action
+          && resourceType == key.resourceType
+          && resourceIds.equals(key.resourceIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(caller, action, resourceType, resourceIds);
+    }
+  }
+}
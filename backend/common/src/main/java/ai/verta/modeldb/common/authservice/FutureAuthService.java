@@ -0,0 +1,13 @@
+package ai.verta.modeldb.common.authservice;
+
+import ai.verta.modeldb.common.CommonConstants;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.uac.UserInfo;
+
+/** Non-blocking counterpart of {@link AuthService} for callers built on {@link InternalFuture}. */
+public interface FutureAuthService {
+  InternalFuture<UserInfo> getCurrentLoginUserInfo();
+
+  InternalFuture<UserInfo> getUserInfo(
+      String vertaId, CommonConstants.UserIdentifier vertaIdentifier);
+}
@@ -0,0 +1,66 @@
+package ai.verta.modeldb.common.authservice;
+
+import ai.verta.modeldb.common.CommonConstants;
+import ai.verta.modeldb.common.CommonMessages;
+import ai.verta.modeldb.common.connections.UAC;
+import ai.verta.modeldb.common.exceptions.NotFoundException;
+import ai.verta.modeldb.common.futures.FutureGrpc;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.uac.Empty;
+import ai.verta.uac.GetUser;
+import ai.verta.uac.UserInfo;
+import java.util.concurrent.Executor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+public class FutureAuthServiceUtils implements FutureAuthService {
+  private static final Logger LOGGER = LogManager.getLogger(FutureAuthServiceUtils.class);
+  private final UAC uac;
+  private final Executor executor;
+
+  public FutureAuthServiceUtils(UAC uac, Executor executor) {
+    this.uac = uac;
+    this.executor = executor;
+  }
+
+  @Override
+  public InternalFuture<UserInfo> getCurrentLoginUserInfo() {
+    LOGGER.trace(CommonMessages.AUTH_SERVICE_REQ_SENT_MSG);
+    return FutureGrpc.ClientRequest(
+            uac.getUACService().getCurrentUser(Empty.newBuilder().build()), executor)
+        .thenApply(
+            userInfo -> {
+              LOGGER.trace(CommonMessages.AUTH_SERVICE_RES_RECEIVED_MSG);
+              if (userInfo == null || userInfo.getVertaInfo() == null) {
+                throw new NotFoundException("Current user could not be resolved.");
+              }
+              return userInfo;
+            },
+            executor);
+  }
+
+  @Override
+  public InternalFuture<UserInfo> getUserInfo(
+      String vertaId, CommonConstants.UserIdentifier vertaIdentifier) {
+    GetUser getUserRequest;
+    if (vertaIdentifier == CommonConstants.UserIdentifier.EMAIL_ID) {
+      getUserRequest = GetUser.newBuilder().setEmail(vertaId).build();
+    } else if (vertaIdentifier == CommonConstants.UserIdentifier.USER_NAME) {
+      getUserRequest = GetUser.newBuilder().setUsername(vertaId).build();
+    } else {
+      getUserRequest = GetUser.newBuilder().setUserId(vertaId).build();
+    }
+
+    LOGGER.trace(CommonMessages.AUTH_SERVICE_REQ_SENT_MSG);
+    return FutureGrpc.ClientRequest(uac.getUACService().getUser(getUserRequest), executor)
+        .thenApply(
+            userInfo -> {
+              LOGGER.trace(CommonMessages.AUTH_SERVICE_RES_RECEIVED_MSG);
+              if (userInfo == null || userInfo.getVertaInfo() == null) {
+                throw new NotFoundException("User not found with the provided metadata");
+              }
+              return userInfo;
+            },
+            executor);
+  }
+}
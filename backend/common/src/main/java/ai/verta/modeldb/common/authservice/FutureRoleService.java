@@ -0,0 +1,26 @@
+package ai.verta.modeldb.common.authservice;
+
+import ai.verta.common.ModelDBResourceEnum.ModelDBServiceResourceTypes;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.uac.GetResourcesResponseItem;
+import ai.verta.uac.ModelDBActionEnum;
+import ai.verta.uac.Workspace;
+import java.util.List;
+import java.util.Set;
+
+/** Non-blocking counterpart of {@link RoleService} for callers built on {@link InternalFuture}. */
+public interface FutureRoleService {
+  InternalFuture<Boolean> isSelfAllowed(
+      ModelDBActionEnum.ModelDBServiceActions modelDBServiceActions,
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes,
+      List<String> resourceIds);
+
+  InternalFuture<List<String>> getSelfAllowedResources(
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes,
+      ModelDBActionEnum.ModelDBServiceActions modelDBServiceActions);
+
+  InternalFuture<List<GetResourcesResponseItem>> getResourceItems(
+      Workspace workspace,
+      Set<String> resourceIds,
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes);
+}
@@ -0,0 +1,206 @@
+package ai.verta.modeldb.common.authservice;
+
+import ai.verta.common.ModelDBResourceEnum.ModelDBServiceResourceTypes;
+import ai.verta.modeldb.common.CommonMessages;
+import ai.verta.modeldb.common.connections.UAC;
+import ai.verta.modeldb.common.futures.FutureGrpc;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.uac.Action;
+import ai.verta.uac.GetResources;
+import ai.verta.uac.GetResourcesResponseItem;
+import ai.verta.uac.GetSelfAllowedResources;
+import ai.verta.uac.IsSelfAllowed;
+import ai.verta.uac.ModelDBActionEnum;
+import ai.verta.uac.ResourceType;
+import ai.verta.uac.Resources;
+import ai.verta.uac.ServiceEnum.Service;
+import ai.verta.uac.Workspace;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * {@link FutureRoleService} built on the future stubs of {@link UAC}. Concurrent calls of the same
+ * caller that UAC can answer with one request are merged by a {@link UACRequestBatcher}, and
+ * permission checks are answered from the {@link AuthzDecisionCache} of the connection.
+ */
+public class FutureRoleServiceUtils implements FutureRoleService {
+  private static final Logger LOGGER = LogManager.getLogger(FutureRoleServiceUtils.class);
+  private final UAC uac;
+  private final Executor executor;
+  private final UACRequestBatcher<List<Object>, Void, List<String>> selfAllowedResourcesBatcher;
+  private final UACRequestBatcher<List<Object>, Set<String>, List<GetResourcesResponseItem>>
+      resourceItemsBatcher;
+
+  public FutureRoleServiceUtils(UAC uac, Executor executor, long batchWindowMillis) {
+    this.uac = uac;
+    this.executor = executor;
+    this.selfAllowedResourcesBatcher =
+        new UACRequestBatcher<>("getSelfAllowedResources", batchWindowMillis);
+    this.resourceItemsBatcher = new UACRequestBatcher<>("getResources", batchWindowMillis);
+  }
+
+  @Override
+  public InternalFuture<Boolean> isSelfAllowed(
+      ModelDBActionEnum.ModelDBServiceActions modelDBServiceActions,
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes,
+      List<String> resourceIds) {
+    return uac.getAuthzDecisionCache()
+        .isSelfAllowed(
+            modelDBServiceActions,
+            modelDBServiceResourceTypes,
+            resourceIds,
+            () ->
+                requestIsSelfAllowed(
+                    modelDBServiceActions, modelDBServiceResourceTypes, resourceIds));
+  }
+
+  private InternalFuture<Boolean> requestIsSelfAllowed(
+      ModelDBActionEnum.ModelDBServiceActions modelDBServiceActions,
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes,
+      List<String> resourceIds) {
+    IsSelfAllowed isSelfAllowedRequest =
+        IsSelfAllowed.newBuilder()
+            .addActions(
+                Action.newBuilder()
+                    .setModeldbServiceAction(modelDBServiceActions)
+                    .setService(Service.MODELDB_SERVICE))
+            .addResources(
+                Resources.newBuilder()
+                    .setService(Service.MODELDB_SERVICE)
+                    .setResourceType(
+                        ResourceType.newBuilder()
+                            .setModeldbServiceResourceType(modelDBServiceResourceTypes))
+                    .addAllResourceIds(resourceIds))
+            .build();
+    LOGGER.trace(CommonMessages.CALL_TO_ROLE_SERVICE_MSG);
+    return FutureGrpc.ClientRequest(
+            uac.getAuthzService().isSelfAllowed(isSelfAllowedRequest), executor)
+        .thenApply(IsSelfAllowed.Response::getAllowed, executor);
+  }
+
+  @Override
+  public InternalFuture<List<String>> getSelfAllowedResources(
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes,
+      ModelDBActionEnum.ModelDBServiceActions modelDBServiceActions) {
+    final Optional<String> maybeCaller = AuthzDecisionCache.getCallerFingerprint();
+    if (!maybeCaller.isPresent()) {
+      return requestSelfAllowedResources(modelDBServiceResourceTypes, modelDBServiceActions);
+    }
+    // Identical calls of the same caller are answered by a single request
+    final List<Object> key =
+        Arrays.asList(maybeCaller.get(), modelDBServiceResourceTypes, modelDBServiceActions);
+    return selfAllowedResourcesBatcher
+        .submit(
+            key,
+            null,
+            arguments ->
+                requestSelfAllowedResources(modelDBServiceResourceTypes, modelDBServiceActions))
+        .thenApply(ArrayList::new, executor);
+  }
+
+  private InternalFuture<List<String>> requestSelfAllowedResources(
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes,
+      ModelDBActionEnum.ModelDBServiceActions modelDBServiceActions) {
+    Action action =
+        Action.newBuilder()
+            .setService(Service.MODELDB_SERVICE)
+            .setModeldbServiceAction(modelDBServiceActions)
+            .build();
+    GetSelfAllowedResources getAllowedResourcesRequest =
+        GetSelfAllowedResources.newBuilder()
+            .addActions(action)
+            .setResourceType(
+                ResourceType.newBuilder()
+                    .setModeldbServiceResourceType(modelDBServiceResourceTypes))
+            .setService(Service.MODELDB_SERVICE)
+            .build();
+    LOGGER.trace(CommonMessages.CALL_TO_ROLE_SERVICE_MSG);
+    return FutureGrpc.ClientRequest(
+            uac.getAuthzService().getSelfAllowedResources(getAllowedResourcesRequest), executor)
+        .thenApply(
+            response -> {
+              LOGGER.trace(CommonMessages.ROLE_SERVICE_RES_RECEIVED_MSG);
+              List<String> resourcesIds = new ArrayList<>();
+              for (Resources resources : response.getResourcesList()) {
+                resourcesIds.addAll(resources.getResourceIdsList());
+              }
+              return resourcesIds;
+            },
+            executor);
+  }
+
+  @Override
+  public InternalFuture<List<GetResourcesResponseItem>> getResourceItems(
+      Workspace workspace,
+      Set<String> resourceIds,
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes) {
+    final boolean allResources = resourceIds == null || resourceIds.isEmpty();
+    final Optional<String> maybeCaller = AuthzDecisionCache.getCallerFingerprint();
+    if (!maybeCaller.isPresent()) {
+      return requestResourceItems(workspace, resourceIds, modelDBServiceResourceTypes);
+    }
+    // Calls of the same caller for the same workspace share a request for the union of their ids,
+    // calls for all resources only share one with each other
+    final List<Object> key =
+        Arrays.asList(
+            maybeCaller.get(),
+            workspace == null ? null : workspace.getId(),
+            modelDBServiceResourceTypes,
+            allResources);
+    return resourceItemsBatcher
+        .submit(
+            key,
+            resourceIds,
+            arguments -> {
+              Set<String> requestedIds = new HashSet<>();
+              if (!allResources) {
+                arguments.forEach(requestedIds::addAll);
+              }
+              return requestResourceItems(workspace, requestedIds, modelDBServiceResourceTypes);
+            })
+        .thenApply(
+            items -> {
+              if (allResources) {
+                return new ArrayList<>(items);
+              }
+              return items.stream()
+                  .filter(item -> resourceIds.contains(item.getResourceId()))
+                  .collect(Collectors.toList());
+            },
+            executor);
+  }
+
+  private InternalFuture<List<GetResourcesResponseItem>> requestResourceItems(
+      Workspace workspace,
+      Set<String> resourceIds,
+      ModelDBServiceResourceTypes modelDBServiceResourceTypes) {
+    ResourceType resourceType =
+        ResourceType.newBuilder()
+            .setModeldbServiceResourceType(modelDBServiceResourceTypes)
+            .build();
+    Resources.Builder resources =
+        Resources.newBuilder()
+            .setResourceType(resourceType)
+            .setService(Service.MODELDB_SERVICE);
+
+    if (resourceIds != null && !resourceIds.isEmpty()) {
+      resources.addAllResourceIds(resourceIds);
+    }
+
+    GetResources.Builder builder = GetResources.newBuilder().setResources(resources.build());
+    if (workspace != null) {
+      builder.setWorkspaceId(workspace.getId());
+    }
+    return FutureGrpc.ClientRequest(
+            uac.getCollaboratorService().getResources(builder.build()), executor)
+        .thenApply(GetResources.Response::getItemList, executor);
+  }
+}
@@ -11,11 +11,14 @@ import ai.verta.modeldb.common.config.Config;
 import ai.verta.modeldb.common.connections.UAC;
 import ai.verta.modeldb.common.exceptions.NotFoundException;
 import ai.verta.modeldb.common.exceptions.PermissionDeniedException;
+import ai.verta.modeldb.common.futures.InternalFuture;
 import ai.verta.uac.*;
 import ai.verta.uac.ServiceEnum.Service;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.GeneratedMessageV3;
 import io.grpc.Context;
 import io.grpc.Metadata;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -34,6 +37,9 @@ public class RoleServiceUtils implements RoleService {
   private final Context.Key<Metadata> metadataInfo;
   private Integer timeout;
   private final Config config;
+  // Resource lookups of request threads go through it, so that concurrent lookups of the same
+  // caller share a UAC request. Null without UAC.
+  private final FutureRoleService futureRoleService;
 
   public RoleServiceUtils(
       Config config,
@@ -54,6 +60,37 @@ public class RoleServiceUtils implements RoleService {
     this.timeout = timeout;
     this.metadataInfo = metadataInfo;
     this.uac = uac;
+    // The callers of this class block until the response arrives, possibly on every thread of the
+    // handler executor, so the response is processed on the thread that receives it instead
+    this.futureRoleService =
+        uac == null
+            ? null
+            : new FutureRoleServiceUtils(
+                uac, MoreExecutors.directExecutor(), config.authService.uacBatchWindowMillis);
+  }
+
+  // Lookups are batched only for requests carrying caller credentials. The others, such as
+  // background jobs, use the blocking stubs that fall back to the service user.
+  private boolean isBatchable() {
+    return futureRoleService != null && AuthzDecisionCache.getCallerFingerprint().isPresent();
+  }
+
+  private static <T> T awaitUacResponse(InternalFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Status.CANCELLED.withCause(e).asRuntimeException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw Status.INTERNAL
+          .withDescription(cause.getMessage())
+          .withCause(cause)
+          .asRuntimeException();
+    }
   }
 
   /**
@@ -319,6 +356,16 @@ public class RoleServiceUtils implements RoleService {
       Workspace workspace,
       Set<String> resourceIds,
       ModelDBServiceResourceTypes modelDBServiceResourceTypes) {
+    if (isBatchable()) {
+      try {
+        return awaitUacResponse(
+            futureRoleService.getResourceItems(
+                workspace, resourceIds, modelDBServiceResourceTypes));
+      } catch (StatusRuntimeException ex) {
+        LOGGER.error(ex);
+        throw ex;
+      }
+    }
     try (AuthServiceChannel authServiceChannel = getAuthServiceChannel()) {
       ResourceType resourceType =
           ResourceType.newBuilder()
@@ -540,6 +587,23 @@ public class RoleServiceUtils implements RoleService {
   public List<String> getSelfAllowedResources(
       ModelDBServiceResourceTypes modelDBServiceResourceTypes,
       ModelDBActionEnum.ModelDBServiceActions modelDBServiceActions) {
+    if (isBatchable()) {
+      try {
+        return awaitUacResponse(
+            futureRoleService.getSelfAllowedResources(
+                modelDBServiceResourceTypes, modelDBServiceActions));
+      } catch (StatusRuntimeException ex) {
+        return (List<String>)
+            CommonUtils.retryOrThrowException(
+                ex,
+                true,
+                (CommonUtils.RetryCallInterface<List<String>>)
+                    (retry1) ->
+                        getSelfAllowedResources(
+                            retry1, modelDBServiceResourceTypes, modelDBServiceActions),
+                timeout);
+      }
+    }
     return getSelfAllowedResources(true, modelDBServiceResourceTypes, modelDBServiceActions);
   }
 
@@ -794,6 +858,9 @@ public class RoleServiceUtils implements RoleService {
                     .build())
             .build();
     setRoleBindingOnAuthService(true, newRoleBinding);
+    if (uac != null) {
+      uac.getAuthzDecisionCache().invalidateResource(resourceId);
+    }
   }
 
   private void setRoleBindingOnAuthService(boolean retry, RoleBinding roleBinding) {
@@ -820,7 +887,12 @@ public class RoleServiceUtils implements RoleService {
 
   @Override
   public boolean deleteRoleBindings(List<String> roleBindingNames) {
-    return deleteRoleBindings(true, roleBindingNames);
+    final boolean status = deleteRoleBindings(true, roleBindingNames);
+    // Role binding names do not carry a parsable resource id, so drop every cached decision
+    if (uac != null) {
+      uac.getAuthzDecisionCache().invalidateAll();
+    }
+    return status;
   }
 
   private boolean deleteRoleBindings(boolean retry, List<String> roleBindingNames) {
@@ -0,0 +1,129 @@
+package ai.verta.modeldb.common.authservice;
+
+import ai.verta.modeldb.common.futures.InternalFuture;
+import io.grpc.Context;
+import io.prometheus.client.Counter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Merges concurrent UAC calls with the same key into a single request. The first call for a key
+ * opens a batch that collects the arguments of every call made with that key during the batch
+ * window. When the window ends, one request is sent with all collected arguments and its response
+ * completes every call of the batch. Keys must include the caller, since the request is sent with
+ * the credentials of the call that opened the batch.
+ *
+ * @param <K> key of the calls that can share a request
+ * @param <A> argument of a single call, merged into the request
+ * @param <R> response of the request, shared by all calls of the batch
+ */
+public class UACRequestBatcher<K, A, R> {
+  private static final Logger LOGGER = LogManager.getLogger(UACRequestBatcher.class);
+
+  private static final Counter uac_batch_requests =
+      Counter.build()
+          .name("verta_backend_uac_batch_requests_total")
+          .help("Total batched requests sent to the UAC server.")
+          .labelNames("method")
+          .register();
+  private static final Counter uac_batched_calls =
+      Counter.build()
+          .name("verta_backend_uac_batched_calls_total")
+          .help("Total UAC calls answered by a batched request.")
+          .labelNames("method")
+          .register();
+
+  private static final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "uac-request-batcher");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final String method;
+  private final long windowMillis;
+  private final Map<K, Batch<A, R>> openBatches = new HashMap<>();
+
+  public UACRequestBatcher(String method, long windowMillis) {
+    this.method = method;
+    this.windowMillis = windowMillis;
+  }
+
+  /**
+   * Adds the call to the open batch of {@code key}, or opens one. {@code request} sends the request
+   * for the arguments of a batch. Calls with the same key are expected to pass equivalent requests,
+   * the one of the call that opened the batch is used.
+   */
+  public InternalFuture<R> submit(
+      K key, A argument, Function<List<A>, InternalFuture<R>> request) {
+    if (windowMillis <= 0) {
+      return request.apply(Collections.singletonList(argument));
+    }
+
+    final Batch<A, R> batch;
+    synchronized (openBatches) {
+      Batch<A, R> openBatch = openBatches.get(key);
+      if (openBatch == null) {
+        // Forked so that the request is not cancelled with the call that opened the batch
+        openBatch = new Batch<>(Context.current().fork());
+        openBatches.put(key, openBatch);
+        final Batch<A, R> newBatch = openBatch;
+        scheduler.schedule(
+            () -> flush(key, newBatch, request), windowMillis, TimeUnit.MILLISECONDS);
+      }
+      openBatch.arguments.add(argument);
+      batch = openBatch;
+    }
+    return InternalFuture.from(batch.promise);
+  }
+
+  private void flush(K key, Batch<A, R> batch, Function<List<A>, InternalFuture<R>> request) {
+    synchronized (openBatches) {
+      openBatches.remove(key, batch);
+    }
+    // No call can join the batch once it is removed
+    uac_batch_requests.labels(method).inc();
+    uac_batched_calls.labels(method).inc(batch.arguments.size());
+    LOGGER.trace("Sending {} batched {} calls to UAC", batch.arguments.size(), method);
+
+    batch.context.run(
+        () -> {
+          try {
+            request
+                .apply(batch.arguments)
+                .toCompletionStage()
+                .whenComplete(
+                    (response, throwable) -> {
+                      if (throwable != null) {
+                        batch.promise.completeExceptionally(throwable);
+                      } else {
+                        batch.promise.complete(response);
+                      }
+                    });
+          } catch (Throwable t) {
+            batch.promise.completeExceptionally(t);
+          }
+        });
+  }
+
+  private static class Batch<A, R> {
+    private final Context context;
+    private final List<A> arguments = new ArrayList<>();
+    private final CompletableFuture<R> promise = new CompletableFuture<>();
+
+    private Batch(Context context) {
+      this.context = context;
+    }
+  }
+}
@@ -5,6 +5,10 @@ public class NFSConfig {
   public String nfsRootPath;
   public String nfsServerHost = "";
   public NFSEndpointConfig artifactEndpoint;
+  // Threads copying the parts of multipart uploads into the artifact file on commit
+  public int multipartCommitThreadCount = 4;
+  // Hours after their last change at which uncommitted multipart uploads are removed, 0 keeps them
+  public int multipartUploadExpiryHours = 24;
 
   public void Validate(String base) throws InvalidConfigException {
     if (nfsRootPath == null || nfsRootPath.isEmpty())
@@ -13,6 +17,13 @@ public class NFSConfig {
     if (artifactEndpoint == null)
       throw new InvalidConfigException(base + ".artifactEndpoint", Config.MISSING_REQUIRED);
     artifactEndpoint.Validate(base + ".artifactEndpoint");
+
+    if (multipartCommitThreadCount <= 0)
+      throw new InvalidConfigException(base + ".multipartCommitThreadCount", "must be positive");
+
+    if (multipartUploadExpiryHours < 0)
+      throw new InvalidConfigException(
+          base + ".multipartUploadExpiryHours", "must not be negative");
   }
 
   public String storeTypePathPrefix() {
@@ -3,10 +3,18 @@ package ai.verta.modeldb.common.config;
 public class ServiceConfig {
   public int port;
   public String host;
+  // Authorization decisions are cached for this long, 0 disables the cache
+  public int authzCacheTtlMillis = 2000;
+  public int authzCacheMaxSize = 10000;
+  // Concurrent calls of a caller that UAC can answer together are merged within this window, 0
+  // sends every call on its own
+  public int uacBatchWindowMillis = 5;
 
   public void Validate(String base) throws InvalidConfigException {
     if (port == 0) throw new InvalidConfigException(base + ".port", Config.MISSING_REQUIRED);
     if (host == null || host.isEmpty())
       throw new InvalidConfigException(base + ".host", Config.MISSING_REQUIRED);
+    if (uacBatchWindowMillis < 0)
+      throw new InvalidConfigException(base + ".uacBatchWindowMillis", "must not be negative");
   }
 }
@@ -3,6 +3,7 @@ package ai.verta.modeldb.common.connections;
 import ai.verta.modeldb.common.CommonConstants;
 import ai.verta.modeldb.common.CommonMessages;
 import ai.verta.modeldb.common.authservice.AuthInterceptor;
+import ai.verta.modeldb.common.authservice.AuthzDecisionCache;
 import ai.verta.modeldb.common.config.Config;
 import ai.verta.modeldb.common.exceptions.UnavailableException;
 import ai.verta.modeldb.common.interceptors.MetadataForwarder;
@@ -28,6 +29,7 @@ public class UAC extends Connection {
   private final UACServiceGrpc.UACServiceFutureStub uacServiceFutureStub;
   private final WorkspaceServiceGrpc.WorkspaceServiceFutureStub workspaceServiceFutureStub;
   private final AuthzServiceGrpc.AuthzServiceFutureStub authzServiceFutureStub;
+  private final AuthzDecisionCache authzDecisionCache;
 
   public static UAC FromConfig(Config config) {
     if (!config.hasAuth()) return null;
@@ -59,6 +61,9 @@ public class UAC extends Connection {
     uacServiceFutureStub = UACServiceGrpc.newFutureStub(authServiceChannel);
     workspaceServiceFutureStub = WorkspaceServiceGrpc.newFutureStub(authServiceChannel);
     authzServiceFutureStub = AuthzServiceGrpc.newFutureStub(authServiceChannel);
+    authzDecisionCache =
+        new AuthzDecisionCache(
+            config.authService.authzCacheTtlMillis, config.authService.authzCacheMaxSize);
   }
 
   public CollaboratorServiceGrpc.CollaboratorServiceFutureStub getCollaboratorService() {
@@ -76,4 +81,8 @@ public class UAC extends Connection {
   public AuthzServiceGrpc.AuthzServiceFutureStub getAuthzService() {
     return attachInterceptors(authzServiceFutureStub);
   }
+
+  public AuthzDecisionCache getAuthzDecisionCache() {
+    return authzDecisionCache;
+  }
 }
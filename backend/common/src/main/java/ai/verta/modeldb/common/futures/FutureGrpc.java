@@ -1,22 +1,39 @@
 package ai.verta.modeldb.common.futures;
 
 import ai.verta.modeldb.common.CommonUtils;
+import ai.verta.modeldb.common.monitoring.RequestTimings;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.protobuf.GeneratedMessageV3;
 import io.grpc.Context;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import io.prometheus.client.Histogram;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 public class FutureGrpc {
+  private static final Histogram executorQueueWait =
+      Histogram.build()
+          .labelNames("executor")
+          .name("verta_backend_executor_queue_wait_seconds")
+          .help("Time tasks waited in the executor queue before running, in seconds.")
+          .register();
+
   // Converts a ListenableFuture, returned by a non-blocking call via grpc, to our custom
-  // InternalFuture
+  // InternalFuture. The time until it completes is added to the UAC time of the current call.
   public static <T> InternalFuture<T> ClientRequest(ListenableFuture<T> f, Executor ex) {
     CompletableFuture<T> promise = new CompletableFuture<T>();
+    final RequestTimings timings = RequestTimings.current();
+    if (timings != null) {
+      final long start = System.nanoTime();
+      f.addListener(() -> timings.addUacNanos(System.nanoTime() - start), Runnable::run);
+    }
     Futures.addCallback(f, new Callback<T>(promise), ex);
     return InternalFuture.from(promise);
   }
@@ -36,14 +53,107 @@ public class FutureGrpc {
         ex);
   }
 
+  // Sends the messages produced by nextMessage to the grpc StreamObserver of a server-streaming
+  // call. A message is only produced while the call is ready to send, so a slow client holds at
+  // most one produced message in memory. nextMessage returns an empty Optional once there are no
+  // more messages, and is not called again after the call is cancelled.
+  public static <T extends GeneratedMessageV3> void ServerStreamResponse(
+      StreamObserver<T> observer, Supplier<InternalFuture<Optional<T>>> nextMessage, Executor ex) {
+    new StreamResponder<>((ServerCallStreamObserver<T>) observer, nextMessage, ex).start();
+  }
+
+  private static class StreamResponder<T> {
+    private final ServerCallStreamObserver<T> observer;
+    private final Supplier<InternalFuture<Optional<T>>> nextMessage;
+    private final Executor executor;
+    private boolean producing = false;
+    private boolean done = false;
+
+    private StreamResponder(
+        ServerCallStreamObserver<T> observer,
+        Supplier<InternalFuture<Optional<T>>> nextMessage,
+        Executor executor) {
+      this.observer = observer;
+      this.nextMessage = nextMessage;
+      this.executor = executor;
+    }
+
+    private void start() {
+      observer.setOnCancelHandler(this::onCancel);
+      observer.setOnReadyHandler(this::onReady);
+      onReady();
+    }
+
+    private synchronized void onCancel() {
+      done = true;
+    }
+
+    private synchronized void onReady() {
+      if (!producing && !done && observer.isReady()) {
+        produce();
+      }
+    }
+
+    // Must be called while holding the lock
+    private void produce() {
+      producing = true;
+      final InternalFuture<Optional<T>> message;
+      try {
+        message = nextMessage.get();
+      } catch (Throwable t) {
+        onMessage(null, t);
+        return;
+      }
+      message.whenComplete(this::onMessage, executor);
+    }
+
+    private synchronized void onMessage(Optional<T> message, Throwable t) {
+      producing = false;
+      if (done) {
+        return;
+      }
+      if (t != null) {
+        done = true;
+        CommonUtils.observeError(observer, t);
+      } else if (!message.isPresent()) {
+        done = true;
+        observer.onCompleted();
+      } else {
+        observer.onNext(message.get());
+        // Otherwise the ready handler produces the next message once the client caught up
+        if (observer.isReady()) {
+          produce();
+        }
+      }
+    }
+  }
+
   // Wraps an Executor and make it compatible with grpc's context
   private static Executor makeCompatibleExecutor(Executor ex) {
     return Context.currentContextExecutor(ex);
   }
 
+  // Wraps an Executor to record how long its tasks wait before they start running
+  private static Executor makeQueueWaitTimedExecutor(Executor ex, String name) {
+    final Histogram.Child queueWait = executorQueueWait.labels(name);
+    return runnable -> {
+      final long submitted = System.nanoTime();
+      ex.execute(
+          () -> {
+            queueWait.observe((System.nanoTime() - submitted) / 1.0E9D);
+            runnable.run();
+          });
+    };
+  }
+
   public static Executor initializeExecutor(Integer threadCount) {
+    return initializeExecutor(threadCount, "default");
+  }
+
+  public static Executor initializeExecutor(Integer threadCount, String name) {
     return FutureGrpc.makeCompatibleExecutor(
-        Executors.newFixedThreadPool(threadCount, Executors.defaultThreadFactory()));
+        makeQueueWaitTimedExecutor(
+            Executors.newFixedThreadPool(threadCount, Executors.defaultThreadFactory()), name));
   }
 
   // Callback for a ListenableFuture to satisfy a promise
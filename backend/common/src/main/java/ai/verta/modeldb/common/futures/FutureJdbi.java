@@ -1,5 +1,6 @@
 package ai.verta.modeldb.common.futures;
 
+import ai.verta.modeldb.common.monitoring.RequestTimings;
 import org.jdbi.v3.core.HandleCallback;
 import org.jdbi.v3.core.HandleConsumer;
 import org.jdbi.v3.core.Jdbi;
@@ -7,6 +8,10 @@ import org.jdbi.v3.core.Jdbi;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
+/**
+ * Runs jdbi handles on the database executor. The time spent in the handle is added to the {@link
+ * RequestTimings} of the gRPC call the handle was requested from.
+ */
 public class FutureJdbi {
   private final Executor executor;
   private final Jdbi jdbi;
@@ -18,13 +23,17 @@ public class FutureJdbi {
 
   public <R, T extends Exception> InternalFuture<R> withHandle(HandleCallback<R, T> callback) {
     CompletableFuture<R> promise = new CompletableFuture<R>();
+    final RequestTimings timings = RequestTimings.current();
 
     executor.execute(
         () -> {
+          final long start = System.nanoTime();
           try {
             promise.complete(jdbi.withHandle(callback));
           } catch (Throwable e) {
             promise.completeExceptionally(e);
+          } finally {
+            recordDbTime(timings, start);
           }
         });
 
@@ -38,17 +47,27 @@ public class FutureJdbi {
 
   public <T extends Exception> InternalFuture<Void> useHandle(final HandleConsumer<T> consumer) {
     CompletableFuture<Void> promise = new CompletableFuture<Void>();
+    final RequestTimings timings = RequestTimings.current();
 
     executor.execute(
         () -> {
+          final long start = System.nanoTime();
           try {
             jdbi.useHandle(consumer);
             promise.complete(null);
           } catch (Throwable e) {
             promise.completeExceptionally(e);
+          } finally {
+            recordDbTime(timings, start);
           }
         });
 
     return InternalFuture.from(promise);
   }
+
+  private static void recordDbTime(RequestTimings timings, long start) {
+    if (timings != null) {
+      timings.addDbNanos(System.nanoTime() - start);
+    }
+  }
 }
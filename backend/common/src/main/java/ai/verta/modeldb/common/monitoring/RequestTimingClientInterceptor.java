@@ -0,0 +1,45 @@
+package ai.verta.modeldb.common.monitoring;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Adds the time of each UAC call made through a blocking stub to the UAC time of the gRPC call it
+ * is made from. Calls of the future stubs are timed by {@link
+ * ai.verta.modeldb.common.futures.FutureGrpc#ClientRequest} instead.
+ */
+public class RequestTimingClientInterceptor implements ClientInterceptor {
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    final RequestTimings timings = RequestTimings.current();
+    final ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+    if (timings == null) {
+      return call;
+    }
+    return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(call) {
+      @Override
+      public void start(Listener<RespT> responseListener, Metadata headers) {
+        final long start = System.nanoTime();
+        super.start(
+            new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+                responseListener) {
+              @Override
+              public void onClose(Status status, Metadata trailers) {
+                timings.addUacNanos(System.nanoTime() - start);
+                super.onClose(status, trailers);
+              }
+            },
+            headers);
+      }
+    };
+  }
+}
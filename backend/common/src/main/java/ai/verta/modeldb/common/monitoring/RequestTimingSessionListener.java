@@ -0,0 +1,20 @@
+package ai.verta.modeldb.common.monitoring;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds the time a Hibernate session is open to the database time of the gRPC call it is opened
+ * from. Hibernate creates one instance per session, as the session is opened, when the class is
+ * registered as the automatic session events listener.
+ */
+public class RequestTimingSessionListener extends BaseSessionEventListener {
+  private final transient RequestTimings timings = RequestTimings.current();
+  private final long start = System.nanoTime();
+
+  @Override
+  public void end() {
+    if (timings != null) {
+      timings.addDbNanos(System.nanoTime() - start);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package ai.verta.modeldb.common.monitoring;
+
+import io.grpc.Context;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time spent by one gRPC call waiting on UAC and on the database. The server interceptor attaches
+ * an instance to the call's {@link Context}. UAC time is added by {@link
+ * ai.verta.modeldb.common.futures.FutureGrpc#ClientRequest} and {@link
+ * RequestTimingClientInterceptor}, database time by {@link
+ * ai.verta.modeldb.common.futures.FutureJdbi} and {@link RequestTimingSessionListener}, each to the
+ * instance of the context they are called from. Concurrent requests of the same call are summed,
+ * so the totals can exceed its latency.
+ */
+public class RequestTimings {
+  public static final Context.Key<RequestTimings> KEY = Context.key("request_timings");
+
+  private final AtomicLong uacNanos = new AtomicLong();
+  private final AtomicLong dbNanos = new AtomicLong();
+
+  /** Returns the timings of the current call, or null outside of a gRPC call. */
+  public static RequestTimings current() {
+    return KEY.get();
+  }
+
+  public void addUacNanos(long nanos) {
+    uacNanos.addAndGet(nanos);
+  }
+
+  public void addDbNanos(long nanos) {
+    dbNanos.addAndGet(nanos);
+  }
+
+  public double getUacSeconds() {
+    return uacNanos.get() / 1.0E9D;
+  }
+
+  public double getDbSeconds() {
+    return dbNanos.get() / 1.0E9D;
+  }
+}
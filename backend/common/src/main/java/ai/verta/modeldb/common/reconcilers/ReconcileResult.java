@@ -1,5 +1,54 @@
 package ai.verta.modeldb.common.reconcilers;
 
-// Currently does nothing but will add relevant information to the loop later. Adding now to avoid
-// breaking API later.
-public class ReconcileResult {}
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Outcome of reconciling one batch. {@link Reconciler#reconcile} reports the elements that should
+ * be retried, and the loop fills in the statistics of the batch before passing the result to
+ * {@link Reconciler#onReconciled}.
+ */
+public class ReconcileResult {
+  private final Set<Object> failedElements = new HashSet<>();
+  private int batchSize;
+  private int retriedCount;
+  private long queueDepth;
+  private long latencyMillis;
+
+  /** Marks the elements to be retried with backoff. */
+  public ReconcileResult retry(Collection<?> elements) {
+    failedElements.addAll(elements);
+    return this;
+  }
+
+  public Set<Object> getFailedElements() {
+    return Collections.unmodifiableSet(failedElements);
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /** Returns the number of elements of the batch scheduled for a retry. */
+  public int getRetriedCount() {
+    return retriedCount;
+  }
+
+  /** Returns the number of elements waiting in the queue when the batch completed. */
+  public long getQueueDepth() {
+    return queueDepth;
+  }
+
+  public long getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  void setStatistics(int batchSize, int retriedCount, long queueDepth, long latencyMillis) {
+    this.batchSize = batchSize;
+    this.retriedCount = retriedCount;
+    this.queueDepth = queueDepth;
+    this.latencyMillis = latencyMillis;
+  }
+}
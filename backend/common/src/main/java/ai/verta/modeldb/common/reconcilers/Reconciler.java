@@ -1,31 +1,99 @@
 package ai.verta.modeldb.common.reconcilers;
 
 import ai.verta.modeldb.common.CommonUtils;
-import org.apache.logging.log4j.Logger;
-
+import com.google.common.util.concurrent.RateLimiter;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.Logger;
 
+/**
+ * Reconciles elements in batches on a pool of workers. Elements are queued in FIFO order and an
+ * element already waiting in the queue is not queued again. The queue is a lock free linked queue
+ * with a set of the waiting elements, and a semaphore counting them lets idle workers wait.
+ *
+ * <p>Elements of a batch that throws, or that {@link #reconcile} reports in {@link
+ * ReconcileResult#retry}, are queued again after an exponential backoff, and dropped after {@link
+ * ReconcilerConfig#maxRetries} failures. The next resync finds them again.
+ */
 public abstract class Reconciler<T> {
-  final Logger logger;
-  protected final HashSet<T> elements = new HashSet<>();
-  protected final LinkedList<T> order = new LinkedList<>();
-  final Lock lock = new ReentrantLock();
-  final Condition notEmpty = lock.newCondition();
+  // How long an idle worker waits for an element before checking for shutdown
+  private static final long POLL_TIMEOUT_MILLIS = 1000;
 
+  private static final Gauge reconciler_queue_depth =
+      Gauge.build()
+          .name("verta_backend_reconciler_queue_depth")
+          .help("Number of elements waiting in the reconciler queue.")
+          .labelNames("reconciler")
+          .register();
+  private static final Histogram reconciler_batch_latency =
+      Histogram.build()
+          .name("verta_backend_reconciler_batch_latency_seconds")
+          .help("Time spent reconciling a batch of elements.")
+          .labelNames("reconciler")
+          .register();
+  private static final Counter reconciler_reconciled =
+      Counter.build()
+          .name("verta_backend_reconciler_reconciled_total")
+          .help("Total elements reconciled, including failed attempts.")
+          .labelNames("reconciler")
+          .register();
+  private static final Counter reconciler_retries =
+      Counter.build()
+          .name("verta_backend_reconciler_retries_total")
+          .help("Total elements scheduled for a retry after a failed reconcile.")
+          .labelNames("reconciler")
+          .register();
+  private static final Counter reconciler_dropped =
+      Counter.build()
+          .name("verta_backend_reconciler_dropped_total")
+          .help("Total elements dropped after failing their maximum number of retries.")
+          .labelNames("reconciler")
+          .register();
+
+  final Logger logger;
   protected final ReconcilerConfig config;
 
+  private final String name = getClass().getSimpleName();
+  private final Queue<T> order = new ConcurrentLinkedQueue<>();
+  private final Set<T> queued = ConcurrentHashMap.newKeySet();
+  private final Semaphore available = new Semaphore(0);
+  private final Map<T, Integer> failures = new ConcurrentHashMap<>();
+  private final RateLimiter rateLimiter;
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService workers;
+  private volatile boolean running = true;
+
   protected Reconciler(ReconcilerConfig config, Logger logger) {
     this.logger = logger;
     this.config = config;
+    this.rateLimiter =
+        config.maxReconcilesPerSecond > 0
+            ? RateLimiter.create(config.maxReconcilesPerSecond)
+            : null;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "reconciler-" + name + "-scheduler"));
+    final AtomicInteger workerNumber = new AtomicInteger();
+    this.workers =
+        Executors.newFixedThreadPool(
+            config.workerCount,
+            runnable ->
+                new Thread(
+                    runnable, "reconciler-" + name + "-worker-" + workerNumber.incrementAndGet()));
 
     startResync();
     startWorkers();
@@ -43,62 +111,150 @@ public abstract class Reconciler<T> {
           CommonUtils.unregisteredBackgroundUtilsCount();
         };
 
-    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-    executor.scheduleAtFixedRate(runnable, 0, config.resyncPeriodSeconds, TimeUnit.SECONDS);
+    scheduler.scheduleAtFixedRate(runnable, 0, config.resyncPeriodSeconds, TimeUnit.SECONDS);
   }
 
   private void startWorkers() {
-    ExecutorService executor = Executors.newFixedThreadPool(config.workerCount);
     for (int i = 0; i < config.workerCount; i++) {
       Runnable runnable =
           () -> {
-            while (true) {
-              CommonUtils.registeredBackgroundUtilsCount();
+            CommonUtils.registeredBackgroundUtilsCount();
+            while (running) {
               try {
-                reconcile(pop());
+                final Set<T> batch = pop();
+                if (!batch.isEmpty()) {
+                  reconcileBatch(batch);
+                }
+              } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
               } catch (Exception ex) {
                 logger.error("Worker reconcile: ", ex);
               }
-              CommonUtils.unregisteredBackgroundUtilsCount();
             }
+            CommonUtils.unregisteredBackgroundUtilsCount();
           };
-      executor.execute(runnable);
+      workers.execute(runnable);
     }
   }
 
   public void insert(T element) {
-    lock.lock();
-    try {
-      if (!elements.contains(element)) {
-        elements.add(element);
-        order.push(element);
-      }
-      notEmpty.signal();
-    } finally {
-      lock.unlock();
+    if (queued.add(element)) {
+      order.offer(element);
+      available.release();
+      reconciler_queue_depth.labels(name).inc();
     }
   }
 
-  private HashSet<T> pop() {
-    HashSet<T> ret = new HashSet<>();
-    lock.lock();
+  /** Returns the number of elements waiting to be reconciled. */
+  public int getQueueDepth() {
+    return available.availablePermits();
+  }
+
+  /**
+   * Stops the resync and the retries, and waits for the workers to finish their current batch.
+   * Elements still waiting in the queue are dropped, the next resync finds them again.
+   */
+  public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+    running = false;
+    scheduler.shutdownNow();
+    workers.shutdown();
+    if (!workers.awaitTermination(timeout, unit)) {
+      logger.warn("Reconciler {} workers did not finish within the timeout", name);
+      workers.shutdownNow();
+    }
+  }
+
+  // Returns up to batchSize elements, or an empty set if none arrived within the poll timeout
+  private Set<T> pop() throws InterruptedException {
+    final Set<T> batch = new HashSet<>();
+    if (!available.tryAcquire(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+      return batch;
+    }
+    // Every permit was released after its element was offered, so the queue is never empty here
+    do {
+      final T element = order.poll();
+      queued.remove(element);
+      batch.add(element);
+      reconciler_queue_depth.labels(name).dec();
+    } while (batch.size() < config.batchSize && available.tryAcquire());
+    return batch;
+  }
+
+  private void reconcileBatch(Set<T> batch) {
+    if (rateLimiter != null) {
+      rateLimiter.acquire(batch.size());
+    }
+
+    final long start = System.nanoTime();
+    ReconcileResult result;
     try {
-      while (elements.isEmpty()) notEmpty.await();
+      result = reconcile(batch);
+      if (result == null) {
+        result = new ReconcileResult();
+      }
+    } catch (Exception ex) {
+      logger.error("Worker reconcile: ", ex);
+      result = new ReconcileResult().retry(batch);
+    }
+    final long latencyNanos = System.nanoTime() - start;
 
-      while (!elements.isEmpty() && ret.size() < config.batchSize) {
-        T obj = order.pop();
-        elements.remove(obj);
-        ret.add(obj);
+    int retriedCount = 0;
+    for (T element : batch) {
+      if (result.getFailedElements().contains(element)) {
+        if (scheduleRetry(element)) {
+          retriedCount++;
+        }
+      } else {
+        failures.remove(element);
       }
-    } catch (InterruptedException ignored) {
+    }
 
-    } finally {
-      lock.unlock();
+    reconciler_reconciled.labels(name).inc(batch.size());
+    reconciler_batch_latency.labels(name).observe(latencyNanos / 1.0E9D);
+    result.setStatistics(
+        batch.size(),
+        retriedCount,
+        getQueueDepth(),
+        TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+    onReconciled(result);
+  }
+
+  // Queues the element again after a backoff, returns false if it failed too many times
+  private boolean scheduleRetry(T element) {
+    final int failureCount = failures.merge(element, 1, Integer::sum);
+    if (failureCount > config.maxRetries) {
+      failures.remove(element);
+      reconciler_dropped.labels(name).inc();
+      logger.warn("Reconciler {} dropped {} after {} retries", name, element, config.maxRetries);
+      return false;
     }
-    return ret;
+
+    final long backoffMillis =
+        Math.min(
+            config.retryMaxBackoffMillis,
+            config.retryInitialBackoffMillis << Math.min(failureCount - 1, 30));
+    try {
+      scheduler.schedule(() -> insert(element), backoffMillis, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException ex) {
+      // Shutting down, the next resync finds the element again
+      return false;
+    }
+    reconciler_retries.labels(name).inc();
+    return true;
   }
 
   public abstract void resync();
 
   protected abstract ReconcileResult reconcile(Set<T> objs);
+
+  /** Called after every batch with its result and statistics. */
+  protected void onReconciled(ReconcileResult result) {
+    logger.trace(
+        "Reconciled {} elements in {} ms, {} retried, {} waiting",
+        result.getBatchSize(),
+        result.getLatencyMillis(),
+        result.getRetriedCount(),
+        result.getQueueDepth());
+  }
 }
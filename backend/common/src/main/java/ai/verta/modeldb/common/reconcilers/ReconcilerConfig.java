@@ -5,4 +5,11 @@ public class ReconcilerConfig {
   public int batchSize = 10;
   public int workerCount = 10;
   public int maxSync = 10000;
+  // Elements reconciled per second over all workers, 0 for no limit
+  public double maxReconcilesPerSecond = 0;
+  // Delay before the first retry of a failed element, doubled on every following failure
+  public long retryInitialBackoffMillis = 1000;
+  public long retryMaxBackoffMillis = 60000;
+  // Failures after which an element is dropped until the next resync finds it again
+  public int maxRetries = 10;
 }
@@ -3,6 +3,8 @@ package ai.verta.modeldb;
 import ai.verta.modeldb.advancedService.AdvancedServiceImpl;
 import ai.verta.modeldb.artifactStore.storageservice.nfs.FileStorageProperties;
 import ai.verta.modeldb.artifactStore.storageservice.s3.S3Service;
+import ai.verta.modeldb.batchProcess.FolderHashAlgorithmMigration;
+import ai.verta.modeldb.batchProcess.KeyValueNumericMigration;
 import ai.verta.modeldb.comment.CommentServiceImpl;
 import ai.verta.modeldb.common.GracefulShutdown;
 import ai.verta.modeldb.common.authservice.AuthInterceptor;
@@ -28,6 +30,7 @@ import ai.verta.modeldb.reconcilers.ReconcilerInitializer;
 import ai.verta.modeldb.telemetry.TelemetryCron;
 import ai.verta.modeldb.utils.ModelDBHibernateUtil;
 import ai.verta.modeldb.utils.ModelDBUtils;
+import ai.verta.modeldb.utils.RdbmsUtils;
 import ai.verta.modeldb.versioning.FileHasher;
 import ai.verta.modeldb.versioning.VersioningServiceImpl;
 import io.grpc.BindableService;
@@ -179,14 +182,30 @@ public class App implements ApplicationContextAware {
       // Initialize database configuration and maybe run migration
       if (migrate(config)) return;
 
+      FileHasher.HashAlgorithm folderHashAlgorithm = config.folderHashAlgorithm;
+      if (folderHashAlgorithm == null) {
+        // Canonical hashes can be verified once the algorithm of every older folder is known
+        folderHashAlgorithm =
+            FolderHashAlgorithmMigration.isComplete()
+                ? FileHasher.HashAlgorithm.CANONICAL_SHA256
+                : FileHasher.HashAlgorithm.TEXT_SHA256;
+      }
+      LOGGER.info("Folder hash algorithm: {}", folderHashAlgorithm);
+      FileHasher.setDefaultAlgorithm(folderHashAlgorithm);
+
+      boolean numericKeyValuesMigrated = KeyValueNumericMigration.isComplete();
+      LOGGER.info("Number key values migrated to kv_value_num: {}", numericKeyValuesMigrated);
+      RdbmsUtils.setNumericKeyValuesMigrated(numericKeyValuesMigrated);
+
       // Configure server
       System.getProperties().put("server.port", config.springServer.port);
 
-      // Initialize services that we depend on
-      ServiceSet services = ServiceSet.fromConfig(config);
-
       // Initialize executor so we don't lose context using Futures
-      final Executor handleExecutor = FutureGrpc.initializeExecutor(config.grpcServer.threadCount);
+      final Executor handleExecutor =
+          FutureGrpc.initializeExecutor(config.grpcServer.threadCount, "handle");
+
+      // Initialize services that we depend on
+      ServiceSet services = ServiceSet.fromConfig(config, handleExecutor);
 
       // Initialize data access
       DAOSet daos = DAOSet.fromServices(services, config.getJdbi(), handleExecutor);
@@ -254,6 +273,12 @@ public class App implements ApplicationContextAware {
                     } catch (InterruptedException e) {
                       e.printStackTrace();
                     }
+                    daos.timestampAggregator.shutdown();
+                    try {
+                      ReconcilerInitializer.shutdown(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                      e.printStackTrace();
+                    }
                     System.err.println("*** Server Shutdown ***");
                   }));
 
@@ -281,12 +306,13 @@ public class App implements ApplicationContextAware {
     LOGGER.trace("Dataset serviceImpl initialized");
     wrapService(serverBuilder, new DatasetVersionServiceImpl(services, daos));
     LOGGER.trace("Dataset Version serviceImpl initialized");
-    wrapService(serverBuilder, new AdvancedServiceImpl(services, daos));
+    wrapService(serverBuilder, new AdvancedServiceImpl(services, daos, executor));
     LOGGER.trace("Hydrated serviceImpl initialized");
     wrapService(serverBuilder, new LineageServiceImpl(daos));
     LOGGER.trace("Lineage serviceImpl initialized");
 
-    wrapService(serverBuilder, new VersioningServiceImpl(services, daos, new FileHasher()));
+    wrapService(
+        serverBuilder, new VersioningServiceImpl(services, daos, new FileHasher(), executor));
     LOGGER.trace("Versioning serviceImpl initialized");
     wrapService(serverBuilder, new MetadataServiceImpl(daos));
     LOGGER.trace("Metadata serviceImpl initialized");
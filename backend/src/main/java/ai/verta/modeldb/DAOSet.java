@@ -19,6 +19,7 @@ import ai.verta.modeldb.experiment.ExperimentDAO;
 import ai.verta.modeldb.experiment.ExperimentDAORdbImpl;
 import ai.verta.modeldb.experimentRun.ExperimentRunDAO;
 import ai.verta.modeldb.experimentRun.ExperimentRunDAORdbImpl;
+import ai.verta.modeldb.experimentRun.ExperimentRunTimestampAggregator;
 import ai.verta.modeldb.experimentRun.FutureExperimentRunDAO;
 import ai.verta.modeldb.lineage.LineageDAO;
 import ai.verta.modeldb.lineage.LineageDAORdbImpl;
@@ -40,6 +41,7 @@ public class DAOSet {
   public DatasetVersionDAO datasetVersionDAO;
   public ExperimentDAO experimentDAO;
   public ExperimentRunDAO experimentRunDAO;
+  public ExperimentRunTimestampAggregator timestampAggregator;
   public FutureExperimentRunDAO futureExperimentRunDAO;
   public FutureProjectDAO futureProjectDAO;
   public LineageDAO lineageDAO;
@@ -59,6 +61,9 @@ public class DAOSet {
     set.blobDAO = new BlobDAORdbImpl(services.authService, services.roleService);
 
     set.experimentDAO = new ExperimentDAORdbImpl(services.authService, services.roleService);
+    // Shared by the run DAOs, and shut down with the server to write the pending timestamps
+    set.timestampAggregator = new ExperimentRunTimestampAggregator(jdbi);
+    set.timestampAggregator.start();
     set.experimentRunDAO =
         new ExperimentRunDAORdbImpl(
             services.authService,
@@ -66,12 +71,15 @@ public class DAOSet {
             set.repositoryDAO,
             set.commitDAO,
             set.blobDAO,
-            set.metadataDAO);
-    set.futureExperimentRunDAO = new FutureExperimentRunDAO(executor, jdbi, services.uac);
+            set.metadataDAO,
+            set.timestampAggregator);
+    set.futureExperimentRunDAO =
+        new FutureExperimentRunDAO(
+            executor, jdbi, services.futureRoleService, set.timestampAggregator);
     set.projectDAO =
         new ProjectDAORdbImpl(
             services.authService, services.roleService, set.experimentDAO, set.experimentRunDAO);
-    set.futureProjectDAO = new FutureProjectDAO(executor, jdbi, services.uac);
+    set.futureProjectDAO = new FutureProjectDAO(executor, jdbi, services.futureRoleService);
     if (services.artifactStoreService != null) {
       set.artifactStoreDAO = new ArtifactStoreDAORdbImpl(services.artifactStoreService);
     } else {
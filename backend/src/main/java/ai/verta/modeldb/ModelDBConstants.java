@@ -106,6 +106,7 @@ public interface ModelDBConstants {
   String SHORT_NAME = "short_name";
   String TAGS = "tags";
   String VALUE = "value";
+  String VALUE_NUM = "value_num";
   String WORKSPACE = "workspace";
   String WORKSPACE_ID = "workspace_id";
   String WORKSPACE_NAME = "workspace_name";
@@ -201,6 +202,9 @@ public interface ModelDBConstants {
       "Can't add new versioning entry, because an existing one has different repository or commit";
   String REPOSITORY_ENTITY = "repositoryEntity";
   String POPULATE_VERSION_MIGRATION = "POPULATE_VERSION_MIGRATION";
+  String FOLDER_HASH_ALGORITHM_MIGRATION = "FOLDER_HASH_ALGORITHM_MIGRATION";
+  String KEY_VALUE_NUMERIC_MIGRATION = "KEY_VALUE_NUMERIC_MIGRATION";
+  String COMMIT_GENERATION_MIGRATION = "COMMIT_GENERATION_MIGRATION";
 
   // Role name
   String ROLE_DATASET_CREATE = "DATASET_CREATE";
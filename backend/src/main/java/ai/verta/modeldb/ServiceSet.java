@@ -7,10 +7,15 @@ import ai.verta.modeldb.authservice.AuthServiceUtils;
 import ai.verta.modeldb.authservice.RoleService;
 import ai.verta.modeldb.authservice.RoleServiceUtils;
 import ai.verta.modeldb.common.authservice.AuthService;
+import ai.verta.modeldb.common.authservice.FutureAuthService;
+import ai.verta.modeldb.common.authservice.FutureAuthServiceUtils;
+import ai.verta.modeldb.common.authservice.FutureRoleService;
+import ai.verta.modeldb.common.authservice.FutureRoleServiceUtils;
 import ai.verta.modeldb.common.connections.UAC;
 import ai.verta.modeldb.common.exceptions.ModelDBException;
 import ai.verta.modeldb.config.Config;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.boot.SpringApplication;
@@ -22,13 +27,21 @@ public class ServiceSet {
   public AuthService authService;
   public UAC uac;
   public RoleService roleService;
+  // Non-blocking UAC clients, null if the auth service is not configured
+  public FutureAuthService futureAuthService;
+  public FutureRoleService futureRoleService;
   public App app;
 
-  public static ServiceSet fromConfig(Config config) throws IOException {
+  public static ServiceSet fromConfig(Config config, Executor executor) throws IOException {
     ServiceSet set = new ServiceSet();
     set.authService = AuthServiceUtils.FromConfig(config);
     set.uac = UAC.FromConfig(config);
     set.roleService = RoleServiceUtils.FromConfig(config, set.authService, set.uac);
+    if (set.uac != null) {
+      set.futureAuthService = new FutureAuthServiceUtils(set.uac, executor);
+      set.futureRoleService =
+          new FutureRoleServiceUtils(set.uac, executor, config.authService.uacBatchWindowMillis);
+    }
 
     // Initialize App.java singleton instance
     set.app = App.getInstance();
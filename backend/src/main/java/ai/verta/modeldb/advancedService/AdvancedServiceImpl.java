@@ -17,6 +17,7 @@ import ai.verta.modeldb.common.collaborator.CollaboratorBase;
 import ai.verta.modeldb.common.collaborator.CollaboratorOrg;
 import ai.verta.modeldb.common.collaborator.CollaboratorTeam;
 import ai.verta.modeldb.common.collaborator.CollaboratorUser;
+import ai.verta.modeldb.common.exceptions.ModelDBException;
 import ai.verta.modeldb.common.exceptions.NotFoundException;
 import ai.verta.modeldb.dataset.DatasetDAO;
 import ai.verta.modeldb.datasetVersion.DatasetVersionDAO;
@@ -35,15 +36,25 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Value;
 import io.grpc.Metadata;
 import io.grpc.stub.StreamObserver;
+import io.prometheus.client.Histogram;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class AdvancedServiceImpl extends HydratedServiceImplBase {
 
   private static final Logger LOGGER = LogManager.getLogger(AdvancedServiceImpl.class);
+  private static final Histogram hydrationStageLatency =
+      Histogram.build()
+          .labelNames("stage")
+          .name("verta_backend_hydration_stage_latency_seconds")
+          .help("Latency in seconds of each stage of experiment run hydration.")
+          .register();
   private final AuthService authService;
   private final RoleService roleService;
   private final ProjectDAO projectDAO;
@@ -52,8 +63,9 @@ public class AdvancedServiceImpl extends HydratedServiceImplBase {
   private final ExperimentDAO experimentDAO;
   private final DatasetDAO datasetDAO;
   private final DatasetVersionDAO datasetVersionDAO;
+  private final Executor executor;
 
-  public AdvancedServiceImpl(ServiceSet serviceSet, DAOSet daoSet) {
+  public AdvancedServiceImpl(ServiceSet serviceSet, DAOSet daoSet, Executor executor) {
     this.authService = serviceSet.authService;
     this.roleService = serviceSet.roleService;
     this.projectDAO = daoSet.projectDAO;
@@ -62,6 +74,7 @@ public class AdvancedServiceImpl extends HydratedServiceImplBase {
     this.experimentDAO = daoSet.experimentDAO;
     this.datasetDAO = daoSet.datasetDAO;
     this.datasetVersionDAO = daoSet.datasetVersionDAO;
+    this.executor = executor;
   }
 
   private List<HydratedProject> getHydratedProjects(List<Project> projects)
@@ -305,43 +318,82 @@ public class AdvancedServiceImpl extends HydratedServiceImplBase {
     Set<String> experimentIdSet = new HashSet<>();
     Set<String> vertaIdList = new HashSet<>();
     Set<String> projectIdSet = new HashSet<>();
+    List<String> experimentRunIds = new ArrayList<>();
     for (ExperimentRun experimentRun : experimentRuns) {
       vertaIdList.add(experimentRun.getOwner());
       experimentIdSet.add(experimentRun.getExperimentId());
       projectIdSet.add(experimentRun.getProjectId());
-    }
-
-    Map<String, Actions> actions = new HashMap<>();
-    if (projectIdSet.size() > 0) {
-      actions =
-          roleService.getSelfAllowedActionsBatch(
-              new ArrayList<>(projectIdSet), ModelDBServiceResourceTypes.PROJECT);
+      experimentRunIds.add(experimentRun.getId());
     }
 
     LOGGER.trace("vertaIdList {}", vertaIdList);
     LOGGER.trace("experimentIdSet {}", experimentIdSet);
-    // Fetch the experiment list
-    List<String> experimentIds = new ArrayList<>(experimentIdSet);
-    LOGGER.trace("experimentIds {}", experimentIds);
-    List<Experiment> experimentList = new ArrayList<>();
-    if (!experimentIds.isEmpty()) {
-      experimentList = experimentDAO.getExperimentsByBatchIds(experimentIds);
-    }
+    // Fetch the experiment list and the experimentRun owners userInfo while the comments and the
+    // actions are fetched
+    FutureTask<List<Experiment>> experimentsStage =
+        startHydrationStage(
+            "experiments",
+            () -> {
+              if (experimentIdSet.isEmpty()) {
+                return Collections.emptyList();
+              }
+              return experimentDAO.getExperimentsByBatchIds(new ArrayList<>(experimentIdSet));
+            });
+    FutureTask<Map<String, UserInfo>> ownersStage =
+        startHydrationStage(
+            "owners", () -> authService.getUserInfoFromAuthServer(vertaIdList, null, null));
+
+    Map<String, List<Comment>> commentMap =
+        timeHydrationStage(
+            "comments",
+            () ->
+                commentDAO.getComments(
+                    ExperimentRunEntity.class.getSimpleName(), experimentRunIds));
+
+    // key: project.id, value: allowed actions of the current user on the project
+    Map<String, List<Action>> projectActionsMap =
+        timeHydrationStage(
+            "actions",
+            () -> {
+              Map<String, List<Action>> actionsMap = new HashMap<>();
+              if (!projectIdSet.isEmpty()) {
+                Map<String, Actions> actions =
+                    roleService.getSelfAllowedActionsBatch(
+                        new ArrayList<>(projectIdSet), ModelDBServiceResourceTypes.PROJECT);
+                for (String projectId : projectIdSet) {
+                  actionsMap.put(
+                      projectId,
+                      actions.containsKey(projectId)
+                          ? actions.get(projectId).getActionsList()
+                          : ModelDBUtils.getActionsList(new ArrayList<>(projectIdSet), actions));
+                }
+              }
+              return actionsMap;
+            });
+
+    List<Experiment> experimentList = joinHydrationStage(experimentsStage);
     LOGGER.trace("experimentList {}", experimentList);
     // key: experiment.id, value: experiment
     Map<String, Experiment> experimentMap = new HashMap<>();
     for (Experiment experiment : experimentList) {
       experimentMap.put(experiment.getId(), experiment);
     }
-
-    // Fetch the experimentRun owners userInfo
-    Map<String, UserInfo> userInfoMap =
-        authService.getUserInfoFromAuthServer(vertaIdList, null, null);
+    Map<String, UserInfo> userInfoMap = joinHydrationStage(ownersStage);
 
     List<HydratedExperimentRun> hydratedExperimentRuns = new LinkedList<>();
     LOGGER.trace("hydrating experiments");
     String currentUserVertaID =
         authService.getVertaIdFromUserInfo(authService.getCurrentLoginUserInfo());
+    Action deleteAction =
+        Action.newBuilder()
+            .setModeldbServiceAction(ModelDBServiceActions.DELETE)
+            .setService(Service.MODELDB_SERVICE)
+            .build();
+    Action updateAction =
+        Action.newBuilder()
+            .setModeldbServiceAction(ModelDBServiceActions.UPDATE)
+            .setService(Service.MODELDB_SERVICE)
+            .build();
     for (ExperimentRun experimentRun : experimentRuns) {
 
       HydratedExperimentRun.Builder hydratedExperimentRunBuilder =
@@ -353,33 +405,20 @@ public class AdvancedServiceImpl extends HydratedServiceImplBase {
         hydratedExperimentRunBuilder.setOwnerUserInfo(userInfoValue);
         // Add Comments in hydrated data
         List<Comment> comments =
-            commentDAO.getComments(
-                ExperimentRunEntity.class.getSimpleName(), experimentRun.getId());
+            commentMap.getOrDefault(experimentRun.getId(), Collections.emptyList());
         LOGGER.trace("comments {}", comments);
         hydratedExperimentRunBuilder.addAllComments(comments);
 
         List<Action> actionList =
-            ModelDBUtils.getActionsList(new ArrayList<>(projectIdSet), actions);
-        LOGGER.info("actionList {}", actionList);
-        Action deleteAction =
-            Action.newBuilder()
-                .setModeldbServiceAction(ModelDBServiceActions.DELETE)
-                .setService(Service.MODELDB_SERVICE)
-                .build();
-        Action updateAction =
-            Action.newBuilder()
-                .setModeldbServiceAction(ModelDBServiceActions.UPDATE)
-                .setService(Service.MODELDB_SERVICE)
-                .build();
-        LOGGER.info(
-            "roleService.isCurrentUser(experimentRun.getOwner() {}",
-            authService.isCurrentUser(experimentRun.getOwner()));
+            new ArrayList<>(
+                projectActionsMap.getOrDefault(
+                    experimentRun.getProjectId(), Collections.emptyList()));
         if (currentUserVertaID.equalsIgnoreCase(experimentRun.getOwner())
             && !actionList.contains(deleteAction)
             && actionList.contains(updateAction)) {
           actionList.add(deleteAction);
         }
-        LOGGER.info("actionList {}", actionList);
+        LOGGER.trace("actionList {}", actionList);
         // Add user specific actions
         hydratedExperimentRunBuilder.addAllAllowedActions(actionList);
       } else {
@@ -402,6 +441,50 @@ public class AdvancedServiceImpl extends HydratedServiceImplBase {
     return hydratedExperimentRuns;
   }
 
+  /**
+   * Starts a hydration stage on the executor. {@link FutureTask#run()} does nothing once the task
+   * has started, so {@link #joinHydrationStage} runs the stage in the calling thread if no executor
+   * thread has picked it up yet, and requests waiting on a saturated executor cannot block it.
+   */
+  private <T> FutureTask<T> startHydrationStage(String stage, Callable<T> callable) {
+    FutureTask<T> task = new FutureTask<>(() -> timeHydrationStage(stage, callable));
+    executor.execute(task);
+    return task;
+  }
+
+  private static <T> T joinHydrationStage(FutureTask<T> task)
+      throws InvalidProtocolBufferException {
+    task.run();
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ModelDBException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof InvalidProtocolBufferException) {
+        throw (InvalidProtocolBufferException) cause;
+      }
+      throw new ModelDBException(cause);
+    }
+  }
+
+  private static <T> T timeHydrationStage(String stage, Callable<T> callable)
+      throws InvalidProtocolBufferException {
+    Histogram.Timer timer = hydrationStageLatency.labels(stage).startTimer();
+    try {
+      return callable.call();
+    } catch (RuntimeException | InvalidProtocolBufferException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ModelDBException(e);
+    } finally {
+      timer.observeDuration();
+    }
+  }
+
   @Override
   public void getHydratedExperimentRunById(
       GetHydratedExperimentRunById request,
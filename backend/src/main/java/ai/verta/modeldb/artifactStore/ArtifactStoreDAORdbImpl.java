@@ -49,7 +49,9 @@ public class ArtifactStoreDAORdbImpl implements ArtifactStoreDAO {
             artifactStoreService.generatePresignedUrl(s3Key, method, partNumber, uploadId);
         return GetUrlForArtifact.Response.newBuilder()
             .setMultipartUploadOk(
-                config.artifactStoreConfig.artifactStoreType.equals(ModelDBConstants.S3)
+                (config.artifactStoreConfig.artifactStoreType.equals(ModelDBConstants.S3)
+                        || config.artifactStoreConfig.artifactStoreType.equals(
+                            ModelDBConstants.NFS))
                     && uploadId != null)
             .setUrl(presignedUrl)
             .build();
@@ -7,35 +7,63 @@ import com.google.rpc.Status;
 import io.grpc.protobuf.StatusProto;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 public class NFSController {
 
   private static final Logger LOGGER = LogManager.getLogger(NFSController.class);
+  // Request attributes of Tomcat's sendfile support
+  private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_FILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_FILE_END_ATTR = "org.apache.tomcat.sendfile.end";
 
   @Autowired private NFSService nfsService;
 
   @PutMapping(value = {"${artifactEndpoint.storeArtifact}"})
   public UploadFileResponse storeArtifact(
-      HttpServletRequest requestEntity, @RequestParam("artifact_path") String artifactPath)
+      HttpServletRequest requestEntity,
+      HttpServletResponse response,
+      @RequestParam("artifact_path") String artifactPath,
+      @RequestParam(value = "part_number", required = false) Long partNumber,
+      @RequestParam(value = "upload_id", required = false) String uploadId)
       throws ModelDBException, IOException {
     try {
       InputStream inputStream = requestEntity.getInputStream();
+      if (partNumber != null && partNumber != 0 && uploadId != null && !uploadId.isEmpty()) {
+        String eTag =
+            nfsService.storePart(artifactPath, uploadId, partNumber, inputStream, requestEntity);
+        LOGGER.trace("storeArtifact - part {} eTag : {}", partNumber, eTag);
+        response.addHeader(HttpHeaders.ETAG, eTag);
+        LOGGER.debug("storeArtifact returned");
+        return new UploadFileResponse(artifactPath, null, null, -1L, eTag);
+      }
       String fileName = nfsService.storeFile(artifactPath, inputStream, requestEntity);
       LOGGER.trace("storeArtifact - file name : {}", fileName);
       LOGGER.debug("storeArtifact returned");
@@ -54,41 +82,148 @@ public class NFSController {
   }
 
   @GetMapping(value = {"${artifactEndpoint.getArtifact}/{FileName}"})
-  public ResponseEntity<Resource> getArtifact(
+  public void getArtifact(
       @PathVariable(value = ModelDBConstants.FILENAME) String fileName,
       @RequestParam("artifact_path") String artifactPath,
-      HttpServletRequest request)
-      throws ModelDBException {
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+    Path filePath;
+    BasicFileAttributes attributes;
     try {
-      // Load file as Resource
-      Resource resource = nfsService.loadFileAsResource(artifactPath);
+      filePath = nfsService.loadFile(artifactPath);
+      attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+    } catch (ModelDBException | NoSuchFileException e) {
+      LOGGER.info(e.getMessage(), e);
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+    long fileSize = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    String eTag = getETag(fileSize, lastModified);
+
+    // Sets ETag and Last-Modified, and answers If-None-Match and If-Modified-Since with 304 or
+    // If-Unmodified-Since with 412
+    if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+      LOGGER.debug("getArtifact returned without content, status {}", response.getStatus());
+      return;
+    }
+
+    // Try to determine file's content type
+    String contentType = getContentType(request, filePath);
 
-      // Try to determine file's content type
-      String contentType = getContentType(request, resource);
+    // Fallback to the default content type if type could not be determined
+    if (contentType == null) {
+      contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+    LOGGER.trace("getArtifact - file content type : {}", contentType);
+
+    response.setContentType(contentType);
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"" + filePath.getFileName() + "\"");
+    response.setHeader(ModelDBConstants.FILENAME, fileName);
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
 
-      // Fallback to the default content type if type could not be determined
-      if (contentType == null) {
-        contentType = "application/octet-stream";
+    long start = 0;
+    long end = fileSize - 1;
+    HttpRange range = getRange(request, eTag, lastModified);
+    if (range != null) {
+      start = range.getRangeStart(fileSize);
+      end = range.getRangeEnd(fileSize);
+      if (start >= fileSize || start > end) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+        response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        return;
+      }
+      response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+      response.setHeader(
+          HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+    }
+    response.setContentLengthLong(end - start + 1);
+    if (HttpMethod.HEAD.matches(request.getMethod())) {
+      return;
+    }
+
+    sendFile(filePath, start, end - start + 1, request, response);
+    LOGGER.debug("getArtifact returned");
+  }
+
+  /**
+   * Returns the ETag of an artifact file. It only depends on the size and modification time of the
+   * file, so every backend serving the same NFS volume returns the same ETag for it.
+   */
+  static String getETag(long fileSize, long lastModified) {
+    return "\"" + Long.toHexString(fileSize) + "-" + Long.toHexString(lastModified) + "\"";
+  }
+
+  /**
+   * Returns the single byte range requested, or null if the whole file must be sent: without a
+   * Range header, with an invalid one, with several ranges or when If-Range does not match the
+   * current file.
+   */
+  private HttpRange getRange(HttpServletRequest request, String eTag, long lastModified) {
+    String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+    if (rangeHeader == null) {
+      return null;
+    }
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    if (ifRange != null && !ifRange.equals(eTag)) {
+      if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+        return null;
+      }
+      try {
+        // HTTP dates have a precision of seconds
+        if (request.getDateHeader(HttpHeaders.IF_RANGE) != lastModified / 1000 * 1000) {
+          return null;
+        }
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+    try {
+      List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+      return ranges.size() == 1 ? ranges.get(0) : null;
+    } catch (IllegalArgumentException e) {
+      LOGGER.debug("Ignoring invalid range header {}", rangeHeader);
+      return null;
+    }
+  }
+
+  /**
+   * Sends {@code length} bytes of the file from {@code position} without copying them through the
+   * heap: through Tomcat's sendfile when the connector supports it, and with {@link
+   * FileChannel#transferTo} otherwise.
+   */
+  private void sendFile(
+      Path filePath,
+      long position,
+      long length,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+    if (length > 0 && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+      request.setAttribute(SENDFILE_FILENAME_ATTR, filePath.toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_FILE_START_ATTR, position);
+      request.setAttribute(SENDFILE_FILE_END_ATTR, position + length);
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+      while (length > 0) {
+        long transferred = channel.transferTo(position, length, target);
+        if (transferred <= 0) {
+          // The file was truncated since its size was read
+          throw new IOException("Artifact file ended before the requested range");
+        }
+        position += transferred;
+        length -= transferred;
       }
-      LOGGER.trace("getArtifact - file content type : {}", contentType);
-
-      LOGGER.debug("getArtifact returned");
-      return ResponseEntity.ok()
-          .contentType(MediaType.parseMediaType(contentType))
-          .header(
-              HttpHeaders.CONTENT_DISPOSITION,
-              "attachment; filename=\"" + resource.getFilename() + "\"")
-          .header(ModelDBConstants.FILENAME, fileName)
-          .body(resource);
-    } catch (ModelDBException e) {
-      LOGGER.info(e.getMessage(), e);
-      throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
     }
   }
 
-  public String getContentType(HttpServletRequest request, Resource resource) {
+  public String getContentType(HttpServletRequest request, Path filePath) {
     try {
-      return request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
+      return request.getServletContext().getMimeType(filePath.toAbsolutePath().toString());
     } catch (Exception ex) {
       LOGGER.info("Could not determine file type.");
       return null;
@@ -11,21 +11,39 @@ import ai.verta.modeldb.utils.TrialUtils;
 import com.amazonaws.services.s3.model.PartETag;
 import com.google.api.client.util.IOUtils;
 import com.google.rpc.Code;
+import io.grpc.Status;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -33,9 +51,41 @@ import org.springframework.util.StringUtils;
 public class NFSService implements ArtifactStoreService {
 
   private static final Logger LOGGER = LogManager.getLogger(NFSService.class);
+  // Directory under the root holding the parts of multipart uploads until they are committed. It
+  // is on the same file system as the artifacts, so committed files are renamed into place. It is
+  // not a valid artifact path, so staged parts are never served or overwritten as artifacts.
+  private static final String MULTIPART_STAGING_DIRECTORY = ".multipart";
+  private static final String PART_FILE_PREFIX = "part-";
+  private static final String COMMITTED_FILE_NAME = "committed";
+  private static final String LOCK_FILE_NAME = "lock";
+  // Suffix of upload directories being removed. It is not an upload id, so they are never found.
+  private static final String REMOVED_SUFFIX = ".removed";
+  private static final long MULTIPART_CLEANUP_PERIOD_MINUTES = 60;
+  private static final int MAX_PART_NUMBER = 10000;
+  private static final int PART_COPY_BUFFER_SIZE = 1024 * 1024;
+
   private final Path fileStorageLocation;
+  private final Path multipartStagingLocation;
   private App app = App.getInstance();
   private Config config = Config.getInstance();
+  private final ExecutorService multipartCommitExecutor =
+      Executors.newFixedThreadPool(
+          config.artifactStoreConfig.NFS.multipartCommitThreadCount,
+          runnable -> {
+            Thread thread = new Thread(runnable, "nfs-multipart-commit");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private final ScheduledExecutorService multipartCleanupExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "nfs-multipart-cleanup");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // Lock of each upload being committed or removed by this backend. A file lock is only held once
+  // per process, so the threads of one backend take this lock before the file lock of the upload.
+  private final Map<String, Object> multipartCommitLocks = new ConcurrentHashMap<>();
 
   /**
    * Create NFS service bean by springBoot and create root folder if not exists
@@ -48,6 +98,7 @@ public class NFSService implements ArtifactStoreService {
     LOGGER.trace("NFSService constructor called");
     this.fileStorageLocation =
         Paths.get(fileStorageProperties.getUploadDir()).toAbsolutePath().normalize();
+    this.multipartStagingLocation = this.fileStorageLocation.resolve(MULTIPART_STAGING_DIRECTORY);
     LOGGER.trace("NFSService root directory : {}", this.fileStorageLocation);
 
     try {
@@ -57,12 +108,17 @@ public class NFSService implements ArtifactStoreService {
       } else {
         LOGGER.trace("NFS root directory already exists");
       }
+      Files.createDirectories(this.multipartStagingLocation);
     } catch (Exception ex) {
       String errorMessage =
           "Could not create the directory where the uploaded files will be stored.";
       LOGGER.warn(errorMessage, ex);
       throw new ModelDBException(errorMessage, ex);
     }
+    if (config.artifactStoreConfig.NFS.multipartUploadExpiryHours > 0) {
+      multipartCleanupExecutor.scheduleAtFixedRate(
+          this::removeExpiredUploads, 0, MULTIPART_CLEANUP_PERIOD_MINUTES, TimeUnit.MINUTES);
+    }
     LOGGER.trace("NFSService constructor returned");
   }
 
@@ -83,19 +139,10 @@ public class NFSService implements ArtifactStoreService {
     TrialUtils.validateArtifactSizeForTrial(config.trial, artifactPath, request.getContentLength());
 
     try {
-      String cleanArtifactPath = StringUtils.cleanPath(Objects.requireNonNull(artifactPath));
-      String[] folders = cleanArtifactPath.split("/");
-
-      StringBuilder folderPath = new StringBuilder();
-      for (int i = 0; i < folders.length - 1; i++) {
-        folderPath.append(folders[i]);
-        folderPath.append(File.separator);
-      }
-      LOGGER.trace("NFSService - storeFile - folder path : {}", folderPath.toString());
+      File destinationFile = resolveArtifactPath(artifactPath).toFile();
 
       // Copy file to the target location (Replacing existing file with the same name)
-      File foldersExists =
-          new File(this.fileStorageLocation + File.separator + folderPath.toString());
+      File foldersExists = destinationFile.getParentFile();
       if (!foldersExists.exists()) {
         boolean folderCreatingStatus = foldersExists.mkdirs();
         LOGGER.trace(
@@ -105,20 +152,23 @@ public class NFSService implements ArtifactStoreService {
       }
       LOGGER.trace("NFSService - storeFile -  folders found : {}", foldersExists.getAbsolutePath());
 
-      File destinationFile =
-          new File(this.fileStorageLocation + File.separator + cleanArtifactPath);
-      if (!destinationFile.exists()) {
-        boolean destFileCreatingStatus = destinationFile.createNewFile();
-        LOGGER.trace(
-            "NFSService - storeFile - file created : {}, Path: {}",
-            destFileCreatingStatus,
-            destinationFile.getAbsolutePath());
+      // Write next to the destination and rename, so readers never see a partial file
+      Path tempFile =
+          Files.createTempFile(foldersExists.toPath(), "." + destinationFile.getName(), ".tmp");
+      try {
+        try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile.toFile())) {
+          IOUtils.copy(uploadedFileInputStream, fileOutputStream);
+          fileOutputStream.getFD().sync();
+        }
+        uploadedFileInputStream.close();
+        Files.move(
+            tempFile,
+            destinationFile.toPath(),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        deleteQuietly(tempFile);
       }
-      LOGGER.trace("NFSService - storeFile -  file found : {}", foldersExists.getAbsolutePath());
-      FileOutputStream fileOutputStream = new FileOutputStream(destinationFile);
-      IOUtils.copy(uploadedFileInputStream, fileOutputStream);
-      fileOutputStream.close();
-      uploadedFileInputStream.close();
       LOGGER.trace(
           "NFSService - storeFile - file stored successfully, target location : {}",
           destinationFile.getAbsolutePath());
@@ -132,40 +182,57 @@ public class NFSService implements ArtifactStoreService {
   }
 
   /**
-   * Return File resource for getDownloadArtifact
+   * Resolve an artifact path under the root folder. Paths escaping the root folder or reaching into
+   * the multipart staging directory are rejected.
    *
    * @param artifactPath : artifact path
-   * @return {@link Resource} : File data as a resource for download
+   * @return {@link Path} : absolute path of the artifact file
    * @throws ModelDBException ModelDBException
    */
-  Resource loadFileAsResource(String artifactPath) throws ModelDBException {
-    LOGGER.trace("NFSService - loadFileAsResource called");
-    try {
-      Path filePath = this.fileStorageLocation.resolve(artifactPath).normalize();
-      Resource resource = new UrlResource(filePath.toUri());
-      if (resource.exists()) {
-        LOGGER.trace("NFSService - loadFileAsResource - resource exists");
-        LOGGER.trace("NFSService - loadFileAsResource returned");
-        return resource;
-      } else {
-        String errorMessage = "File not found " + artifactPath;
-        LOGGER.warn(errorMessage);
-        throw new ModelDBException(errorMessage);
-      }
-    } catch (MalformedURLException | ModelDBException ex) {
-      String errorMessage = "File not found " + artifactPath;
-      LOGGER.warn(errorMessage, ex);
-      throw new ModelDBException(errorMessage, ex);
+  private Path resolveArtifactPath(String artifactPath) throws ModelDBException {
+    Path filePath =
+        this.fileStorageLocation
+            .resolve(StringUtils.cleanPath(Objects.requireNonNull(artifactPath)))
+            .normalize();
+    if (filePath.equals(this.fileStorageLocation)
+        || !filePath.startsWith(this.fileStorageLocation)
+        || filePath.startsWith(this.multipartStagingLocation)) {
+      throw new ModelDBException("Invalid artifact path " + artifactPath, Code.INVALID_ARGUMENT);
     }
+    return filePath;
   }
 
-  private String generatePresignedUrl(String artifactPath, String method) {
+  /**
+   * Return the artifact file for getDownloadArtifact
+   *
+   * @param artifactPath : artifact path
+   * @return {@link Path} : path of the file to download
+   * @throws ModelDBException ModelDBException
+   */
+  Path loadFile(String artifactPath) throws ModelDBException {
+    LOGGER.trace("NFSService - loadFile called");
+    Path filePath = resolveArtifactPath(artifactPath);
+    if (Files.isRegularFile(filePath)) {
+      LOGGER.trace("NFSService - loadFile returned");
+      return filePath;
+    }
+    String errorMessage = "File not found " + artifactPath;
+    LOGGER.warn(errorMessage);
+    throw new ModelDBException(errorMessage);
+  }
+
+  private String generatePresignedUrl(
+      String artifactPath, String method, long partNumber, String uploadId) {
     LOGGER.trace("NFSService - generatePresignedUrl called");
     Map<String, Object> parameters = new HashMap<>();
     parameters.put("artifact_path", artifactPath);
 
     if (method.equalsIgnoreCase(ModelDBConstants.PUT)) {
       LOGGER.trace("NFSService - generatePresignedUrl - put url returned");
+      if (partNumber != 0 && uploadId != null) {
+        parameters.put("part_number", partNumber);
+        parameters.put("upload_id", uploadId);
+      }
       return getUploadUrl(
           parameters,
           config.artifactStoreConfig.protocol,
@@ -188,9 +255,87 @@ public class NFSService implements ArtifactStoreService {
     }
   }
 
+  /**
+   * Start a multipart upload by creating its staging directory. Parts of the upload are stored in
+   * it by {@link #storePart} and copied into the artifact file by {@link #commitMultipart}.
+   *
+   * @param artifactPath : artifact path
+   * @return {@link Optional} : upload id of the multipart upload
+   * @throws ModelDBException ModelDBException
+   */
   @Override
-  public Optional<String> initiateMultipart(String s3Key) {
-    return Optional.empty();
+  public Optional<String> initiateMultipart(String artifactPath) throws ModelDBException {
+    resolveArtifactPath(artifactPath);
+    String uploadId = UUID.randomUUID().toString();
+    try {
+      Files.createDirectories(this.multipartStagingLocation.resolve(uploadId));
+    } catch (IOException ex) {
+      String errorMessage = "Could not initiate multipart upload for " + artifactPath;
+      LOGGER.warn(errorMessage, ex);
+      throw new ModelDBException(errorMessage, ex);
+    }
+    LOGGER.debug("NFSService - multipart upload {} initiated for {}", uploadId, artifactPath);
+    return Optional.of(uploadId);
+  }
+
+  /**
+   * Store a part of a multipart upload in the staging directory of the upload. The part is written
+   * to a temporary file and renamed once complete, so an interrupted upload never leaves a
+   * truncated part, and uploading a part again replaces it. Parts are independent files, so they
+   * can be uploaded concurrently.
+   *
+   * @param artifactPath : artifact path
+   * @param uploadId : upload id returned by {@link #initiateMultipart}
+   * @param partNumber : part number, from 1
+   * @param uploadedFileInputStream : uploaded part input stream
+   * @return {@link String} : ETag of the part, the hex MD5 of its content
+   * @throws ModelDBException ModelDBException
+   */
+  String storePart(
+      String artifactPath,
+      String uploadId,
+      long partNumber,
+      InputStream uploadedFileInputStream,
+      HttpServletRequest request)
+      throws ModelDBException {
+    LOGGER.trace("NFSService - storePart called");
+
+    // Validate Artifact size for trial case
+    TrialUtils.validateArtifactSizeForTrial(config.trial, artifactPath, request.getContentLength());
+
+    if (partNumber < 1 || partNumber > MAX_PART_NUMBER) {
+      throw new ModelDBException(
+          "Part number must be between 1 and " + MAX_PART_NUMBER, Code.INVALID_ARGUMENT);
+    }
+    Path uploadDirectory = getUploadDirectory(uploadId);
+    Path tempFile = null;
+    try {
+      tempFile = Files.createTempFile(uploadDirectory, PART_FILE_PREFIX + partNumber + "-", ".tmp");
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+          ReadableByteChannel source =
+              Channels.newChannel(new DigestInputStream(uploadedFileInputStream, digest))) {
+        long position = 0;
+        long transferred;
+        while ((transferred = channel.transferFrom(source, position, PART_COPY_BUFFER_SIZE)) > 0) {
+          position += transferred;
+        }
+        channel.force(true);
+      }
+      Files.move(
+          tempFile,
+          uploadDirectory.resolve(PART_FILE_PREFIX + partNumber),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      LOGGER.trace("NFSService - storePart - part {} of upload {} stored", partNumber, uploadId);
+      return Hex.encodeHexString(digest.digest());
+    } catch (IOException | NoSuchAlgorithmException ex) {
+      String errorMessage = "Could not store part " + partNumber + ". Please try again!";
+      LOGGER.warn(errorMessage, ex);
+      throw new ModelDBException(errorMessage, ex);
+    } finally {
+      deleteQuietly(tempFile);
+    }
   }
 
   @Override
@@ -199,31 +344,303 @@ public class NFSService implements ArtifactStoreService {
       throws ModelDBException {
     return GetUrlForArtifact.Response.newBuilder()
         .setMultipartUploadOk(false)
-        .setUrl(generatePresignedUrl(artifactPath, method))
+        .setUrl(generatePresignedUrl(artifactPath, method, 0, null))
         .build();
   }
 
   @Override
   public String generatePresignedUrl(
       String artifactPath, String method, long partNumber, String uploadId) {
-    return generatePresignedUrl(artifactPath, method);
+    return generatePresignedUrl(artifactPath, method, partNumber, uploadId);
   }
 
+  /**
+   * Complete a multipart upload. The parts are copied concurrently into one file of the staging
+   * directory with positional writes, each part is checked against the MD5 ETag committed for it,
+   * and the file is then renamed to the artifact path. A commit that fails leaves the parts in
+   * place, so it can be retried. Commits of the same upload run one at a time, also across backends
+   * sharing the file system, as they hold a lock on a file of the upload directory. A commit
+   * waiting for another one that succeeded finds the upload gone.
+   *
+   * @param artifactPath : artifact path
+   * @param uploadId : upload id returned by {@link #initiateMultipart}
+   * @param partETags : part numbers and ETags returned by {@link #storePart}
+   * @throws ModelDBException ModelDBException
+   */
   @Override
-  public void commitMultipart(String s3Path, String uploadId, List<PartETag> partETags)
+  public void commitMultipart(String artifactPath, String uploadId, List<PartETag> partETags)
       throws ModelDBException {
-    throw new ModelDBException("Not supported by NFS", Code.FAILED_PRECONDITION);
+    LOGGER.trace("NFSService - commitMultipart called");
+    if (partETags.isEmpty()) {
+      throw new ModelDBException("No part committed for the upload", Code.FAILED_PRECONDITION);
+    }
+    Path destination = resolveArtifactPath(artifactPath);
+    while (true) {
+      Object lock = multipartCommitLocks.computeIfAbsent(uploadId, id -> new Object());
+      synchronized (lock) {
+        // The lock may have been released by a commit that finished while we were waiting
+        if (multipartCommitLocks.get(uploadId) != lock) {
+          continue;
+        }
+        try {
+          withUploadLock(
+              uploadId,
+              uploadDirectory -> commitParts(destination, uploadDirectory, partETags));
+        } finally {
+          multipartCommitLocks.remove(uploadId, lock);
+        }
+      }
+      LOGGER.trace("NFSService - commitMultipart returned");
+      return;
+    }
+  }
+
+  private interface UploadLockAction {
+    void run(Path uploadDirectory) throws ModelDBException, IOException;
+  }
+
+  /**
+   * Runs {@code action} while holding the file lock of the upload, and throws NOT_FOUND if the
+   * upload was committed or removed before the lock was taken. Must be called with the lock of the
+   * upload in {@link #multipartCommitLocks}.
+   */
+  private void withUploadLock(String uploadId, UploadLockAction action) throws ModelDBException {
+    Path uploadDirectory = getUploadDirectory(uploadId);
+    try (FileChannel lockChannel =
+            FileChannel.open(
+                uploadDirectory.resolve(LOCK_FILE_NAME),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock ignored = lockChannel.lock()) {
+      // The backend holding the lock before moved the upload directory away when it was done
+      getUploadDirectory(uploadId);
+      action.run(uploadDirectory);
+    } catch (NoSuchFileException ex) {
+      throw new ModelDBException(
+          "Multipart upload " + uploadId + " not found or already committed", Code.NOT_FOUND);
+    } catch (IOException ex) {
+      String errorMessage = "Could not lock multipart upload. Please try again!";
+      LOGGER.warn(errorMessage, ex);
+      throw new ModelDBException(errorMessage, ex);
+    }
+  }
+
+  private void commitParts(Path destination, Path uploadDirectory, List<PartETag> partETags)
+      throws ModelDBException {
+    List<PartETag> sortedPartETags = new ArrayList<>(partETags);
+    sortedPartETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+
+    try {
+      // Offsets of the parts in the artifact file
+      long[] offsets = new long[sortedPartETags.size()];
+      long offset = 0;
+      for (int i = 0; i < sortedPartETags.size(); i++) {
+        Path partFile = getPartFile(uploadDirectory, sortedPartETags.get(i).getPartNumber());
+        offsets[i] = offset;
+        offset += Files.size(partFile);
+      }
+
+      Path committedFile = uploadDirectory.resolve(COMMITTED_FILE_NAME);
+      try (FileChannel target =
+          FileChannel.open(
+              committedFile,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        List<Future<?>> copies = new ArrayList<>();
+        for (int i = 0; i < sortedPartETags.size(); i++) {
+          PartETag partETag = sortedPartETags.get(i);
+          long partOffset = offsets[i];
+          copies.add(
+              multipartCommitExecutor.submit(
+                  () -> {
+                    copyPart(uploadDirectory, partETag, target, partOffset);
+                    return null;
+                  }));
+        }
+        try {
+          for (Future<?> copy : copies) {
+            copy.get();
+          }
+        } catch (ExecutionException ex) {
+          copies.forEach(copy -> copy.cancel(true));
+          if (ex.getCause() instanceof ModelDBException) {
+            throw (ModelDBException) ex.getCause();
+          }
+          throw new ModelDBException(ex.getCause().getMessage(), ex.getCause());
+        }
+        target.force(true);
+      }
+
+      Files.createDirectories(destination.getParent());
+      Files.move(
+          committedFile,
+          destination,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      LOGGER.debug(
+          "NFSService - multipart upload {} committed to {}",
+          uploadDirectory.getFileName(),
+          destination);
+    } catch (IOException ex) {
+      String errorMessage = "Could not commit multipart upload. Please try again!";
+      LOGGER.warn(errorMessage, ex);
+      throw new ModelDBException(errorMessage, ex);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ModelDBException(ex.getMessage(), Code.INTERNAL);
+    }
+
+    try {
+      removeUploadDirectory(uploadDirectory);
+    } catch (IOException ex) {
+      // The artifact is committed, the upload is removed once expired
+      LOGGER.warn("Could not remove multipart upload directory " + uploadDirectory, ex);
+    }
+  }
+
+  // Copies a part into the artifact file at its offset, computing its MD5 on the way
+  private void copyPart(Path uploadDirectory, PartETag partETag, FileChannel target, long offset)
+      throws ModelDBException, IOException, NoSuchAlgorithmException {
+    MessageDigest digest = MessageDigest.getInstance("MD5");
+    ByteBuffer buffer = ByteBuffer.allocateDirect(PART_COPY_BUFFER_SIZE);
+    Path partFile = getPartFile(uploadDirectory, partETag.getPartNumber());
+    try (FileChannel source = FileChannel.open(partFile, StandardOpenOption.READ)) {
+      long position = offset;
+      while (source.read(buffer) >= 0) {
+        buffer.flip();
+        digest.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+          position += target.write(buffer, position);
+        }
+        buffer.clear();
+      }
+    }
+    String eTag = Hex.encodeHexString(digest.digest());
+    if (!eTag.equals(partETag.getETag().replace("\"", ""))) {
+      throw new ModelDBException(
+          "Part " + partETag.getPartNumber() + " does not match its committed ETag",
+          Code.FAILED_PRECONDITION);
+    }
+  }
+
+  private Path getUploadDirectory(String uploadId) throws ModelDBException {
+    // Upload ids are UUIDs, which also keeps the path inside the staging directory
+    boolean validUploadId;
+    try {
+      validUploadId = uploadId != null && UUID.fromString(uploadId).toString().equals(uploadId);
+    } catch (IllegalArgumentException ex) {
+      validUploadId = false;
+    }
+    if (!validUploadId) {
+      throw new ModelDBException("Invalid upload id " + uploadId, Code.INVALID_ARGUMENT);
+    }
+    Path uploadDirectory = this.multipartStagingLocation.resolve(uploadId);
+    if (!Files.isDirectory(uploadDirectory)) {
+      throw new ModelDBException(
+          "Multipart upload " + uploadId + " not found or already committed", Code.NOT_FOUND);
+    }
+    return uploadDirectory;
+  }
+
+  private Path getPartFile(Path uploadDirectory, int partNumber) throws ModelDBException {
+    Path partFile = uploadDirectory.resolve(PART_FILE_PREFIX + partNumber);
+    if (!Files.isRegularFile(partFile)) {
+      throw new ModelDBException(
+          "Part " + partNumber + " was not uploaded", Code.FAILED_PRECONDITION);
+    }
+    return partFile;
+  }
+
+  /**
+   * Removes the staging directories of the uploads that did not change for {@code
+   * multipartUploadExpiryHours}. Uploads being committed are skipped, and parts being uploaded
+   * change the directory.
+   */
+  private void removeExpiredUploads() {
+    long expiryMillis =
+        TimeUnit.HOURS.toMillis(config.artifactStoreConfig.NFS.multipartUploadExpiryHours);
+    long now = System.currentTimeMillis();
+    try (Stream<Path> uploadDirectories = Files.list(this.multipartStagingLocation)) {
+      for (Path uploadDirectory : (Iterable<Path>) uploadDirectories::iterator) {
+        try {
+          if (now - Files.getLastModifiedTime(uploadDirectory).toMillis() < expiryMillis) {
+            continue;
+          }
+          String uploadId = uploadDirectory.getFileName().toString();
+          if (uploadId.endsWith(REMOVED_SUFFIX)) {
+            // Left by a backend that stopped while removing it
+            deleteUploadDirectory(uploadDirectory);
+          } else {
+            removeExpiredUpload(uploadId);
+          }
+        } catch (IOException | ModelDBException ex) {
+          LOGGER.warn("Could not remove expired multipart upload " + uploadDirectory, ex);
+        }
+      }
+    } catch (Exception ex) {
+      LOGGER.warn("Could not remove expired multipart uploads", ex);
+    }
+  }
+
+  private void removeExpiredUpload(String uploadId) throws ModelDBException {
+    Object lock = new Object();
+    if (multipartCommitLocks.putIfAbsent(uploadId, lock) != null) {
+      // Being committed by this backend
+      return;
+    }
+    synchronized (lock) {
+      try {
+        withUploadLock(uploadId, this::removeUploadDirectory);
+        LOGGER.debug("NFSService - expired multipart upload {} removed", uploadId);
+      } catch (ModelDBException ex) {
+        // Not an upload, or committed by another backend in the meantime
+        if (ex.getCode() != Status.Code.INVALID_ARGUMENT && ex.getCode() != Status.Code.NOT_FOUND) {
+          throw ex;
+        }
+      } finally {
+        multipartCommitLocks.remove(uploadId, lock);
+      }
+    }
+  }
+
+  // Moves the upload directory away before deleting it, so that a commit waiting for its lock
+  // finds the upload gone instead of the upload without its parts
+  private void removeUploadDirectory(Path uploadDirectory) throws IOException {
+    Path removedDirectory =
+        uploadDirectory.resolveSibling(uploadDirectory.getFileName() + REMOVED_SUFFIX);
+    Files.move(uploadDirectory, removedDirectory, StandardCopyOption.ATOMIC_MOVE);
+    deleteUploadDirectory(removedDirectory);
+  }
+
+  private void deleteUploadDirectory(Path uploadDirectory) {
+    try (Stream<Path> files = Files.list(uploadDirectory)) {
+      files.forEach(this::deleteQuietly);
+    } catch (IOException ex) {
+      LOGGER.warn("Could not list multipart upload directory " + uploadDirectory, ex);
+    }
+    deleteQuietly(uploadDirectory);
+  }
+
+  private void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ex) {
+      LOGGER.warn("Could not delete " + path, ex);
+    }
   }
 
   @Override
   public InputStream downloadFileFromStorage(String artifactPath) throws ModelDBException {
 
+    Path filePath = resolveArtifactPath(artifactPath);
     try {
-      Path filePath = this.fileStorageLocation.resolve(artifactPath).normalize();
-      Resource resource = new UrlResource(filePath.toUri());
-      if (resource.exists()) {
+      if (Files.isRegularFile(filePath)) {
         LOGGER.info("file exist in NFS storage");
-        InputStream fileInputStream = resource.getInputStream();
+        InputStream fileInputStream = Files.newInputStream(filePath);
         LOGGER.info("file fetched successfully from storage");
         return fileInputStream;
       }
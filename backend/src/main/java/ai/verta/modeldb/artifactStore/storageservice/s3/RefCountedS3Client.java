@@ -3,6 +3,7 @@ package ai.verta.modeldb.artifactStore.storageservice.s3;
 import ai.verta.modeldb.cron_jobs.CronJobUtils;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.transfer.TransferManager;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -11,11 +12,17 @@ public class RefCountedS3Client implements AutoCloseable {
   private static final Logger LOGGER = LogManager.getLogger(CronJobUtils.class);
   private AWSCredentials credentials;
   private AmazonS3 s3Client;
+  private TransferManager transferManager;
   private AtomicInteger referenceCounter;
 
-  RefCountedS3Client(AWSCredentials credentials, AmazonS3 client, AtomicInteger counter) {
+  RefCountedS3Client(
+      AWSCredentials credentials,
+      AmazonS3 client,
+      TransferManager transferManager,
+      AtomicInteger counter) {
     this.credentials = credentials;
     s3Client = client;
+    this.transferManager = transferManager;
     referenceCounter = counter;
     referenceCounter.incrementAndGet();
   }
@@ -24,6 +31,11 @@ public class RefCountedS3Client implements AutoCloseable {
     return s3Client;
   }
 
+  /** Returns the transfer manager using this client, shut down together with it. */
+  public TransferManager getTransferManager() {
+    return transferManager;
+  }
+
   public AWSCredentials getCredentials() {
     return credentials;
   }
@@ -31,6 +43,10 @@ public class RefCountedS3Client implements AutoCloseable {
   @Override
   public void close() {
     if (referenceCounter.decrementAndGet() == 0) {
+      if (transferManager != null) {
+        // The upload threads are shared with the transfer managers of the newer clients
+        transferManager.shutdownNow(false);
+      }
       if (s3Client != null) {
         LOGGER.debug("shutting client down");
         s3Client.shutdown();
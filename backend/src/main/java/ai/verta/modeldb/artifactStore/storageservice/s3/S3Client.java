@@ -16,15 +16,19 @@ import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClientBuilder;
 import com.amazonaws.services.securitytoken.model.AssumeRoleWithWebIdentityRequest;
 import com.amazonaws.services.securitytoken.model.AssumeRoleWithWebIdentityResult;
 import com.amazonaws.services.securitytoken.model.Credentials;
+import io.prometheus.client.Gauge;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -36,13 +40,27 @@ import org.apache.logging.log4j.Logger;
 // calls so that we don't have to keep worrying about refreshing the credentials on every call.
 // We use a reference counter to keep track of when we have to shutdown a previous client that
 // should not be used anymore.
+// Each client comes with a TransferManager built on it. All of them share one bounded pool of
+// part upload threads, so concurrent uploads queue for threads instead of each starting its own
+// pool (see S3UploadExecutorService).
 public class S3Client {
   private static final Logger LOGGER = LogManager.getLogger(S3Service.class);
+  // Uploads larger than this are split into parts uploaded concurrently
+  private static final long MULTIPART_UPLOAD_THRESHOLD = 5L * 1024 * 1024; // 5 MB
+
+  static final Gauge upload_parts_in_flight =
+      Gauge.build()
+          .name("verta_backend_s3_upload_parts_in_flight")
+          .help("Number of S3 upload parts being sent by the backend.")
+          .register();
+
+  private static ExecutorService uploadExecutor = null;
 
   private String bucketName;
   private Regions awsRegion;
 
   private AmazonS3 s3Client;
+  private TransferManager transferManager;
   private AtomicInteger referenceCounter;
   private AWSCredentials awsCredentials;
   private App app;
@@ -77,6 +95,27 @@ public class S3Client {
       // reads credential from OS Environment
       initializetWithEnvironment(awsRegion);
     }
+    if (transferManager == null) {
+      transferManager = buildTransferManager(s3Client);
+    }
+  }
+
+  private static synchronized ExecutorService getUploadExecutor(int threadCount) {
+    if (uploadExecutor == null) {
+      uploadExecutor = new S3UploadExecutorService(threadCount);
+    }
+    return uploadExecutor;
+  }
+
+  private TransferManager buildTransferManager(AmazonS3 client) {
+    ExecutorService executor = getUploadExecutor(config.uploadThreadCount);
+    return TransferManagerBuilder.standard()
+        .withS3Client(client)
+        .withMultipartUploadThreshold(MULTIPART_UPLOAD_THRESHOLD)
+        .withExecutorFactory(() -> executor)
+        // The pool outlives the transfer managers of the clients replaced on credential refresh
+        .withShutDownThreadPools(false)
+        .build();
   }
 
   private void initializetWithEnvironment(Regions awsRegion) {
@@ -115,6 +154,7 @@ public class S3Client {
 
     AWSSecurityTokenService stsClient = null;
     AmazonS3 newS3Client = null;
+    TransferManager newTransferManager = null;
     try {
       stsClient = AWSSecurityTokenServiceClientBuilder.standard().withRegion(awsRegion).build();
 
@@ -161,6 +201,7 @@ public class S3Client {
               .build();
 
       newS3Client.doesBucketExistV2(bucketName);
+      newTransferManager = buildTransferManager(newS3Client);
 
       // Start a thread that will refresh the token. It will just retry for as long as we get an
       // exception and die right after.
@@ -209,6 +250,7 @@ public class S3Client {
         // Swap the references
         referenceCounter = new AtomicInteger(1);
         s3Client = newS3Client;
+        transferManager = newTransferManager;
 
         // At the end of the try, the reference counter will be decremented again and shutdown will
         // be
@@ -218,11 +260,13 @@ public class S3Client {
     } finally {
       if (stsClient != null) stsClient.shutdown();
       // Cleanup in case we couldn't perform the switch
+      if (newTransferManager != null && newTransferManager != transferManager)
+        newTransferManager.shutdownNow(false);
       if (newS3Client != null && newS3Client != s3Client) newS3Client.shutdown();
     }
   }
 
   public RefCountedS3Client getRefCountedClient() {
-    return new RefCountedS3Client(awsCredentials, s3Client, referenceCounter);
+    return new RefCountedS3Client(awsCredentials, s3Client, transferManager, referenceCounter);
   }
 }
@@ -15,16 +15,15 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.model.*;
-import com.amazonaws.services.s3.transfer.TransferManager;
-import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.amazonaws.services.s3.transfer.Upload;
 import com.amazonaws.services.s3.transfer.model.UploadResult;
 import com.google.api.client.http.HttpStatusCodes;
 import com.google.rpc.Code;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.Executors;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -37,10 +36,24 @@ import org.springframework.http.ResponseEntity;
 public class S3Service implements ArtifactStoreService {
 
   private static final Logger LOGGER = LogManager.getLogger(S3Service.class);
+  private static final Counter upload_bytes =
+      Counter.build()
+          .name("verta_backend_s3_upload_bytes_total")
+          .help("Total bytes uploaded to S3 through the backend.")
+          .register();
+  private static final Histogram upload_latency =
+      Histogram.build()
+          .name("verta_backend_s3_upload_latency_seconds")
+          .help("Latency of uploads to S3 through the backend, per file or part.")
+          .labelNames("type")
+          .register();
+
   private S3Client s3Client;
   private String bucketName;
   private App app = App.getInstance();
   private Config config = Config.getInstance();
+  // Until when the bucket is known to exist, the bucket is checked again after that
+  private volatile long bucketExistsUntilMillis = 0;
 
   public S3Service(String cloudBucketName) throws ModelDBException, IOException {
     s3Client = new S3Client(cloudBucketName);
@@ -48,8 +61,19 @@ public class S3Service implements ArtifactStoreService {
   }
 
   private Boolean doesBucketExist(String bucketName) throws ModelDBException {
+    if (bucketName.equals(this.bucketName)
+        && System.currentTimeMillis() < bucketExistsUntilMillis) {
+      return true;
+    }
     try (RefCountedS3Client client = s3Client.getRefCountedClient()) {
-      return client.getClient().doesBucketExistV2(bucketName);
+      boolean exists = client.getClient().doesBucketExistV2(bucketName);
+      // Only a bucket that exists is cached, so a missing bucket is noticed once it is created
+      if (exists && bucketName.equals(this.bucketName)) {
+        bucketExistsUntilMillis =
+            System.currentTimeMillis()
+                + config.artifactStoreConfig.S3.bucketExistenceCacheSeconds * 1000;
+      }
+      return exists;
     } catch (AmazonServiceException e) {
       ModelDBUtils.logAmazonServiceExceptionErrorCodes(LOGGER, e);
       throw new UnavailableException(
@@ -225,6 +249,7 @@ public class S3Service implements ArtifactStoreService {
           config.trial, artifactPath, request.getContentLength());
 
       if (partNumber != 0 && uploadId != null && !uploadId.isEmpty()) {
+        Histogram.Timer timer = upload_latency.labels("part").startTimer();
         UploadPartRequest uploadRequest =
             new UploadPartRequest()
                 .withBucketName(bucketName)
@@ -233,25 +258,28 @@ public class S3Service implements ArtifactStoreService {
                 .withPartNumber(partNumber.intValue())
                 .withInputStream(request.getInputStream())
                 .withPartSize(request.getContentLength());
-        UploadPartResult uploadPartResult = client.getClient().uploadPart(uploadRequest);
-        return uploadPartResult.getPartETag().getETag();
+        S3Client.upload_parts_in_flight.inc();
+        try {
+          UploadPartResult uploadPartResult = client.getClient().uploadPart(uploadRequest);
+          upload_bytes.inc(request.getContentLength());
+          timer.observeDuration();
+          return uploadPartResult.getPartETag().getETag();
+        } finally {
+          S3Client.upload_parts_in_flight.dec();
+        }
       } else {
         ObjectMetadata metadata = new ObjectMetadata();
         metadata.setContentType(request.getContentType());
         metadata.setContentLength(request.getContentLength());
 
-        int maxUploadThreads = 5;
-        TransferManager transferManager =
-            TransferManagerBuilder.standard()
-                .withS3Client(client.getClient())
-                // TODO: Validate use and if not required then remove below two line
-                .withMultipartUploadThreshold((long) (5 * 1024 * 1024)) // 5 MB
-                .withExecutorFactory(() -> Executors.newFixedThreadPool(maxUploadThreads))
-                .build();
+        Histogram.Timer timer = upload_latency.labels("file").startTimer();
         Upload upload =
-            transferManager.upload(bucketName, artifactPath, request.getInputStream(), metadata);
-        upload.waitForCompletion();
+            client
+                .getTransferManager()
+                .upload(bucketName, artifactPath, request.getInputStream(), metadata);
         UploadResult uploadResult = upload.waitForUploadResult();
+        upload_bytes.inc(upload.getProgress().getBytesTransferred());
+        timer.observeDuration();
         return uploadResult.getETag();
       }
     } catch (AmazonServiceException e) {
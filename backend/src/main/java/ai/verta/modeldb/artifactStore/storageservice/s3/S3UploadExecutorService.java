@@ -0,0 +1,105 @@
+package ai.verta.modeldb.artifactStore.storageservice.s3;
+
+import com.amazonaws.services.s3.transfer.internal.UploadPartCallable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executor given to the TransferManagers of S3Client. Besides the parts of a multipart upload, the
+// TransferManager submits the tasks driving each upload, and those block until the parts they
+// submitted are done. Only the parts are sent to the bounded pool; the driving tasks get threads
+// of their own, so uploads waiting for their parts can never take the threads the parts need.
+class S3UploadExecutorService extends AbstractExecutorService {
+  private final ExecutorService partExecutor;
+  private final ExecutorService transferExecutor;
+
+  S3UploadExecutorService(int partThreadCount) {
+    partExecutor =
+        new ThreadPoolExecutor(
+            partThreadCount,
+            partThreadCount,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            daemonThreadFactory("s3-upload-part-"));
+    // One thread per running upload, idle threads are released after a minute
+    transferExecutor =
+        new ThreadPoolExecutor(
+            0,
+            Integer.MAX_VALUE,
+            60L,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            daemonThreadFactory("s3-upload-"));
+  }
+
+  private static ThreadFactory daemonThreadFactory(String namePrefix) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setName(namePrefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  @Override
+  public <T> Future<T> submit(Callable<T> task) {
+    if (task instanceof UploadPartCallable) {
+      return partExecutor.submit(
+          () -> {
+            S3Client.upload_parts_in_flight.inc();
+            try {
+              return task.call();
+            } finally {
+              S3Client.upload_parts_in_flight.dec();
+            }
+          });
+    }
+    return transferExecutor.submit(task);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    transferExecutor.execute(command);
+  }
+
+  @Override
+  public void shutdown() {
+    transferExecutor.shutdown();
+    partExecutor.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> pending = new ArrayList<>(transferExecutor.shutdownNow());
+    pending.addAll(partExecutor.shutdownNow());
+    return pending;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return transferExecutor.isShutdown() && partExecutor.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return transferExecutor.isTerminated() && partExecutor.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    return transferExecutor.awaitTermination(timeout, unit)
+        && partExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,85 @@
+package ai.verta.modeldb.batchProcess;
+
+import ai.verta.modeldb.entities.versioning.CommitEntity;
+import ai.verta.modeldb.utils.ModelDBHibernateUtil;
+import ai.verta.modeldb.utils.ModelDBUtils;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * Fills commit.generation for the commits saved before generations were stored. Each round picks
+ * up to {@code recordUpdateLimit} commits without generation whose parents all have one, so roots
+ * are filled first and every round moves further down the history. The migration can be stopped
+ * and run again at any point.
+ */
+public class CommitGenerationMigration {
+  private CommitGenerationMigration() {}
+
+  private static final Logger LOGGER = LogManager.getLogger(CommitGenerationMigration.class);
+  private static final ModelDBHibernateUtil modelDBHibernateUtil =
+      ModelDBHibernateUtil.getInstance();
+
+  private static final String READY_COMMITS_HQL =
+      "SELECT c.commit_hash FROM "
+          + CommitEntity.class.getSimpleName()
+          + " c WHERE c.generation IS NULL AND NOT EXISTS (SELECT p.commit_hash FROM "
+          + CommitEntity.class.getSimpleName()
+          + " child JOIN child.parent_commits p WHERE child.commit_hash = c.commit_hash "
+          + " AND p.generation IS NULL)";
+  private static final String MAX_PARENT_GENERATION_HQL =
+      "SELECT child.commit_hash, MAX(p.generation) FROM "
+          + CommitEntity.class.getSimpleName()
+          + " child JOIN child.parent_commits p WHERE child.commit_hash IN (:commitHashes) "
+          + " GROUP BY child.commit_hash";
+  private static final String UPDATE_GENERATION_HQL =
+      "UPDATE "
+          + CommitEntity.class.getSimpleName()
+          + " c SET c.generation = :generation WHERE c.commit_hash = :commitHash";
+
+  public static void execute(int recordUpdateLimit) {
+    LOGGER.debug("Commit generation migration started");
+    long migratedCount = 0;
+    while (true) {
+      try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+        List<String> commitHashes =
+            session
+                .createQuery(READY_COMMITS_HQL, String.class)
+                .setMaxResults(recordUpdateLimit)
+                .list();
+        if (commitHashes.isEmpty()) {
+          break;
+        }
+
+        Map<String, Long> maxParentGenerations = new HashMap<>();
+        session
+            .createQuery(MAX_PARENT_GENERATION_HQL, Object[].class)
+            .setParameterList("commitHashes", commitHashes)
+            .list()
+            .forEach(row -> maxParentGenerations.put((String) row[0], (Long) row[1]));
+
+        Transaction transaction = session.beginTransaction();
+        for (String commitHash : commitHashes) {
+          session
+              .createQuery(UPDATE_GENERATION_HQL)
+              .setParameter("generation", maxParentGenerations.getOrDefault(commitHash, 0L) + 1)
+              .setParameter("commitHash", commitHash)
+              .executeUpdate();
+        }
+        transaction.commit();
+
+        migratedCount += commitHashes.size();
+        LOGGER.debug("Computed the generation of {} commits", migratedCount);
+      } catch (Exception ex) {
+        if (!ModelDBUtils.needToRetry(ex)) {
+          throw ex;
+        }
+      }
+    }
+    LOGGER.debug("Commit generation migration finished");
+  }
+}
@@ -0,0 +1,260 @@
+package ai.verta.modeldb.batchProcess;
+
+import static ai.verta.modeldb.versioning.BlobDAORdbImpl.TREE;
+
+import ai.verta.modeldb.common.exceptions.InternalErrorException;
+import ai.verta.modeldb.entities.versioning.InternalFolderElementEntity;
+import ai.verta.modeldb.utils.ModelDBHibernateUtil;
+import ai.verta.modeldb.utils.ModelDBUtils;
+import ai.verta.modeldb.versioning.FileHasher;
+import ai.verta.modeldb.versioning.InternalFolder;
+import ai.verta.modeldb.versioning.InternalFolderElement;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * Records in folder_element.hash_algorithm which algorithm produced each folder hash saved before
+ * the algorithm was recorded. Each folder is rebuilt from its elements and rehashed with every
+ * {@link FileHasher.HashAlgorithm}. Folders whose hash none of them reproduces are marked {@link
+ * #UNVERIFIED} so they are not examined again.
+ */
+public class FolderHashAlgorithmMigration {
+  private FolderHashAlgorithmMigration() {}
+
+  private static final Logger LOGGER = LogManager.getLogger(FolderHashAlgorithmMigration.class);
+  private static final ModelDBHibernateUtil modelDBHibernateUtil =
+      ModelDBHibernateUtil.getInstance();
+  public static final String UNVERIFIED = "UNVERIFIED";
+  // Orders of the elements tried at most per folder when their names share map buckets
+  static final int MAX_HASHED_ORDERS = 5040;
+
+  public static void execute(int recordUpdateLimit) {
+    LOGGER.debug("Folder hash algorithm migration started");
+    long migratedCount = 0;
+    long unverifiedCount = 0;
+    while (true) {
+      try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+        String folderHashQuery =
+            "SELECT DISTINCT fe.folder_hash FROM "
+                + InternalFolderElementEntity.class.getSimpleName()
+                + " fe WHERE fe.hash_algorithm IS NULL";
+        List<String> folderHashes =
+            session
+                .createQuery(folderHashQuery, String.class)
+                .setMaxResults(recordUpdateLimit)
+                .list();
+        if (folderHashes.isEmpty()) {
+          break;
+        }
+
+        Map<String, List<String>> folderHashesByAlgorithm =
+            getFolderHashesByAlgorithm(session, folderHashes);
+
+        Transaction transaction = session.beginTransaction();
+        String updateQuery =
+            "UPDATE "
+                + InternalFolderElementEntity.class.getSimpleName()
+                + " fe SET fe.hash_algorithm = :algorithm WHERE fe.folder_hash IN (:folderHashes)";
+        for (Map.Entry<String, List<String>> entry : folderHashesByAlgorithm.entrySet()) {
+          session
+              .createQuery(updateQuery)
+              .setParameter("algorithm", entry.getKey())
+              .setParameterList("folderHashes", entry.getValue())
+              .executeUpdate();
+        }
+        transaction.commit();
+
+        migratedCount += folderHashes.size();
+        unverifiedCount += folderHashesByAlgorithm.getOrDefault(UNVERIFIED, List.of()).size();
+        LOGGER.debug("Recorded the hash algorithm of {} folders", migratedCount);
+      } catch (Exception ex) {
+        if (!ModelDBUtils.needToRetry(ex)) {
+          throw ex;
+        }
+      }
+    }
+
+    if (unverifiedCount > 0) {
+      LOGGER.warn("{} folder hashes could not be reproduced by any algorithm", unverifiedCount);
+    }
+    LOGGER.debug("Folder hash algorithm migration finished");
+  }
+
+  /**
+   * Returns whether the algorithm of every saved folder hash is recorded, as on a new database or
+   * once the migration ran.
+   */
+  public static boolean isComplete() {
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      String folderHashQuery =
+          "SELECT fe.folder_hash FROM "
+              + InternalFolderElementEntity.class.getSimpleName()
+              + " fe WHERE fe.hash_algorithm IS NULL";
+      return session
+          .createQuery(folderHashQuery, String.class)
+          .setMaxResults(1)
+          .list()
+          .isEmpty();
+    }
+  }
+
+  private static Map<String, List<String>> getFolderHashesByAlgorithm(
+      Session session, List<String> folderHashes) {
+    String elementQuery =
+        "FROM "
+            + InternalFolderElementEntity.class.getSimpleName()
+            + " fe WHERE fe.folder_hash IN (:folderHashes)"
+            + " ORDER BY fe.folder_hash, fe.element_name";
+    List<InternalFolderElementEntity> elementEntities =
+        session
+            .createQuery(elementQuery, InternalFolderElementEntity.class)
+            .setParameterList("folderHashes", folderHashes)
+            .list();
+
+    // Folders in hash order, each with its elements in name order
+    Map<String, List<InternalFolderElementEntity>> elementsByFolder = new LinkedHashMap<>();
+    for (InternalFolderElementEntity elementEntity : elementEntities) {
+      elementsByFolder
+          .computeIfAbsent(elementEntity.getFolder_hash(), folderHash -> new ArrayList<>())
+          .add(elementEntity);
+    }
+
+    Map<String, List<String>> folderHashesByAlgorithm = new TreeMap<>();
+    for (Map.Entry<String, List<InternalFolderElementEntity>> entry : elementsByFolder.entrySet()) {
+      FileHasher.HashAlgorithm algorithm;
+      try {
+        algorithm = getMatchingAlgorithm(entry.getKey(), entry.getValue());
+      } catch (NoSuchAlgorithmException e) {
+        throw new InternalErrorException(e.getMessage());
+      }
+      String algorithmName = algorithm == null ? UNVERIFIED : algorithm.name();
+      folderHashesByAlgorithm
+          .computeIfAbsent(algorithmName, key -> new ArrayList<>())
+          .add(entry.getKey());
+    }
+    return folderHashesByAlgorithm;
+  }
+
+  /**
+   * Returns the algorithm that reproduces the folder hash from its elements, null if none does.
+   *
+   * <p>{@link FileHasher.HashAlgorithm#TEXT_SHA256} hashes the elements in the order TreeElem
+   * listed them, the iteration order of its children map keyed by element name: by bucket of the
+   * map, and by insertion order within a bucket. The insertion order is not stored, so when names
+   * share a bucket every order of them is tried, up to {@link #MAX_HASHED_ORDERS} orders.
+   */
+  private static FileHasher.HashAlgorithm getMatchingAlgorithm(
+      String folderHash, List<InternalFolderElementEntity> elementEntities)
+      throws NoSuchAlgorithmException {
+    List<List<InternalFolderElementEntity>> buckets = getHashBuckets(elementEntities);
+    List<InternalFolderElementEntity> nameOrder = new ArrayList<>();
+    buckets.forEach(nameOrder::addAll);
+    FileHasher.HashAlgorithm algorithm =
+        FileHasher.getMatchingAlgorithm(getFolder(nameOrder), folderHash, null);
+    if (algorithm != null || !hasFewOrders(buckets)) {
+      return algorithm;
+    }
+    return matchesInAnyOrder(folderHash, buckets, 0, new ArrayList<>())
+        ? FileHasher.HashAlgorithm.TEXT_SHA256
+        : null;
+  }
+
+  /**
+   * Splits the elements by bucket of a HashMap holding them all, in bucket order. A HashMap grown
+   * from the default capacity without removals has the same capacity whatever the insertion order.
+   */
+  private static List<List<InternalFolderElementEntity>> getHashBuckets(
+      List<InternalFolderElementEntity> elementEntities) {
+    int capacity = 16;
+    while (elementEntities.size() > capacity * 3 / 4) {
+      capacity *= 2;
+    }
+    Map<Integer, List<InternalFolderElementEntity>> buckets = new TreeMap<>();
+    for (InternalFolderElementEntity elementEntity : elementEntities) {
+      int hash = elementEntity.getElement_name().hashCode();
+      buckets
+          .computeIfAbsent((hash ^ (hash >>> 16)) & (capacity - 1), key -> new ArrayList<>())
+          .add(elementEntity);
+    }
+    return new ArrayList<>(buckets.values());
+  }
+
+  private static boolean hasFewOrders(List<List<InternalFolderElementEntity>> buckets) {
+    long orders = 1;
+    for (List<InternalFolderElementEntity> bucket : buckets) {
+      for (int i = 2; i <= bucket.size(); i++) {
+        orders *= i;
+        if (orders > MAX_HASHED_ORDERS) {
+          return false;
+        }
+      }
+    }
+    return orders > 1;
+  }
+
+  // Tries every order of the elements of each bucket from the given one on, after the prefix
+  private static boolean matchesInAnyOrder(
+      String folderHash,
+      List<List<InternalFolderElementEntity>> buckets,
+      int bucketIndex,
+      List<InternalFolderElementEntity> prefix)
+      throws NoSuchAlgorithmException {
+    if (bucketIndex == buckets.size()) {
+      return FileHasher.verifySha(
+          getFolder(prefix), folderHash, FileHasher.HashAlgorithm.TEXT_SHA256);
+    }
+    List<InternalFolderElementEntity> bucket = buckets.get(bucketIndex);
+    for (List<InternalFolderElementEntity> order : getPermutations(bucket)) {
+      List<InternalFolderElementEntity> elements = new ArrayList<>(prefix);
+      elements.addAll(order);
+      if (matchesInAnyOrder(folderHash, buckets, bucketIndex + 1, elements)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static <T> List<List<T>> getPermutations(List<T> elements) {
+    List<List<T>> permutations = new ArrayList<>();
+    if (elements.size() <= 1) {
+      permutations.add(elements);
+      return permutations;
+    }
+    for (int i = 0; i < elements.size(); i++) {
+      List<T> rest = new ArrayList<>(elements);
+      T first = rest.remove(i);
+      for (List<T> permutation : getPermutations(rest)) {
+        List<T> order = new ArrayList<>(permutation.size() + 1);
+        order.add(first);
+        order.addAll(permutation);
+        permutations.add(order);
+      }
+    }
+    return permutations;
+  }
+
+  private static InternalFolder getFolder(List<InternalFolderElementEntity> elementEntities) {
+    InternalFolder.Builder folder = InternalFolder.newBuilder();
+    for (InternalFolderElementEntity elementEntity : elementEntities) {
+      InternalFolderElement element =
+          InternalFolderElement.newBuilder()
+              .setElementName(elementEntity.getElement_name())
+              .setElementSha(elementEntity.getElement_sha())
+              .build();
+      if (TREE.equals(elementEntity.getElement_type())) {
+        folder.addSubFolders(element);
+      } else {
+        folder.addBlobs(element);
+      }
+    }
+    return folder.build();
+  }
+}
@@ -0,0 +1,137 @@
+package ai.verta.modeldb.batchProcess;
+
+import ai.verta.modeldb.ModelDBConstants;
+import ai.verta.modeldb.common.CommonUtils;
+import ai.verta.modeldb.entities.KeyValueEntity;
+import ai.verta.modeldb.utils.ModelDBHibernateUtil;
+import ai.verta.modeldb.utils.ModelDBUtils;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Value;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * Fills keyvalue.kv_value_num for the rows saved before number values were copied to it. Rows are
+ * read in id order, {@code recordUpdateLimit} at a time, and only rows whose serialized value is a
+ * number are updated, so the migration can be stopped and run again at any point. A pass that
+ * reaches the last row is recorded in the migration_status table, see {@link #isComplete()}.
+ */
+public class KeyValueNumericMigration {
+  private KeyValueNumericMigration() {}
+
+  private static final Logger LOGGER = LogManager.getLogger(KeyValueNumericMigration.class);
+  private static final ModelDBHibernateUtil modelDBHibernateUtil =
+      ModelDBHibernateUtil.getInstance();
+
+  public static void execute(int recordUpdateLimit) {
+    LOGGER.debug("Key value numeric migration started");
+    long lastId = 0;
+    long migratedCount = 0;
+    while (true) {
+      try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+        String keyValueQuery =
+            "SELECT kv.id, kv.value FROM "
+                + KeyValueEntity.class.getSimpleName()
+                + " kv WHERE kv.id > :lastId AND kv.value_num IS NULL ORDER BY kv.id";
+        List<Object[]> keyValues =
+            session
+                .createQuery(keyValueQuery, Object[].class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(recordUpdateLimit)
+                .list();
+        if (keyValues.isEmpty()) {
+          break;
+        }
+
+        Transaction transaction = session.beginTransaction();
+        String updateQuery =
+            "UPDATE "
+                + KeyValueEntity.class.getSimpleName()
+                + " kv SET kv.value_num = :valueNum WHERE kv.id = :id";
+        for (Object[] keyValue : keyValues) {
+          Double valueNum = getNumericValue((String) keyValue[1]);
+          if (valueNum != null) {
+            session
+                .createQuery(updateQuery)
+                .setParameter("valueNum", valueNum)
+                .setParameter("id", keyValue[0])
+                .executeUpdate();
+            migratedCount++;
+          }
+        }
+        transaction.commit();
+
+        lastId = (Long) keyValues.get(keyValues.size() - 1)[0];
+        LOGGER.debug("Copied {} number values to kv_value_num", migratedCount);
+      } catch (Exception ex) {
+        if (!ModelDBUtils.needToRetry(ex)) {
+          throw ex;
+        }
+      }
+    }
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      if (!isRecorded(session)) {
+        record(session);
+      }
+    }
+    LOGGER.debug("Key value numeric migration finished");
+  }
+
+  /**
+   * Returns true once every number value saved before kv_value_num existed was copied to it, so
+   * that numeric filters and sorts can read kv_value_num alone. A database without key values has
+   * nothing to copy and is recorded as migrated, as the key values saved from then on fill
+   * kv_value_num themselves.
+   */
+  public static boolean isComplete() {
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      if (isRecorded(session)) {
+        return true;
+      }
+      String keyValueQuery = "SELECT kv.id FROM " + KeyValueEntity.class.getSimpleName() + " kv";
+      if (!session.createQuery(keyValueQuery, Long.class).setMaxResults(1).list().isEmpty()) {
+        return false;
+      }
+      record(session);
+      return true;
+    }
+  }
+
+  private static boolean isRecorded(Session session) {
+    Number count =
+        (Number)
+            session
+                .createNativeQuery(
+                    "SELECT COUNT(*) FROM migration_status WHERE migration_name = :migrationName")
+                .setParameter("migrationName", ModelDBConstants.KEY_VALUE_NUMERIC_MIGRATION)
+                .getSingleResult();
+    return count.longValue() > 0;
+  }
+
+  private static void record(Session session) {
+    Transaction transaction = session.beginTransaction();
+    session
+        .createNativeQuery(
+            "INSERT INTO migration_status (migration_name, status) VALUES (:migrationName, 1)")
+        .setParameter("migrationName", ModelDBConstants.KEY_VALUE_NUMERIC_MIGRATION)
+        .executeUpdate();
+    transaction.commit();
+  }
+
+  private static Double getNumericValue(String serializedValue) {
+    if (serializedValue == null || serializedValue.isEmpty()) {
+      return null;
+    }
+    try {
+      Value.Builder valueBuilder = Value.newBuilder();
+      CommonUtils.getProtoObjectFromString(serializedValue, valueBuilder);
+      return KeyValueEntity.getNumericValue(valueBuilder.build());
+    } catch (InvalidProtocolBufferException e) {
+      LOGGER.warn("Skipping key value with unreadable value {}", serializedValue);
+      return null;
+    }
+  }
+}
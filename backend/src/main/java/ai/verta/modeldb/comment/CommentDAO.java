@@ -4,6 +4,7 @@ import ai.verta.modeldb.Comment;
 import ai.verta.uac.UserInfo;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.util.List;
+import java.util.Map;
 
 public interface CommentDAO {
 
@@ -39,6 +40,17 @@ public interface CommentDAO {
   List<Comment> getComments(String entityType, String entityId)
       throws InvalidProtocolBufferException;
 
+  /**
+   * Get the comments of several entities of the same type with a single query.
+   *
+   * @param String entityType --> like project, experiment, experimentRun etc.
+   * @param List<String> entityIds --> like project.id, experiment.id, experimentRun.id etc.
+   * @return Map<String, List<Comment>> commentMap --> comments by entity id, entities without
+   *     comments are not in the map
+   */
+  Map<String, List<Comment>> getComments(String entityType, List<String> entityIds)
+      throws InvalidProtocolBufferException;
+
   /**
    * Delete the selected comment from EntityComment.
    *
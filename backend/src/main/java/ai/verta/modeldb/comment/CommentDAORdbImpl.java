@@ -12,7 +12,9 @@ import ai.verta.modeldb.utils.ModelDBUtils;
 import ai.verta.modeldb.utils.RdbmsUtils;
 import ai.verta.uac.UserInfo;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -36,6 +38,15 @@ public class CommentDAORdbImpl implements CommentDAO {
           .append(ModelDBConstants.DATE_TIME)
           .append(" ASC")
           .toString();
+  private static final String GET_ENTITIES_COMMENT_QUERY =
+      new StringBuilder("From UserCommentEntity c where c.commentEntity.")
+          .append(ModelDBConstants.ENTITY_ID)
+          .append(" IN (:entityIds) AND c.commentEntity.")
+          .append(ModelDBConstants.ENTITY_NAME)
+          .append(" =:entityName order by c.")
+          .append(ModelDBConstants.DATE_TIME)
+          .append(" ASC")
+          .toString();
   private static final String ADD_ENTITY_COMMENT_QUERY =
       new StringBuilder("From CommentEntity c where c.")
           .append(ModelDBConstants.ENTITY_ID)
@@ -132,6 +143,41 @@ public class CommentDAORdbImpl implements CommentDAO {
     }
   }
 
+  @Override
+  public Map<String, List<Comment>> getComments(String entityType, List<String> entityIds) {
+    if (entityIds.isEmpty()) {
+      return new HashMap<>();
+    }
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      Query<UserCommentEntity> query =
+          session.createQuery(GET_ENTITIES_COMMENT_QUERY, UserCommentEntity.class);
+      query.setParameterList("entityIds", entityIds);
+      query.setParameter("entityName", entityType);
+      List<UserCommentEntity> userCommentEntities = query.list();
+      LOGGER.debug("Got {} comments of {} entities", userCommentEntities.size(), entityIds.size());
+
+      Map<String, List<UserCommentEntity>> userCommentEntityMap = new HashMap<>();
+      for (UserCommentEntity userCommentEntity : userCommentEntities) {
+        userCommentEntityMap
+            .computeIfAbsent(
+                userCommentEntity.getCommentEntity().getEntity_id(), entityId -> new ArrayList<>())
+            .add(userCommentEntity);
+      }
+      Map<String, List<Comment>> commentMap = new HashMap<>();
+      for (Map.Entry<String, List<UserCommentEntity>> entry : userCommentEntityMap.entrySet()) {
+        commentMap.put(
+            entry.getKey(), RdbmsUtils.convertUserCommentListFromUserComments(entry.getValue()));
+      }
+      return commentMap;
+    } catch (Exception ex) {
+      if (ModelDBUtils.needToRetry(ex)) {
+        return getComments(entityType, entityIds);
+      } else {
+        throw ex;
+      }
+    }
+  }
+
   @Override
   public Boolean deleteComment(
       String entityType, String entityId, String commentId, UserInfo userInfo) {
@@ -7,6 +7,7 @@ import ai.verta.modeldb.common.exceptions.InternalErrorException;
 import ai.verta.modeldb.common.exceptions.ModelDBException;
 import ai.verta.modeldb.common.futures.FutureGrpc;
 import ai.verta.modeldb.common.futures.FutureJdbi;
+import ai.verta.modeldb.versioning.FileHasher;
 import com.zaxxer.hikari.HikariDataSource;
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -24,6 +25,17 @@ public class Config extends ai.verta.modeldb.common.config.Config {
   public TelemetryConfig telemetry;
   public TrialConfig trial;
   public List<MigrationConfig> migrations;
+  // Null picks the algorithm from the database at startup
+  public FileHasher.HashAlgorithm folderHashAlgorithm = null;
+  public int folderElementBatchSize = 1000;
+  public long commitTreeCacheMaxBytes = 64L * 1024 * 1024;
+  public int diffParallelism = 4;
+  public long commitGraphCacheMaxCommits = 0;
+  public long commitGraphCacheExpireSeconds = 300;
+  public long observationRollupBucketSize = 0;
+  public int runDataStreamFlushSize = 1000;
+  public long runDataStreamFlushIntervalMillis = 1000;
+  public int runDataStreamMaxPendingEntries = 10000;
   private FutureJdbi jdbi;
 
   public static Config getInstance() throws InternalErrorException {
@@ -64,11 +76,48 @@ public class Config extends ai.verta.modeldb.common.config.Config {
       trial.Validate("trial");
     }
 
+    if (folderElementBatchSize < 0)
+      throw new InvalidConfigException("folderElementBatchSize", "must not be negative");
+    if (commitTreeCacheMaxBytes < 0)
+      throw new InvalidConfigException("commitTreeCacheMaxBytes", "must not be negative");
+    if (diffParallelism < 0)
+      throw new InvalidConfigException("diffParallelism", "must not be negative");
+    if (commitGraphCacheMaxCommits < 0)
+      throw new InvalidConfigException("commitGraphCacheMaxCommits", "must not be negative");
+    if (commitGraphCacheExpireSeconds < 0)
+      throw new InvalidConfigException("commitGraphCacheExpireSeconds", "must not be negative");
+    if (observationRollupBucketSize < 0)
+      throw new InvalidConfigException("observationRollupBucketSize", "must not be negative");
+    if (runDataStreamFlushSize <= 0)
+      throw new InvalidConfigException("runDataStreamFlushSize", "must be positive");
+    if (runDataStreamFlushIntervalMillis <= 0)
+      throw new InvalidConfigException("runDataStreamFlushIntervalMillis", "must be positive");
+    if (runDataStreamMaxPendingEntries < runDataStreamFlushSize)
+      throw new InvalidConfigException(
+          "runDataStreamMaxPendingEntries", "must not be less than runDataStreamFlushSize");
+
     if (migrations != null) {
       for (MigrationConfig migrationConfig : migrations) {
         migrationConfig.Validate("migration");
       }
     }
+    if (folderHashAlgorithm == FileHasher.HashAlgorithm.CANONICAL_SHA256
+        && !isMigrationEnabled(ModelDBConstants.FOLDER_HASH_ALGORITHM_MIGRATION))
+      throw new InvalidConfigException(
+          "folderHashAlgorithm",
+          "requires the " + ModelDBConstants.FOLDER_HASH_ALGORITHM_MIGRATION + " migration");
+  }
+
+  private boolean isMigrationEnabled(String name) {
+    if (migrations == null) {
+      return false;
+    }
+    for (MigrationConfig migrationConfig : migrations) {
+      if (migrationConfig.enabled && name.equals(migrationConfig.name)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
@@ -95,7 +144,7 @@ public class Config extends ai.verta.modeldb.common.config.Config {
       hikariDataSource.setMaximumPoolSize(10); // TODO: configure with a valid pool size
 
       final Jdbi jdbi = Jdbi.create(hikariDataSource);
-      final Executor dbExecutor = FutureGrpc.initializeExecutor(databaseConfig.threadCount);
+      final Executor dbExecutor = FutureGrpc.initializeExecutor(databaseConfig.threadCount, "db");
       this.jdbi = new FutureJdbi(jdbi, dbExecutor);
     }
     return this.jdbi;
@@ -1,5 +1,21 @@
 package ai.verta.modeldb.config;
 
+import ai.verta.modeldb.common.config.InvalidConfigException;
+
 public class S3Config extends ai.verta.modeldb.common.config.S3Config {
   public String minioEndpoint;
+  // Threads uploading the parts of uploads proxied through the backend, shared by all uploads
+  public int uploadThreadCount = 5;
+  // How long a successful bucket existence check is reused, 0 checks on every request
+  public long bucketExistenceCacheSeconds = 60;
+
+  @Override
+  public void Validate(String base) throws InvalidConfigException {
+    super.Validate(base);
+    if (uploadThreadCount <= 0)
+      throw new InvalidConfigException(base + ".uploadThreadCount", "must be positive");
+    if (bucketExistenceCacheSeconds < 0)
+      throw new InvalidConfigException(
+          base + ".bucketExistenceCacheSeconds", "must not be negative");
+  }
 }
@@ -5,7 +5,6 @@ import ai.verta.modeldb.ModelDBConstants;
 import ai.verta.modeldb.authservice.RoleService;
 import ai.verta.modeldb.common.CommonUtils;
 import ai.verta.modeldb.common.authservice.AuthService;
-import ai.verta.modeldb.entities.CommentEntity;
 import ai.verta.modeldb.entities.DatasetEntity;
 import ai.verta.modeldb.entities.DatasetVersionEntity;
 import ai.verta.modeldb.entities.ExperimentEntity;
@@ -21,11 +20,26 @@ import ai.verta.modeldb.utils.ModelDBUtils;
 import ai.verta.modeldb.versioning.VersioningUtils;
 import com.google.rpc.Code;
 import io.grpc.StatusRuntimeException;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.persistence.OptimisticLockException;
 import org.apache.logging.log4j.LogManager;
@@ -36,12 +50,52 @@ import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+/**
+ * Hard deletes the entities marked as deleted. Every entity type is a stage that scans the ids of
+ * its deleted rows in id order, {@code recordUpdateLimit} at a time, and deletes each chunk in its
+ * own short session. Rows that keep failing do not block the rows after them. The scan position of
+ * a stage is kept in memory until the scan reaches the end, so a scan interrupted by an error
+ * resumes in the next run, while a restarted backend scans every stage from its first deleted row.
+ *
+ * <p>Stages that mark children as deleted run before the stage of the children, in three
+ * independent lanes executed in parallel by threads of the run: projects, experiments and runs;
+ * datasets and dataset versions; repositories.
+ */
 public class DeleteEntitiesCron extends TimerTask {
   private static final Logger LOGGER = LogManager.getLogger(DeleteEntitiesCron.class);
+
+  private static final String PROJECTS = "projects";
+  private static final String EXPERIMENTS = "experiments";
+  private static final String EXPERIMENT_RUNS = "experiment_runs";
+  private static final String DATASETS = "datasets";
+  private static final String DATASET_VERSIONS = "dataset_versions";
+  private static final String REPOSITORIES = "repositories";
+
+  private static final Counter deleted_entities =
+      Counter.build()
+          .name("verta_backend_delete_entities_processed_total")
+          .help("Total deleted entities processed by the delete entities cron.")
+          .labelNames("stage")
+          .register();
+  private static final Counter delete_entities_failed_chunks =
+      Counter.build()
+          .name("verta_backend_delete_entities_failed_chunks_total")
+          .help("Total chunks of the delete entities cron that failed and are retried later.")
+          .labelNames("stage")
+          .register();
+  private static final Histogram delete_entities_chunk_latency =
+      Histogram.build()
+          .name("verta_backend_delete_entities_chunk_latency_seconds")
+          .help("Time spent deleting one chunk of entities.")
+          .labelNames("stage")
+          .register();
+
   private final ModelDBHibernateUtil modelDBHibernateUtil = ModelDBHibernateUtil.getInstance();
   private final AuthService authService;
   private final RoleService roleService;
   private final Integer recordUpdateLimit;
+  // Last id processed by each stage in its current scan over the deleted rows
+  private final Map<String, Object> checkpoints = new ConcurrentHashMap<>();
 
   public DeleteEntitiesCron(
       AuthService authService, RoleService roleService, Integer recordUpdateLimit) {
@@ -56,129 +110,187 @@ public class DeleteEntitiesCron extends TimerTask {
     LOGGER.info("DeleteEntitiesCron wakeup");
 
     CommonUtils.registeredBackgroundUtilsCount();
-    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
-      // Update project timestamp
-      deleteProjects(session);
-
-      // Update experiment timestamp
-      deleteExperiments(session);
-
-      // Update dataset timestamp
-      deleteDatasets(session);
-
-      // Update datasetVersion timestamp
-      deleteDatasetVersions(session);
-
-      // Update repository timestamp
-      deleteRepositories(session);
-
-      // Update experimentRun timestamp
-      deleteExperimentRuns(session);
+    ExecutorService lanePool =
+        Executors.newFixedThreadPool(
+            3,
+            runnable -> {
+              Thread thread = new Thread(runnable, "delete-entities-lane");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      List<Callable<Void>> lanes =
+          Arrays.asList(
+              () -> {
+                runStage(PROJECTS, ProjectEntity.class, String.class, this::deleteProjects);
+                runStage(
+                    EXPERIMENTS, ExperimentEntity.class, String.class, this::deleteExperiments);
+                runStage(
+                    EXPERIMENT_RUNS,
+                    ExperimentRunEntity.class,
+                    String.class,
+                    this::deleteExperimentRuns);
+                return null;
+              },
+              () -> {
+                runStage(DATASETS, DatasetEntity.class, String.class, this::deleteDatasets);
+                runStage(
+                    DATASET_VERSIONS,
+                    DatasetVersionEntity.class,
+                    String.class,
+                    this::deleteDatasetVersions);
+                return null;
+              },
+              () -> {
+                runStage(
+                    REPOSITORIES, RepositoryEntity.class, Long.class, this::deleteRepositories);
+                return null;
+              });
+      for (Future<Void> lane : lanePool.invokeAll(lanes)) {
+        lane.get();
+      }
+    } catch (InterruptedException ex) {
+      LOGGER.warn("DeleteEntitiesCron interrupted");
+      Thread.currentThread().interrupt();
     } catch (Exception ex) {
-      if (ex instanceof StatusRuntimeException) {
-        StatusRuntimeException exception = (StatusRuntimeException) ex;
+      Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+      if (cause instanceof StatusRuntimeException) {
+        StatusRuntimeException exception = (StatusRuntimeException) cause;
         if (exception.getStatus().getCode().value() == Code.PERMISSION_DENIED_VALUE) {
-          LOGGER.warn("DeleteEntitiesCron Exception: {}", ex.getMessage());
+          LOGGER.warn("DeleteEntitiesCron Exception: {}", cause.getMessage());
         } else {
-          LOGGER.warn("DeleteEntitiesCron Exception: ", ex);
+          LOGGER.warn("DeleteEntitiesCron Exception: ", cause);
         }
       } else {
-        LOGGER.warn("DeleteEntitiesCron Exception: ", ex);
+        LOGGER.warn("DeleteEntitiesCron Exception: ", cause);
       }
     } finally {
+      lanePool.shutdownNow();
       CommonUtils.unregisteredBackgroundUtilsCount();
     }
     LOGGER.info("DeleteEntitiesCron finish tasks and reschedule");
   }
 
-  private void deleteProjects(Session session) {
-    LOGGER.trace("Project deleting");
-    String alias = "pr";
-    String deleteProjectsQueryString =
-        new StringBuilder("FROM ")
-            .append(ProjectEntity.class.getSimpleName())
-            .append(" ")
-            .append(alias)
-            .append(" WHERE ")
-            .append(alias)
-            .append(".")
-            .append(ModelDBConstants.DELETED)
-            .append(" = :deleted ")
-            .toString();
-
-    Query projectDeleteQuery = session.createQuery(deleteProjectsQueryString);
-    projectDeleteQuery.setParameter("deleted", true);
-    projectDeleteQuery.setMaxResults(this.recordUpdateLimit);
-    List<ProjectEntity> projectEntities = projectDeleteQuery.list();
-
-    List<String> projectIds = new ArrayList<>();
-    if (!projectEntities.isEmpty()) {
-      for (ProjectEntity projectEntity : projectEntities) {
-        projectIds.add(projectEntity.getId());
+  /**
+   * Deletes the deleted rows of the entity chunk by chunk, from the checkpoint of the stage to the
+   * end of its rows. A chunk that fails is logged and skipped, the next scan retries it.
+   */
+  private <I> void runStage(
+      String stage, Class<?> entityClass, Class<I> idClass, Consumer<List<I>> deleteChunk) {
+    LOGGER.trace("{} deleting", stage);
+    long processedCount = 0;
+    long startMillis = System.currentTimeMillis();
+    while (true) {
+      List<I> ids = selectDeletedIds(entityClass, idClass, idClass.cast(checkpoints.get(stage)));
+      if (ids.isEmpty()) {
+        checkpoints.remove(stage);
+        break;
       }
 
+      Histogram.Timer timer = delete_entities_chunk_latency.labels(stage).startTimer();
       try {
-        roleService.deleteEntityResourcesWithServiceUser(
-            projectIds, ModelDBServiceResourceTypes.PROJECT);
-        Transaction transaction = session.beginTransaction();
-        String updateDeletedStatusExperimentQueryString =
-            new StringBuilder("UPDATE ")
-                .append(ExperimentEntity.class.getSimpleName())
-                .append(" exp ")
-                .append("SET exp.")
-                .append(ModelDBConstants.DELETED)
-                .append(" = :deleted ")
-                .append(" WHERE exp.")
-                .append(ModelDBConstants.PROJECT_ID)
-                .append(" IN (:projectIds)")
-                .toString();
-        Query deletedExperimentQuery =
-            session.createQuery(updateDeletedStatusExperimentQueryString);
-        deletedExperimentQuery.setParameter("deleted", true);
-        deletedExperimentQuery.setParameter("projectIds", projectIds);
-        deletedExperimentQuery.executeUpdate();
-        transaction.commit();
-
-        for (ProjectEntity projectEntity : projectEntities) {
-          try {
-            transaction = session.beginTransaction();
-            session.delete(projectEntity);
-            transaction.commit();
-          } catch (OptimisticLockException ex) {
-            LOGGER.info("DeleteEntitiesCron : deleteProjects : Exception: {}", ex.getMessage());
-          }
-        }
+        deleteChunk.accept(ids);
+        deleted_entities.labels(stage).inc(ids.size());
+        processedCount += ids.size();
       } catch (OptimisticLockException ex) {
-        LOGGER.info("DeleteEntitiesCron : deleteProjects : Exception: {}", ex.getMessage());
+        delete_entities_failed_chunks.labels(stage).inc();
+        LOGGER.info("DeleteEntitiesCron : {} : Exception: {}", stage, ex.getMessage());
+      } catch (StatusRuntimeException ex) {
+        delete_entities_failed_chunks.labels(stage).inc();
+        if (ex.getStatus().getCode().value() == Code.PERMISSION_DENIED_VALUE) {
+          LOGGER.warn("DeleteEntitiesCron : {} : Exception: {}", stage, ex.getMessage());
+        } else {
+          LOGGER.warn("DeleteEntitiesCron : {} : Exception: ", stage, ex);
+        }
       } catch (Exception ex) {
-        LOGGER.warn("DeleteEntitiesCron : deleteProjects : Exception: ", ex);
+        delete_entities_failed_chunks.labels(stage).inc();
+        LOGGER.warn("DeleteEntitiesCron : {} : Exception: ", stage, ex);
+      } finally {
+        timer.observeDuration();
       }
+      checkpoints.put(stage, ids.get(ids.size() - 1));
     }
 
-    LOGGER.debug("Project Deleted successfully : Deleted projects count {}", projectIds.size());
+    LOGGER.debug(
+        "DeleteEntitiesCron : {} : processed {} entities in {} ms",
+        stage,
+        processedCount,
+        System.currentTimeMillis() - startMillis);
   }
 
-  private void deleteExperiments(Session session) {
-    LOGGER.trace("Experiment deleting");
-    String deleteExperimentQueryString =
-        new StringBuilder("FROM ")
-            .append(ExperimentEntity.class.getSimpleName())
-            .append(" ex WHERE ex.")
+  private <I> List<I> selectDeletedIds(Class<?> entityClass, Class<I> idClass, I lastId) {
+    StringBuilder idQueryBuilder =
+        new StringBuilder("SELECT en.id FROM ")
+            .append(entityClass.getSimpleName())
+            .append(" en WHERE en.")
             .append(ModelDBConstants.DELETED)
-            .append(" = :deleted ")
-            .toString();
+            .append(" = :deleted ");
+    if (lastId != null) {
+      idQueryBuilder.append(" AND en.id > :lastId ");
+    }
+    idQueryBuilder.append(" ORDER BY en.id");
 
-    Query experimentDeleteQuery = session.createQuery(deleteExperimentQueryString);
-    experimentDeleteQuery.setParameter("deleted", true);
-    experimentDeleteQuery.setMaxResults(this.recordUpdateLimit);
-    List<ExperimentEntity> experimentEntities = experimentDeleteQuery.list();
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      Query<I> idQuery = session.createQuery(idQueryBuilder.toString(), idClass);
+      idQuery.setParameter("deleted", true);
+      if (lastId != null) {
+        idQuery.setParameter("lastId", lastId);
+      }
+      idQuery.setMaxResults(this.recordUpdateLimit);
+      return idQuery.list();
+    }
+  }
 
-    List<String> experimentIds = new ArrayList<>();
-    if (!experimentEntities.isEmpty()) {
-      for (ExperimentEntity experimentEntity : experimentEntities) {
-        experimentIds.add(experimentEntity.getId());
+  private <T> List<T> getEntities(Session session, Class<T> entityClass, List<?> ids) {
+    String entityQueryString = "FROM " + entityClass.getSimpleName() + " en WHERE en.id IN (:ids)";
+    Query<T> entityQuery = session.createQuery(entityQueryString, entityClass);
+    entityQuery.setParameterList("ids", ids);
+    return entityQuery.list();
+  }
+
+  private void deleteEntities(Session session, List<?> entities, String stage) {
+    for (Object entity : entities) {
+      try {
+        Transaction transaction = session.beginTransaction();
+        session.delete(entity);
+        transaction.commit();
+      } catch (OptimisticLockException ex) {
+        LOGGER.info("DeleteEntitiesCron : {} : Exception: {}", stage, ex.getMessage());
       }
+    }
+  }
+
+  private void deleteProjects(List<String> projectIds) {
+    roleService.deleteEntityResourcesWithServiceUser(
+        projectIds, ModelDBServiceResourceTypes.PROJECT);
+
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      Transaction transaction = session.beginTransaction();
+      String updateDeletedStatusExperimentQueryString =
+          new StringBuilder("UPDATE ")
+              .append(ExperimentEntity.class.getSimpleName())
+              .append(" exp ")
+              .append("SET exp.")
+              .append(ModelDBConstants.DELETED)
+              .append(" = :deleted ")
+              .append(" WHERE exp.")
+              .append(ModelDBConstants.PROJECT_ID)
+              .append(" IN (:projectIds)")
+              .toString();
+      Query deletedExperimentQuery = session.createQuery(updateDeletedStatusExperimentQueryString);
+      deletedExperimentQuery.setParameter("deleted", true);
+      deletedExperimentQuery.setParameter("projectIds", projectIds);
+      deletedExperimentQuery.executeUpdate();
+      transaction.commit();
+
+      deleteEntities(session, getEntities(session, ProjectEntity.class, projectIds), PROJECTS);
+    }
+  }
 
+  private void deleteExperiments(List<String> experimentIds) {
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      List<ExperimentEntity> experimentEntities =
+          getEntities(session, ExperimentEntity.class, experimentIds);
       try {
         deleteRoleBindingsForExperiments(experimentEntities);
       } catch (StatusRuntimeException ex) {
@@ -191,44 +303,27 @@ public class DeleteEntitiesCron extends TimerTask {
             ex);
       }
 
-      try {
-        Transaction transaction = session.beginTransaction();
-        String updateDeletedStatusExperimentRunQueryString =
-            new StringBuilder("UPDATE ")
-                .append(ExperimentRunEntity.class.getSimpleName())
-                .append(" expr ")
-                .append("SET expr.")
-                .append(ModelDBConstants.DELETED)
-                .append(" = :deleted ")
-                .append(" WHERE expr.")
-                .append(ModelDBConstants.EXPERIMENT_ID)
-                .append(" IN (:experimentIds)")
-                .toString();
-        Query deletedExperimentRunQuery =
-            session.createQuery(updateDeletedStatusExperimentRunQueryString);
-        deletedExperimentRunQuery.setParameter("deleted", true);
-        deletedExperimentRunQuery.setParameter("experimentIds", experimentIds);
-        deletedExperimentRunQuery.executeUpdate();
-        transaction.commit();
-
-        for (ExperimentEntity experimentEntity : experimentEntities) {
-          try {
-            transaction = session.beginTransaction();
-            session.delete(experimentEntity);
-            transaction.commit();
-          } catch (OptimisticLockException ex) {
-            LOGGER.info("DeleteEntitiesCron : deleteExperiments : Exception: {}", ex.getMessage());
-          }
-        }
-      } catch (OptimisticLockException ex) {
-        LOGGER.info("DeleteEntitiesCron : deleteExperiments : Exception: {}", ex.getMessage());
-      } catch (Exception ex) {
-        LOGGER.warn("DeleteEntitiesCron : deleteExperiments : Exception:", ex);
-      }
+      Transaction transaction = session.beginTransaction();
+      String updateDeletedStatusExperimentRunQueryString =
+          new StringBuilder("UPDATE ")
+              .append(ExperimentRunEntity.class.getSimpleName())
+              .append(" expr ")
+              .append("SET expr.")
+              .append(ModelDBConstants.DELETED)
+              .append(" = :deleted ")
+              .append(" WHERE expr.")
+              .append(ModelDBConstants.EXPERIMENT_ID)
+              .append(" IN (:experimentIds)")
+              .toString();
+      Query deletedExperimentRunQuery =
+          session.createQuery(updateDeletedStatusExperimentRunQueryString);
+      deletedExperimentRunQuery.setParameter("deleted", true);
+      deletedExperimentRunQuery.setParameter("experimentIds", experimentIds);
+      deletedExperimentRunQuery.executeUpdate();
+      transaction.commit();
+
+      deleteEntities(session, experimentEntities, EXPERIMENTS);
     }
-
-    LOGGER.debug(
-        "Experiment deleted successfully : Deleted experiments count {}", experimentIds.size());
   }
 
   private void deleteRoleBindingsForExperiments(List<ExperimentEntity> experimentEntities) {
@@ -249,28 +344,22 @@ public class DeleteEntitiesCron extends TimerTask {
     }
   }
 
-  private void deleteExperimentRuns(Session session) {
-    LOGGER.trace("ExperimentRun deleting");
-    String deleteExperimentRunQueryString =
-        new StringBuilder("FROM ")
-            .append(ExperimentRunEntity.class.getSimpleName())
-            .append(" expr WHERE expr.")
-            .append(ModelDBConstants.DELETED)
-            .append(" = :deleted ")
-            .toString();
-
-    Query experimentRunDeleteQuery = session.createQuery(deleteExperimentRunQueryString);
-    experimentRunDeleteQuery.setParameter("deleted", true);
-    experimentRunDeleteQuery.setMaxResults(this.recordUpdateLimit);
-    List<ExperimentRunEntity> experimentRunEntities = experimentRunDeleteQuery.list();
-
-    List<String> experimentRunIds = new ArrayList<>();
-    if (!experimentRunEntities.isEmpty()) {
-      for (ExperimentRunEntity experimentRunEntity : experimentRunEntities) {
-        experimentRunIds.add(experimentRunEntity.getId());
-      }
+  /**
+   * Deletes the children of the runs bottom up with plain JDBC statements first: observations and
+   * their key values and artifacts, key values, attributes, artifacts, features, tags, comments and
+   * observation rollups. Loading the runs afterwards only loads their few remaining children, which
+   * Hibernate deletes with the runs.
+   */
+  private void deleteExperimentRuns(List<String> experimentRunIds) {
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      String ownerQueryString =
+          "SELECT expr.id, expr.owner FROM "
+              + ExperimentRunEntity.class.getSimpleName()
+              + " expr WHERE expr.id IN (:ids)";
+      Query<Object[]> ownerQuery = session.createQuery(ownerQueryString, Object[].class);
+      ownerQuery.setParameterList("ids", experimentRunIds);
       try {
-        deleteRoleBindingsForExperimentRuns(experimentRunEntities);
+        deleteRoleBindingsForExperimentRuns(ownerQuery.list());
       } catch (StatusRuntimeException ex) {
         LOGGER.info(
             "DeleteEntitiesCron : deleteExperimentRuns : deleteRoleBindingsForExperimentRuns : Exception: {}",
@@ -281,46 +370,119 @@ public class DeleteEntitiesCron extends TimerTask {
             ex);
       }
 
-      try {
-        // Delete the ExperimentRun comments
-        Transaction transaction = session.beginTransaction();
-        if (!experimentRunIds.isEmpty()) {
-          removeEntityComments(
-              session, experimentRunIds, ExperimentRunEntity.class.getSimpleName());
-        }
-        transaction.commit();
+      Transaction transaction = session.beginTransaction();
+      session.doWork(connection -> deleteExperimentRunChildren(connection, experimentRunIds));
+      transaction.commit();
 
-        for (ExperimentRunEntity experimentRunEntity : experimentRunEntities) {
-          try {
-            transaction = session.beginTransaction();
-            session.delete(experimentRunEntity);
-            transaction.commit();
-          } catch (OptimisticLockException ex) {
-            LOGGER.info(
-                "DeleteEntitiesCron : deleteExperimentRuns : Exception: {}", ex.getMessage());
+      deleteEntities(
+          session,
+          getEntities(session, ExperimentRunEntity.class, experimentRunIds),
+          EXPERIMENT_RUNS);
+    }
+  }
+
+  private static void deleteExperimentRunChildren(Connection connection, List<String> runIds)
+      throws SQLException {
+    String runIdPlaceholders = getPlaceholders(runIds.size());
+
+    // Observation values are not linked to the run, find them before the observations are gone
+    List<Long> observationKeyValueIds = new ArrayList<>();
+    List<Long> observationArtifactIds = new ArrayList<>();
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "SELECT keyvaluemapping_id, artifact_id FROM observation WHERE experiment_run_id IN ("
+                + runIdPlaceholders
+                + ")")) {
+      setParameters(statement, 1, runIds);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          long keyValueId = resultSet.getLong(1);
+          if (!resultSet.wasNull()) {
+            observationKeyValueIds.add(keyValueId);
+          }
+          long artifactId = resultSet.getLong(2);
+          if (!resultSet.wasNull()) {
+            observationArtifactIds.add(artifactId);
           }
         }
-      } catch (OptimisticLockException ex) {
-        LOGGER.info("DeleteEntitiesCron : deleteExperimentRuns : Exception: {}", ex.getMessage());
-      } catch (Exception ex) {
-        LOGGER.debug("DeleteEntitiesCron : deleteExperimentRuns : Exception:", ex);
       }
     }
 
-    LOGGER.debug(
-        "ExperimentRun deleted successfully : Deleted experimentRuns count {}",
-        experimentRunIds.size());
+    deleteByRunIds(connection, "observation", runIds);
+    deleteByIdBatch(connection, "keyvalue", observationKeyValueIds);
+    deleteByIdBatch(connection, "artifact", observationArtifactIds);
+    for (String table :
+        Arrays.asList(
+            "keyvalue", "attribute", "artifact", "feature", "tag_mapping", "observation_rollup")) {
+      deleteByRunIds(connection, table, runIds);
+    }
+
+    String commentFilter = "entity_name = ? AND entity_id IN (" + runIdPlaceholders + ")";
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "DELETE FROM user_comment WHERE comment_id IN (SELECT id FROM comment WHERE "
+                + commentFilter
+                + ")")) {
+      statement.setString(1, ExperimentRunEntity.class.getSimpleName());
+      setParameters(statement, 2, runIds);
+      statement.executeUpdate();
+    }
+    try (PreparedStatement statement =
+        connection.prepareStatement("DELETE FROM comment WHERE " + commentFilter)) {
+      statement.setString(1, ExperimentRunEntity.class.getSimpleName());
+      setParameters(statement, 2, runIds);
+      statement.executeUpdate();
+    }
+  }
+
+  private static void deleteByRunIds(Connection connection, String table, List<String> runIds)
+      throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "DELETE FROM "
+                + table
+                + " WHERE experiment_run_id IN ("
+                + getPlaceholders(runIds.size())
+                + ")")) {
+      setParameters(statement, 1, runIds);
+      statement.executeUpdate();
+    }
+  }
+
+  private static void deleteByIdBatch(Connection connection, String table, List<Long> ids)
+      throws SQLException {
+    if (ids.isEmpty()) {
+      return;
+    }
+    try (PreparedStatement statement =
+        connection.prepareStatement("DELETE FROM " + table + " WHERE id = ?")) {
+      for (Long id : ids) {
+        statement.setLong(1, id);
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
   }
 
-  private void deleteRoleBindingsForExperimentRuns(
-      List<ExperimentRunEntity> experimentRunEntities) {
+  private static String getPlaceholders(int count) {
+    return String.join(",", Collections.nCopies(count, "?"));
+  }
+
+  private static void setParameters(
+      PreparedStatement statement, int firstIndex, List<String> values) throws SQLException {
+    for (int i = 0; i < values.size(); i++) {
+      statement.setString(firstIndex + i, values.get(i));
+    }
+  }
+
+  private void deleteRoleBindingsForExperimentRuns(List<Object[]> runOwners) {
     List<String> roleBindingNames = new LinkedList<>();
-    for (ExperimentRunEntity experimentRunEntity : experimentRunEntities) {
+    for (Object[] runOwner : runOwners) {
       String ownerRoleBindingName =
           roleService.buildRoleBindingName(
               ModelDBConstants.ROLE_EXPERIMENT_RUN_OWNER,
-              experimentRunEntity.getId(),
-              experimentRunEntity.getOwner(),
+              (String) runOwner[0],
+              (String) runOwner[1],
               ModelDBServiceResourceTypes.EXPERIMENT_RUN.name());
       if (ownerRoleBindingName != null) {
         roleBindingNames.add(ownerRoleBindingName);
@@ -331,155 +493,50 @@ public class DeleteEntitiesCron extends TimerTask {
     }
   }
 
-  private void removeEntityComments(Session session, List<String> entityIds, String entityName) {
-    String commentDeleteHql =
-        new StringBuilder()
-            .append("From CommentEntity ce where ce.")
-            .append(ModelDBConstants.ENTITY_ID)
-            .append(" IN (:entityIds) AND ce.")
-            .append(ModelDBConstants.ENTITY_NAME)
-            .append(" =:entityName")
-            .toString();
-    Query commentDeleteQuery = session.createQuery(commentDeleteHql);
-    commentDeleteQuery.setParameterList("entityIds", entityIds);
-    commentDeleteQuery.setParameter("entityName", entityName);
-    List<CommentEntity> commentEntities = commentDeleteQuery.list();
-    for (CommentEntity commentEntity : commentEntities) {
-      session.delete(commentEntity);
-    }
-  }
-
-  private void deleteDatasets(Session session) {
-    LOGGER.trace("Dataset deleting");
-    String alias = "dt";
-    String deleteDatasetsQueryString =
-        new StringBuilder("FROM ")
-            .append(DatasetEntity.class.getSimpleName())
-            .append(" ")
-            .append(alias)
-            .append(" WHERE ")
-            .append(alias)
-            .append(".")
-            .append(ModelDBConstants.DELETED)
-            .append(" = :deleted ")
-            .toString();
-    Query datasetDeleteQuery = session.createQuery(deleteDatasetsQueryString);
-    datasetDeleteQuery.setParameter("deleted", true);
-    datasetDeleteQuery.setMaxResults(this.recordUpdateLimit);
-    List<DatasetEntity> datasetEntities = datasetDeleteQuery.list();
-
-    List<String> datasetIds = new ArrayList<>();
-    if (!datasetEntities.isEmpty()) {
-      for (DatasetEntity datasetEntity : datasetEntities) {
-        datasetIds.add(datasetEntity.getId());
-      }
-
-      try {
-        roleService.deleteEntityResourcesWithServiceUser(
-            datasetIds, ModelDBServiceResourceTypes.DATASET);
-        Transaction transaction = session.beginTransaction();
-        String updateDeletedStatusDatasetVersionQueryString =
-            new StringBuilder("UPDATE ")
-                .append(DatasetVersionEntity.class.getSimpleName())
-                .append(" dv ")
-                .append("SET dv.")
-                .append(ModelDBConstants.DELETED)
-                .append(" = :deleted ")
-                .append(" WHERE dv.")
-                .append(ModelDBConstants.DATASET_ID)
-                .append(" IN (:datasetIds)")
-                .toString();
-        Query deletedDatasetVersionQuery =
-            session.createQuery(updateDeletedStatusDatasetVersionQueryString);
-        deletedDatasetVersionQuery.setParameter("deleted", true);
-        deletedDatasetVersionQuery.setParameter("datasetIds", datasetIds);
-        deletedDatasetVersionQuery.executeUpdate();
-        transaction.commit();
+  private void deleteDatasets(List<String> datasetIds) {
+    roleService.deleteEntityResourcesWithServiceUser(
+        datasetIds, ModelDBServiceResourceTypes.DATASET);
 
-        for (DatasetEntity datasetEntity : datasetEntities) {
-          try {
-            transaction = session.beginTransaction();
-            session.delete(datasetEntity);
-            transaction.commit();
-          } catch (OptimisticLockException ex) {
-            LOGGER.info("DeleteEntitiesCron : deleteDatasets : Exception: {}", ex.getMessage());
-          }
-        }
-      } catch (OptimisticLockException ex) {
-        LOGGER.info("DeleteEntitiesCron : deleteDatasets : Exception: {}", ex.getMessage());
-      } catch (Exception ex) {
-        LOGGER.warn("DeleteEntitiesCron : deleteDatasets : Exception:", ex);
-      }
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      Transaction transaction = session.beginTransaction();
+      String updateDeletedStatusDatasetVersionQueryString =
+          new StringBuilder("UPDATE ")
+              .append(DatasetVersionEntity.class.getSimpleName())
+              .append(" dv ")
+              .append("SET dv.")
+              .append(ModelDBConstants.DELETED)
+              .append(" = :deleted ")
+              .append(" WHERE dv.")
+              .append(ModelDBConstants.DATASET_ID)
+              .append(" IN (:datasetIds)")
+              .toString();
+      Query deletedDatasetVersionQuery =
+          session.createQuery(updateDeletedStatusDatasetVersionQueryString);
+      deletedDatasetVersionQuery.setParameter("deleted", true);
+      deletedDatasetVersionQuery.setParameter("datasetIds", datasetIds);
+      deletedDatasetVersionQuery.executeUpdate();
+      transaction.commit();
+
+      deleteEntities(session, getEntities(session, DatasetEntity.class, datasetIds), DATASETS);
     }
-    LOGGER.debug("Dataset Deleted successfully : Deleted datasets count {}", datasetIds.isEmpty());
   }
 
-  private void deleteDatasetVersions(Session session) {
-    LOGGER.trace("DatasetVersion deleting");
-    String alias = "dv";
-    String deleteDatasetVersionsQueryString =
-        new StringBuilder("FROM ")
-            .append(DatasetVersionEntity.class.getSimpleName())
-            .append(" ")
-            .append(alias)
-            .append(" WHERE ")
-            .append(alias)
-            .append(".")
-            .append(ModelDBConstants.DELETED)
-            .append(" = :deleted ")
-            .toString();
-    Query datasetVersionDeleteQuery = session.createQuery(deleteDatasetVersionsQueryString);
-    datasetVersionDeleteQuery.setParameter("deleted", true);
-    List<DatasetVersionEntity> datasetVersionEntities = datasetVersionDeleteQuery.list();
+  private void deleteDatasetVersions(List<String> datasetVersionIds) {
+    roleService.deleteEntityResourcesWithServiceUser(
+        datasetVersionIds, ModelDBServiceResourceTypes.DATASET_VERSION);
 
-    if (!datasetVersionEntities.isEmpty()) {
-      try {
-        roleService.deleteEntityResourcesWithServiceUser(
-            datasetVersionEntities.stream()
-                .map(DatasetVersionEntity::getId)
-                .collect(Collectors.toList()),
-            ModelDBServiceResourceTypes.DATASET_VERSION);
-        for (DatasetVersionEntity datasetVersionEntity : datasetVersionEntities) {
-          try {
-            Transaction transaction = session.beginTransaction();
-            session.delete(datasetVersionEntity);
-            transaction.commit();
-          } catch (OptimisticLockException ex) {
-            LOGGER.info(
-                "DeleteEntitiesCron : deleteDatasetVersions : Exception: {}", ex.getMessage());
-          }
-        }
-      } catch (OptimisticLockException ex) {
-        LOGGER.info("DeleteEntitiesCron : deleteDatasetVersions : Exception: {}", ex.getMessage());
-      } catch (Exception ex) {
-        LOGGER.warn("DeleteEntitiesCron : deleteDatasetVersions : Exception:", ex);
-      }
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      deleteEntities(
+          session,
+          getEntities(session, DatasetVersionEntity.class, datasetVersionIds),
+          DATASET_VERSIONS);
     }
-    LOGGER.debug(
-        "DatasetVersion Deleted successfully : Deleted datasetVersions count {}",
-        datasetVersionEntities.size());
   }
 
-  private void deleteRepositories(Session session) {
-    LOGGER.trace("Repository deleting");
-    String alias = "rp";
-    String deleteRepositoriesQueryString =
-        new StringBuilder("FROM ")
-            .append(RepositoryEntity.class.getSimpleName())
-            .append(" ")
-            .append(alias)
-            .append(" WHERE ")
-            .append(alias)
-            .append(".")
-            .append(ModelDBConstants.DELETED)
-            .append(" = :deleted ")
-            .toString();
-    Query repositoryDeleteQuery = session.createQuery(deleteRepositoriesQueryString);
-    repositoryDeleteQuery.setParameter("deleted", true);
-    List<RepositoryEntity> repositoryEntities = repositoryDeleteQuery.list();
-
-    if (!repositoryEntities.isEmpty()) {
-      for (RepositoryEntity repository : repositoryEntities) {
+  private void deleteRepositories(List<Long> repositoryIds) {
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      for (RepositoryEntity repository :
+          getEntities(session, RepositoryEntity.class, repositoryIds)) {
         Transaction transaction = null;
         try {
           ModelDBServiceResourceTypes modelDBServiceResourceTypes =
@@ -489,86 +546,7 @@ public class DeleteEntitiesCron extends TimerTask {
               modelDBServiceResourceTypes);
 
           transaction = session.beginTransaction();
-
-          String deleteTagsHql =
-              new StringBuilder("DELETE " + TagsEntity.class.getSimpleName() + " te where te.id.")
-                  .append(ModelDBConstants.REPOSITORY_ID)
-                  .append(" = :repoId ")
-                  .toString();
-          Query deleteTagsQuery = session.createQuery(deleteTagsHql);
-          deleteTagsQuery.setParameter("repoId", repository.getId());
-          deleteTagsQuery.executeUpdate();
-
-          deleteLabels(
-              session, String.valueOf(repository.getId()), IDTypeEnum.IDType.VERSIONING_REPOSITORY);
-
-          String getRepositoryBranchesHql =
-              new StringBuilder("From ")
-                  .append(BranchEntity.class.getSimpleName())
-                  .append(" br where br.id.")
-                  .append(ModelDBConstants.REPOSITORY_ID)
-                  .append(" = :repoId ")
-                  .toString();
-          Query query = session.createQuery(getRepositoryBranchesHql);
-          query.setParameter("repoId", repository.getId());
-          List<BranchEntity> branchEntities = query.list();
-
-          List<String> branches =
-              branchEntities.stream()
-                  .map(branchEntity -> branchEntity.getId().getBranch())
-                  .collect(Collectors.toList());
-
-          if (!branches.isEmpty()) {
-            String deleteBranchesHQL =
-                "DELETE FROM "
-                    + BranchEntity.class.getSimpleName()
-                    + " br where br.id.repository_id = :repositoryId AND br.id.branch IN (:branches)";
-            Query deleteBranchQuery = session.createQuery(deleteBranchesHQL);
-            deleteBranchQuery.setParameter("repositoryId", repository.getId());
-            deleteBranchQuery.setParameterList("branches", branches);
-            deleteBranchQuery.executeUpdate();
-          }
-
-          StringBuilder commitQueryBuilder =
-              new StringBuilder(
-                  "SELECT cm FROM "
-                      + CommitEntity.class.getSimpleName()
-                      + " cm LEFT JOIN cm.repository repo WHERE repo.id = :repoId ");
-          Query<CommitEntity> commitEntityQuery =
-              session.createQuery(
-                  commitQueryBuilder.append(" ORDER BY cm.date_created DESC").toString());
-          commitEntityQuery.setParameter("repoId", repository.getId());
-          List<CommitEntity> commitEntities = commitEntityQuery.list();
-
-          commitEntities.forEach(
-              commitEntity -> {
-                if (commitEntity.getRepository().contains(repository)) {
-                  commitEntity.getRepository().remove(repository);
-                  if (commitEntity.getRepository().isEmpty()) {
-                    if (repository.isDataset()) {
-                      String compositeId =
-                          VersioningUtils.getVersioningCompositeId(
-                              repository.getId(),
-                              commitEntity.getCommit_hash(),
-                              Collections.singletonList(
-                                  ModelDBConstants.DEFAULT_VERSIONING_BLOB_LOCATION));
-                      deleteLabels(
-                          session, compositeId, IDTypeEnum.IDType.VERSIONING_REPO_COMMIT_BLOB);
-                      deleteAttribute(session, compositeId);
-                    } else {
-                      deleteLabels(
-                          session,
-                          commitEntity.getCommit_hash(),
-                          IDTypeEnum.IDType.VERSIONING_COMMIT);
-                    }
-                    deleteTagEntities(session, repository.getId(), commitEntity.getCommit_hash());
-                    session.delete(commitEntity);
-                  } else {
-                    session.update(commitEntity);
-                  }
-                }
-              });
-          session.delete(repository);
+          deleteRepository(session, repository);
           transaction.commit();
         } catch (OptimisticLockException ex) {
           LOGGER.info("DeleteEntitiesCron : deleteRepositories : Exception: {}", ex.getMessage());
@@ -583,9 +561,84 @@ public class DeleteEntitiesCron extends TimerTask {
         }
       }
     }
-    LOGGER.debug(
-        "Repository Deleted successfully : Deleted repositories count {}",
-        repositoryEntities.size());
+  }
+
+  private void deleteRepository(Session session, RepositoryEntity repository) {
+    String deleteTagsHql =
+        new StringBuilder("DELETE " + TagsEntity.class.getSimpleName() + " te where te.id.")
+            .append(ModelDBConstants.REPOSITORY_ID)
+            .append(" = :repoId ")
+            .toString();
+    Query deleteTagsQuery = session.createQuery(deleteTagsHql);
+    deleteTagsQuery.setParameter("repoId", repository.getId());
+    deleteTagsQuery.executeUpdate();
+
+    deleteLabels(
+        session, String.valueOf(repository.getId()), IDTypeEnum.IDType.VERSIONING_REPOSITORY);
+
+    String getRepositoryBranchesHql =
+        new StringBuilder("From ")
+            .append(BranchEntity.class.getSimpleName())
+            .append(" br where br.id.")
+            .append(ModelDBConstants.REPOSITORY_ID)
+            .append(" = :repoId ")
+            .toString();
+    Query query = session.createQuery(getRepositoryBranchesHql);
+    query.setParameter("repoId", repository.getId());
+    List<BranchEntity> branchEntities = query.list();
+
+    List<String> branches =
+        branchEntities.stream()
+            .map(branchEntity -> branchEntity.getId().getBranch())
+            .collect(Collectors.toList());
+
+    if (!branches.isEmpty()) {
+      String deleteBranchesHQL =
+          "DELETE FROM "
+              + BranchEntity.class.getSimpleName()
+              + " br where br.id.repository_id = :repositoryId AND br.id.branch IN (:branches)";
+      Query deleteBranchQuery = session.createQuery(deleteBranchesHQL);
+      deleteBranchQuery.setParameter("repositoryId", repository.getId());
+      deleteBranchQuery.setParameterList("branches", branches);
+      deleteBranchQuery.executeUpdate();
+    }
+
+    StringBuilder commitQueryBuilder =
+        new StringBuilder(
+            "SELECT cm FROM "
+                + CommitEntity.class.getSimpleName()
+                + " cm LEFT JOIN cm.repository repo WHERE repo.id = :repoId ");
+    Query<CommitEntity> commitEntityQuery =
+        session.createQuery(commitQueryBuilder.append(" ORDER BY cm.date_created DESC").toString());
+    commitEntityQuery.setParameter("repoId", repository.getId());
+    List<CommitEntity> commitEntities = commitEntityQuery.list();
+
+    commitEntities.forEach(
+        commitEntity -> {
+          if (commitEntity.getRepository().contains(repository)) {
+            commitEntity.getRepository().remove(repository);
+            if (commitEntity.getRepository().isEmpty()) {
+              if (repository.isDataset()) {
+                String compositeId =
+                    VersioningUtils.getVersioningCompositeId(
+                        repository.getId(),
+                        commitEntity.getCommit_hash(),
+                        Collections.singletonList(
+                            ModelDBConstants.DEFAULT_VERSIONING_BLOB_LOCATION));
+                deleteLabels(session, compositeId, IDTypeEnum.IDType.VERSIONING_REPO_COMMIT_BLOB);
+                deleteAttribute(session, compositeId);
+              } else {
+                deleteLabels(
+                    session, commitEntity.getCommit_hash(), IDTypeEnum.IDType.VERSIONING_COMMIT);
+              }
+              deleteTagEntities(session, repository.getId(), commitEntity.getCommit_hash());
+              session.delete(commitEntity);
+            } else {
+              session.update(commitEntity);
+            }
+          }
+        });
+    session.delete(repository);
   }
 
   public static void deleteLabels(Session session, Object entityHash, IDTypeEnum.IDType idType) {
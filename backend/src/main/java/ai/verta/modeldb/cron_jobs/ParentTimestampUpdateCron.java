@@ -2,124 +2,87 @@ package ai.verta.modeldb.cron_jobs;
 
 import ai.verta.modeldb.utils.ModelDBHibernateUtil;
 import ai.verta.modeldb.utils.ModelDBUtils;
+import ai.verta.modeldb.utils.ParentTimestampTracker;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TimerTask;
+import java.util.stream.Collectors;
 import javax.persistence.OptimisticLockException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 
+/**
+ * Propagates date_updated from children to the parents recorded by {@link
+ * ParentTimestampTracker}. Every tick updates only the parents listed in the parent_timestamp_dirty
+ * table, in batches of recordUpdateLimit, so the cost follows the write volume instead of the size
+ * of the child tables.
+ *
+ * <p>Every tick also reconciles the next recordUpdateLimit parents of each type, whether they are
+ * marked or not, walking the parent tables by id and starting over at the end. This catches up the
+ * parents that were stale before the dirty table existed, and the children written without an
+ * entity event, such as bulk updates.
+ */
 public class ParentTimestampUpdateCron extends TimerTask {
   private static final Logger LOGGER = LogManager.getLogger(ParentTimestampUpdateCron.class);
+  public static final long DEFAULT_MIN_DIRTY_AGE_MILLIS = 0L;
+
   private final ModelDBHibernateUtil modelDBHibernateUtil = ModelDBHibernateUtil.getInstance();
+  private final int recordUpdateLimit;
+  // Parents marked more recently are left for a later tick, so that a burst of child writes
+  // updates its parent once
+  private final long minDirtyAgeMillis;
   private final boolean isPostgres;
-  private static String updateExperimentQuery;
-  private static String updateProjectQuery;
-  private static String updateRepositoryQuery;
+  // Last id reconciled for each parent type, absent when the next pass starts over
+  private final Map<String, String> reconcileCursors = new HashMap<>();
+  private final String updateExperimentQuery;
+  private final String updateProjectQuery;
+  private final String updateRepositoryQuery;
 
   public ParentTimestampUpdateCron(int recordUpdateLimit, boolean isPostgres) {
-
-    this.isPostgres = isPostgres;
-    initExperimentUpdateQueryString(recordUpdateLimit);
-    initProjectUpdateQueryString(recordUpdateLimit);
-    initRepositoryUpdateQueryString(recordUpdateLimit);
-  }
-
-  public void initExperimentUpdateQueryString(int recordUpdateLimit) {
-    if (isPostgres) {
-      updateExperimentQuery =
-          new StringBuilder("with expr_alias as ")
-              .append(" ( SELECT expr.experiment_id, MAX(expr.date_updated) AS max_date ")
-              .append(" FROM experiment_run expr ")
-              .append(" GROUP BY expr.experiment_id limit ")
-              .append(recordUpdateLimit)
-              .append(" ) UPDATE experiment as ex ")
-              .append(" SET date_updated = expr_alias.max_date ")
-              .append(" from expr_alias ")
-              .append(" WHERE ex.id = expr_alias.experiment_id ")
-              .append(" and ex.date_updated < expr_alias.max_date")
-              .toString();
-    } else {
-      updateExperimentQuery =
-          new StringBuilder("UPDATE experiment ex ")
-              .append(" INNER JOIN ")
-              .append(" (SELECT expr.experiment_id, MAX(expr.date_updated) AS max_date ")
-              .append(" FROM experiment_run expr INNER JOIN experiment e ")
-              .append(" ON e.id = expr.experiment_id AND e.date_updated < expr.date_updated ")
-              .append(" GROUP BY expr.experiment_id LIMIT ")
-              .append(recordUpdateLimit)
-              .append(" ) expr_alias  ON ex.id = expr_alias.experiment_id ")
-              .append(" SET ex.date_updated = expr_alias.max_date ")
-              .append(" WHERE ex.id = expr_alias.experiment_id ")
-              .toString();
-    }
+    this(recordUpdateLimit, DEFAULT_MIN_DIRTY_AGE_MILLIS, isPostgres);
   }
 
-  private void initProjectUpdateQueryString(int recordUpdateLimit) {
-    if (isPostgres) {
-      updateProjectQuery =
-          new StringBuilder("with ex_alias as ")
-              .append(" ( SELECT ex.project_id, MAX(ex.date_updated) AS max_date ")
-              .append(" FROM experiment ex ")
-              .append(" GROUP BY ex.project_id limit ")
-              .append(recordUpdateLimit)
-              .append(" ) UPDATE project as p ")
-              .append(" SET date_updated = ex_alias.max_date ")
-              .append(" from ex_alias WHERE p.id = ex_alias.project_id ")
-              .append(" and p.date_updated < ex_alias.max_date")
-              .toString();
-    } else {
-      updateProjectQuery =
-          new StringBuilder("UPDATE project p ")
-              .append(" INNER JOIN ")
-              .append(" (SELECT ex.project_id, MAX(ex.date_updated) AS max_date ")
-              .append(" FROM experiment ex INNER JOIN project p ")
-              .append(" ON  p.id = ex.project_id AND p.date_updated < ex.date_updated ")
-              .append(" GROUP BY ex.project_id LIMIT ")
-              .append(recordUpdateLimit)
-              .append(" ) exp_alias ")
-              .append(" ON  p.id = exp_alias.project_id ")
-              .append(" SET p.date_updated = exp_alias.max_date WHERE p.id = exp_alias.project_id")
-              .toString();
-    }
-  }
-
-  private void initRepositoryUpdateQueryString(int recordUpdateLimit) {
-    if (isPostgres) {
-      updateRepositoryQuery =
-          new StringBuilder("with cm_alias as ")
-              .append(" ( SELECT rc.repository_id, MAX(cm.date_created) AS max_date ")
-              .append(" FROM commit cm INNER JOIN repository_commit rc ")
-              .append(" ON rc.commit_hash = cm.commit_hash ")
-              .append(" INNER JOIN commit_parent cp ")
-              .append(" ON cp.parent_hash IS NOT NULL ")
-              .append(" AND cp.child_hash = cm.commit_hash ")
-              .append(" GROUP BY rc.repository_id limit ")
-              .append(recordUpdateLimit)
-              .append(" ) UPDATE repository as rp ")
-              .append(" SET date_updated = cm_alias.max_date ")
-              .append(
-                  " from cm_alias WHERE rp.id = cm_alias.repository_id and rp.date_updated < cm_alias.max_date")
-              .toString();
-    } else {
-      updateRepositoryQuery =
-          new StringBuilder("UPDATE repository rp INNER JOIN ")
-              .append(" (SELECT rc.repository_id, MAX(cm.date_created) AS max_date ")
-              .append(" FROM `commit` cm INNER JOIN repository_commit rc ")
-              .append(" ON rc.commit_hash = cm.commit_hash ")
-              .append(" INNER JOIN commit_parent cp ")
-              .append(" ON cp.parent_hash IS NOT NULL ")
-              .append(" AND cp.child_hash = cm.commit_hash ")
-              .append(" INNER JOIN repository rp ")
-              .append(" ON rp.id = rc.repository_id AND rp.date_updated < cm.date_created ")
-              .append(" GROUP BY rc.repository_id LIMIT ")
-              .append(recordUpdateLimit)
-              .append(" ) cm_alias ")
-              .append(" ON rp.id = cm_alias.repository_id AND rp.date_updated < cm_alias.max_date ")
-              .append(
-                  " SET rp.date_updated = cm_alias.max_date WHERE rp.id = cm_alias.repository_id")
-              .toString();
-    }
+  public ParentTimestampUpdateCron(
+      int recordUpdateLimit, long minDirtyAgeMillis, boolean isPostgres) {
+    this.recordUpdateLimit = recordUpdateLimit;
+    this.minDirtyAgeMillis = minDirtyAgeMillis;
+    this.isPostgres = isPostgres;
+    this.updateExperimentQuery =
+        new StringBuilder("UPDATE experiment SET date_updated = ")
+            .append(" (SELECT MAX(expr.date_updated) FROM experiment_run expr ")
+            .append(" WHERE expr.experiment_id = experiment.id) ")
+            .append(" WHERE experiment.id IN (:ids) AND experiment.date_updated < ")
+            .append(" (SELECT MAX(expr.date_updated) FROM experiment_run expr ")
+            .append(" WHERE expr.experiment_id = experiment.id) ")
+            .toString();
+    this.updateProjectQuery =
+        new StringBuilder("UPDATE project SET date_updated = ")
+            .append(" (SELECT MAX(ex.date_updated) FROM experiment ex ")
+            .append(" WHERE ex.project_id = project.id) ")
+            .append(" WHERE project.id IN (:ids) AND project.date_updated < ")
+            .append(" (SELECT MAX(ex.date_updated) FROM experiment ex ")
+            .append(" WHERE ex.project_id = project.id) ")
+            .toString();
+    String commitTable = isPostgres ? "commit" : "`commit`";
+    String maxCommitDateQuery =
+        new StringBuilder(" (SELECT MAX(cm.date_created) FROM ")
+            .append(commitTable)
+            .append(" cm INNER JOIN repository_commit rc ")
+            .append(" ON rc.commit_hash = cm.commit_hash ")
+            .append(" INNER JOIN commit_parent cp ")
+            .append(" ON cp.parent_hash IS NOT NULL ")
+            .append(" AND cp.child_hash = cm.commit_hash ")
+            .append(" WHERE rc.repository_id = repository.id) ")
+            .toString();
+    this.updateRepositoryQuery =
+        new StringBuilder("UPDATE repository SET date_updated = ")
+            .append(maxCommitDateQuery)
+            .append(" WHERE repository.id IN (:ids) AND repository.date_updated < ")
+            .append(maxCommitDateQuery)
+            .toString();
   }
 
   /** The action to be performed by this timer task. */
@@ -128,38 +91,24 @@ public class ParentTimestampUpdateCron extends TimerTask {
     LOGGER.info("ParentTimestampUpdateCron wakeup");
 
     try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
-      // Update experiment timestamp
-      session.beginTransaction();
-      try {
-        updateExperimentByExperimentRunTimestamp(session);
-      } catch (Exception ex) {
-        LOGGER.warn(
-            "ParentTimestampUpdateCron : updateExperimentByExperimentRunTimestamp Exception: ", ex);
-      } finally {
-        session.getTransaction().commit();
-      }
-
-      // Update project timestamp
-      session.beginTransaction();
-      try {
-        updateProjectByExperimentTimestamp(session);
-      } catch (Exception ex) {
-        LOGGER.warn(
-            "ParentTimestampUpdateCron : updateProjectByExperimentTimestamp Exception: ", ex);
-      } finally {
-        session.getTransaction().commit();
-      }
-
-      // Update repository timestamp
-      session.beginTransaction();
-      try {
-        updateRepositoryByCommitTimestamp(session);
-      } catch (Exception ex) {
-        LOGGER.warn(
-            "ParentTimestampUpdateCron : updateRepositoryByCommitTimestamp Exception: ", ex);
-      } finally {
-        session.getTransaction().commit();
-      }
+      // Updated experiments mark their projects dirty, so experiments go first
+      int experimentCount =
+          updateDirtyParents(session, ParentTimestampTracker.EXPERIMENT)
+              + reconcileParents(session, ParentTimestampTracker.EXPERIMENT);
+      LOGGER.info(
+          "Experiment timestamp updated successfully : Updated experiments count {}",
+          experimentCount);
+      int projectCount =
+          updateDirtyParents(session, ParentTimestampTracker.PROJECT)
+              + reconcileParents(session, ParentTimestampTracker.PROJECT);
+      LOGGER.info(
+          "Project timestamp updated successfully : Updated projects count {}", projectCount);
+      int repositoryCount =
+          updateDirtyParents(session, ParentTimestampTracker.REPOSITORY)
+              + reconcileParents(session, ParentTimestampTracker.REPOSITORY);
+      LOGGER.info(
+          "Repository timestamp updated successfully : Updated repositories count {}",
+          repositoryCount);
     } catch (OptimisticLockException ex) {
       LOGGER.info("ParentTimestampUpdateCron Exception: {}", ex.getMessage());
     } catch (Exception ex) {
@@ -172,24 +121,124 @@ public class ParentTimestampUpdateCron extends TimerTask {
     LOGGER.info("ParentTimestampUpdateCron finish tasks and reschedule");
   }
 
-  private void updateProjectByExperimentTimestamp(Session session) {
-    LOGGER.trace("Project timestamp updating");
-    Query query = session.createSQLQuery(updateProjectQuery);
-    int count = query.executeUpdate();
-    LOGGER.info("Project timestamp updated successfully : Updated projects count {}", count);
+  /**
+   * Updates the dirty parents of the given type in batches, each batch removing its rows from
+   * parent_timestamp_dirty in the same transaction, and returns the number of updated parents.
+   */
+  private int updateDirtyParents(Session session, String entityType) {
+    LOGGER.trace("{} timestamp updating", entityType);
+    long markedBefore = System.currentTimeMillis() - minDirtyAgeMillis;
+    int updatedCount = 0;
+    List<String> entityIds;
+    do {
+      session.beginTransaction();
+      try {
+        Query<?> selectQuery =
+            session.createSQLQuery(
+                "SELECT entity_id FROM parent_timestamp_dirty "
+                    + " WHERE entity_type = :entityType AND marked_at <= :markedBefore "
+                    + " ORDER BY marked_at");
+        selectQuery.setParameter("entityType", entityType);
+        selectQuery.setParameter("markedBefore", markedBefore);
+        selectQuery.setMaxResults(recordUpdateLimit);
+        entityIds =
+            selectQuery.list().stream().map(String::valueOf).collect(Collectors.toList());
+        if (entityIds.isEmpty()) {
+          session.getTransaction().commit();
+          break;
+        }
+
+        Query<?> deleteQuery =
+            session.createSQLQuery(
+                "DELETE FROM parent_timestamp_dirty "
+                    + " WHERE entity_type = :entityType AND entity_id IN (:ids)");
+        deleteQuery.setParameter("entityType", entityType);
+        deleteQuery.setParameterList("ids", entityIds);
+        deleteQuery.executeUpdate();
+
+        updatedCount += updateParents(session, entityType, entityIds);
+        session.getTransaction().commit();
+      } catch (Exception ex) {
+        if (session.getTransaction().isActive()) {
+          session.getTransaction().rollback();
+        }
+        throw ex;
+      }
+    } while (entityIds.size() == recordUpdateLimit);
+    return updatedCount;
+  }
+
+  /**
+   * Updates the next recordUpdateLimit parents of the given type after the last one reconciled,
+   * and returns the number of updated parents. The type names the parent table.
+   */
+  private int reconcileParents(Session session, String entityType) {
+    String cursor = reconcileCursors.get(entityType);
+    session.beginTransaction();
+    try {
+      Query<?> selectQuery =
+          session.createSQLQuery(
+              "SELECT id FROM "
+                  + entityType
+                  + (cursor == null ? "" : " WHERE id > :cursor")
+                  + " ORDER BY id");
+      if (cursor != null) {
+        selectQuery.setParameter(
+            "cursor",
+            entityType.equals(ParentTimestampTracker.REPOSITORY) ? Long.valueOf(cursor) : cursor);
+      }
+      selectQuery.setMaxResults(recordUpdateLimit);
+      List<String> entityIds =
+          selectQuery.list().stream().map(String::valueOf).collect(Collectors.toList());
+      int updatedCount = entityIds.isEmpty() ? 0 : updateParents(session, entityType, entityIds);
+      session.getTransaction().commit();
+
+      if (entityIds.size() < recordUpdateLimit) {
+        reconcileCursors.remove(entityType);
+      } else {
+        reconcileCursors.put(entityType, entityIds.get(entityIds.size() - 1));
+      }
+      return updatedCount;
+    } catch (Exception ex) {
+      if (session.getTransaction().isActive()) {
+        session.getTransaction().rollback();
+      }
+      throw ex;
+    }
   }
 
-  private void updateExperimentByExperimentRunTimestamp(Session session) {
-    LOGGER.trace("Experiment timestamp updating");
-    Query query = session.createSQLQuery(updateExperimentQuery);
-    int count = query.executeUpdate();
-    LOGGER.info("Experiment timestamp updated successfully : Updated experiments count {}", count);
+  private int updateParents(Session session, String entityType, List<String> entityIds) {
+    switch (entityType) {
+      case ParentTimestampTracker.EXPERIMENT:
+        int count = executeUpdate(session, updateExperimentQuery, entityIds);
+        Query<?> projectQuery =
+            session.createSQLQuery(
+                "SELECT DISTINCT project_id FROM experiment WHERE id IN (:ids)");
+        projectQuery.setParameterList("ids", entityIds);
+        List<String> projectIds =
+            projectQuery.list().stream().map(String::valueOf).collect(Collectors.toList());
+        if (!projectIds.isEmpty()) {
+          session.doWork(
+              connection ->
+                  ParentTimestampTracker.insertDirtyParents(
+                      connection, isPostgres, ParentTimestampTracker.PROJECT, projectIds));
+        }
+        return count;
+      case ParentTimestampTracker.PROJECT:
+        return executeUpdate(session, updateProjectQuery, entityIds);
+      case ParentTimestampTracker.REPOSITORY:
+        return executeUpdate(
+            session,
+            updateRepositoryQuery,
+            entityIds.stream().map(Long::valueOf).collect(Collectors.toList()));
+      default:
+        throw new IllegalArgumentException("Unknown parent type " + entityType);
+    }
   }
 
-  private void updateRepositoryByCommitTimestamp(Session session) {
-    LOGGER.trace("Repository timestamp updating");
-    Query query = session.createSQLQuery(updateRepositoryQuery);
-    int count = query.executeUpdate();
-    LOGGER.info("Repository timestamp updated successfully : Updated repositories count {}", count);
+  private int executeUpdate(Session session, String updateQuery, List<?> ids) {
+    Query<?> query = session.createSQLQuery(updateQuery);
+    query.setParameterList("ids", ids);
+    return query.executeUpdate();
   }
 }
@@ -7,6 +7,7 @@ public class ExperimentPaginationDTO {
 
   private List<Experiment> experiments;
   private Long totalRecords;
+  private String nextPageToken = "";
 
   public List<Experiment> getExperiments() {
     return experiments;
@@ -23,4 +24,12 @@ public class ExperimentPaginationDTO {
   public void setTotalRecords(Long totalRecords) {
     this.totalRecords = totalRecords;
   }
+
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public void setNextPageToken(String nextPageToken) {
+    this.nextPageToken = nextPageToken;
+  }
 }
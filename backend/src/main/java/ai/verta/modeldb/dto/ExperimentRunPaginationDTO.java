@@ -7,6 +7,7 @@ public class ExperimentRunPaginationDTO {
 
   private List<ExperimentRun> experimentRuns;
   private Long totalRecords;
+  private String nextPageToken = "";
 
   public List<ExperimentRun> getExperimentRuns() {
     return experimentRuns;
@@ -23,4 +24,12 @@ public class ExperimentRunPaginationDTO {
   public void setTotalRecords(Long totalRecords) {
     this.totalRecords = totalRecords;
   }
+
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public void setNextPageToken(String nextPageToken) {
+    this.nextPageToken = nextPageToken;
+  }
 }
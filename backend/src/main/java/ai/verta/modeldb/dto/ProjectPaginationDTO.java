@@ -7,6 +7,7 @@ public class ProjectPaginationDTO {
 
   private List<Project> projects;
   private Long totalRecords;
+  private String nextPageToken = "";
 
   public List<Project> getProjects() {
     return projects;
@@ -23,4 +24,12 @@ public class ProjectPaginationDTO {
   public void setTotalRecords(Long totalRecords) {
     this.totalRecords = totalRecords;
   }
+
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public void setNextPageToken(String nextPageToken) {
+    this.nextPageToken = nextPageToken;
+  }
 }
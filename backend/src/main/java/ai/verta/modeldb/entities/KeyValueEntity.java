@@ -31,6 +31,7 @@ public class KeyValueEntity {
       throws InvalidProtocolBufferException {
     setKey(keyValue.getKey());
     setValue(ModelDBUtils.getStringFromProtoObject(keyValue.getValue()));
+    setValue_num(getNumericValue(keyValue.getValue()));
     setValue_type(keyValue.getValueTypeValue());
 
     if (entity instanceof ProjectEntity) {
@@ -63,6 +64,11 @@ public class KeyValueEntity {
   @Column(name = "kv_value", columnDefinition = "TEXT")
   private String value;
 
+  // Copy of number values, so that numeric predicates and sorting can use an index instead of
+  // casting the serialized kv_value
+  @Column(name = "kv_value_num")
+  private Double value_num;
+
   @Column(name = "value_type")
   private Integer value_type;
 
@@ -120,6 +126,14 @@ public class KeyValueEntity {
     this.value = value;
   }
 
+  public Double getValue_num() {
+    return value_num;
+  }
+
+  public void setValue_num(Double valueNum) {
+    this.value_num = valueNum;
+  }
+
   public Integer getValue_type() {
     return value_type;
   }
@@ -186,6 +200,18 @@ public class KeyValueEntity {
     return field_type;
   }
 
+  /**
+   * Returns the value stored in kv_value_num for {@code value}: the number of number values, null
+   * for other kinds and for numbers that not every database can store (NaN and infinities).
+   */
+  public static Double getNumericValue(Value value) {
+    if (value.getKindCase() != Value.KindCase.NUMBER_VALUE
+        || !Double.isFinite(value.getNumberValue())) {
+      return null;
+    }
+    return value.getNumberValue();
+  }
+
   public KeyValue getProtoKeyValue() throws InvalidProtocolBufferException {
     Value.Builder valueBuilder = Value.newBuilder();
     try {
@@ -1,6 +1,7 @@
 package ai.verta.modeldb.entities.versioning;
 
 import ai.verta.modeldb.versioning.Commit;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -39,6 +40,19 @@ public class CommitEntity {
     if (parentCommits != null) {
       this.parent_commits.putAll(parentCommits);
     }
+    this.generation = computeGeneration(this.parent_commits.values());
+  }
+
+  // 1 for a root commit, else one more than the highest parent. Unknown if a parent's is unknown.
+  private static Long computeGeneration(Collection<CommitEntity> parentCommits) {
+    long maxParentGeneration = 0L;
+    for (CommitEntity parentCommit : parentCommits) {
+      if (parentCommit.getGeneration() == null) {
+        return null;
+      }
+      maxParentGeneration = Math.max(maxParentGeneration, parentCommit.getGeneration());
+    }
+    return maxParentGeneration + 1;
   }
 
   @Id
@@ -60,6 +74,10 @@ public class CommitEntity {
   @Column(name = "root_sha", columnDefinition = "varchar", length = 64)
   private String rootSha;
 
+  // Length of the longest path to a root commit, counting the commit itself
+  @Column(name = "generation")
+  private Long generation;
+
   // Repo fork
   @ManyToMany(targetEntity = RepositoryEntity.class, cascade = CascadeType.PERSIST)
   @JoinTable(
@@ -126,6 +144,14 @@ public class CommitEntity {
     this.rootSha = rootSha;
   }
 
+  public Long getGeneration() {
+    return generation;
+  }
+
+  public void setGeneration(Long generation) {
+    this.generation = generation;
+  }
+
   public Set<CommitEntity> getChild_commits() {
     return child_commits;
   }
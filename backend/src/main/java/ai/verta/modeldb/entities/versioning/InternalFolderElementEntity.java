@@ -43,6 +43,10 @@ public class InternalFolderElementEntity implements Serializable {
   @Column(name = "element_name", nullable = false)
   private String element_name;
 
+  // Algorithm that produced folder_hash, null for folders saved before it was recorded
+  @Column(name = "hash_algorithm")
+  private String hash_algorithm;
+
   public String getFolder_hash() {
     return folder_hash;
   }
@@ -59,6 +63,14 @@ public class InternalFolderElementEntity implements Serializable {
     return element_name;
   }
 
+  public String getHash_algorithm() {
+    return hash_algorithm;
+  }
+
+  public void setHash_algorithm(String hash_algorithm) {
+    this.hash_algorithm = hash_algorithm;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
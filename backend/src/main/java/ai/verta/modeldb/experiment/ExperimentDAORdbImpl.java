@@ -17,6 +17,7 @@ import ai.verta.modeldb.exceptions.*;
 import ai.verta.modeldb.project.ProjectDAO;
 import ai.verta.modeldb.utils.ModelDBHibernateUtil;
 import ai.verta.modeldb.utils.ModelDBUtils;
+import ai.verta.modeldb.utils.PageToken;
 import ai.verta.modeldb.utils.RdbmsUtils;
 import ai.verta.uac.ModelDBActionEnum;
 import ai.verta.uac.UserInfo;
@@ -873,6 +874,20 @@ public class ExperimentDAORdbImpl implements ExperimentDAO {
               experimentRoot,
               entityName);
 
+      boolean pageTokenSupported = PageToken.isSupported(queryParameters.getSortKey());
+      PageToken pageToken = null;
+      if (!queryParameters.getPageToken().isEmpty()) {
+        if (queryParameters.getPageLimit() == 0) {
+          throw new InvalidArgumentException("Page limit not found in request with page token");
+        }
+        pageToken =
+            PageToken.parse(
+                queryParameters.getPageToken(),
+                queryParameters,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending());
+      }
+
       Predicate[] predicateArr = new Predicate[finalPredicatesList.size()];
       for (int index = 0; index < finalPredicatesList.size(); index++) {
         predicateArr[index] = finalPredicatesList.get(index);
@@ -880,12 +895,33 @@ public class ExperimentDAORdbImpl implements ExperimentDAO {
 
       Predicate predicateWhereCause = builder.and(predicateArr);
       criteriaQuery.select(experimentRoot);
-      criteriaQuery.where(predicateWhereCause);
-      criteriaQuery.orderBy(orderBy);
+      if (pageToken != null) {
+        criteriaQuery.where(
+            predicateWhereCause,
+            pageToken.getAfterPredicate(
+                builder,
+                experimentRoot,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending()));
+      } else {
+        criteriaQuery.where(predicateWhereCause);
+      }
+      if (pageTokenSupported) {
+        criteriaQuery.orderBy(
+            PageToken.getOrders(
+                builder,
+                experimentRoot,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending()));
+      } else {
+        criteriaQuery.orderBy(orderBy);
+      }
 
       Query query = session.createQuery(criteriaQuery);
       LOGGER.debug("Final experiments final query : {}", query.getQueryString());
-      if (queryParameters.getPageNumber() != 0 && queryParameters.getPageLimit() != 0) {
+      if (pageToken != null) {
+        query.setMaxResults(queryParameters.getPageLimit());
+      } else if (queryParameters.getPageNumber() != 0 && queryParameters.getPageLimit() != 0) {
         // Calculate number of documents to skip
         int skips = queryParameters.getPageLimit() * (queryParameters.getPageNumber() - 1);
         query.setFirstResult(skips);
@@ -913,12 +949,32 @@ public class ExperimentDAORdbImpl implements ExperimentDAO {
         }
       }
 
-      long totalRecords = RdbmsUtils.count(session, experimentRoot, criteriaQuery);
+      // The following pages repeat the count of the first page instead of counting again
+      long totalRecords = 0;
+      if (pageToken != null) {
+        totalRecords = pageToken.getTotalRecords();
+      } else if (!queryParameters.getSkipTotalRecords()) {
+        totalRecords = RdbmsUtils.count(session, experimentRoot, criteriaQuery);
+      }
       LOGGER.debug("Experiments Total record count : {}", totalRecords);
 
       ExperimentPaginationDTO experimentPaginationDTO = new ExperimentPaginationDTO();
       experimentPaginationDTO.setExperiments(experiments);
       experimentPaginationDTO.setTotalRecords(totalRecords);
+      if (pageTokenSupported
+          && queryParameters.getPageLimit() != 0
+          && experimentEntities.size() == queryParameters.getPageLimit()) {
+        ExperimentEntity lastExperimentEntity =
+            experimentEntities.get(experimentEntities.size() - 1);
+        experimentPaginationDTO.setNextPageToken(
+            PageToken.create(
+                queryParameters,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending(),
+                PageToken.getSortValue(session, lastExperimentEntity, queryParameters.getSortKey()),
+                lastExperimentEntity.getId(),
+                totalRecords));
+      }
       return experimentPaginationDTO;
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
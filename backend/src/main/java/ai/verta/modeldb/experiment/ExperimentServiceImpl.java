@@ -1093,6 +1093,7 @@ public class ExperimentServiceImpl extends ExperimentServiceImplBase {
           FindExperiments.Response.newBuilder()
               .addAllExperiments(experiments)
               .setTotalRecords(experimentPaginationDTO.getTotalRecords())
+              .setNextPageToken(experimentPaginationDTO.getNextPageToken())
               .build();
 
       Map<String, Long> auditResourceMap = new HashMap<>();
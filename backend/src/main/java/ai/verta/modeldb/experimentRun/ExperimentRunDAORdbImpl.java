@@ -24,12 +24,14 @@ import ai.verta.modeldb.entities.dataset.PathDatasetComponentBlobEntity;
 import ai.verta.modeldb.entities.versioning.CommitEntity;
 import ai.verta.modeldb.entities.versioning.RepositoryEntity;
 import ai.verta.modeldb.entities.versioning.VersioningModeldbEntityMapping;
+import ai.verta.modeldb.exceptions.InvalidArgumentException;
 import ai.verta.modeldb.exceptions.PermissionDeniedException;
 import ai.verta.modeldb.exceptions.UnimplementedException;
 import ai.verta.modeldb.metadata.MetadataDAO;
 import ai.verta.modeldb.project.ProjectDAO;
 import ai.verta.modeldb.utils.ModelDBHibernateUtil;
 import ai.verta.modeldb.utils.ModelDBUtils;
+import ai.verta.modeldb.utils.PageToken;
 import ai.verta.modeldb.utils.RdbmsUtils;
 import ai.verta.modeldb.utils.TrialUtils;
 import ai.verta.modeldb.versioning.*;
@@ -67,6 +69,8 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
   private static final ModelDBHibernateUtil modelDBHibernateUtil =
       ModelDBHibernateUtil.getInstance();
   private static final boolean OVERWRITE_VERSION_MAP = false;
+  // Name of the run in the mappings of its collections, used by the query predicates
+  private static final String ENTITY_NAME = "experimentRunEntity";
   private App app = App.getInstance();
   private ai.verta.modeldb.config.Config config = ai.verta.modeldb.config.Config.getInstance();
   private static final long CACHE_SIZE = 1000;
@@ -77,6 +81,8 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
   private final CommitDAO commitDAO;
   private final BlobDAO blobDAO;
   private final MetadataDAO metadataDAO;
+  // Null where runs are not served to clients, such as in migrations
+  private final ExperimentRunTimestampAggregator timestampAggregator;
   private static final String CHECK_EXP_RUN_EXISTS_AT_INSERT_HQL =
       new StringBuilder("Select count(*) From ExperimentRunEntity ere where ")
           .append(" ere." + ModelDBConstants.NAME + " = :experimentRunName ")
@@ -217,12 +223,39 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
       CommitDAO commitDAO,
       BlobDAO blobDAO,
       MetadataDAO metadataDAO) {
+    this(authService, roleService, repositoryDAO, commitDAO, blobDAO, metadataDAO, null);
+  }
+
+  public ExperimentRunDAORdbImpl(
+      AuthService authService,
+      RoleService roleService,
+      RepositoryDAO repositoryDAO,
+      CommitDAO commitDAO,
+      BlobDAO blobDAO,
+      MetadataDAO metadataDAO,
+      ExperimentRunTimestampAggregator timestampAggregator) {
     this.authService = authService;
     this.roleService = roleService;
     this.repositoryDAO = repositoryDAO;
     this.commitDAO = commitDAO;
     this.blobDAO = blobDAO;
     this.metadataDAO = metadataDAO;
+    this.timestampAggregator = timestampAggregator;
+  }
+
+  // Merges the date_updated recorded by log calls and not flushed yet into the runs
+  private List<ExperimentRun> withDateUpdated(List<ExperimentRun> experimentRuns) {
+    if (timestampAggregator == null) {
+      return experimentRuns;
+    }
+    return timestampAggregator.withDateUpdated(experimentRuns);
+  }
+
+  private ExperimentRun withDateUpdated(ExperimentRun experimentRun) {
+    if (timestampAggregator == null) {
+      return experimentRun;
+    }
+    return timestampAggregator.withDateUpdated(experimentRun);
   }
 
   private void checkIfEntityAlreadyExists(ExperimentRun experimentRun, Boolean isInsert) {
@@ -503,7 +536,9 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
 
       if (!experimentRunEntities.isEmpty()) {
         experimentRuns =
-            RdbmsUtils.convertExperimentRunsFromExperimentRunEntityList(experimentRunEntities);
+            withDateUpdated(
+                RdbmsUtils.convertExperimentRunsFromExperimentRunEntityList(
+                    experimentRunEntities));
       }
       LOGGER.debug("ExperimentRuns size is {}", experimentRuns.size());
       return experimentRuns;
@@ -526,7 +561,8 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
       @SuppressWarnings("unchecked")
       List<ExperimentRunEntity> experimentRunEntities = query.list();
       LOGGER.debug("Got ExperimentRun by Ids");
-      return RdbmsUtils.convertExperimentRunsFromExperimentRunEntityList(experimentRunEntities);
+      return withDateUpdated(
+          RdbmsUtils.convertExperimentRunsFromExperimentRunEntityList(experimentRunEntities));
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
         return getExperimentRunsByBatchIds(experimentRunIds);
@@ -547,7 +583,7 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
         throw new NotFoundException(ModelDBMessages.EXP_RUN_NOT_FOUND_ERROR_MSG);
       }
       LOGGER.debug("Got ExperimentRun successfully");
-      ExperimentRun experimentRun = experimentRunEntity.getProtoObject();
+      ExperimentRun experimentRun = withDateUpdated(experimentRunEntity.getProtoObject());
       return populateFieldsBasedOnPrivileges(experimentRun);
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
@@ -684,7 +720,7 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
       session.update(experimentRunEntity);
       transaction.commit();
       LOGGER.debug("ExperimentRun description updated successfully");
-      ExperimentRun experimentRun = experimentRunEntity.getProtoObject();
+      ExperimentRun experimentRun = withDateUpdated(experimentRunEntity.getProtoObject());
       return populateFieldsBasedOnPrivileges(experimentRun);
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
@@ -1307,6 +1343,102 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
     return accessibleExperimentRunIds;
   }
 
+  /**
+   * Adds the roots and the where clause of findExperimentRuns to {@code query} and returns the root
+   * of the runs. Every query of a request is built on roots of its own.
+   */
+  private Root<ExperimentRunEntity> addFindExperimentRunsRestriction(
+      CriteriaBuilder builder,
+      CriteriaQuery<?> query,
+      FindExperimentRuns queryParameters,
+      List<KeyValueQuery> predicates,
+      List<String> projectIds,
+      PageToken pageToken)
+      throws InvalidProtocolBufferException {
+    // Using FROM and JOIN
+    Root<ExperimentRunEntity> experimentRunRoot = query.from(ExperimentRunEntity.class);
+    experimentRunRoot.alias("run");
+
+    Root<ProjectEntity> projectEntityRoot = query.from(ProjectEntity.class);
+    projectEntityRoot.alias("pr");
+
+    Root<ExperimentEntity> experimentEntityRoot = query.from(ExperimentEntity.class);
+    experimentEntityRoot.alias("ex");
+
+    List<Predicate> finalPredicatesList = new ArrayList<>();
+    finalPredicatesList.add(
+        builder.equal(
+            experimentRunRoot.get(ModelDBConstants.PROJECT_ID),
+            projectEntityRoot.get(ModelDBConstants.ID)));
+    finalPredicatesList.add(
+        builder.equal(
+            experimentRunRoot.get(ModelDBConstants.EXPERIMENT_ID),
+            experimentEntityRoot.get(ModelDBConstants.ID)));
+
+    if (!projectIds.isEmpty()) {
+      Expression<String> projectExpression = experimentRunRoot.get(ModelDBConstants.PROJECT_ID);
+      Predicate projectsPredicate = projectExpression.in(projectIds);
+      finalPredicatesList.add(projectsPredicate);
+    }
+
+    if (!queryParameters.getExperimentId().isEmpty()) {
+      Expression<String> exp = experimentRunRoot.get(ModelDBConstants.EXPERIMENT_ID);
+      Predicate predicate2 = builder.equal(exp, queryParameters.getExperimentId());
+      finalPredicatesList.add(predicate2);
+    }
+
+    if (!queryParameters.getExperimentRunIdsList().isEmpty()) {
+      Expression<String> exp = experimentRunRoot.get(ModelDBConstants.ID);
+      Predicate predicate2 = exp.in(queryParameters.getExperimentRunIdsList());
+      finalPredicatesList.add(predicate2);
+    }
+
+    LOGGER.trace("Added entity predicates");
+    finalPredicatesList.addAll(
+        RdbmsUtils.getQueryPredicatesFromPredicateList(
+            ENTITY_NAME,
+            predicates,
+            builder,
+            query,
+            experimentRunRoot,
+            authService,
+            roleService,
+            ModelDBServiceResourceTypes.EXPERIMENT_RUN));
+
+    finalPredicatesList.add(builder.equal(experimentRunRoot.get(ModelDBConstants.DELETED), false));
+    finalPredicatesList.add(builder.equal(projectEntityRoot.get(ModelDBConstants.DELETED), false));
+    finalPredicatesList.add(
+        builder.equal(experimentEntityRoot.get(ModelDBConstants.DELETED), false));
+
+    if (pageToken != null) {
+      finalPredicatesList.add(
+          pageToken.getAfterPredicate(
+              builder,
+              experimentRunRoot,
+              queryParameters.getSortKey(),
+              queryParameters.getAscending()));
+    }
+    query.where(finalPredicatesList.toArray(new Predicate[0]));
+    return experimentRunRoot;
+  }
+
+  /**
+   * Returns the orders of a query grouped by run id: a run is placed by its lowest sort value when
+   * ascending and its highest when descending, as the first of its rows would be.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Order[] getGroupedOrders(CriteriaBuilder builder, Order[] orders) {
+    Order[] groupedOrders = new Order[orders.length];
+    for (int index = 0; index < orders.length; index++) {
+      Order order = orders[index];
+      Expression expression = order.getExpression();
+      expression = order.isAscending() ? builder.least(expression) : builder.greatest(expression);
+      groupedOrders[index] =
+          order.isAscending() ? builder.asc(expression) : builder.desc(expression);
+    }
+    return groupedOrders;
+  }
+
   @Override
   public ExperimentRunPaginationDTO findExperimentRuns(
       ProjectDAO projectDAO, UserInfo currentLoginUserInfo, FindExperimentRuns queryParameters)
@@ -1360,29 +1492,6 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
         }
       }
 
-      CriteriaBuilder builder = session.getCriteriaBuilder();
-      // Using FROM and JOIN
-      CriteriaQuery<ExperimentRunEntity> criteriaQuery =
-          builder.createQuery(ExperimentRunEntity.class);
-      Root<ExperimentRunEntity> experimentRunRoot = criteriaQuery.from(ExperimentRunEntity.class);
-      experimentRunRoot.alias("run");
-
-      Root<ProjectEntity> projectEntityRoot = criteriaQuery.from(ProjectEntity.class);
-      projectEntityRoot.alias("pr");
-
-      Root<ExperimentEntity> experimentEntityRoot = criteriaQuery.from(ExperimentEntity.class);
-      experimentEntityRoot.alias("ex");
-
-      List<Predicate> finalPredicatesList = new ArrayList<>();
-      finalPredicatesList.add(
-          builder.equal(
-              experimentRunRoot.get(ModelDBConstants.PROJECT_ID),
-              projectEntityRoot.get(ModelDBConstants.ID)));
-      finalPredicatesList.add(
-          builder.equal(
-              experimentRunRoot.get(ModelDBConstants.EXPERIMENT_ID),
-              experimentEntityRoot.get(ModelDBConstants.ID)));
-
       List<String> projectIds = new ArrayList<>();
       if (!queryParameters.getProjectId().isEmpty()
           && accessibleProjectIds.contains(queryParameters.getProjectId())) {
@@ -1400,39 +1509,45 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
                 + accessibleExperimentRunIds);
       }
 
-      if (!projectIds.isEmpty()) {
-        Expression<String> projectExpression = experimentRunRoot.get(ModelDBConstants.PROJECT_ID);
-        Predicate projectsPredicate = projectExpression.in(projectIds);
-        finalPredicatesList.add(projectsPredicate);
-      }
-
-      if (!queryParameters.getExperimentId().isEmpty()) {
-        Expression<String> exp = experimentRunRoot.get(ModelDBConstants.EXPERIMENT_ID);
-        Predicate predicate2 = builder.equal(exp, queryParameters.getExperimentId());
-        finalPredicatesList.add(predicate2);
-      }
-
-      if (!queryParameters.getExperimentRunIdsList().isEmpty()) {
-        Expression<String> exp = experimentRunRoot.get(ModelDBConstants.ID);
-        Predicate predicate2 = exp.in(queryParameters.getExperimentRunIdsList());
-        finalPredicatesList.add(predicate2);
+      boolean pageTokenSupported = PageToken.isSupported(queryParameters.getSortKey());
+      PageToken pageToken = null;
+      if (!queryParameters.getPageToken().isEmpty()) {
+        if (queryParameters.getPageLimit() == 0) {
+          throw new InvalidArgumentException("Page limit not found in request with page token");
+        }
+        pageToken =
+            PageToken.parse(
+                queryParameters.getPageToken(),
+                queryParameters,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending());
+      }
+
+      // With a field mask the page is selected by id and only the requested fields are read,
+      // without loading the entities and their eagerly fetched collections
+      ExperimentRunFieldLoader fieldLoader = null;
+      if (queryParameters.hasFieldMask() && queryParameters.getFieldMask().getPathsCount() > 0) {
+        fieldLoader =
+            new ExperimentRunFieldLoader(
+                session,
+                ExperimentRunFieldLoader.getRequestedFields(queryParameters.getFieldMask()));
       }
 
-      LOGGER.trace("Added entity predicates");
-      String entityName = "experimentRunEntity";
+      CriteriaBuilder builder = session.getCriteriaBuilder();
+      CriteriaQuery<ExperimentRunEntity> criteriaQuery = null;
+      CriteriaQuery<Object[]> idCriteriaQuery = null;
+      Root<ExperimentRunEntity> experimentRunRoot;
       try {
-        List<Predicate> queryPredicatesList =
-            RdbmsUtils.getQueryPredicatesFromPredicateList(
-                entityName,
-                predicates,
-                builder,
-                criteriaQuery,
-                experimentRunRoot,
-                authService,
-                roleService,
-                ModelDBServiceResourceTypes.EXPERIMENT_RUN);
-        if (!queryPredicatesList.isEmpty()) {
-          finalPredicatesList.addAll(queryPredicatesList);
+        if (fieldLoader == null) {
+          criteriaQuery = builder.createQuery(ExperimentRunEntity.class);
+          experimentRunRoot =
+              addFindExperimentRunsRestriction(
+                  builder, criteriaQuery, queryParameters, predicates, projectIds, pageToken);
+        } else {
+          idCriteriaQuery = builder.createQuery(Object[].class);
+          experimentRunRoot =
+              addFindExperimentRunsRestriction(
+                  builder, idCriteriaQuery, queryParameters, predicates, projectIds, pageToken);
         }
       } catch (ModelDBException ex) {
         if (ex.getCode().ordinal() == Code.FAILED_PRECONDITION_VALUE
@@ -1446,35 +1561,51 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
         throw ex;
       }
 
-      finalPredicatesList.add(
-          builder.equal(experimentRunRoot.get(ModelDBConstants.DELETED), false));
-      finalPredicatesList.add(
-          builder.equal(projectEntityRoot.get(ModelDBConstants.DELETED), false));
-      finalPredicatesList.add(
-          builder.equal(experimentEntityRoot.get(ModelDBConstants.DELETED), false));
-
-      Order[] orderBy =
-          RdbmsUtils.getOrderArrBasedOnSortKey(
-              queryParameters.getSortKey(),
-              queryParameters.getAscending(),
-              builder,
-              experimentRunRoot,
-              entityName);
-
-      Predicate[] predicateArr = new Predicate[finalPredicatesList.size()];
-      for (int index = 0; index < finalPredicatesList.size(); index++) {
-        predicateArr[index] = finalPredicatesList.get(index);
+      Order[] orderBy;
+      if (pageTokenSupported) {
+        orderBy =
+            PageToken.getOrders(
+                builder,
+                experimentRunRoot,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending());
+      } else {
+        orderBy =
+            RdbmsUtils.getOrderArrBasedOnSortKey(
+                queryParameters.getSortKey(),
+                queryParameters.getAscending(),
+                builder,
+                experimentRunRoot,
+                ENTITY_NAME);
       }
 
-      Predicate predicateWhereCause = builder.and(predicateArr);
-      criteriaQuery.select(experimentRunRoot);
-      criteriaQuery.where(predicateWhereCause);
-      criteriaQuery.orderBy(orderBy);
-
       LOGGER.trace("Creating criteria query");
-      Query query = session.createQuery(criteriaQuery);
+      Query query;
+      if (fieldLoader == null) {
+        criteriaQuery.select(experimentRunRoot);
+        criteriaQuery.orderBy(orderBy);
+        query = session.createQuery(criteriaQuery);
+      } else {
+        // Sorting on a collection joins a row per element, so the ids are grouped before the page
+        // is cut and each run is placed by its first row. The sort value of a supported sort key
+        // is selected along for the page token.
+        Path<String> idPath = experimentRunRoot.get(ModelDBConstants.ID);
+        Expression<?> sortValue = idPath;
+        if (pageTokenSupported) {
+          sortValue =
+              builder.least(
+                  (Expression)
+                      experimentRunRoot.get(PageToken.getSortKey(queryParameters.getSortKey())));
+        }
+        idCriteriaQuery.multiselect(idPath, sortValue);
+        idCriteriaQuery.groupBy(idPath);
+        idCriteriaQuery.orderBy(getGroupedOrders(builder, orderBy));
+        query = session.createQuery(idCriteriaQuery);
+      }
       LOGGER.debug("Final experimentRuns final query : {}", query.getQueryString());
-      if (queryParameters.getPageNumber() != 0 && queryParameters.getPageLimit() != 0) {
+      if (pageToken != null) {
+        query.setMaxResults(queryParameters.getPageLimit());
+      } else if (queryParameters.getPageNumber() != 0 && queryParameters.getPageLimit() != 0) {
         // Calculate number of documents to skip
         int skips = queryParameters.getPageLimit() * (queryParameters.getPageNumber() - 1);
         query.setFirstResult(skips);
@@ -1482,16 +1613,45 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
       }
 
       LOGGER.trace("Final query generated");
-      List<ExperimentRunEntity> experimentRunEntities = query.list();
-      LOGGER.debug("Final experimentRuns list size : {}", experimentRunEntities.size());
-      List<ExperimentRun> experimentRuns = new ArrayList<>();
-      if (!experimentRunEntities.isEmpty()) {
-
+      List<ExperimentRun> experimentRunList;
+      int pageRowCount;
+      String lastRunId = null;
+      Object lastSortValue = null;
+      if (fieldLoader == null) {
+        List<ExperimentRunEntity> experimentRunEntities = query.list();
+        LOGGER.debug("Final experimentRuns list size : {}", experimentRunEntities.size());
+        pageRowCount = experimentRunEntities.size();
+        if (pageRowCount > 0) {
+          ExperimentRunEntity lastRunEntity = experimentRunEntities.get(pageRowCount - 1);
+          lastRunId = lastRunEntity.getId();
+          if (pageTokenSupported) {
+            lastSortValue =
+                PageToken.getSortValue(session, lastRunEntity, queryParameters.getSortKey());
+          }
+        }
         LOGGER.trace("Converting from Hibernate to proto");
-        List<ExperimentRun> experimentRunList =
-            RdbmsUtils.convertExperimentRunsFromExperimentRunEntityList(experimentRunEntities);
-        LOGGER.trace("experimentRunList {}", experimentRunList);
+        experimentRunList =
+            withDateUpdated(
+                RdbmsUtils.convertExperimentRunsFromExperimentRunEntityList(
+                    experimentRunEntities));
         LOGGER.trace("Converted from Hibernate to proto");
+      } else {
+        List<Object[]> pageRows = query.list();
+        List<String> pageRunIds = new ArrayList<>();
+        for (Object[] pageRow : pageRows) {
+          pageRunIds.add((String) pageRow[0]);
+        }
+        pageRowCount = pageRows.size();
+        if (pageRowCount > 0) {
+          lastRunId = pageRunIds.get(pageRowCount - 1);
+          lastSortValue = pageRows.get(pageRowCount - 1)[1];
+        }
+        LOGGER.debug("Final experimentRuns list size : {}", pageRunIds.size());
+        experimentRunList = withDateUpdated(fieldLoader.getExperimentRuns(pageRunIds));
+      }
+      List<ExperimentRun> experimentRuns = new ArrayList<>();
+      if (!experimentRunList.isEmpty()) {
+        LOGGER.trace("experimentRunList {}", experimentRunList);
 
         List<String> selfAllowedRepositoryIds = new ArrayList<>();
         if (config.populateConnectionsBasedOnPrivileges) {
@@ -1502,18 +1662,23 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
         }
 
         List<String> expRunIds =
-            experimentRunEntities.stream()
-                .map(ExperimentRunEntity::getId)
-                .collect(Collectors.toList());
-        Map<String, List<KeyValue>> expRunHyperparameterConfigBlobMap =
-            getExperimentRunHyperparameterConfigBlobMap(
-                session, expRunIds, selfAllowedRepositoryIds);
+            experimentRunList.stream().map(ExperimentRun::getId).collect(Collectors.toList());
+        Map<String, List<KeyValue>> expRunHyperparameterConfigBlobMap = Collections.emptyMap();
+        if (fieldLoader == null || fieldLoader.isRequested(ModelDBConstants.HYPERPARAMETERS)) {
+          expRunHyperparameterConfigBlobMap =
+              getExperimentRunHyperparameterConfigBlobMap(
+                  session, expRunIds, selfAllowedRepositoryIds);
+        }
 
         // Map<experimentRunID, Map<LocationString, CodeVersion>> : Map from experimentRunID to Map
         // of
         // LocationString to CodeBlob
-        Map<String, Map<String, CodeVersion>> expRunCodeVersionMap =
-            getExperimentRunCodeVersionMap(session, expRunIds, selfAllowedRepositoryIds);
+        Map<String, Map<String, CodeVersion>> expRunCodeVersionMap = Collections.emptyMap();
+        if (fieldLoader == null
+            || fieldLoader.isRequested(ExperimentRunFieldLoader.CODE_VERSION_FROM_BLOB)) {
+          expRunCodeVersionMap =
+              getExperimentRunCodeVersionMap(session, expRunIds, selfAllowedRepositoryIds);
+        }
 
         Set<String> experimentRunIdsSet = new HashSet<>();
         Set<String> accessibleDatasetVersionIdsSet = new HashSet<>();
@@ -1565,12 +1730,39 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
         }
       }
 
-      long totalRecords = RdbmsUtils.count(session, experimentRunRoot, criteriaQuery);
+      // The following pages repeat the count of the first page instead of counting again
+      long totalRecords = 0;
+      if (pageToken != null) {
+        totalRecords = pageToken.getTotalRecords();
+      } else if (!queryParameters.getSkipTotalRecords()) {
+        if (fieldLoader == null) {
+          totalRecords = RdbmsUtils.count(session, experimentRunRoot, criteriaQuery);
+        } else {
+          CriteriaQuery<Long> countCriteriaQuery = builder.createQuery(Long.class);
+          Root<ExperimentRunEntity> countRoot =
+              addFindExperimentRunsRestriction(
+                  builder, countCriteriaQuery, queryParameters, predicates, projectIds, null);
+          countCriteriaQuery.select(builder.countDistinct(countRoot));
+          totalRecords = session.createQuery(countCriteriaQuery).getSingleResult();
+        }
+      }
       LOGGER.debug("ExperimentRuns Total record count : {}", totalRecords);
 
       ExperimentRunPaginationDTO experimentRunPaginationDTO = new ExperimentRunPaginationDTO();
       experimentRunPaginationDTO.setExperimentRuns(experimentRuns);
       experimentRunPaginationDTO.setTotalRecords(totalRecords);
+      if (pageTokenSupported
+          && queryParameters.getPageLimit() != 0
+          && pageRowCount == queryParameters.getPageLimit()) {
+        experimentRunPaginationDTO.setNextPageToken(
+            PageToken.create(
+                queryParameters,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending(),
+                lastSortValue,
+                lastRunId,
+                totalRecords));
+      }
       return experimentRunPaginationDTO;
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
@@ -1990,7 +2182,8 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
         query.setParameter(paramEntry.getKey(), paramEntry.getValue());
       }
       List<ExperimentRunEntity> experimentRunObjList = query.list();
-      return RdbmsUtils.convertExperimentRunsFromExperimentRunEntityList(experimentRunObjList);
+      return withDateUpdated(
+          RdbmsUtils.convertExperimentRunsFromExperimentRunEntityList(experimentRunObjList));
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
         return getExperimentRuns(keyValues);
@@ -2502,8 +2695,10 @@ public class ExperimentRunDAORdbImpl implements ExperimentRunDAO {
       boolean partNumberSpecified,
       S3KeyFunction initializeMultipart) {
     String uploadId;
+    String artifactStoreType = config.artifactStoreConfig.artifactStoreType;
     if (partNumberSpecified
-        && config.artifactStoreConfig.artifactStoreType.equals(ModelDBConstants.S3)) {
+        && (artifactStoreType.equals(ModelDBConstants.S3)
+            || artifactStoreType.equals(ModelDBConstants.NFS))) {
       uploadId = artifactEntity.getUploadId();
       String message = null;
       if (uploadId == null || artifactEntity.isUploadCompleted()) {
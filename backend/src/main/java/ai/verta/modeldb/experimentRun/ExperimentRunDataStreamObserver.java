@@ -0,0 +1,249 @@
+package ai.verta.modeldb.experimentRun;
+
+import ai.verta.common.KeyValue;
+import ai.verta.modeldb.LogExperimentRunDataStream;
+import ai.verta.modeldb.Observation;
+import ai.verta.modeldb.common.CommonUtils;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.modeldb.exceptions.InvalidArgumentException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Server side of the logExperimentRunDataStream call. Permission on the run is checked once for the
+ * whole stream. Incoming metrics and observations are buffered and written as one group as soon as
+ * the buffer holds flushSize entries or its oldest entry is flushIntervalMillis old. Groups are
+ * chained so they reach the database in arrival order, and the run's date_updated is touched once
+ * per group. A message repeating a metric key already buffered starts a new group, so the repeated
+ * key is rejected as already existing exactly as it would be by separate logMetrics calls.
+ *
+ * <p>Messages are requested from the client one at a time, and only while fewer than
+ * maxPendingEntries entries are buffered or being written, so a client sending faster than the
+ * database accepts is slowed down by gRPC flow control instead of filling the heap.
+ */
+class ExperimentRunDataStreamObserver implements StreamObserver<LogExperimentRunDataStream> {
+  private static final Logger LOGGER = LogManager.getLogger(ExperimentRunDataStreamObserver.class);
+
+  private static final ScheduledExecutorService FLUSH_SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "experiment-run-stream-flush");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final FutureExperimentRunDAO futureExperimentRunDAO;
+  private final Executor executor;
+  private final ServerCallStreamObserver<LogExperimentRunDataStream.Response> responseObserver;
+  private final int flushSize;
+  private final long flushIntervalMillis;
+  private final int maxPendingEntries;
+
+  private String runId = null;
+  private List<KeyValue> metrics = new ArrayList<>();
+  private Set<String> metricKeys = new HashSet<>();
+  private List<Observation> observations = new ArrayList<>();
+  private InternalFuture<Void> pendingWrites = InternalFuture.completedInternalFuture(null);
+  private ScheduledFuture<?> scheduledFlush = null;
+  private boolean finished = false;
+  private long metricsLogged = 0;
+  private long observationsLogged = 0;
+  // Entries received and not written yet, buffered or in a pending write
+  private long pendingEntries = 0;
+  // Whether the next message is to be requested once pending writes complete
+  private boolean requestDeferred = false;
+
+  ExperimentRunDataStreamObserver(
+      FutureExperimentRunDAO futureExperimentRunDAO,
+      Executor executor,
+      ServerCallStreamObserver<LogExperimentRunDataStream.Response> responseObserver,
+      int flushSize,
+      long flushIntervalMillis,
+      int maxPendingEntries) {
+    this.futureExperimentRunDAO = futureExperimentRunDAO;
+    this.executor = executor;
+    this.responseObserver = responseObserver;
+    this.flushSize = flushSize;
+    this.flushIntervalMillis = flushIntervalMillis;
+    this.maxPendingEntries = maxPendingEntries;
+    responseObserver.disableAutoInboundFlowControl();
+    responseObserver.request(1);
+  }
+
+  @Override
+  public synchronized void onNext(LogExperimentRunDataStream message) {
+    if (finished) {
+      return;
+    }
+
+    final var messageRunId = message.getId();
+    if (runId == null) {
+      if (messageRunId.isEmpty()) {
+        fail(new InvalidArgumentException("Experiment run id not found in the first message"));
+        return;
+      }
+      runId = messageRunId;
+      chain(futureExperimentRunDAO.checkLogDataStreamPermission(runId));
+    } else if (!messageRunId.isEmpty() && !messageRunId.equals(runId)) {
+      fail(
+          new InvalidArgumentException(
+              "All messages of a stream must target the experiment run " + runId));
+      return;
+    }
+
+    if (message.getMetricsList().stream().map(KeyValue::getKey).anyMatch(metricKeys::contains)) {
+      flush();
+    }
+    metrics.addAll(message.getMetricsList());
+    message.getMetricsList().forEach(metric -> metricKeys.add(metric.getKey()));
+    observations.addAll(message.getObservationsList());
+    pendingEntries += message.getMetricsCount() + message.getObservationsCount();
+
+    if (metrics.size() + observations.size() >= flushSize) {
+      flush();
+    } else if (scheduledFlush == null && (!metrics.isEmpty() || !observations.isEmpty())) {
+      scheduledFlush =
+          FLUSH_SCHEDULER.schedule(
+              this::onFlushInterval, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    requestNext();
+  }
+
+  // Must be called while holding the lock
+  private void requestNext() {
+    if (pendingEntries < maxPendingEntries) {
+      requestDeferred = false;
+      responseObserver.request(1);
+    } else {
+      requestDeferred = true;
+    }
+  }
+
+  private synchronized void onGroupWritten(long groupSize) {
+    pendingEntries -= groupSize;
+    if (requestDeferred && !finished) {
+      requestNext();
+    }
+  }
+
+  @Override
+  public synchronized void onError(Throwable t) {
+    LOGGER.info("Experiment run logging stream for {} closed by client: {}", runId, t.getMessage());
+    finished = true;
+    cancelScheduledFlush();
+    metrics = new ArrayList<>();
+    metricKeys = new HashSet<>();
+    observations = new ArrayList<>();
+  }
+
+  @Override
+  public synchronized void onCompleted() {
+    if (finished) {
+      return;
+    }
+    if (runId == null) {
+      fail(new InvalidArgumentException("Experiment run id not found in the stream"));
+      return;
+    }
+
+    flush();
+    pendingWrites.whenComplete(
+        (unused, t) -> {
+          if (t == null) {
+            respond();
+          } else {
+            fail(t);
+          }
+        },
+        executor);
+  }
+
+  private synchronized void onFlushInterval() {
+    scheduledFlush = null;
+    if (!finished) {
+      flush();
+    }
+  }
+
+  // Must be called while holding the lock
+  private void flush() {
+    cancelScheduledFlush();
+    if (metrics.isEmpty() && observations.isEmpty()) {
+      return;
+    }
+
+    final var id = runId;
+    final var metricsGroup = metrics;
+    final var observationsGroup = observations;
+    metrics = new ArrayList<>();
+    metricKeys = new HashSet<>();
+    observations = new ArrayList<>();
+    metricsLogged += metricsGroup.size();
+    observationsLogged += observationsGroup.size();
+    final long groupSize = metricsGroup.size() + observationsGroup.size();
+
+    chain(
+        pendingWrites
+            .thenCompose(
+                unused ->
+                    futureExperimentRunDAO.logDataStreamBatch(id, metricsGroup, observationsGroup),
+                executor)
+            .thenRun(() -> onGroupWritten(groupSize), executor));
+  }
+
+  // Must be called while holding the lock
+  private void chain(InternalFuture<Void> next) {
+    pendingWrites = next;
+    // Report failures as soon as they happen instead of waiting for the client to complete
+    next.whenComplete(
+        (unused, t) -> {
+          if (t != null) {
+            fail(t);
+          }
+        },
+        executor);
+  }
+
+  private void cancelScheduledFlush() {
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+  }
+
+  private synchronized void respond() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    responseObserver.onNext(
+        LogExperimentRunDataStream.Response.newBuilder()
+            .setMetricsLogged(metricsLogged)
+            .setObservationsLogged(observationsLogged)
+            .build());
+    responseObserver.onCompleted();
+  }
+
+  private synchronized void fail(Throwable t) {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    cancelScheduledFlush();
+    metrics = new ArrayList<>();
+    metricKeys = new HashSet<>();
+    observations = new ArrayList<>();
+    CommonUtils.observeError(responseObserver, t);
+  }
+}
@@ -0,0 +1,282 @@
+package ai.verta.modeldb.experimentRun;
+
+import ai.verta.modeldb.ExperimentRun;
+import ai.verta.modeldb.ModelDBConstants;
+import ai.verta.modeldb.common.CommonUtils;
+import ai.verta.modeldb.entities.ArtifactEntity;
+import ai.verta.modeldb.entities.AttributeEntity;
+import ai.verta.modeldb.entities.CodeVersionEntity;
+import ai.verta.modeldb.entities.ExperimentRunEntity;
+import ai.verta.modeldb.entities.FeatureEntity;
+import ai.verta.modeldb.entities.KeyValueEntity;
+import ai.verta.modeldb.entities.ObservationEntity;
+import ai.verta.modeldb.entities.TagsMapping;
+import ai.verta.modeldb.entities.versioning.VersioningModeldbEntityMapping;
+import ai.verta.modeldb.exceptions.InvalidArgumentException;
+import ai.verta.modeldb.utils.RdbmsUtils;
+import ai.verta.modeldb.versioning.EnvironmentBlob;
+import com.google.common.collect.Lists;
+import com.google.protobuf.FieldMask;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+/**
+ * Reads experiment runs restricted to the fields of a field mask, without loading {@link
+ * ExperimentRunEntity} and the collections it fetches eagerly. The scalar columns of the runs are
+ * read with one projection query, and each requested collection with one query for all runs. The
+ * protos are then assembled from the rows, which are read only and never dirty checked.
+ */
+class ExperimentRunFieldLoader {
+  private static final Logger LOGGER = LogManager.getLogger(ExperimentRunFieldLoader.class);
+  private static final int MAX_RUN_IDS_PER_QUERY = 1000;
+
+  static final String CODE_VERSION_SNAPSHOT = "code_version_snapshot";
+  static final String ENVIRONMENT = "environment";
+  static final String VERSIONED_INPUTS = "versioned_inputs";
+  static final String CODE_VERSION_FROM_BLOB = "code_version_from_blob";
+
+  private final Session session;
+  private final Set<String> fields;
+
+  /**
+   * @param fields : top level {@link ExperimentRun} field names to read, see {@link
+   *     #getRequestedFields}
+   */
+  ExperimentRunFieldLoader(Session session, Set<String> fields) {
+    this.session = session;
+    this.fields = fields;
+  }
+
+  /** Returns the top level field names of the mask, validated against {@link ExperimentRun}. */
+  static Set<String> getRequestedFields(FieldMask fieldMask) {
+    Set<String> fields = new HashSet<>();
+    for (String path : fieldMask.getPathsList()) {
+      String fieldName = path.split("\\.")[0];
+      if (ExperimentRun.getDescriptor().findFieldByName(fieldName) == null) {
+        throw new InvalidArgumentException("Unknown ExperimentRun field in field_mask : " + path);
+      }
+      fields.add(fieldName);
+    }
+    return fields;
+  }
+
+  boolean isRequested(String fieldName) {
+    return fields.contains(fieldName);
+  }
+
+  /** Returns the runs in the order of {@code runIds}, skipping ids that do not exist. */
+  List<ExperimentRun> getExperimentRuns(List<String> runIds) throws InvalidProtocolBufferException {
+    Map<String, ExperimentRun.Builder> runBuilders = new HashMap<>();
+    for (List<String> runIdsChunk : Lists.partition(runIds, MAX_RUN_IDS_PER_QUERY)) {
+      Map<String, ExperimentRun.Builder> runBuildersChunk = getRunBuilders(runIdsChunk);
+      addCollections(runIdsChunk, runBuildersChunk);
+      runBuilders.putAll(runBuildersChunk);
+    }
+
+    List<ExperimentRun> experimentRuns = new ArrayList<>(runIds.size());
+    for (String runId : runIds) {
+      ExperimentRun.Builder runBuilder = runBuilders.get(runId);
+      if (runBuilder != null) {
+        experimentRuns.add(runBuilder.build());
+      }
+    }
+    return experimentRuns;
+  }
+
+  private Map<String, ExperimentRun.Builder> getRunBuilders(List<String> runIds)
+      throws InvalidProtocolBufferException {
+    String runQueryHQL =
+        "SELECT run.id, run.project_id, run.experiment_id, run.name, run.description, "
+            + "run.date_created, run.date_updated, run.start_time, run.end_time, "
+            + "run.code_version, run.job_id, run.parent_id, run.owner, run.environment FROM "
+            + ExperimentRunEntity.class.getSimpleName()
+            + " run WHERE run.id IN (:runIds)";
+    Query<Object[]> runQuery = session.createQuery(runQueryHQL, Object[].class);
+    runQuery.setParameterList("runIds", runIds);
+    runQuery.setReadOnly(true);
+
+    Map<String, ExperimentRun.Builder> runBuilders = new HashMap<>();
+    for (Object[] row : runQuery.list()) {
+      String runId = (String) row[0];
+      ExperimentRun.Builder runBuilder =
+          ExperimentRun.newBuilder()
+              .setId(runId)
+              .setProjectId((String) row[1])
+              .setExperimentId((String) row[2])
+              .setName((String) row[3])
+              .setDescription((String) row[4])
+              .setDateCreated((Long) row[5])
+              .setDateUpdated((Long) row[6])
+              .setStartTime((Long) row[7])
+              .setEndTime((Long) row[8])
+              .setCodeVersion((String) row[9])
+              .setJobId((String) row[10])
+              .setParentId((String) row[11])
+              .setOwner((String) row[12]);
+
+      String environment = (String) row[13];
+      if (isRequested(ENVIRONMENT) && environment != null && !environment.isEmpty()) {
+        EnvironmentBlob.Builder environmentBlobBuilder = EnvironmentBlob.newBuilder();
+        CommonUtils.getProtoObjectFromString(environment, environmentBlobBuilder);
+        runBuilder.setEnvironment(environmentBlobBuilder.build());
+      }
+      runBuilders.put(runId, runBuilder);
+    }
+    return runBuilders;
+  }
+
+  private void addCollections(List<String> runIds, Map<String, ExperimentRun.Builder> runBuilders)
+      throws InvalidProtocolBufferException {
+    if (isRequested(ModelDBConstants.TAGS)) {
+      Map<String, List<TagsMapping>> tags =
+          getEntitiesByRunId(TagsMapping.class, runIds, null, "id");
+      for (Map.Entry<String, ExperimentRun.Builder> run : runBuilders.entrySet()) {
+        run.getValue()
+            .addAllTags(RdbmsUtils.convertTagsMappingListFromTagList(tags.get(run.getKey())));
+      }
+    }
+    if (isRequested(ModelDBConstants.ATTRIBUTES)) {
+      Map<String, List<AttributeEntity>> attributes =
+          getEntitiesByRunId(AttributeEntity.class, runIds, null, "id");
+      for (Map.Entry<String, ExperimentRun.Builder> run : runBuilders.entrySet()) {
+        run.getValue()
+            .addAllAttributes(
+                RdbmsUtils.convertAttributeEntityListFromAttributes(
+                    attributes.get(run.getKey())));
+      }
+    }
+    if (isRequested(ModelDBConstants.HYPERPARAMETERS)) {
+      Map<String, List<KeyValueEntity>> hyperparameters =
+          getEntitiesByRunId(KeyValueEntity.class, runIds, ModelDBConstants.HYPERPARAMETERS, "id");
+      for (Map.Entry<String, ExperimentRun.Builder> run : runBuilders.entrySet()) {
+        run.getValue()
+            .addAllHyperparameters(
+                RdbmsUtils.convertKeyValueEntityListFromKeyValues(
+                    hyperparameters.get(run.getKey())));
+      }
+    }
+    if (isRequested(ModelDBConstants.METRICS)) {
+      Map<String, List<KeyValueEntity>> metrics =
+          getEntitiesByRunId(KeyValueEntity.class, runIds, ModelDBConstants.METRICS, "id");
+      for (Map.Entry<String, ExperimentRun.Builder> run : runBuilders.entrySet()) {
+        run.getValue()
+            .addAllMetrics(
+                RdbmsUtils.convertKeyValueEntityListFromKeyValues(metrics.get(run.getKey())));
+      }
+    }
+    if (isRequested(ModelDBConstants.ARTIFACTS)) {
+      Map<String, List<ArtifactEntity>> artifacts =
+          getEntitiesByRunId(ArtifactEntity.class, runIds, ModelDBConstants.ARTIFACTS, "id");
+      for (Map.Entry<String, ExperimentRun.Builder> run : runBuilders.entrySet()) {
+        run.getValue()
+            .addAllArtifacts(
+                RdbmsUtils.convertArtifactEntityListFromArtifacts(artifacts.get(run.getKey())));
+      }
+    }
+    if (isRequested(ModelDBConstants.DATASETS)) {
+      Map<String, List<ArtifactEntity>> datasets =
+          getEntitiesByRunId(ArtifactEntity.class, runIds, ModelDBConstants.DATASETS, "id");
+      for (Map.Entry<String, ExperimentRun.Builder> run : runBuilders.entrySet()) {
+        run.getValue()
+            .addAllDatasets(
+                RdbmsUtils.convertArtifactEntityListFromArtifacts(datasets.get(run.getKey())));
+      }
+    }
+    if (isRequested(ModelDBConstants.OBSERVATIONS)) {
+      Map<String, List<ObservationEntity>> observations =
+          getEntitiesByRunId(
+              ObservationEntity.class, runIds, ModelDBConstants.OBSERVATIONS, "timestamp");
+      for (Map.Entry<String, ExperimentRun.Builder> run : runBuilders.entrySet()) {
+        run.getValue()
+            .addAllObservations(
+                RdbmsUtils.convertObservationEntityListFromObservations(
+                    observations.get(run.getKey())));
+      }
+    }
+    if (isRequested(ModelDBConstants.FEATURES)) {
+      Map<String, List<FeatureEntity>> features =
+          getEntitiesByRunId(FeatureEntity.class, runIds, null, "id");
+      for (Map.Entry<String, ExperimentRun.Builder> run : runBuilders.entrySet()) {
+        run.getValue()
+            .addAllFeatures(
+                RdbmsUtils.convertFeatureEntityListFromFeatureList(features.get(run.getKey())));
+      }
+    }
+    if (isRequested(VERSIONED_INPUTS)) {
+      Map<String, List<VersioningModeldbEntityMapping>> versionedInputs =
+          getEntitiesByRunId(
+              VersioningModeldbEntityMapping.class, runIds, null, "versioning_key");
+      for (Map.Entry<String, List<VersioningModeldbEntityMapping>> runVersionedInputs :
+          versionedInputs.entrySet()) {
+        ExperimentRun.Builder runBuilder = runBuilders.get(runVersionedInputs.getKey());
+        if (runBuilder != null) {
+          runBuilder.setVersionedInputs(
+              RdbmsUtils.getVersioningEntryFromList(runVersionedInputs.getValue()));
+        }
+      }
+    }
+    if (isRequested(CODE_VERSION_SNAPSHOT)) {
+      addCodeVersionSnapshots(runIds, runBuilders);
+    }
+  }
+
+  private void addCodeVersionSnapshots(
+      List<String> runIds, Map<String, ExperimentRun.Builder> runBuilders) {
+    String codeVersionQueryHQL =
+        "SELECT run.id, cv FROM "
+            + ExperimentRunEntity.class.getSimpleName()
+            + " run JOIN run.code_version_snapshot cv WHERE run.id IN (:runIds)";
+    Query<Object[]> codeVersionQuery = session.createQuery(codeVersionQueryHQL, Object[].class);
+    codeVersionQuery.setParameterList("runIds", runIds);
+    codeVersionQuery.setReadOnly(true);
+    for (Object[] row : codeVersionQuery.list()) {
+      ExperimentRun.Builder runBuilder = runBuilders.get((String) row[0]);
+      if (runBuilder != null) {
+        runBuilder.setCodeVersionSnapshot(((CodeVersionEntity) row[1]).getProtoObject());
+      }
+    }
+  }
+
+  /**
+   * Reads the entities of {@code entityClass} that belong to the runs, grouped by run id. Only the
+   * foreign key of the run is read, so the runs themselves are not loaded.
+   */
+  private <T> Map<String, List<T>> getEntitiesByRunId(
+      Class<T> entityClass, List<String> runIds, String fieldType, String orderBy) {
+    StringBuilder entityQueryHQL =
+        new StringBuilder("SELECT e.experimentRunEntity.id, e FROM ")
+            .append(entityClass.getSimpleName())
+            .append(" e WHERE e.experimentRunEntity.id IN (:runIds)");
+    if (fieldType != null) {
+      entityQueryHQL.append(" AND e.field_type = :fieldType");
+    }
+    entityQueryHQL.append(" ORDER BY e.").append(orderBy);
+
+    Query<Object[]> entityQuery = session.createQuery(entityQueryHQL.toString(), Object[].class);
+    entityQuery.setParameterList("runIds", runIds);
+    if (fieldType != null) {
+      entityQuery.setParameter("fieldType", fieldType);
+    }
+    entityQuery.setReadOnly(true);
+
+    List<Object[]> rows = entityQuery.list();
+    LOGGER.trace(
+        "Read {} {} rows for {} runs", rows.size(), entityClass.getSimpleName(), runIds.size());
+    Map<String, List<T>> entitiesByRunId = new HashMap<>();
+    for (Object[] row : rows) {
+      entitiesByRunId
+          .computeIfAbsent((String) row[0], runId -> new ArrayList<>())
+          .add(entityClass.cast(row[1]));
+    }
+    return entitiesByRunId;
+  }
+}
@@ -1822,6 +1822,7 @@ public class ExperimentRunServiceImpl extends ExperimentRunServiceImplBase {
           FindExperimentRuns.Response.newBuilder()
               .addAllExperimentRuns(experimentRuns)
               .setTotalRecords(experimentRunPaginationDTO.getTotalRecords())
+              .setNextPageToken(experimentRunPaginationDTO.getNextPageToken())
               .build();
       if (experimentRuns.isEmpty()) {
         Workspace workspace =
@@ -0,0 +1,203 @@
+package ai.verta.modeldb.experimentRun;
+
+import ai.verta.modeldb.ExperimentRun;
+import ai.verta.modeldb.common.futures.FutureJdbi;
+import ai.verta.modeldb.config.Config;
+import ai.verta.modeldb.utils.ParentTimestampTracker;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Write-behind aggregator for experiment_run.date_updated. Log calls only record the newest
+ * timestamp per run in memory, and a background thread writes all recorded runs with a single
+ * {@code UPDATE ... CASE} statement per chunk every {@link #FLUSH_INTERVAL_MILLIS}. This avoids
+ * every log call contending for the same row when many workers log to one run.
+ *
+ * <p>Timestamps that have not reached the database yet are visible through {@link
+ * #getDateUpdated(String, Long)}, so a node always reads its own writes. Queries that sort or
+ * filter on date_updated in SQL do not see them: they compare the column, which lags the log calls
+ * by at most one flush interval.
+ *
+ * <p>One instance is shared by the DAOs of a server. It flushes in the background from {@link
+ * #start()} until {@link #shutdown()}, which writes the timestamps still recorded.
+ */
+public class ExperimentRunTimestampAggregator {
+  private static final Logger LOGGER = LogManager.getLogger(ExperimentRunTimestampAggregator.class);
+
+  static final long FLUSH_INTERVAL_MILLIS = 250L;
+  static final int MAX_RUNS_PER_STATEMENT = 500;
+
+  private final FutureJdbi jdbi;
+  private final boolean isPostgres = Config.getInstance().database.RdbConfiguration.isPostgres();
+  private final long flushIntervalMillis;
+  private ScheduledExecutorService scheduler = null;
+  // Timestamps recorded since the last flush
+  private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+  // Timestamps taken by the running flush that are not committed yet
+  private final ConcurrentHashMap<String, Long> flushing = new ConcurrentHashMap<>();
+
+  public ExperimentRunTimestampAggregator(FutureJdbi jdbi) {
+    this(jdbi, FLUSH_INTERVAL_MILLIS);
+  }
+
+  public ExperimentRunTimestampAggregator(FutureJdbi jdbi, long flushIntervalMillis) {
+    this.jdbi = jdbi;
+    this.flushIntervalMillis = flushIntervalMillis;
+  }
+
+  /** Starts the background flush. */
+  public synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "experiment-run-timestamp-flush");
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.scheduleWithFixedDelay(
+        this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public void record(String runId, long timestamp) {
+    pending.merge(runId, timestamp, Math::max);
+  }
+
+  /** Returns the newest of the persisted value and any timestamp not flushed yet for the run. */
+  public long getDateUpdated(String runId, Long persistedDateUpdated) {
+    long dateUpdated = persistedDateUpdated == null ? 0L : persistedDateUpdated;
+    // Check pending before flushing, values are added to flushing before leaving pending
+    dateUpdated = Math.max(dateUpdated, pending.getOrDefault(runId, 0L));
+    dateUpdated = Math.max(dateUpdated, flushing.getOrDefault(runId, 0L));
+    return dateUpdated;
+  }
+
+  /** Returns the runs with the timestamps not flushed yet merged into their date_updated. */
+  public List<ExperimentRun> withDateUpdated(List<ExperimentRun> experimentRuns) {
+    if (pending.isEmpty() && flushing.isEmpty()) {
+      return experimentRuns;
+    }
+    final List<ExperimentRun> updatedRuns = new ArrayList<>(experimentRuns.size());
+    for (ExperimentRun experimentRun : experimentRuns) {
+      updatedRuns.add(withDateUpdated(experimentRun));
+    }
+    return updatedRuns;
+  }
+
+  public ExperimentRun withDateUpdated(ExperimentRun experimentRun) {
+    final long dateUpdated = getDateUpdated(experimentRun.getId(), experimentRun.getDateUpdated());
+    if (dateUpdated == experimentRun.getDateUpdated()) {
+      return experimentRun;
+    }
+    return experimentRun.toBuilder().setDateUpdated(dateUpdated).build();
+  }
+
+  /** Writes every recorded timestamp to the database. */
+  public synchronized void flush() throws Exception {
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    // Move to the flushing map before removing from pending so readers never miss a value
+    final Map<String, Long> batch = new HashMap<>();
+    for (String runId : new ArrayList<>(pending.keySet())) {
+      final Long timestamp = pending.get(runId);
+      if (timestamp == null) {
+        continue;
+      }
+      flushing.merge(runId, timestamp, Math::max);
+      batch.put(runId, timestamp);
+      // A newer value recorded meanwhile stays in pending for the next flush
+      pending.remove(runId, timestamp);
+    }
+
+    try {
+      final List<Map.Entry<String, Long>> entries = new ArrayList<>(batch.entrySet());
+      for (int start = 0; start < entries.size(); start += MAX_RUNS_PER_STATEMENT) {
+        final int end = Math.min(start + MAX_RUNS_PER_STATEMENT, entries.size());
+        writeChunk(entries.subList(start, end));
+      }
+    } catch (Exception e) {
+      // Put the values back so that they are retried on the next flush
+      batch.forEach((runId, timestamp) -> pending.merge(runId, timestamp, Math::max));
+      throw e;
+    } finally {
+      batch.forEach(flushing::remove);
+    }
+  }
+
+  private void writeChunk(List<Map.Entry<String, Long>> entries) throws Exception {
+    final var sql =
+        new StringBuilder("update experiment_run set date_updated=greatest(date_updated, case id");
+    for (int i = 0; i < entries.size(); i++) {
+      sql.append(" when :id_").append(i).append(" then :ts_").append(i);
+    }
+    sql.append(" else date_updated end) where id in (<ids>)");
+
+    final List<String> ids = new ArrayList<>(entries.size());
+    entries.forEach(entry -> ids.add(entry.getKey()));
+    jdbi.useHandle(
+            handle ->
+                handle.useTransaction(
+                    transactionHandle -> {
+                      final var update =
+                          transactionHandle.createUpdate(sql.toString()).bindList("ids", ids);
+                      for (int i = 0; i < entries.size(); i++) {
+                        update.bind("id_" + i, entries.get(i).getKey());
+                        update.bind("ts_" + i, entries.get(i).getValue());
+                      }
+                      update.execute();
+                      // The experiments of the updated runs need their date_updated propagated
+                      final List<String> experimentIds =
+                          transactionHandle
+                              .createQuery(
+                                  "select distinct experiment_id from experiment_run "
+                                      + "where id in (<ids>)")
+                              .bindList("ids", ids)
+                              .mapTo(String.class)
+                              .list();
+                      ParentTimestampTracker.insertDirtyParents(
+                          transactionHandle.getConnection(),
+                          isPostgres,
+                          ParentTimestampTracker.EXPERIMENT,
+                          experimentIds);
+                    }))
+        .get();
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (Exception e) {
+      LOGGER.warn("Failed to flush experiment run timestamps: {}", e.getMessage());
+    }
+  }
+
+  /** Stops the background flush and writes whatever is still recorded. */
+  public void shutdown() {
+    final ScheduledExecutorService runningScheduler;
+    synchronized (this) {
+      runningScheduler = scheduler;
+    }
+    if (runningScheduler != null) {
+      runningScheduler.shutdown();
+      try {
+        // A flush in progress finishes before the final one starts
+        runningScheduler.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    flushQuietly();
+  }
+}
@@ -4,11 +4,11 @@ import ai.verta.common.Artifact;
 import ai.verta.common.KeyValue;
 import ai.verta.common.ModelDBResourceEnum;
 import ai.verta.modeldb.*;
-import ai.verta.modeldb.common.connections.UAC;
+import ai.verta.modeldb.common.authservice.FutureRoleService;
 import ai.verta.modeldb.common.exceptions.NotFoundException;
-import ai.verta.modeldb.common.futures.FutureGrpc;
 import ai.verta.modeldb.common.futures.FutureJdbi;
 import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.modeldb.config.Config;
 import ai.verta.modeldb.exceptions.InvalidArgumentException;
 import ai.verta.modeldb.exceptions.PermissionDeniedException;
 import ai.verta.modeldb.experimentRun.subtypes.*;
@@ -18,13 +18,15 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.*;
 import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 public class FutureExperimentRunDAO {
   private static Logger LOGGER = LogManager.getLogger(FutureExperimentRunDAO.class);
+  private static final int DEFAULT_MATRIX_CHUNK_SIZE = 1000;
 
   private final Executor executor;
   private final FutureJdbi jdbi;
-  private final UAC uac;
+  private final FutureRoleService futureRoleService;
 
   private final AttributeHandler attributeHandler;
   private final KeyValueHandler hyperparametersHandler;
@@ -32,19 +34,33 @@ public class FutureExperimentRunDAO {
   private final ObservationHandler observationHandler;
   private final TagsHandler tagsHandler;
   private final ArtifactHandler artifactHandler;
-
-  public FutureExperimentRunDAO(Executor executor, FutureJdbi jdbi, UAC uac) {
+  private final ExperimentRunTimestampAggregator timestampAggregator;
+  private final KeyValueMatrixHandler keyValueMatrixHandler;
+
+  public FutureExperimentRunDAO(
+      Executor executor,
+      FutureJdbi jdbi,
+      FutureRoleService futureRoleService,
+      ExperimentRunTimestampAggregator timestampAggregator) {
     this.executor = executor;
     this.jdbi = jdbi;
-    this.uac = uac;
+    this.futureRoleService = futureRoleService;
+    this.timestampAggregator = timestampAggregator;
 
     attributeHandler = new AttributeHandler(executor, jdbi, "ExperimentRunEntity");
     hyperparametersHandler =
         new KeyValueHandler(executor, jdbi, "hyperparameters", "ExperimentRunEntity");
     metricsHandler = new KeyValueHandler(executor, jdbi, "metrics", "ExperimentRunEntity");
-    observationHandler = new ObservationHandler(executor, jdbi);
+    final var config = Config.getInstance();
+    observationHandler =
+        new ObservationHandler(
+            executor,
+            jdbi,
+            config.observationRollupBucketSize,
+            config.database.RdbConfiguration.isPostgres());
     tagsHandler = new TagsHandler(executor, jdbi, "ExperimentRunEntity");
     artifactHandler = new ArtifactHandler(executor, jdbi, "artifacts", "ExperimentRunEntity");
+    keyValueMatrixHandler = new KeyValueMatrixHandler(jdbi);
   }
 
   public InternalFuture<Void> deleteObservations(DeleteObservations request) {
@@ -70,7 +86,11 @@ public class FutureExperimentRunDAO {
 
     return checkPermission(
             Collections.singletonList(runId), ModelDBActionEnum.ModelDBServiceActions.READ)
-        .thenCompose(unused -> observationHandler.getObservations(runId, key), executor);
+        .thenCompose(
+            unused ->
+                observationHandler.getObservations(
+                    runId, key, request.getDownsampleMethod(), request.getMaxPoints()),
+            executor);
   }
 
   public InternalFuture<Void> logObservations(LogObservations request) {
@@ -87,6 +107,31 @@ public class FutureExperimentRunDAO {
         .thenCompose(unused -> updateModifiedTimestamp(runId, now), executor);
   }
 
+  InternalFuture<Void> checkLogDataStreamPermission(String runId) {
+    return checkPermission(
+        Collections.singletonList(runId), ModelDBActionEnum.ModelDBServiceActions.UPDATE);
+  }
+
+  // Writes one buffered group of a logging stream. The caller is responsible for having checked the
+  // permission through checkLogDataStreamPermission first.
+  InternalFuture<Void> logDataStreamBatch(
+      String runId, List<KeyValue> metrics, List<Observation> observations) {
+    final var now = Calendar.getInstance().getTimeInMillis();
+
+    InternalFuture<Void> currentFuture = InternalFuture.completedInternalFuture(null);
+    if (!metrics.isEmpty()) {
+      currentFuture =
+          currentFuture.thenCompose(
+              unused -> metricsHandler.logKeyValues(runId, metrics), executor);
+    }
+    if (!observations.isEmpty()) {
+      currentFuture =
+          currentFuture.thenCompose(
+              unused -> observationHandler.logObservations(runId, observations, now), executor);
+    }
+    return currentFuture.thenCompose(unused -> updateModifiedTimestamp(runId, now), executor);
+  }
+
   public InternalFuture<Void> deleteMetrics(DeleteMetrics request) {
     final var runId = request.getId();
     final var now = Calendar.getInstance().getTimeInMillis();
@@ -136,6 +181,163 @@ public class FutureExperimentRunDAO {
         .thenCompose(unused -> metricsHandler.getKeyValues(runId), executor);
   }
 
+  /**
+   * Returns the source of the chunks of the requested metrics and hyperparameters of the selected
+   * runs. Each call of the supplier reads the next chunk of runs, or returns an empty Optional once
+   * every run was read, and must only be made once the previous chunk completed. The permission of
+   * the runs is checked before the first chunk. Runs of a project are read a page at a time, so
+   * only the ids of the current chunk are held.
+   */
+  public Supplier<InternalFuture<Optional<GetExperimentRunsKeyValueMatrix.Response>>>
+      getKeyValueMatrix(GetExperimentRunsKeyValueMatrix request) {
+    final var metricKeys = new ArrayList<>(new LinkedHashSet<>(request.getMetricKeysList()));
+    final var hyperparameterKeys =
+        new ArrayList<>(new LinkedHashSet<>(request.getHyperparameterKeysList()));
+    final var chunkSize =
+        request.getChunkSize() > 0 ? request.getChunkSize() : DEFAULT_MATRIX_CHUNK_SIZE;
+
+    final InternalFuture<Supplier<InternalFuture<List<String>>>> futureRunIdPages;
+    if (metricKeys.isEmpty() && hyperparameterKeys.isEmpty()) {
+      futureRunIdPages =
+          InternalFuture.failedStage(
+              new InvalidArgumentException("Metric or hyperparameter keys are missing"));
+    } else if (request.getExperimentRunIdsList().isEmpty() && request.getProjectId().isEmpty()) {
+      futureRunIdPages =
+          InternalFuture.failedStage(
+              new InvalidArgumentException("Experiment run IDs or project ID is missing"));
+    } else if (!request.getExperimentRunIdsList().isEmpty()) {
+      futureRunIdPages =
+          getReadableRunIds(request.getExperimentRunIdsList())
+              .thenApply(runIds -> getRunIdPages(runIds, chunkSize), executor);
+    } else {
+      futureRunIdPages =
+          checkProjectPermission(
+                  Collections.singletonList(request.getProjectId()),
+                  ModelDBActionEnum.ModelDBServiceActions.READ)
+              .thenApply(
+                  unused ->
+                      getRunIdPages(request.getProjectId(), request.getExperimentId(), chunkSize),
+                  executor);
+    }
+
+    return () ->
+        futureRunIdPages
+            .thenCompose(Supplier::get, executor)
+            .thenCompose(
+                runIds -> {
+                  if (runIds.isEmpty()) {
+                    return InternalFuture.completedInternalFuture(Optional.empty());
+                  }
+                  return keyValueMatrixHandler
+                      .getMatrix(runIds, metricKeys, hyperparameterKeys)
+                      .thenApply(Optional::of, executor);
+                },
+                executor);
+  }
+
+  // Pages of the given runs, an empty page once all were returned
+  private static Supplier<InternalFuture<List<String>>> getRunIdPages(
+      List<String> runIds, int pageSize) {
+    final var position = new int[] {0};
+    return () -> {
+      final var page =
+          runIds.subList(position[0], Math.min(position[0] + pageSize, runIds.size()));
+      position[0] += page.size();
+      return InternalFuture.completedInternalFuture(page);
+    };
+  }
+
+  // Pages of the runs of the project, and of the experiment if set, ordered by creation. Each page
+  // continues after the (date_created, id) of the last run of the previous one.
+  private Supplier<InternalFuture<List<String>>> getRunIdPages(
+      String projectId, String experimentId, int pageSize) {
+    final var lastDateCreated = new Long[] {null};
+    final var lastId = new String[] {null};
+    return () ->
+        jdbi.withHandle(
+                handle -> {
+                  var sql =
+                      "SELECT id, date_created FROM experiment_run "
+                          + "WHERE project_id=:project_id AND deleted=0";
+                  if (!experimentId.isEmpty()) {
+                    sql += " AND experiment_id=:experiment_id";
+                  }
+                  if (lastId[0] != null) {
+                    sql +=
+                        " AND (date_created > :last_date_created "
+                            + "OR (date_created = :last_date_created AND id > :last_id))";
+                  }
+                  final var query =
+                      handle
+                          .createQuery(sql + " ORDER BY date_created, id LIMIT :limit")
+                          .bind("project_id", projectId)
+                          .bind("limit", pageSize);
+                  if (!experimentId.isEmpty()) {
+                    query.bind("experiment_id", experimentId);
+                  }
+                  if (lastId[0] != null) {
+                    query
+                        .bind("last_date_created", lastDateCreated[0])
+                        .bind("last_id", lastId[0]);
+                  }
+                  return query
+                      .map(
+                          (rs, ctx) ->
+                              new AbstractMap.SimpleEntry<>(
+                                  rs.getString("id"), rs.getLong("date_created")))
+                      .list();
+                })
+            .thenApply(
+                runs -> {
+                  final var runIds = new ArrayList<String>(runs.size());
+                  for (final var run : runs) {
+                    runIds.add(run.getKey());
+                    lastDateCreated[0] = run.getValue();
+                    lastId[0] = run.getKey();
+                  }
+                  return runIds;
+                },
+                executor);
+  }
+
+  // Resolves the requested runs, keeping the requested order, and checks the READ permission of
+  // their projects with a single call
+  private InternalFuture<List<String>> getReadableRunIds(List<String> experimentRunIds) {
+    final var requestedIds = new ArrayList<>(new LinkedHashSet<>(experimentRunIds));
+    final var futureProjectIdByRun =
+        jdbi.withHandle(
+            handle ->
+                handle
+                    .createQuery(
+                        "SELECT id, project_id FROM experiment_run "
+                            + "WHERE id IN (<ids>) AND deleted=0")
+                    .bindList("ids", requestedIds)
+                    .map(
+                        (rs, ctx) ->
+                            new AbstractMap.SimpleEntry<>(
+                                rs.getString("id"), rs.getString("project_id")))
+                    .list());
+    return futureProjectIdByRun.thenCompose(
+        runProjectIds -> {
+          final var projectIdByRun = new HashMap<String, String>();
+          runProjectIds.forEach(entry -> projectIdByRun.put(entry.getKey(), entry.getValue()));
+          if (projectIdByRun.isEmpty()) {
+            throw new NotFoundException("Project ids not found for given experiment runs");
+          }
+          final var runIds = new ArrayList<String>();
+          for (String runId : requestedIds) {
+            if (projectIdByRun.containsKey(runId)) {
+              runIds.add(runId);
+            }
+          }
+          return checkProjectPermission(
+                  new ArrayList<>(new HashSet<>(projectIdByRun.values())),
+                  ModelDBActionEnum.ModelDBServiceActions.READ)
+              .thenApply(unused -> runIds, executor);
+        },
+        executor);
+  }
+
   public InternalFuture<List<KeyValue>> getHyperparameters(GetHyperparameters request) {
     final var runId = request.getId();
 
@@ -219,40 +421,16 @@ public class FutureExperimentRunDAO {
   }
 
   private InternalFuture<Void> updateModifiedTimestamp(String runId, Long now) {
-    return jdbi.useHandle(
-        handle ->
-            handle
-                .createUpdate(
-                    "update experiment_run set date_updated=greatest(date_updated, :now) where id=:run_id")
-                .bind("run_id", runId)
-                .bind("now", now)
-                .execute());
+    return InternalFuture.runAsync(() -> timestampAggregator.record(runId, now), executor);
   }
 
   private InternalFuture<Void> checkProjectPermission(
       List<String> projId, ModelDBActionEnum.ModelDBServiceActions action) {
-    return FutureGrpc.ClientRequest(
-            uac.getAuthzService()
-                .isSelfAllowed(
-                    IsSelfAllowed.newBuilder()
-                        .addActions(
-                            Action.newBuilder()
-                                .setModeldbServiceAction(action)
-                                .setService(ServiceEnum.Service.MODELDB_SERVICE))
-                        .addResources(
-                            Resources.newBuilder()
-                                .setService(ServiceEnum.Service.MODELDB_SERVICE)
-                                .setResourceType(
-                                    ResourceType.newBuilder()
-                                        .setModeldbServiceResourceType(
-                                            ModelDBResourceEnum.ModelDBServiceResourceTypes
-                                                .PROJECT))
-                                .addAllResourceIds(projId))
-                        .build()),
-            executor)
+    return futureRoleService
+        .isSelfAllowed(action, ModelDBResourceEnum.ModelDBServiceResourceTypes.PROJECT, projId)
         .thenAccept(
-            response -> {
-              if (!response.getAllowed()) {
+            allowed -> {
+              if (!allowed) {
                 throw new PermissionDeniedException("Permission denied");
               }
             },
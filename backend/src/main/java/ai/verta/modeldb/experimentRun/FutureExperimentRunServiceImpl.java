@@ -3,6 +3,8 @@ package ai.verta.modeldb.experimentRun;
 import ai.verta.modeldb.*;
 import ai.verta.modeldb.common.CommonUtils;
 import ai.verta.modeldb.common.futures.FutureGrpc;
+import ai.verta.modeldb.config.Config;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
 import java.util.concurrent.Executor;
@@ -10,11 +12,13 @@ import java.util.concurrent.Executor;
 public class FutureExperimentRunServiceImpl extends ExperimentRunServiceImpl {
   private final Executor executor;
   private final FutureExperimentRunDAO futureExperimentRunDAO;
+  private final Config config;
 
   public FutureExperimentRunServiceImpl(ServiceSet serviceSet, DAOSet daoSet, Executor executor) {
     super(serviceSet, daoSet);
     this.executor = executor;
     this.futureExperimentRunDAO = daoSet.futureExperimentRunDAO;
+    this.config = Config.getInstance();
   }
 
   @Override
@@ -195,6 +199,18 @@ public class FutureExperimentRunServiceImpl extends ExperimentRunServiceImpl {
     }
   }
 
+  @Override
+  public StreamObserver<LogExperimentRunDataStream> logExperimentRunDataStream(
+      StreamObserver<LogExperimentRunDataStream.Response> responseObserver) {
+    return new ExperimentRunDataStreamObserver(
+        futureExperimentRunDAO,
+        executor,
+        (ServerCallStreamObserver<LogExperimentRunDataStream.Response>) responseObserver,
+        config.runDataStreamFlushSize,
+        config.runDataStreamFlushIntervalMillis,
+        config.runDataStreamMaxPendingEntries);
+  }
+
   @Override
   public void getObservations(
       GetObservations request, StreamObserver<GetObservations.Response> responseObserver) {
@@ -273,6 +289,18 @@ public class FutureExperimentRunServiceImpl extends ExperimentRunServiceImpl {
     }
   }
 
+  @Override
+  public void getExperimentRunsKeyValueMatrix(
+      GetExperimentRunsKeyValueMatrix request,
+      StreamObserver<GetExperimentRunsKeyValueMatrix.Response> responseObserver) {
+    try {
+      FutureGrpc.ServerStreamResponse(
+          responseObserver, futureExperimentRunDAO.getKeyValueMatrix(request), executor);
+    } catch (Exception e) {
+      CommonUtils.observeError(responseObserver, e);
+    }
+  }
+
   @Override
   public void deleteMetrics(
       DeleteMetrics request, StreamObserver<DeleteMetrics.Response> responseObserver) {
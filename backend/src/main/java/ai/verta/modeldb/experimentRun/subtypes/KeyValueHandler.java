@@ -6,6 +6,7 @@ import ai.verta.modeldb.common.exceptions.InternalErrorException;
 import ai.verta.modeldb.common.exceptions.ModelDBException;
 import ai.verta.modeldb.common.futures.FutureJdbi;
 import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.modeldb.entities.KeyValueEntity;
 import ai.verta.modeldb.exceptions.AlreadyExistsException;
 import ai.verta.modeldb.exceptions.InvalidArgumentException;
 import ai.verta.modeldb.utils.ModelDBUtils;
@@ -129,12 +130,13 @@ public class KeyValueHandler {
                             .createUpdate(
                                 "insert into "
                                     + getTableName()
-                                    + " (entity_name, field_type, kv_key, kv_value, value_type, "
+                                    + " (entity_name, field_type, kv_key, kv_value, kv_value_num, value_type, "
                                     + entityIdReferenceColumn
                                     + ") "
-                                    + "values (:entity_name, :field_type, :key, :value, :type, :entity_id)")
+                                    + "values (:entity_name, :field_type, :key, :value, :value_num, :type, :entity_id)")
                             .bind("key", kv.getKey())
                             .bind("value", ModelDBUtils.getStringFromProtoObject(kv.getValue()))
+                            .bind("value_num", KeyValueEntity.getNumericValue(kv.getValue()))
                             .bind("type", kv.getValueTypeValue())
                             .bind("entity_id", entityId)
                             .bind("field_type", fieldType)
@@ -196,12 +198,13 @@ public class KeyValueHandler {
                           .createUpdate(
                               "Update "
                                   + getTableName()
-                                  + " SET kv_key=:key, kv_value=:value, value_type=:type "
+                                  + " SET kv_key=:key, kv_value=:value, kv_value_num=:value_num, value_type=:type "
                                   + " where entity_name=:entity_name and field_type=:field_type and kv_key=:key and "
                                   + entityIdReferenceColumn
                                   + "=:entity_id")
                           .bind("key", kv.getKey())
                           .bind("value", ModelDBUtils.getStringFromProtoObject(kv.getValue()))
+                          .bind("value_num", KeyValueEntity.getNumericValue(kv.getValue()))
                           .bind("type", kv.getValueTypeValue())
                           .bind("entity_id", entityId)
                           .bind("field_type", fieldType)
@@ -0,0 +1,138 @@
+package ai.verta.modeldb.experimentRun.subtypes;
+
+import ai.verta.modeldb.GetExperimentRunsKeyValueMatrix;
+import ai.verta.modeldb.common.CommonUtils;
+import ai.verta.modeldb.common.exceptions.ModelDBException;
+import ai.verta.modeldb.common.futures.FutureJdbi;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads the metrics and hyperparameters of many runs as columns, one per key, with a single query
+ * against the keyvalue table per group of runs.
+ */
+public class KeyValueMatrixHandler {
+  private static Logger LOGGER = LogManager.getLogger(KeyValueMatrixHandler.class);
+
+  private static final String METRICS = "metrics";
+  private static final String HYPERPARAMETERS = "hyperparameters";
+
+  private final FutureJdbi jdbi;
+
+  public KeyValueMatrixHandler(FutureJdbi jdbi) {
+    this.jdbi = jdbi;
+  }
+
+  /**
+   * Returns the columns of the runs {@code runIds}, in that order. The caller is responsible for
+   * having checked the permission of the runs.
+   */
+  public InternalFuture<GetExperimentRunsKeyValueMatrix.Response> getMatrix(
+      List<String> runIds, List<String> metricKeys, List<String> hyperparameterKeys) {
+    final var fieldConditions = new ArrayList<String>();
+    if (!metricKeys.isEmpty()) {
+      fieldConditions.add("(field_type='" + METRICS + "' and kv_key in (<metric_keys>))");
+    }
+    if (!hyperparameterKeys.isEmpty()) {
+      fieldConditions.add(
+          "(field_type='" + HYPERPARAMETERS + "' and kv_key in (<hyperparameter_keys>))");
+    }
+
+    return jdbi.withHandle(
+        handle -> {
+          final var query =
+              handle
+                  .createQuery(
+                      "select experiment_run_id as r, field_type as f, kv_key as k, "
+                          + "kv_value as v, kv_value_num as n from keyvalue "
+                          + "where entity_name='ExperimentRunEntity' "
+                          + "and experiment_run_id in (<run_ids>) and ("
+                          + String.join(" or ", fieldConditions)
+                          + ")")
+                  .bindList("run_ids", runIds);
+          if (!metricKeys.isEmpty()) {
+            query.bindList("metric_keys", metricKeys);
+          }
+          if (!hyperparameterKeys.isEmpty()) {
+            query.bindList("hyperparameter_keys", hyperparameterKeys);
+          }
+
+          final var positions = new HashMap<String, Integer>();
+          for (int i = 0; i < runIds.size(); i++) {
+            positions.put(runIds.get(i), i);
+          }
+          final var metrics = newColumns(metricKeys, runIds.size());
+          final var hyperparameters = newColumns(hyperparameterKeys, runIds.size());
+
+          query
+              .map(
+                  (rs, ctx) -> {
+                    final var columns =
+                        METRICS.equals(rs.getString("f")) ? metrics : hyperparameters;
+                    final var column = columns.get(rs.getString("k"));
+                    final var position = positions.get(rs.getString("r"));
+                    if (column == null || position == null) {
+                      return null;
+                    }
+                    column.setPresent(position, true);
+
+                    final var valueNum = rs.getDouble("n");
+                    if (!rs.wasNull()) {
+                      column.setNumberValues(position, valueNum);
+                    } else {
+                      // Rows saved before kv_value_num existed may not be migrated yet
+                      final var value = parseValue(rs.getString("v"));
+                      if (value.hasNumberValue()) {
+                        column.setNumberValues(position, value.getNumberValue());
+                      } else {
+                        column.putOtherValues(position, value);
+                      }
+                    }
+                    return null;
+                  })
+              .list();
+
+          final var response =
+              GetExperimentRunsKeyValueMatrix.Response.newBuilder().addAllExperimentRunIds(runIds);
+          for (String key : metricKeys) {
+            response.addMetrics(metrics.get(key));
+          }
+          for (String key : hyperparameterKeys) {
+            response.addHyperparameters(hyperparameters.get(key));
+          }
+          return response.build();
+        });
+  }
+
+  private static Map<String, GetExperimentRunsKeyValueMatrix.Column.Builder> newColumns(
+      List<String> keys, int size) {
+    final var columns = new HashMap<String, GetExperimentRunsKeyValueMatrix.Column.Builder>();
+    for (String key : keys) {
+      final var column = GetExperimentRunsKeyValueMatrix.Column.newBuilder().setKey(key);
+      for (int i = 0; i < size; i++) {
+        column.addPresent(false);
+        column.addNumberValues(0);
+      }
+      columns.put(key, column);
+    }
+    return columns;
+  }
+
+  private static Value parseValue(String serializedValue) {
+    try {
+      final var value = Value.newBuilder();
+      CommonUtils.getProtoObjectFromString(serializedValue, value);
+      return value.build();
+    } catch (InvalidProtocolBufferException e) {
+      LOGGER.error("Error generating builder for {}", serializedValue);
+      throw new ModelDBException(e);
+    }
+  }
+}
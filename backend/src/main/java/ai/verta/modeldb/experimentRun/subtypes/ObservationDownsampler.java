@@ -0,0 +1,220 @@
+package ai.verta.modeldb.experimentRun.subtypes;
+
+import ai.verta.modeldb.GetObservations;
+import ai.verta.modeldb.exceptions.InvalidArgumentException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces a series of observations, received in epoch order, to a bounded number of points while
+ * it is read. Only the points kept so far and at most two buckets of candidates are held in
+ * memory.
+ */
+abstract class ObservationDownsampler {
+
+  /** One observation of the series. {@code number} is null if the value is not a number. */
+  static class Point {
+    final long epoch;
+    final Double number;
+    final String serializedValue;
+    final int valueType;
+
+    Point(long epoch, Double number, String serializedValue, int valueType) {
+      this.epoch = epoch;
+      this.number = number;
+      this.serializedValue = serializedValue;
+      this.valueType = valueType;
+    }
+  }
+
+  protected final List<Point> selected = new ArrayList<>();
+
+  abstract void add(Point point);
+
+  /** Returns the kept points in epoch order, once every point of the series was added. */
+  List<Point> finish() {
+    return selected;
+  }
+
+  /**
+   * Returns the downsampler keeping at most {@code maxPoints} of a series of {@code count} points
+   * with epochs between {@code minEpoch} and {@code maxEpoch}.
+   */
+  static ObservationDownsampler create(
+      GetObservations.DownsampleMethod method,
+      int maxPoints,
+      long count,
+      long minEpoch,
+      long maxEpoch) {
+    switch (method) {
+      case EVERY_NTH:
+        return new EveryNth((count + maxPoints - 1) / maxPoints);
+      case MIN_MAX:
+        return new MinMax(minEpoch, getBucketWidth(minEpoch, maxEpoch, maxPoints / 2));
+      case LTTB:
+        return new Lttb(count, maxPoints);
+      default:
+        throw new InvalidArgumentException("Unsupported downsample method " + method);
+    }
+  }
+
+  /** Returns the epoch width of each of {@code buckets} buckets covering the epoch range. */
+  static long getBucketWidth(long minEpoch, long maxEpoch, int buckets) {
+    final long range = maxEpoch - minEpoch + 1;
+    return Math.max(1, (range + buckets - 1) / Math.max(1, buckets));
+  }
+
+  private static class EveryNth extends ObservationDownsampler {
+    private final long stride;
+    private long index = 0;
+
+    private EveryNth(long stride) {
+      this.stride = Math.max(1, stride);
+    }
+
+    @Override
+    void add(Point point) {
+      if (index++ % stride == 0) {
+        selected.add(point);
+      }
+    }
+  }
+
+  private static class MinMax extends ObservationDownsampler {
+    private final long minEpoch;
+    private final long bucketWidth;
+    private long bucket = -1;
+    private Point min;
+    private Point max;
+
+    private MinMax(long minEpoch, long bucketWidth) {
+      this.minEpoch = minEpoch;
+      this.bucketWidth = bucketWidth;
+    }
+
+    @Override
+    void add(Point point) {
+      if (point.number == null) {
+        return;
+      }
+      final long pointBucket = Math.floorDiv(point.epoch - minEpoch, bucketWidth);
+      if (pointBucket != bucket) {
+        flush();
+        bucket = pointBucket;
+        min = point;
+        max = point;
+      } else if (point.number < min.number) {
+        min = point;
+      } else if (point.number > max.number) {
+        max = point;
+      }
+    }
+
+    @Override
+    List<Point> finish() {
+      flush();
+      return selected;
+    }
+
+    private void flush() {
+      if (min == null) {
+        return;
+      }
+      if (min == max) {
+        selected.add(min);
+      } else if (min.epoch <= max.epoch) {
+        selected.add(min);
+        selected.add(max);
+      } else {
+        selected.add(max);
+        selected.add(min);
+      }
+      min = null;
+      max = null;
+    }
+  }
+
+  /**
+   * Largest-Triangle-Three-Buckets. The first and last points are kept, the others are split by
+   * position into {@code maxPoints - 2} buckets, and each bucket keeps the point forming the
+   * largest triangle with the point kept for the previous bucket and the average of the next one.
+   * A bucket is decided as soon as the next one is complete.
+   */
+  private static class Lttb extends ObservationDownsampler {
+    private final double bucketSize;
+    private long index = 0;
+    private long nextBucketIndex = -1;
+    private List<Point> currentBucket = new ArrayList<>();
+    private List<Point> nextBucket = new ArrayList<>();
+
+    private Lttb(long count, int maxPoints) {
+      this.bucketSize = (double) Math.max(1, count - 2) / Math.max(1, maxPoints - 2);
+    }
+
+    @Override
+    void add(Point point) {
+      final long pointIndex = index++;
+      if (point.number == null) {
+        return;
+      }
+      if (selected.isEmpty()) {
+        selected.add(point);
+        return;
+      }
+
+      final long bucketIndex = (long) ((pointIndex - 1) / bucketSize);
+      if (bucketIndex != nextBucketIndex && !nextBucket.isEmpty()) {
+        selectFromCurrentBucket(average(nextBucket));
+        currentBucket = nextBucket;
+        nextBucket = new ArrayList<>();
+      }
+      nextBucketIndex = bucketIndex;
+      nextBucket.add(point);
+    }
+
+    @Override
+    List<Point> finish() {
+      if (nextBucket.isEmpty()) {
+        return selected;
+      }
+      final Point last = nextBucket.remove(nextBucket.size() - 1);
+      final double[] lastCoordinates = {last.epoch, last.number};
+      selectFromCurrentBucket(nextBucket.isEmpty() ? lastCoordinates : average(nextBucket));
+      currentBucket = nextBucket;
+      selectFromCurrentBucket(lastCoordinates);
+      selected.add(last);
+      return selected;
+    }
+
+    private void selectFromCurrentBucket(double[] nextAverage) {
+      if (currentBucket.isEmpty()) {
+        return;
+      }
+      final Point previous = selected.get(selected.size() - 1);
+      Point largest = null;
+      double largestArea = -1;
+      for (Point point : currentBucket) {
+        final double area =
+            Math.abs(
+                (previous.epoch - nextAverage[0]) * (point.number - previous.number)
+                    - (previous.epoch - point.epoch) * (nextAverage[1] - previous.number));
+        if (area > largestArea) {
+          largestArea = area;
+          largest = point;
+        }
+      }
+      selected.add(largest);
+      currentBucket = new ArrayList<>();
+    }
+
+    private static double[] average(List<Point> points) {
+      double epochSum = 0;
+      double valueSum = 0;
+      for (Point point : points) {
+        epochSum += point.epoch;
+        valueSum += point.number;
+      }
+      return new double[] {epochSum / points.size(), valueSum / points.size()};
+    }
+  }
+}
@@ -1,35 +1,86 @@
 package ai.verta.modeldb.experimentRun.subtypes;
 
 import ai.verta.common.KeyValue;
+import ai.verta.common.ValueTypeEnum;
+import ai.verta.modeldb.GetObservations;
 import ai.verta.modeldb.Observation;
 import ai.verta.modeldb.common.CommonUtils;
+import ai.verta.modeldb.common.exceptions.InternalErrorException;
 import ai.verta.modeldb.common.exceptions.ModelDBException;
 import ai.verta.modeldb.common.futures.FutureJdbi;
 import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.modeldb.entities.KeyValueEntity;
 import ai.verta.modeldb.exceptions.InvalidArgumentException;
 import ai.verta.modeldb.utils.ModelDBUtils;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Value;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
 
 public class ObservationHandler {
   private static Logger LOGGER = LogManager.getLogger(KeyValueHandler.class);
 
+  // Rows fetched at a time while a series is downsampled
+  private static final int SERIES_FETCH_SIZE = 1000;
+  // Keys longer than the indexed prefix of observation_rollup.kv_key are not rolled up
+  private static final int ROLLUP_MAX_KEY_LENGTH = 255;
+
   private final Executor executor;
   private final FutureJdbi jdbi;
+  // Epochs per observation_rollup bucket, 0 if the rollup is not maintained
+  private final long rollupBucketSize;
+  private final boolean isPostgres;
 
-  public ObservationHandler(Executor executor, FutureJdbi jdbi) {
+  public ObservationHandler(
+      Executor executor, FutureJdbi jdbi, long rollupBucketSize, boolean isPostgres) {
     this.executor = executor;
     this.jdbi = jdbi;
+    this.rollupBucketSize = rollupBucketSize;
+    this.isPostgres = isPostgres;
   }
 
   public InternalFuture<List<Observation>> getObservations(String runId, String key) {
     // TODO: support artifacts?
 
+    // Validate input
+    var currentFuture =
+        InternalFuture.runAsync(
+            () -> {
+              if (key.isEmpty()) {
+                throw new InvalidArgumentException("Empty observation key");
+              }
+            },
+            executor);
+
+    // Query
+    return currentFuture.thenCompose(
+        unused -> jdbi.withHandle(handle -> readObservations(handle, runId, key)), executor);
+  }
+
+  /**
+   * Returns the observations of the key, downsampled to about {@code maxPoints} points with {@code
+   * method} when there are more. The series is reduced while its rows are read, and {@code MIN_MAX}
+   * reads the observation_rollup buckets instead when they cover every observation of the key.
+   */
+  public InternalFuture<List<Observation>> getObservations(
+      String runId, String key, GetObservations.DownsampleMethod method, int maxPoints) {
+    if (method == GetObservations.DownsampleMethod.NONE || maxPoints <= 0) {
+      return getObservations(runId, key);
+    }
+
     // Validate input
     var currentFuture =
         InternalFuture.runAsync(
@@ -44,41 +95,168 @@ public class ObservationHandler {
     return currentFuture.thenCompose(
         unused ->
             jdbi.withHandle(
-                handle ->
-                    handle
-                        .createQuery(
-                            "select k.kv_value value, k.value_type type, o.epoch_number epoch from "
-                                + "(select keyvaluemapping_id, epoch_number from observation "
-                                + "where experiment_run_id =:run_id and entity_name = \"ExperimentRunEntity\") o, "
-                                + "(select id, kv_value, value_type from keyvalue where kv_key =:name and entity_name IS NULL) k "
-                                + "where o.keyvaluemapping_id = k.id")
-                        .bind("run_id", runId)
-                        .bind("name", key)
-                        .map(
-                            (rs, ctx) -> {
-                              try {
-                                return Observation.newBuilder()
-                                    .setEpochNumber(
-                                        Value.newBuilder().setNumberValue(rs.getLong("epoch")))
-                                    .setAttribute(
-                                        KeyValue.newBuilder()
-                                            .setKey(key)
-                                            .setValue(
-                                                (Value.Builder)
-                                                    CommonUtils.getProtoObjectFromString(
-                                                        rs.getString("value"), Value.newBuilder()))
-                                            .setValueTypeValue(rs.getInt("type")))
-                                    .build();
-                              } catch (InvalidProtocolBufferException e) {
-                                LOGGER.error(
-                                    "Error generating builder for {}", rs.getString("value"));
-                                throw new ModelDBException(e);
-                              }
-                            })
-                        .list()),
+                handle -> {
+                  final var stats =
+                      handle
+                          .createQuery(
+                              "select count(*) c, min(o.epoch_number) min_epoch, max(o.epoch_number) max_epoch from "
+                                  + "(select keyvaluemapping_id, epoch_number from observation "
+                                  + "where experiment_run_id =:run_id and entity_name = \"ExperimentRunEntity\") o, "
+                                  + "(select id from keyvalue where kv_key =:name and entity_name IS NULL) k "
+                                  + "where o.keyvaluemapping_id = k.id")
+                          .bind("run_id", runId)
+                          .bind("name", key)
+                          .map(
+                              (rs, ctx) ->
+                                  new long[] {
+                                    rs.getLong("c"),
+                                    rs.getLong("min_epoch"),
+                                    rs.getLong("max_epoch")
+                                  })
+                          .one();
+                  final long count = stats[0];
+                  if (count <= maxPoints) {
+                    return readObservations(handle, runId, key);
+                  }
+
+                  final var downsampler =
+                      ObservationDownsampler.create(method, maxPoints, count, stats[1], stats[2]);
+                  if (method == GetObservations.DownsampleMethod.MIN_MAX
+                      && rollupBucketSize > 0
+                      && addRollupPoints(handle, runId, key, count, downsampler)) {
+                    return toObservations(key, downsampler.finish());
+                  }
+
+                  // The drivers only fetch rows through a cursor inside a transaction: Postgres
+                  // with autocommit off, MySQL with the streaming fetch size
+                  handle.useTransaction(
+                      transactionHandle -> readSeries(transactionHandle, runId, key, downsampler));
+                  return toObservations(key, downsampler.finish());
+                }),
         executor);
   }
 
+  private void readSeries(
+      Handle handle, String runId, String key, ObservationDownsampler downsampler) {
+    handle
+        .createQuery(
+            "select k.kv_value value, k.kv_value_num value_num, k.value_type type, o.epoch_number epoch from "
+                + "(select id, keyvaluemapping_id, epoch_number from observation "
+                + "where experiment_run_id =:run_id and entity_name = \"ExperimentRunEntity\") o, "
+                + "(select id, kv_value, kv_value_num, value_type from keyvalue where kv_key =:name and entity_name IS NULL) k "
+                + "where o.keyvaluemapping_id = k.id order by o.epoch_number, o.id")
+        .bind("run_id", runId)
+        .bind("name", key)
+        .setFetchSize(isPostgres ? SERIES_FETCH_SIZE : Integer.MIN_VALUE)
+        .map(
+            (rs, ctx) -> {
+              Double number = rs.getDouble("value_num");
+              if (rs.wasNull()) {
+                // Rows saved before kv_value_num existed may not be migrated yet
+                number = KeyValueEntity.getNumericValue(parseValue(rs.getString("value")));
+              }
+              return new ObservationDownsampler.Point(
+                  rs.getLong("epoch"), number, rs.getString("value"), rs.getInt("type"));
+            })
+        .forEach(downsampler::add);
+  }
+
+  private List<Observation> readObservations(Handle handle, String runId, String key) {
+    return handle
+        .createQuery(
+            "select k.kv_value value, k.value_type type, o.epoch_number epoch from "
+                + "(select keyvaluemapping_id, epoch_number from observation "
+                + "where experiment_run_id =:run_id and entity_name = \"ExperimentRunEntity\") o, "
+                + "(select id, kv_value, value_type from keyvalue where kv_key =:name and entity_name IS NULL) k "
+                + "where o.keyvaluemapping_id = k.id")
+        .bind("run_id", runId)
+        .bind("name", key)
+        .map(
+            (rs, ctx) ->
+                Observation.newBuilder()
+                    .setEpochNumber(Value.newBuilder().setNumberValue(rs.getLong("epoch")))
+                    .setAttribute(
+                        KeyValue.newBuilder()
+                            .setKey(key)
+                            .setValue(parseValue(rs.getString("value")))
+                            .setValueTypeValue(rs.getInt("type")))
+                    .build())
+        .list();
+  }
+
+  /**
+   * Adds the minimum and maximum of every rollup bucket of the key to {@code downsampler}, in epoch
+   * order. Returns false without adding any point if the buckets do not account for all the {@code
+   * count} observations, as when observations were logged before the rollup was enabled.
+   */
+  private boolean addRollupPoints(
+      Handle handle, String runId, String key, long count, ObservationDownsampler downsampler) {
+    final var buckets =
+        handle
+            .createQuery(
+                "select point_count, min_epoch, min_value, max_epoch, max_value from observation_rollup "
+                    + "where experiment_run_id =:run_id and kv_key =:name order by bucket")
+            .bind("run_id", runId)
+            .bind("name", key)
+            .map((rs, ctx) -> RollupBucket.read(rs))
+            .list();
+    long rollupCount = 0;
+    for (final var bucket : buckets) {
+      rollupCount += bucket.count;
+    }
+    if (rollupCount != count) {
+      return false;
+    }
+
+    for (final var bucket : buckets) {
+      if (bucket.minEpoch == null) {
+        continue;
+      }
+      final var min = bucket.getMinPoint();
+      final var max = bucket.getMaxPoint();
+      if (min.epoch <= max.epoch) {
+        downsampler.add(min);
+        downsampler.add(max);
+      } else {
+        downsampler.add(max);
+        downsampler.add(min);
+      }
+    }
+    return true;
+  }
+
+  private static List<Observation> toObservations(
+      String key, List<ObservationDownsampler.Point> points) {
+    final List<Observation> observations = new ArrayList<>(points.size());
+    for (final var point : points) {
+      final var value =
+          point.serializedValue == null
+              ? Value.newBuilder().setNumberValue(point.number).build()
+              : parseValue(point.serializedValue);
+      observations.add(
+          Observation.newBuilder()
+              .setEpochNumber(Value.newBuilder().setNumberValue(point.epoch))
+              .setAttribute(
+                  KeyValue.newBuilder()
+                      .setKey(key)
+                      .setValue(value)
+                      .setValueTypeValue(point.valueType))
+              .build());
+    }
+    return observations;
+  }
+
+  private static Value parseValue(String serializedValue) {
+    try {
+      final var value = Value.newBuilder();
+      CommonUtils.getProtoObjectFromString(serializedValue, value);
+      return value.build();
+    } catch (InvalidProtocolBufferException e) {
+      LOGGER.error("Error generating builder for {}", serializedValue);
+      throw new ModelDBException(e);
+    }
+  }
+
   public InternalFuture<Void> logObservations(
       String runId, List<Observation> observations, long now) {
     // TODO: support artifacts?
@@ -91,94 +269,254 @@ public class ObservationHandler {
                 if (observation.getAttribute().getKey().isEmpty()) {
                   throw new InvalidArgumentException("Empty observation key");
                 }
+                if (observation.hasEpochNumber()
+                    && observation.getEpochNumber().getKindCase() != Value.KindCase.NUMBER_VALUE) {
+                  String invalidEpochMessage =
+                      "Observations can only have numeric epoch_number, condition not met in "
+                          + observation;
+                  throw new InvalidArgumentException(invalidEpochMessage);
+                }
               }
             },
             executor);
 
-    // Log observations
-    for (final var observation : observations) {
-      final var attribute = observation.getAttribute();
-      currentFuture =
-          currentFuture
-              .thenCompose(
-                  unused -> {
-                    // If the epoch is specified, save it directly
-                    if (observation.hasEpochNumber()) {
-                      if (observation.getEpochNumber().getKindCase()
-                          != Value.KindCase.NUMBER_VALUE) {
-                        String invalidEpochMessage =
-                            "Observations can only have numeric epoch_number, condition not met in "
-                                + observation;
-                        throw new InvalidArgumentException(invalidEpochMessage);
-                      }
-                      return InternalFuture.completedInternalFuture(
-                          (long) observation.getEpochNumber().getNumberValue());
-                    } else {
-                      // Otherwise, infer at runtime. We can't do this in the same SQL command as
-                      // we'll be updating these tables and some SQL implementations don't support
-                      // select together with updates
-                      final var sql =
-                          "select max(o.epoch_number) from "
-                              + "(select keyvaluemapping_id, epoch_number from observation "
-                              + "where experiment_run_id =:run_id and entity_name = \"ExperimentRunEntity\") o, "
-                              + "(select id from keyvalue where kv_key =:name and entity_name IS NULL) k "
-                              + "where o.keyvaluemapping_id = k.id";
-                      return jdbi.withHandle(
-                          handle ->
-                              handle
-                                  .createQuery(sql)
-                                  .bind("run_id", runId)
-                                  .bind("name", attribute.getKey())
-                                  .mapTo(Long.class)
-                                  .findOne()
-                                  .map(x -> x + 1)
-                                  .orElse(0L));
-                    }
-                  },
-                  executor)
-              .thenCompose(
-                  epoch ->
-                      // Insert into KV table
-                      jdbi.useHandle(
-                          handle -> {
-                            final var kvId =
-                                handle
-                                    .createUpdate(
-                                        "insert into keyvalue (field_type, kv_key, kv_value, value_type) "
-                                            + "values (\"attributes\", :key, :value, :type)")
-                                    .bind("key", attribute.getKey())
-                                    .bind(
-                                        "value",
-                                        ModelDBUtils.getStringFromProtoObject(attribute.getValue()))
-                                    .bind("type", attribute.getValueTypeValue())
-                                    .executeAndReturnGeneratedKeys()
-                                    .mapTo(Long.class)
-                                    .one();
-
-                            // Insert to observation table
-                            // We don't need transaction here since it's fine to add to the kv table
-                            // and fail to insert into the observation table, as the value will be
-                            // just ignored
-                            handle
-                                .createUpdate(
-                                    "insert into observation (entity_name, field_type, timestamp, experiment_run_id, keyvaluemapping_id, epoch_number) "
-                                        + "values (\"ExperimentRunEntity\", \"observations\", :timestamp, :run_id, :kvid, :epoch)")
+    if (observations.isEmpty()) {
+      return currentFuture;
+    }
+
+    // Log all observations in a single transaction
+    return currentFuture.thenCompose(
+        unused ->
+            jdbi.useHandle(
+                handle ->
+                    handle.useTransaction(
+                        transactionHandle -> {
+                          final var epochs =
+                              computeEpochs(transactionHandle, runId, observations);
+
+                          // Insert into KV table
+                          final var kvBatch =
+                              transactionHandle.prepareBatch(
+                                  "insert into keyvalue (field_type, kv_key, kv_value, kv_value_num, value_type) "
+                                      + "values (\"attributes\", :key, :value, :value_num, :type)");
+                          for (final var observation : observations) {
+                            final var attribute = observation.getAttribute();
+                            kvBatch
+                                .bind("key", attribute.getKey())
+                                .bind(
+                                    "value",
+                                    ModelDBUtils.getStringFromProtoObject(attribute.getValue()))
+                                .bind(
+                                    "value_num",
+                                    KeyValueEntity.getNumericValue(attribute.getValue()))
+                                .bind("type", attribute.getValueTypeValue())
+                                .add();
+                          }
+                          final var kvIds =
+                              kvBatch.executeAndReturnGeneratedKeys("id").mapTo(Long.class).list();
+                          if (kvIds.size() != observations.size()) {
+                            throw new InternalErrorException(
+                                "Expected "
+                                    + observations.size()
+                                    + " generated keyvalue ids but got "
+                                    + kvIds.size());
+                          }
+
+                          // Insert into observation table
+                          final var observationBatch =
+                              transactionHandle.prepareBatch(
+                                  "insert into observation (entity_name, field_type, timestamp, experiment_run_id, keyvaluemapping_id, epoch_number) "
+                                      + "values (\"ExperimentRunEntity\", \"observations\", :timestamp, :run_id, :kvid, :epoch)");
+                          for (int i = 0; i < observations.size(); i++) {
+                            final var observation = observations.get(i);
+                            observationBatch
                                 .bind(
                                     "timestamp",
                                     observation.getTimestamp() == 0
                                         ? now
                                         : observation.getTimestamp())
                                 .bind("run_id", runId)
-                                .bind("kvid", kvId)
-                                .bind("epoch", epoch)
-                                .executeAndReturnGeneratedKeys()
-                                .mapTo(Long.class)
-                                .one();
-                          }),
-                  executor);
+                                .bind("kvid", kvIds.get(i))
+                                .bind("epoch", epochs.get(i))
+                                .add();
+                          }
+                          observationBatch.execute();
+
+                          if (rollupBucketSize > 0) {
+                            updateRollup(transactionHandle, runId, observations, epochs);
+                          }
+                        })),
+        executor);
+  }
+
+  /**
+   * Adds the observations to the observation_rollup buckets of their key, each bucket covering
+   * {@code rollupBucketSize} epochs. Only number values count towards the minimum and maximum of a
+   * bucket, but every observation counts towards its size. Each bucket is merged into its row with
+   * a single upsert on the unique (experiment_run_id, kv_key, bucket) constraint, so concurrent
+   * transactions logging into the same bucket neither lose updates nor create duplicate rows.
+   */
+  private void updateRollup(
+      Handle handle, String runId, List<Observation> observations, List<Long> epochs) {
+    final Map<Map.Entry<String, Long>, RollupBucket> buckets = new LinkedHashMap<>();
+    for (int i = 0; i < observations.size(); i++) {
+      final var attribute = observations.get(i).getAttribute();
+      if (attribute.getKey().length() > ROLLUP_MAX_KEY_LENGTH) {
+        // MIN_MAX falls back to reading the observations of the key
+        continue;
+      }
+      final long epoch = epochs.get(i);
+      buckets
+          .computeIfAbsent(
+              new AbstractMap.SimpleEntry<>(
+                  attribute.getKey(), Math.floorDiv(epoch, rollupBucketSize)),
+              unused -> new RollupBucket())
+          .add(epoch, KeyValueEntity.getNumericValue(attribute.getValue()));
+    }
+    if (buckets.isEmpty()) {
+      return;
     }
 
-    return currentFuture;
+    // The epoch of each extreme is assigned before its value, as MySQL evaluates the assignments in
+    // order and later ones see the values set by earlier ones
+    final String sql;
+    if (isPostgres) {
+      sql =
+          "insert into observation_rollup (experiment_run_id, kv_key, bucket, point_count, min_epoch, min_value, max_epoch, max_value) "
+              + "values (:run_id, :key, :bucket, :count, :min_epoch, :min_value, :max_epoch, :max_value) "
+              + "on conflict (experiment_run_id, kv_key, bucket) do update set "
+              + "point_count = observation_rollup.point_count + excluded.point_count, "
+              + "min_epoch = case when observation_rollup.min_value is null or excluded.min_value < observation_rollup.min_value "
+              + "then excluded.min_epoch else observation_rollup.min_epoch end, "
+              + "min_value = case when observation_rollup.min_value is null or excluded.min_value < observation_rollup.min_value "
+              + "then excluded.min_value else observation_rollup.min_value end, "
+              + "max_epoch = case when observation_rollup.max_value is null or excluded.max_value > observation_rollup.max_value "
+              + "then excluded.max_epoch else observation_rollup.max_epoch end, "
+              + "max_value = case when observation_rollup.max_value is null or excluded.max_value > observation_rollup.max_value "
+              + "then excluded.max_value else observation_rollup.max_value end";
+    } else {
+      sql =
+          "insert into observation_rollup (experiment_run_id, kv_key, bucket, point_count, min_epoch, min_value, max_epoch, max_value) "
+              + "values (:run_id, :key, :bucket, :count, :min_epoch, :min_value, :max_epoch, :max_value) "
+              + "on duplicate key update "
+              + "point_count = point_count + values(point_count), "
+              + "min_epoch = if(min_value is null or values(min_value) < min_value, values(min_epoch), min_epoch), "
+              + "min_value = if(min_value is null or values(min_value) < min_value, values(min_value), min_value), "
+              + "max_epoch = if(max_value is null or values(max_value) > max_value, values(max_epoch), max_epoch), "
+              + "max_value = if(max_value is null or values(max_value) > max_value, values(max_value), max_value)";
+    }
+    final var batch = handle.prepareBatch(sql);
+    for (final var entry : buckets.entrySet()) {
+      final var bucket = entry.getValue();
+      batch
+          .bind("run_id", runId)
+          .bind("key", entry.getKey().getKey())
+          .bind("bucket", entry.getKey().getValue())
+          .bind("count", bucket.count)
+          .bind("min_epoch", bucket.minEpoch)
+          .bind("min_value", bucket.minValue)
+          .bind("max_epoch", bucket.maxEpoch)
+          .bind("max_value", bucket.maxValue)
+          .add();
+    }
+    batch.execute();
+  }
+
+  /** Observation count and number extremes of the observations of a key in an epoch range. */
+  private static class RollupBucket {
+    private long count = 0;
+    private Long minEpoch;
+    private Double minValue;
+    private Long maxEpoch;
+    private Double maxValue;
+
+    private static RollupBucket read(ResultSet rs) throws SQLException {
+      final var bucket = new RollupBucket();
+      bucket.count = rs.getLong("point_count");
+      bucket.minEpoch = rs.getLong("min_epoch");
+      bucket.minValue = rs.getDouble("min_value");
+      bucket.maxEpoch = rs.getLong("max_epoch");
+      bucket.maxValue = rs.getDouble("max_value");
+      if (rs.wasNull()) {
+        // The extremes are only set together, when the bucket has a number value
+        bucket.minEpoch = null;
+        bucket.minValue = null;
+        bucket.maxEpoch = null;
+        bucket.maxValue = null;
+      }
+      return bucket;
+    }
+
+    private void add(long epoch, Double number) {
+      count++;
+      if (number == null) {
+        return;
+      }
+      if (minValue == null || number < minValue) {
+        minEpoch = epoch;
+        minValue = number;
+      }
+      if (maxValue == null || number > maxValue) {
+        maxEpoch = epoch;
+        maxValue = number;
+      }
+    }
+
+    private ObservationDownsampler.Point getMinPoint() {
+      return new ObservationDownsampler.Point(
+          minEpoch, minValue, null, ValueTypeEnum.ValueType.NUMBER_VALUE);
+    }
+
+    private ObservationDownsampler.Point getMaxPoint() {
+      return new ObservationDownsampler.Point(
+          maxEpoch, maxValue, null, ValueTypeEnum.ValueType.NUMBER_VALUE);
+    }
+  }
+
+  /**
+   * Resolves the epoch of every observation in request order. Observations without an explicit
+   * epoch get one more than the highest epoch seen so far for their key, where the starting point
+   * for all keys is fetched with a single grouped query. This matches the result of inserting the
+   * observations one by one.
+   */
+  private List<Long> computeEpochs(Handle handle, String runId, List<Observation> observations) {
+    final Set<String> keysMissingEpoch = new HashSet<>();
+    for (final var observation : observations) {
+      if (!observation.hasEpochNumber()) {
+        keysMissingEpoch.add(observation.getAttribute().getKey());
+      }
+    }
+
+    final Map<String, Long> maxEpochs = new HashMap<>();
+    if (!keysMissingEpoch.isEmpty()) {
+      handle
+          .createQuery(
+              "select k.kv_key kv_key, max(o.epoch_number) max_epoch from "
+                  + "(select keyvaluemapping_id, epoch_number from observation "
+                  + "where experiment_run_id =:run_id and entity_name = \"ExperimentRunEntity\") o, "
+                  + "(select id, kv_key from keyvalue where kv_key in (<keys>) and entity_name IS NULL) k "
+                  + "where o.keyvaluemapping_id = k.id group by k.kv_key")
+          .bind("run_id", runId)
+          .bindList("keys", new ArrayList<>(keysMissingEpoch))
+          .map(
+              (rs, ctx) ->
+                  new AbstractMap.SimpleEntry<>(rs.getString("kv_key"), rs.getLong("max_epoch")))
+          .forEach(entry -> maxEpochs.put(entry.getKey(), entry.getValue()));
+    }
+
+    final List<Long> epochs = new ArrayList<>(observations.size());
+    for (final var observation : observations) {
+      final var key = observation.getAttribute().getKey();
+      final long epoch;
+      if (observation.hasEpochNumber()) {
+        epoch = (long) observation.getEpochNumber().getNumberValue();
+      } else {
+        epoch = Optional.ofNullable(maxEpochs.get(key)).map(x -> x + 1).orElse(0L);
+      }
+      maxEpochs.merge(key, epoch, Math::max);
+      epochs.add(epoch);
+    }
+    return epochs;
   }
 
   public InternalFuture<Void> deleteObservations(String runId, Optional<List<String>> maybeKeys) {
@@ -201,6 +539,17 @@ public class ObservationHandler {
 
           query.execute();
 
+          // Delete the rollup buckets of the deleted keys
+          sql = "delete from observation_rollup where experiment_run_id=:run_id";
+          if (maybeKeys.isPresent()) {
+            sql += " and kv_key in (<keys>)";
+          }
+          query = handle.createUpdate(sql).bind("run_id", runId);
+          if (maybeKeys.isPresent()) {
+            query = query.bindList("keys", maybeKeys.get());
+          }
+          query.execute();
+
           // Delete from observations by finding missing keyvalue matches
           sql =
               "delete from observation where id in "
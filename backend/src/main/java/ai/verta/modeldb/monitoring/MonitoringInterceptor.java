@@ -1,5 +1,6 @@
 package ai.verta.modeldb.monitoring;
 
+import ai.verta.modeldb.common.monitoring.RequestTimings;
 import io.grpc.*;
 import io.grpc.ServerCall.Listener;
 import io.prometheus.client.Counter;
@@ -25,6 +26,18 @@ public class MonitoringInterceptor implements ServerInterceptor {
           .name("verta_backend_requests_latency_seconds")
           .help("Request latency in seconds.")
           .register();
+  private static final Histogram requestUacTime =
+      Histogram.build()
+          .labelNames("grpc_method")
+          .name("verta_backend_requests_uac_seconds")
+          .help("Time a request spent waiting on UAC calls, in seconds.")
+          .register();
+  private static final Histogram requestDbTime =
+      Histogram.build()
+          .labelNames("grpc_method")
+          .name("verta_backend_requests_db_seconds")
+          .help("Time a request spent in database handles, in seconds.")
+          .register();
 
   private static final Counter failed_4XX_Requests =
       Counter.build()
@@ -53,7 +66,11 @@ public class MonitoringInterceptor implements ServerInterceptor {
       ServerCall<R, S> call, Metadata requestHeaders, ServerCallHandler<R, S> next) {
     String methodName = call.getMethodDescriptor().getFullMethodName();
 
-    Context context = Context.current().withValue(METHOD_NAME, methodName);
+    final RequestTimings timings = new RequestTimings();
+    Context context =
+        Context.current()
+            .withValue(METHOD_NAME, methodName)
+            .withValue(RequestTimings.KEY, timings);
     ServerCall.Listener<R> delegate = Contexts.interceptCall(context, call, requestHeaders, next);
     ACTIVE_REQUEST_COUNT.incrementAndGet();
     LOGGER.trace("Active Request count {}", ACTIVE_REQUEST_COUNT.get());
@@ -70,7 +87,7 @@ public class MonitoringInterceptor implements ServerInterceptor {
         try {
           super.onCancel();
         } finally {
-          timer.observeDuration();
+          observeDurations(timer, timings, methodName);
         }
       }
 
@@ -82,7 +99,7 @@ public class MonitoringInterceptor implements ServerInterceptor {
         try {
           super.onComplete();
         } finally {
-          timer.observeDuration();
+          observeDurations(timer, timings, methodName);
         }
       }
 
@@ -108,6 +125,13 @@ public class MonitoringInterceptor implements ServerInterceptor {
     };
   }
 
+  private static void observeDurations(
+      Histogram.Timer timer, RequestTimings timings, String methodName) {
+    timer.observeDuration();
+    requestUacTime.labels(methodName).observe(timings.getUacSeconds());
+    requestDbTime.labels(methodName).observe(timings.getDbSeconds());
+  }
+
   private static void checkForErrors(Throwable ex, String methodName) {
     if (ex instanceof StatusRuntimeException) {
       Status status = Status.fromThrowable(ex);
@@ -9,20 +9,15 @@ import ai.verta.modeldb.GetAttributes;
 import ai.verta.modeldb.GetTags;
 import ai.verta.modeldb.LogAttributes;
 import ai.verta.modeldb.UpdateProjectAttributes;
-import ai.verta.modeldb.common.connections.UAC;
-import ai.verta.modeldb.common.futures.FutureGrpc;
+import ai.verta.modeldb.common.authservice.FutureRoleService;
 import ai.verta.modeldb.common.futures.FutureJdbi;
 import ai.verta.modeldb.common.futures.InternalFuture;
 import ai.verta.modeldb.exceptions.PermissionDeniedException;
 import ai.verta.modeldb.experimentRun.subtypes.AttributeHandler;
 import ai.verta.modeldb.experimentRun.subtypes.TagsHandler;
-import ai.verta.uac.Action;
-import ai.verta.uac.IsSelfAllowed;
 import ai.verta.uac.ModelDBActionEnum;
-import ai.verta.uac.ResourceType;
-import ai.verta.uac.Resources;
-import ai.verta.uac.ServiceEnum;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executor;
@@ -34,15 +29,16 @@ public class FutureProjectDAO {
 
   private final Executor executor;
   private final FutureJdbi jdbi;
-  private final UAC uac;
+  private final FutureRoleService futureRoleService;
 
   private final AttributeHandler attributeHandler;
   private final TagsHandler tagsHandler;
 
-  public FutureProjectDAO(Executor executor, FutureJdbi jdbi, UAC uac) {
+  public FutureProjectDAO(
+      Executor executor, FutureJdbi jdbi, FutureRoleService futureRoleService) {
     this.executor = executor;
     this.jdbi = jdbi;
-    this.uac = uac;
+    this.futureRoleService = futureRoleService;
 
     String entityName = "ProjectEntity";
     attributeHandler = new AttributeHandler(executor, jdbi, entityName);
@@ -130,28 +126,14 @@ public class FutureProjectDAO {
 
   public InternalFuture<Void> checkProjectPermission(
       String projId, ModelDBActionEnum.ModelDBServiceActions action) {
-    return FutureGrpc.ClientRequest(
-            uac.getAuthzService()
-                .isSelfAllowed(
-                    IsSelfAllowed.newBuilder()
-                        .addActions(
-                            Action.newBuilder()
-                                .setModeldbServiceAction(action)
-                                .setService(ServiceEnum.Service.MODELDB_SERVICE))
-                        .addResources(
-                            Resources.newBuilder()
-                                .setService(ServiceEnum.Service.MODELDB_SERVICE)
-                                .setResourceType(
-                                    ResourceType.newBuilder()
-                                        .setModeldbServiceResourceType(
-                                            ModelDBResourceEnum.ModelDBServiceResourceTypes
-                                                .PROJECT))
-                                .addResourceIds(projId))
-                        .build()),
-            executor)
+    return futureRoleService
+        .isSelfAllowed(
+            action,
+            ModelDBResourceEnum.ModelDBServiceResourceTypes.PROJECT,
+            Collections.singletonList(projId))
         .thenAccept(
-            response -> {
-              if (!response.getAllowed()) {
+            allowed -> {
+              if (!allowed) {
                 throw new PermissionDeniedException("Permission denied");
               }
             },
@@ -26,6 +26,7 @@ import ai.verta.modeldb.reconcilers.ReconcilerInitializer;
 import ai.verta.modeldb.telemetry.TelemetryUtils;
 import ai.verta.modeldb.utils.ModelDBHibernateUtil;
 import ai.verta.modeldb.utils.ModelDBUtils;
+import ai.verta.modeldb.utils.PageToken;
 import ai.verta.modeldb.utils.RdbmsUtils;
 import ai.verta.uac.*;
 import ai.verta.uac.ModelDBActionEnum.ModelDBServiceActions;
@@ -1005,6 +1006,20 @@ public class ProjectDAORdbImpl implements ProjectDAO {
               projectRoot,
               entityName);
 
+      boolean pageTokenSupported = PageToken.isSupported(queryParameters.getSortKey());
+      PageToken pageToken = null;
+      if (!queryParameters.getPageToken().isEmpty()) {
+        if (queryParameters.getPageLimit() == 0) {
+          throw new InvalidArgumentException("Page limit not found in request with page token");
+        }
+        pageToken =
+            PageToken.parse(
+                queryParameters.getPageToken(),
+                queryParameters,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending());
+      }
+
       Predicate[] predicateArr = new Predicate[finalPredicatesList.size()];
       for (int index = 0; index < finalPredicatesList.size(); index++) {
         predicateArr[index] = finalPredicatesList.get(index);
@@ -1012,12 +1027,33 @@ public class ProjectDAORdbImpl implements ProjectDAO {
 
       Predicate predicateWhereCause = builder.and(predicateArr);
       criteriaQuery.select(projectRoot);
-      criteriaQuery.where(predicateWhereCause);
-      criteriaQuery.orderBy(orderBy);
+      if (pageToken != null) {
+        criteriaQuery.where(
+            predicateWhereCause,
+            pageToken.getAfterPredicate(
+                builder,
+                projectRoot,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending()));
+      } else {
+        criteriaQuery.where(predicateWhereCause);
+      }
+      if (pageTokenSupported) {
+        criteriaQuery.orderBy(
+            PageToken.getOrders(
+                builder,
+                projectRoot,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending()));
+      } else {
+        criteriaQuery.orderBy(orderBy);
+      }
 
       Query query = session.createQuery(criteriaQuery);
       LOGGER.debug("Projects final query : {}", query.getQueryString());
-      if (queryParameters.getPageNumber() != 0 && queryParameters.getPageLimit() != 0) {
+      if (pageToken != null) {
+        query.setMaxResults(queryParameters.getPageLimit());
+      } else if (queryParameters.getPageNumber() != 0 && queryParameters.getPageLimit() != 0) {
         // Calculate number of documents to skip
         int skips = queryParameters.getPageLimit() * (queryParameters.getPageNumber() - 1);
         query.setFirstResult(skips);
@@ -1042,11 +1078,30 @@ public class ProjectDAORdbImpl implements ProjectDAO {
         }
       }
 
-      long totalRecords = RdbmsUtils.count(session, projectRoot, criteriaQuery);
+      // The following pages repeat the count of the first page instead of counting again
+      long totalRecords = 0;
+      if (pageToken != null) {
+        totalRecords = pageToken.getTotalRecords();
+      } else if (!queryParameters.getSkipTotalRecords()) {
+        totalRecords = RdbmsUtils.count(session, projectRoot, criteriaQuery);
+      }
 
       ProjectPaginationDTO projectPaginationDTO = new ProjectPaginationDTO();
       projectPaginationDTO.setProjects(finalProjects);
       projectPaginationDTO.setTotalRecords(totalRecords);
+      if (pageTokenSupported
+          && queryParameters.getPageLimit() != 0
+          && projectEntities.size() == queryParameters.getPageLimit()) {
+        ProjectEntity lastProjectEntity = projectEntities.get(projectEntities.size() - 1);
+        projectPaginationDTO.setNextPageToken(
+            PageToken.create(
+                queryParameters,
+                queryParameters.getSortKey(),
+                queryParameters.getAscending(),
+                PageToken.getSortValue(session, lastProjectEntity, queryParameters.getSortKey()),
+                lastProjectEntity.getId(),
+                totalRecords));
+      }
       return projectPaginationDTO;
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
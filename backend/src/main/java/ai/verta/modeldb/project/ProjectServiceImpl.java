@@ -1235,6 +1235,7 @@ public class ProjectServiceImpl extends ProjectServiceImplBase {
           FindProjects.Response.newBuilder()
               .addAllProjects(projects)
               .setTotalRecords(projectPaginationDTO.getTotalRecords())
+              .setNextPageToken(projectPaginationDTO.getNextPageToken())
               .build();
       Workspace workspace =
           roleService.getWorkspaceByWorkspaceName(userInfo, request.getWorkspaceName());
@@ -1,8 +1,11 @@
 package ai.verta.modeldb.reconcilers;
 
 import ai.verta.modeldb.ServiceSet;
+import ai.verta.modeldb.common.reconcilers.Reconciler;
 import ai.verta.modeldb.common.reconcilers.ReconcilerConfig;
 import ai.verta.modeldb.config.Config;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -26,4 +29,19 @@ public class ReconcilerInitializer {
         new SoftDeleteRepositories(new ReconcilerConfig(), services.roleService, true);
     LOGGER.info("Exit from ReconcilerUtils: initialize()");
   }
+
+  /** Lets every reconciler finish its current batch, waiting at most {@code timeout} for each. */
+  public static void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+    for (Reconciler<String> reconciler :
+        Arrays.asList(
+            softDeleteProjects,
+            softDeleteExperiments,
+            softDeleteExperimentRuns,
+            softDeleteRepositories,
+            softDeleteDatasets)) {
+      if (reconciler != null) {
+        reconciler.shutdown(timeout, unit);
+      }
+    }
+  }
 }
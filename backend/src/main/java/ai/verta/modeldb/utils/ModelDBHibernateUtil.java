@@ -3,6 +3,9 @@ package ai.verta.modeldb.utils;
 import ai.verta.modeldb.ModelDBConstants;
 import ai.verta.modeldb.batchProcess.CollaboratorResourceMigration;
 import ai.verta.modeldb.batchProcess.DatasetToRepositoryMigration;
+import ai.verta.modeldb.batchProcess.CommitGenerationMigration;
+import ai.verta.modeldb.batchProcess.FolderHashAlgorithmMigration;
+import ai.verta.modeldb.batchProcess.KeyValueNumericMigration;
 import ai.verta.modeldb.batchProcess.OwnerRoleBindingRepositoryUtils;
 import ai.verta.modeldb.batchProcess.OwnerRoleBindingUtils;
 import ai.verta.modeldb.batchProcess.PopulateVersionMigration;
@@ -66,12 +69,71 @@ import ai.verta.modeldb.entities.versioning.TagsEntity;
 import ai.verta.modeldb.entities.versioning.VersioningModeldbEntityMapping;
 import java.sql.SQLException;
 import liquibase.exception.DatabaseException;
+import org.hibernate.SessionFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class ModelDBHibernateUtil extends CommonHibernateUtil {
   private static final Logger LOGGER = LogManager.getLogger(ModelDBHibernateUtil.class);
   private static ModelDBHibernateUtil modelDBHibernateUtil;
+  // Session factory the parent timestamp listener is installed on, which changes on reset
+  private volatile SessionFactory trackedSessionFactory = null;
+
+  /** Hibernate entities mapped by the backend, also used to build standalone session factories. */
+  public static final Class<?>[] MODELDB_ENTITIES = {
+    ProjectEntity.class,
+    ExperimentEntity.class,
+    ExperimentRunEntity.class,
+    KeyValueEntity.class,
+    ArtifactEntity.class,
+    ArtifactPartEntity.class,
+    FeatureEntity.class,
+    TagsMapping.class,
+    ObservationEntity.class,
+    JobEntity.class,
+    GitSnapshotEntity.class,
+    CodeVersionEntity.class,
+    DatasetEntity.class,
+    DatasetVersionEntity.class,
+    RawDatasetVersionInfoEntity.class,
+    PathDatasetVersionInfoEntity.class,
+    DatasetPartInfoEntity.class,
+    QueryDatasetVersionInfoEntity.class,
+    QueryParameterEntity.class,
+    CommentEntity.class,
+    UserCommentEntity.class,
+    ArtifactStoreMapping.class,
+    AttributeEntity.class,
+    LineageEntity.class,
+    RepositoryEntity.class,
+    CommitEntity.class,
+    LabelsMappingEntity.class,
+    TagsEntity.class,
+    PathDatasetComponentBlobEntity.class,
+    S3DatasetComponentBlobEntity.class,
+    InternalFolderElementEntity.class,
+    EnvironmentBlobEntity.class,
+    DockerEnvironmentBlobEntity.class,
+    PythonEnvironmentBlobEntity.class,
+    PythonEnvironmentRequirementBlobEntity.class,
+    EnvironmentCommandLineEntity.class,
+    EnvironmentVariablesEntity.class,
+    BranchEntity.class,
+    HyperparameterElementConfigBlobEntity.class,
+    HyperparameterSetConfigBlobEntity.class,
+    ConfigBlobEntity.class,
+    GitCodeBlobEntity.class,
+    NotebookCodeBlobEntity.class,
+    BranchEntity.class,
+    VersioningModeldbEntityMapping.class,
+    HyperparameterElementMappingEntity.class,
+    MetadataPropertyMappingEntity.class,
+    DatasetRepositoryMappingEntity.class,
+    UploadStatusEntity.class,
+    KeyValuePropertyMappingEntity.class,
+    QueryDatasetComponentBlobEntity.class,
+    AuditLogLocalEntity.class
+  };
 
   private ModelDBHibernateUtil() {}
 
@@ -83,65 +145,25 @@ public class ModelDBHibernateUtil extends CommonHibernateUtil {
     return modelDBHibernateUtil;
   }
 
+  @Override
+  public SessionFactory createOrGetSessionFactory(DatabaseConfig config) throws ModelDBException {
+    SessionFactory sessionFactory = super.createOrGetSessionFactory(config);
+    if (sessionFactory != trackedSessionFactory) {
+      synchronized (this) {
+        if (sessionFactory != trackedSessionFactory) {
+          ParentTimestampTracker.register(sessionFactory, config.RdbConfiguration.isPostgres());
+          trackedSessionFactory = sessionFactory;
+        }
+      }
+    }
+    return sessionFactory;
+  }
+
   private static void initializedUtil() {
     config = Config.getInstance();
     databaseConfig = config.database;
     liquibaseRootFilePath = "\\src\\main\\resources\\liquibase\\db-changelog-master.xml";
-    entities =
-        new Class[] {
-          ProjectEntity.class,
-          ExperimentEntity.class,
-          ExperimentRunEntity.class,
-          KeyValueEntity.class,
-          ArtifactEntity.class,
-          ArtifactPartEntity.class,
-          FeatureEntity.class,
-          TagsMapping.class,
-          ObservationEntity.class,
-          JobEntity.class,
-          GitSnapshotEntity.class,
-          CodeVersionEntity.class,
-          DatasetEntity.class,
-          DatasetVersionEntity.class,
-          RawDatasetVersionInfoEntity.class,
-          PathDatasetVersionInfoEntity.class,
-          DatasetPartInfoEntity.class,
-          QueryDatasetVersionInfoEntity.class,
-          QueryParameterEntity.class,
-          CommentEntity.class,
-          UserCommentEntity.class,
-          ArtifactStoreMapping.class,
-          AttributeEntity.class,
-          LineageEntity.class,
-          RepositoryEntity.class,
-          CommitEntity.class,
-          LabelsMappingEntity.class,
-          TagsEntity.class,
-          PathDatasetComponentBlobEntity.class,
-          S3DatasetComponentBlobEntity.class,
-          InternalFolderElementEntity.class,
-          EnvironmentBlobEntity.class,
-          DockerEnvironmentBlobEntity.class,
-          PythonEnvironmentBlobEntity.class,
-          PythonEnvironmentRequirementBlobEntity.class,
-          EnvironmentCommandLineEntity.class,
-          EnvironmentVariablesEntity.class,
-          BranchEntity.class,
-          HyperparameterElementConfigBlobEntity.class,
-          HyperparameterSetConfigBlobEntity.class,
-          ConfigBlobEntity.class,
-          GitCodeBlobEntity.class,
-          NotebookCodeBlobEntity.class,
-          BranchEntity.class,
-          VersioningModeldbEntityMapping.class,
-          HyperparameterElementMappingEntity.class,
-          MetadataPropertyMappingEntity.class,
-          DatasetRepositoryMappingEntity.class,
-          UploadStatusEntity.class,
-          KeyValuePropertyMappingEntity.class,
-          QueryDatasetComponentBlobEntity.class,
-          AuditLogLocalEntity.class
-        };
+    entities = MODELDB_ENTITIES;
   }
 
   // TODO: this will removed after merging of the PR: https://github.com/VertaAI/modeldb/pull/1846
@@ -253,6 +275,15 @@ public class ModelDBHibernateUtil extends CommonHibernateUtil {
           case ModelDBConstants.POPULATE_VERSION_MIGRATION:
             PopulateVersionMigration.execute(migrationConfig.record_update_limit);
             break;
+          case ModelDBConstants.FOLDER_HASH_ALGORITHM_MIGRATION:
+            FolderHashAlgorithmMigration.execute(migrationConfig.record_update_limit);
+            break;
+          case ModelDBConstants.KEY_VALUE_NUMERIC_MIGRATION:
+            KeyValueNumericMigration.execute(migrationConfig.record_update_limit);
+            break;
+          case ModelDBConstants.COMMIT_GENERATION_MIGRATION:
+            CommitGenerationMigration.execute(migrationConfig.record_update_limit);
+            break;
           case ModelDBConstants.DATASET_VERSIONING_MIGRATION:
             CommonUtils.registeredBackgroundUtilsCount();
             boolean isLocked = checkMigrationLockedStatus(migrationConfig.name, rdb);
@@ -0,0 +1,260 @@
+package ai.verta.modeldb.utils;
+
+import ai.verta.modeldb.ModelDBConstants;
+import ai.verta.modeldb.common.exceptions.ModelDBException;
+import ai.verta.modeldb.config.Config;
+import ai.verta.modeldb.exceptions.InvalidArgumentException;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.google.protobuf.util.JsonFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Continuation token of keyset pagination. A page starts after the (sort value, id) of the last
+ * row of the previous page instead of skipping the rows of all previous pages, so every page costs
+ * the same. The token also carries the total record count of the first page, so that the following
+ * pages do not count again.
+ *
+ * <p>Only sorting on a top level field of the entity is supported. Rows with a null sort value stay
+ * where the database orders them, after all others in ascending order on Postgres and before them
+ * on MySQL, and are paged by id among themselves. The order is the same as with page_number paging
+ * apart from the id that breaks ties.
+ *
+ * <p>The token holds a fingerprint of the request it was issued for, with the fields that only
+ * select the page left out, and of its own content. A token is rejected with another project,
+ * filter or sort, or when its content was changed. The fingerprint is not a signature: a client
+ * crafting a consistent token can only skip rows it may read anyway, or change its own count.
+ */
+public class PageToken {
+  private static final String SORT_KEY = "sort_key";
+  private static final String ASCENDING = "ascending";
+  private static final String SORT_VALUE = "sort_value";
+  private static final String ID = "id";
+  private static final String TOTAL_RECORDS = "total_records";
+  private static final String FINGERPRINT = "fingerprint";
+  // Fields of the find requests which do not change the rows or their order
+  private static final Set<String> PAGE_FIELDS =
+      Set.of("page_number", "page_limit", "page_token", "ids_only", "field_mask");
+  // Sort keys set on every row, which need no handling of null sort values
+  private static final Set<String> NON_NULL_SORT_KEYS =
+      Set.of(ModelDBConstants.ID, ModelDBConstants.DATE_CREATED, ModelDBConstants.DATE_UPDATED);
+
+  private final String sortValue;
+  private final String id;
+  private final long totalRecords;
+
+  private PageToken(String sortValue, String id, long totalRecords) {
+    this.sortValue = sortValue;
+    this.id = id;
+    this.totalRecords = totalRecords;
+  }
+
+  /** Returns the sort key used for {@code sortKey}, as the default sort key applies when empty. */
+  public static String getSortKey(String sortKey) {
+    return sortKey == null || sortKey.isEmpty() ? ModelDBConstants.DATE_UPDATED : sortKey;
+  }
+
+  public static boolean isSupported(String sortKey) {
+    sortKey = getSortKey(sortKey);
+    return !sortKey.contains(".")
+        && !sortKey.equals(ModelDBConstants.TAGS)
+        && !sortKey.equals(ModelDBConstants.FEATURES);
+  }
+
+  /**
+   * Parses a token returned for the same {@code request}, or throws {@link
+   * InvalidArgumentException} if the token is malformed, was changed or was created for another
+   * request.
+   */
+  public static PageToken parse(String token, Message request, String sortKey, boolean ascending) {
+    sortKey = getSortKey(sortKey);
+    if (!isSupported(sortKey)) {
+      throw new InvalidArgumentException("Page token is not supported with sort key " + sortKey);
+    }
+    Struct.Builder struct = Struct.newBuilder();
+    try {
+      JsonFormat.parser()
+          .merge(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8), struct);
+    } catch (IllegalArgumentException | InvalidProtocolBufferException e) {
+      throw new InvalidArgumentException("Invalid page token");
+    }
+    Map<String, Value> fields = struct.getFieldsMap();
+    Value defaultValue = Value.getDefaultInstance();
+    if (!fields.containsKey(ID)
+        || !fields.containsKey(SORT_VALUE)
+        || !sortKey.equals(fields.getOrDefault(SORT_KEY, defaultValue).getStringValue())
+        || ascending != fields.getOrDefault(ASCENDING, defaultValue).getBoolValue()) {
+      throw new InvalidArgumentException(
+          "Page token does not match the sort key and order of the request");
+    }
+    Value sortValue = fields.get(SORT_VALUE);
+    PageToken pageToken =
+        new PageToken(
+            sortValue.hasNullValue() ? null : sortValue.getStringValue(),
+            fields.get(ID).getStringValue(),
+            (long) fields.getOrDefault(TOTAL_RECORDS, defaultValue).getNumberValue());
+    if (!pageToken
+        .getFingerprint(request)
+        .equals(fields.getOrDefault(FINGERPRINT, defaultValue).getStringValue())) {
+      throw new InvalidArgumentException("Page token does not match the request");
+    }
+    return pageToken;
+  }
+
+  public long getTotalRecords() {
+    return totalRecords;
+  }
+
+  /** Returns the predicate selecting the rows after the last row of the previous page. */
+  @SuppressWarnings("unchecked")
+  public Predicate getAfterPredicate(
+      CriteriaBuilder builder, Root<?> root, String sortKey, boolean ascending) {
+    sortKey = getSortKey(sortKey);
+    Path<Comparable<Object>> sortPath = root.get(sortKey);
+    Path<String> idPath = root.get(ModelDBConstants.ID);
+    Predicate idAfter =
+        ascending ? builder.greaterThan(idPath, id) : builder.lessThan(idPath, id);
+    boolean nullsLast = ascending == Config.getInstance().database.RdbConfiguration.isPostgres();
+    if (sortValue == null) {
+      // Rows with a sort value follow the null sort values ordered before them
+      Predicate nullAfter = builder.and(builder.isNull(sortPath), idAfter);
+      return nullsLast ? nullAfter : builder.or(nullAfter, builder.isNotNull(sortPath));
+    }
+    Comparable<Object> lastSortValue =
+        (Comparable<Object>) toSortValue(sortPath.getJavaType(), sortValue);
+    Predicate valueAfter =
+        builder.or(
+            ascending
+                ? builder.greaterThan(sortPath, lastSortValue)
+                : builder.lessThan(sortPath, lastSortValue),
+            builder.and(builder.equal(sortPath, lastSortValue), idAfter));
+    if (nullsLast && !NON_NULL_SORT_KEYS.contains(sortKey)) {
+      return builder.or(valueAfter, builder.isNull(sortPath));
+    }
+    return valueAfter;
+  }
+
+  /**
+   * Returns the orders of a supported sort key: the sort value, then the id that breaks ties, so
+   * that every row has a distinct position and pages neither overlap nor skip rows.
+   */
+  public static Order[] getOrders(
+      CriteriaBuilder builder, Root<?> root, String sortKey, boolean ascending) {
+    Expression<?> sortPath = root.get(getSortKey(sortKey));
+    Expression<?> idPath = root.get(ModelDBConstants.ID);
+    if (ascending) {
+      return new Order[] {builder.asc(sortPath), builder.asc(idPath)};
+    }
+    return new Order[] {builder.desc(sortPath), builder.desc(idPath)};
+  }
+
+  /** Returns the sort value of a loaded entity, without querying it again. */
+  public static Object getSortValue(Session session, Object entity, String sortKey) {
+    return ((SessionFactoryImplementor) session.getSessionFactory())
+        .getMetamodel()
+        .entityPersister(entity.getClass())
+        .getPropertyValue(entity, getSortKey(sortKey));
+  }
+
+  /**
+   * Returns the token of the page of {@code request} after the one ending with the row {@code
+   * lastId}, whose sort value is {@code lastSortValue}.
+   */
+  public static String create(
+      Message request,
+      String sortKey,
+      boolean ascending,
+      Object lastSortValue,
+      String lastId,
+      long totalRecords) {
+    PageToken pageToken =
+        new PageToken(
+            lastSortValue == null ? null : String.valueOf(lastSortValue), lastId, totalRecords);
+    Struct struct =
+        Struct.newBuilder()
+            .putFields(SORT_KEY, Value.newBuilder().setStringValue(getSortKey(sortKey)).build())
+            .putFields(ASCENDING, Value.newBuilder().setBoolValue(ascending).build())
+            .putFields(
+                SORT_VALUE,
+                pageToken.sortValue == null
+                    ? Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build()
+                    : Value.newBuilder().setStringValue(pageToken.sortValue).build())
+            .putFields(ID, Value.newBuilder().setStringValue(lastId).build())
+            .putFields(TOTAL_RECORDS, Value.newBuilder().setNumberValue(totalRecords).build())
+            .putFields(
+                FINGERPRINT,
+                Value.newBuilder().setStringValue(pageToken.getFingerprint(request)).build())
+            .build();
+    try {
+      String json = JsonFormat.printer().omittingInsignificantWhitespace().print(struct);
+      return Base64.getUrlEncoder()
+          .withoutPadding()
+          .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    } catch (InvalidProtocolBufferException e) {
+      throw new ModelDBException(e);
+    }
+  }
+
+  // Digest of the request without its page fields, and of the content of the token
+  private String getFingerprint(Message request) {
+    Message.Builder requestBuilder = request.toBuilder();
+    for (FieldDescriptor field : request.getDescriptorForType().getFields()) {
+      if (PAGE_FIELDS.contains(field.getName())) {
+        requestBuilder.clearField(field);
+      }
+    }
+    try {
+      ByteArrayOutputStream requestBytes = new ByteArrayOutputStream();
+      CodedOutputStream output = CodedOutputStream.newInstance(requestBytes);
+      output.useDeterministicSerialization();
+      requestBuilder.build().writeTo(output);
+      output.flush();
+
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(requestBytes.toByteArray());
+      digest.update(
+          String.join("\n", String.valueOf(sortValue), id, String.valueOf(totalRecords))
+              .getBytes(StandardCharsets.UTF_8));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    } catch (IOException | NoSuchAlgorithmException e) {
+      throw new ModelDBException(e);
+    }
+  }
+
+  private static Object toSortValue(Class<?> javaType, String value) {
+    try {
+      if (javaType == Long.class || javaType == long.class) {
+        return Long.valueOf(value);
+      } else if (javaType == Integer.class || javaType == int.class) {
+        return Integer.valueOf(value);
+      } else if (javaType == Double.class || javaType == double.class) {
+        return Double.valueOf(value);
+      } else if (javaType == Boolean.class || javaType == boolean.class) {
+        return Boolean.valueOf(value);
+      }
+    } catch (NumberFormatException e) {
+      throw new InvalidArgumentException("Invalid page token");
+    }
+    return value;
+  }
+}
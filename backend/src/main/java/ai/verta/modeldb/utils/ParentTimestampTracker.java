@@ -0,0 +1,172 @@
+package ai.verta.modeldb.utils;
+
+import ai.verta.modeldb.entities.ExperimentEntity;
+import ai.verta.modeldb.entities.ExperimentRunEntity;
+import ai.verta.modeldb.entities.versioning.CommitEntity;
+import ai.verta.modeldb.entities.versioning.RepositoryEntity;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import org.hibernate.SessionFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Records the parents whose date_updated may be older than the latest change of their children in
+ * the parent_timestamp_dirty table, where the parent timestamp update cron picks them up.
+ *
+ * <p>The rows are written in the transaction of the child, so a parent is only picked up once its
+ * child is committed, and a mark cannot be lost without the child being lost as well. Hibernate
+ * writes are recorded by the listener installed with {@link #register}, other writes call {@link
+ * #insertDirtyParents} on their own connection.
+ */
+public class ParentTimestampTracker {
+  public static final String EXPERIMENT = "experiment";
+  public static final String PROJECT = "project";
+  public static final String REPOSITORY = "repository";
+
+  private ParentTimestampTracker() {}
+
+  /** Records the parents of the experiment runs, experiments and commits written by Hibernate. */
+  public static void register(SessionFactory sessionFactory, boolean isPostgres) {
+    EventListenerRegistry registry =
+        sessionFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    DirtyParentListener listener = new DirtyParentListener(isPostgres);
+    registry.appendListeners(EventType.POST_INSERT, listener);
+    registry.appendListeners(EventType.POST_UPDATE, listener);
+  }
+
+  /**
+   * Adds the parents to the parent_timestamp_dirty table. A parent already in it keeps its older
+   * marked_at, so parents whose children are written continuously are still processed.
+   */
+  public static void insertDirtyParents(
+      Connection connection, boolean isPostgres, String entityType, Collection<String> entityIds)
+      throws SQLException {
+    String insertDirtyQuery =
+        isPostgres
+            ? "INSERT INTO parent_timestamp_dirty (entity_type, entity_id, marked_at) "
+                + "VALUES (?, ?, ?) ON CONFLICT DO NOTHING"
+            : "INSERT IGNORE INTO parent_timestamp_dirty (entity_type, entity_id, marked_at) "
+                + "VALUES (?, ?, ?)";
+    long now = System.currentTimeMillis();
+    try (PreparedStatement statement = connection.prepareStatement(insertDirtyQuery)) {
+      for (String entityId : entityIds) {
+        statement.setString(1, entityType);
+        statement.setString(2, entityId);
+        statement.setLong(3, now);
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+
+  private static class DirtyParentListener
+      implements PostInsertEventListener, PostUpdateEventListener {
+    private final boolean isPostgres;
+    // Parents recorded by the open transaction of each session
+    private final Map<SharedSessionContractImplementor, DirtyParents> sessionDirtyParents =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private DirtyParentListener(boolean isPostgres) {
+      this.isPostgres = isPostgres;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+      Object entity = event.getEntity();
+      if (entity instanceof CommitEntity) {
+        for (RepositoryEntity repositoryEntity : ((CommitEntity) entity).getRepository()) {
+          if (repositoryEntity.getId() != null) {
+            mark(event.getSession(), REPOSITORY, String.valueOf(repositoryEntity.getId()));
+          }
+        }
+      } else {
+        markParent(event.getSession(), entity);
+      }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+      markParent(event.getSession(), event.getEntity());
+    }
+
+    private void markParent(EventSource session, Object entity) {
+      if (entity instanceof ExperimentRunEntity) {
+        mark(session, EXPERIMENT, ((ExperimentRunEntity) entity).getExperiment_id());
+      } else if (entity instanceof ExperimentEntity) {
+        mark(session, PROJECT, ((ExperimentEntity) entity).getProject_id());
+      }
+    }
+
+    private void mark(EventSource session, String entityType, String entityId) {
+      if (entityId == null || entityId.isEmpty()) {
+        return;
+      }
+      sessionDirtyParents
+          .computeIfAbsent(
+              session,
+              unused -> {
+                DirtyParents dirtyParents = new DirtyParents();
+                ActionQueue actionQueue = session.getActionQueue();
+                actionQueue.registerProcess((BeforeTransactionCompletionProcess) dirtyParents);
+                actionQueue.registerProcess((AfterTransactionCompletionProcess) dirtyParents);
+                return dirtyParents;
+              })
+          .add(entityType, entityId);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+      return false;
+    }
+
+    /** Writes the parents recorded by a transaction right before it commits. */
+    private class DirtyParents
+        implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+      private final Map<String, Set<String>> entityIds = new HashMap<>();
+
+      private void add(String entityType, String entityId) {
+        entityIds.computeIfAbsent(entityType, unused -> new HashSet<>()).add(entityId);
+      }
+
+      @Override
+      public void doBeforeTransactionCompletion(SessionImplementor session) {
+        session.doWork(
+            connection -> {
+              for (Map.Entry<String, Set<String>> entry : entityIds.entrySet()) {
+                insertDirtyParents(connection, isPostgres, entry.getKey(), entry.getValue());
+              }
+            });
+      }
+
+      @Override
+      public void doAfterTransactionCompletion(
+          boolean success, SharedSessionContractImplementor session) {
+        sessionDirtyParents.remove(session);
+      }
+    }
+  }
+}
@@ -53,6 +53,18 @@ public class RdbmsUtils {
       "' and entity_name = 'ExperimentRunEntity') o, (select id from keyvalue where kv_key ='";
   private static final String MAX_EPOCH_NUMBER_SQL_3 =
       "' and  entity_name IS NULL) k where o.keyvaluemapping_id = k.id ";
+  // Whether every number value is copied to kv_value_num, see KeyValueNumericMigration
+  private static volatile boolean numericKeyValuesMigrated = false;
+
+  /**
+   * Set once KEY_VALUE_NUMERIC_MIGRATION has copied every number value to kv_value_num. Numeric
+   * filters and sorts on metrics and hyperparameters then read kv_value_num alone, which the
+   * (entity_name, field_type, kv_key, kv_value_num) index covers, instead of falling back to
+   * kv_value for the rows without it.
+   */
+  public static void setNumericKeyValuesMigrated(boolean migrated) {
+    numericKeyValuesMigrated = migrated;
+  }
 
   public static JobEntity generateJobEntity(Job job) throws InvalidProtocolBufferException {
     return new JobEntity(job);
@@ -938,7 +950,11 @@ public class RdbmsUtils {
                     metricsEntityJoin.get(ModelDBConstants.FEILD_TYPE), ModelDBConstants.METRICS),
                 builder.equal(metricsEntityJoin.get(ModelDBConstants.KEY), keys[keys.length - 1])));
 
-        orderByExpression = metricsEntityJoin.get(ModelDBConstants.VALUE);
+        // A single order can not fall back for values without kv_value_num, so until they are
+        // migrated this keeps the serialized value order
+        orderByExpression =
+            metricsEntityJoin.get(
+                numericKeyValuesMigrated ? ModelDBConstants.VALUE_NUM : ModelDBConstants.VALUE);
         break;
       case ModelDBConstants.OBSERVATIONS:
         LOGGER.debug("switch case : Observation");
@@ -1062,6 +1078,7 @@ public class RdbmsUtils {
     String[] keys = sortBy.split("\\.");
     root.get(ModelDBConstants.ID);
     List<Expression<?>> orderByExpressionList = new ArrayList<>();
+    Expression<?> numericValuesFirst = null;
     switch (keys[0]) {
       case ModelDBConstants.ARTIFACTS:
         LOGGER.debug("switch case : Artifacts");
@@ -1131,6 +1148,11 @@ public class RdbmsUtils {
                 builder.equal(
                     hyperparameterEntityJoin.get(ModelDBConstants.KEY), keys[keys.length - 1])));
 
+        // Numbers by value, then the other kinds by their serialized value
+        if (!numericKeyValuesMigrated) {
+          numericValuesFirst = getNumericValuesFirstExpression(builder, hyperparameterEntityJoin);
+        }
+        orderByExpressionList.add(hyperparameterEntityJoin.get(ModelDBConstants.VALUE_NUM));
         orderByExpressionList.add(hyperparameterEntityJoin.get(ModelDBConstants.VALUE));
 
         if (parentFieldName.equals("experimentRunEntity")) {
@@ -1164,6 +1186,10 @@ public class RdbmsUtils {
                     metricsEntityJoin.get(ModelDBConstants.FEILD_TYPE), ModelDBConstants.METRICS),
                 builder.equal(metricsEntityJoin.get(ModelDBConstants.KEY), keys[keys.length - 1])));
 
+        if (!numericKeyValuesMigrated) {
+          numericValuesFirst = getNumericValuesFirstExpression(builder, metricsEntityJoin);
+        }
+        orderByExpressionList.add(metricsEntityJoin.get(ModelDBConstants.VALUE_NUM));
         orderByExpressionList.add(metricsEntityJoin.get(ModelDBConstants.VALUE));
         break;
       case ModelDBConstants.OBSERVATIONS:
@@ -1256,14 +1282,32 @@ public class RdbmsUtils {
       default:
         orderByExpressionList.add(root.get(sortBy));
     }
-    Order[] orderByArr = new Order[orderByExpressionList.size()];
-    for (int index = 0; index < orderByExpressionList.size(); index++) {
-      Expression<?> orderByExpression = orderByExpressionList.get(index);
-      orderByArr[index] =
-          isAscending ? builder.asc(orderByExpression) : builder.desc(orderByExpression);
+    List<Order> orderByList = new ArrayList<>();
+    if (numericValuesFirst != null) {
+      // Ascending in both directions, Postgres and MySQL disagree on where nulls go
+      orderByList.add(builder.asc(numericValuesFirst));
+    }
+    for (Expression<?> orderByExpression : orderByExpressionList) {
+      orderByList.add(
+          isAscending ? builder.asc(orderByExpression) : builder.desc(orderByExpression));
     }
 
-    return orderByArr;
+    return orderByList.toArray(new Order[0]);
+  }
+
+  /**
+   * Returns 0 for key values with a numeric copy in kv_value_num and 1 for the others, which are
+   * values of other kinds and numbers saved before KEY_VALUE_NUMERIC_MIGRATION ran. Ordering by it
+   * first keeps the others after the numbers, ordered by kv_value as before kv_value_num existed.
+   * Only used until the migration completed, as no index covers it. Afterwards the values of other
+   * kinds go where the database puts nulls, as the runs without the key do.
+   */
+  private static Expression<Integer> getNumericValuesFirstExpression(
+      CriteriaBuilder builder, Join<?, KeyValueEntity> keyValueJoin) {
+    return builder
+        .<Integer>selectCase()
+        .when(builder.isNull(keyValueJoin.get(ModelDBConstants.VALUE_NUM)), 1)
+        .otherwise(0);
   }
 
   /**
@@ -1340,12 +1384,51 @@ public class RdbmsUtils {
               expression.get(ModelDBConstants.VALUE),
               predicate,
               true);
+      if (isNumericKeyValuePredicate(fieldType, predicate)) {
+        Path<Double> valueNum = expression.get(ModelDBConstants.VALUE_NUM);
+        Predicate valueNumPredicate =
+            getOperatorPredicate(
+                builder, valueNum, predicate.getOperator(), predicate.getValue().getNumberValue());
+        if (numericKeyValuesMigrated) {
+          valuePredicate = valueNumPredicate;
+        } else {
+          valuePredicate =
+              builder.or(valueNumPredicate, builder.and(builder.isNull(valueNum), valuePredicate));
+        }
+      }
       fieldPredicates.add(valuePredicate);
     }
 
     return fieldPredicates;
   }
 
+  /**
+   * Metrics and hyperparameters are stored in {@link KeyValueEntity}, which keeps a numeric copy of
+   * number values in kv_value_num. Comparisons against a number use that column instead of casting
+   * kv_value. Until {@link #setNumericKeyValuesMigrated} is set, rows without a numeric copy, saved
+   * before KEY_VALUE_NUMERIC_MIGRATION ran or by an older backend, fall back to the kv_value cast.
+   */
+  private static boolean isNumericKeyValuePredicate(String fieldType, KeyValueQuery predicate) {
+    if (!fieldType.equals(ModelDBConstants.METRICS)
+        && !fieldType.equals(ModelDBConstants.HYPERPARAMETERS)) {
+      return false;
+    }
+    if (predicate.getValue().getKindCase() != Value.KindCase.NUMBER_VALUE) {
+      return false;
+    }
+    switch (predicate.getOperator()) {
+      case EQ:
+      case NE:
+      case GT:
+      case GTE:
+      case LT:
+      case LTE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   /**
    * Return the data count base on the criteria query
    *
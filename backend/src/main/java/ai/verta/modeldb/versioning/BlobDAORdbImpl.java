@@ -10,6 +10,7 @@ import ai.verta.modeldb.artifactStore.ArtifactStoreDAO;
 import ai.verta.modeldb.authservice.RoleService;
 import ai.verta.modeldb.common.authservice.AuthService;
 import ai.verta.modeldb.common.exceptions.ModelDBException;
+import ai.verta.modeldb.config.Config;
 import ai.verta.modeldb.cron_jobs.DeleteEntitiesCron;
 import ai.verta.modeldb.dto.CommitPaginationDTO;
 import ai.verta.modeldb.entities.ArtifactPartEntity;
@@ -63,6 +64,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -82,10 +85,29 @@ public class BlobDAORdbImpl implements BlobDAO {
   public static final String TREE = "TREE";
   private final AuthService authService;
   private final RoleService roleService;
+  private final int folderElementBatchSize;
+  private final boolean isPostgres;
+  // Shared by all instances so that the configured size bounds the whole process, null if disabled
+  private static CommitTreeCache commitTreeCache = null;
+  // Walks the differing sub folders of a diff in parallel, null if diffs are walked sequentially
+  private static ForkJoinPool diffPool = null;
 
   public BlobDAORdbImpl(AuthService authService, RoleService roleService) {
     this.authService = authService;
     this.roleService = roleService;
+    Config config = Config.getInstance();
+    this.folderElementBatchSize = config.folderElementBatchSize;
+    this.isPostgres = config.database.RdbConfiguration.isPostgres();
+    synchronized (BlobDAORdbImpl.class) {
+      if (commitTreeCache == null && config.commitTreeCacheMaxBytes > 0) {
+        commitTreeCache = new CommitTreeCache(config.commitTreeCacheMaxBytes);
+      }
+      if (diffPool == null && config.diffParallelism > 1) {
+        diffPool = new ForkJoinPool(config.diffParallelism);
+      }
+    }
+    CommitGraph.initializeCache(
+        config.commitGraphCacheMaxCommits, config.commitGraphCacheExpireSeconds);
   }
 
   /**
@@ -103,9 +125,13 @@ public class BlobDAORdbImpl implements BlobDAO {
       // should save each blob during one session to avoid recurring entities ids
       blobContainer.process(session, rootTree, fileHasher, blobHashes);
     }
-    Set<String> hashes = new HashSet<>();
-    final InternalFolderElement internalFolderElement =
-        rootTree.saveFolders(session, fileHasher, hashes);
+    final InternalFolderElement internalFolderElement;
+    if (folderElementBatchSize > 0) {
+      internalFolderElement =
+          rootTree.saveFoldersInBatches(session, fileHasher, folderElementBatchSize, isPostgres);
+    } else {
+      internalFolderElement = rootTree.saveFolders(session, fileHasher, new HashSet<>());
+    }
     return internalFolderElement.getElementSha();
   }
 
@@ -387,21 +413,49 @@ public class BlobDAORdbImpl implements BlobDAO {
 
   private Blob getBlob(Session session, InternalFolderElementEntity folderElementEntity)
       throws ModelDBException {
-    return BlobFactory.create(folderElementEntity).getBlob(session);
+    if (commitTreeCache == null) {
+      return BlobFactory.create(folderElementEntity).getBlob(session);
+    }
+    final String blobType = folderElementEntity.getElement_type();
+    final String blobHash = folderElementEntity.getElement_sha();
+    Blob blob = commitTreeCache.getBlob(blobType, blobHash);
+    if (blob == null) {
+      blob = BlobFactory.create(folderElementEntity).getBlob(session);
+      commitTreeCache.putBlob(blobType, blobHash, blob);
+    }
+    return blob;
+  }
+
+  /**
+   * Returns all elements of the folder. The elements are served from {@link CommitTreeCache} when
+   * possible and are detached from the session in that case, so callers must only read them.
+   */
+  private List<InternalFolderElementEntity> getFolderElements(Session session, String folderHash) {
+    if (commitTreeCache != null) {
+      List<InternalFolderElementEntity> cachedElements =
+          commitTreeCache.getFolderElements(folderHash);
+      if (cachedElements != null) {
+        return cachedElements;
+      }
+    }
+    String folderQueryHQL =
+        "From "
+            + InternalFolderElementEntity.class.getSimpleName()
+            + " parentIfe WHERE parentIfe.folder_hash = :folderHash";
+    Query<InternalFolderElementEntity> fetchTreeQuery = session.createQuery(folderQueryHQL);
+    fetchTreeQuery.setParameter("folderHash", folderHash);
+    List<InternalFolderElementEntity> elements = fetchTreeQuery.list();
+    if (commitTreeCache != null) {
+      return commitTreeCache.putFolderElements(folderHash, elements);
+    }
+    return elements;
   }
 
   private Folder getFolder(Session session, String commitSha, String folderSha) {
-    Query query =
-        session.createQuery(
-            "From "
-                + InternalFolderElementEntity.class.getSimpleName()
-                + " where folder_hash = :folder_hash");
-    query.setParameter("folder_hash", folderSha);
     Optional result =
-        query.list().stream()
+        getFolderElements(session, folderSha).stream()
             .map(
-                d -> {
-                  InternalFolderElementEntity entity = (InternalFolderElementEntity) d;
+                entity -> {
                   Folder.Builder folder = Folder.newBuilder();
                   FolderElement.Builder folderElement =
                       FolderElement.newBuilder().setElementName(entity.getElement_name());
@@ -462,14 +516,10 @@ public class BlobDAORdbImpl implements BlobDAO {
     }
     for (int index = 0; index < locationList.size(); index++) {
       String folderLocation = locationList.get(index);
-      String folderQueryHQL =
-          "From "
-              + InternalFolderElementEntity.class.getSimpleName()
-              + " parentIfe WHERE parentIfe.element_name = :location AND parentIfe.folder_hash = :folderHash";
-      Query<InternalFolderElementEntity> fetchTreeQuery = session.createQuery(folderQueryHQL);
-      fetchTreeQuery.setParameter("location", folderLocation);
-      fetchTreeQuery.setParameter("folderHash", folderHash);
-      InternalFolderElementEntity elementEntity = fetchTreeQuery.uniqueResult();
+      InternalFolderElementEntity elementEntity =
+          getFolderElement(session, folderHash, folderLocation).stream()
+              .findFirst()
+              .orElse(null);
 
       if (elementEntity == null) {
         LOGGER.warn(
@@ -645,22 +695,14 @@ public class BlobDAORdbImpl implements BlobDAO {
    */
   private List<InternalFolderElementEntity> getFolderElement(
       Session session, String parentFolderHash, String elementName) {
-    StringBuilder folderQueryHQLBuilder =
-        new StringBuilder("From ")
-            .append(InternalFolderElementEntity.class.getSimpleName())
-            .append(" parentIfe WHERE parentIfe.folder_hash = :folderHash ");
-
-    if (elementName != null && !elementName.isEmpty()) {
-      folderQueryHQLBuilder.append("AND parentIfe.element_name = :elementName");
+    List<InternalFolderElementEntity> folderElements =
+        getFolderElements(session, parentFolderHash);
+    if (elementName == null || elementName.isEmpty()) {
+      return folderElements;
     }
-
-    Query<InternalFolderElementEntity> fetchTreeQuery =
-        session.createQuery(folderQueryHQLBuilder.toString());
-    fetchTreeQuery.setParameter("folderHash", parentFolderHash);
-    if (elementName != null && !elementName.isEmpty()) {
-      fetchTreeQuery.setParameter("elementName", elementName);
-    }
-    return fetchTreeQuery.list();
+    return folderElements.stream()
+        .filter(folderElement -> folderElement.getElement_name().equals(elementName))
+        .collect(Collectors.toList());
   }
 
   boolean childContains(Set<?> list, Set<?> sublist) {
@@ -674,13 +716,8 @@ public class BlobDAORdbImpl implements BlobDAO {
       String parentFolderHash,
       List<BlobType> blobTypeList)
       throws ModelDBException {
-    String folderQueryHQL =
-        "From "
-            + InternalFolderElementEntity.class.getSimpleName()
-            + " parentIfe WHERE parentIfe.folder_hash = :folderHash";
-    Query<InternalFolderElementEntity> fetchTreeQuery = session.createQuery(folderQueryHQL);
-    fetchTreeQuery.setParameter("folderHash", parentFolderHash);
-    List<InternalFolderElementEntity> childElementFolders = fetchTreeQuery.list();
+    List<InternalFolderElementEntity> childElementFolders =
+        getFolderElements(session, parentFolderHash);
 
     Map<String, Map.Entry<BlobExpanded, String>> childBlobExpandedMap = new LinkedHashMap<>();
     for (InternalFolderElementEntity childElementFolder : childElementFolders) {
@@ -823,18 +860,172 @@ public class BlobDAORdbImpl implements BlobDAO {
       }
     }
 
+    return sortByLocation(finalLocationBlobMap);
+  }
+
+  private static Map<String, Map.Entry<BlobExpanded, String>> sortByLocation(
+      Map<String, Map.Entry<BlobExpanded, String>> locationBlobMap) {
     Comparator<Map.Entry<String, Map.Entry<BlobExpanded, String>>> locationComparator =
         Comparator.comparing(
             (Map.Entry<String, Map.Entry<BlobExpanded, String>> o) ->
                 o.getKey().replaceAll("#", ""));
 
-    finalLocationBlobMap =
-        finalLocationBlobMap.entrySet().stream()
-            .sorted(locationComparator)
-            .collect(
-                toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2, LinkedHashMap::new));
+    return locationBlobMap.entrySet().stream()
+        .sorted(locationComparator)
+        .collect(
+            toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2, LinkedHashMap::new));
+  }
+
+  /** Blobs of two folders that are not shared by both, keyed like getCommitBlobMapWithHash. */
+  private static class FolderDiff {
+    private final Map<String, Map.Entry<BlobExpanded, String>> blobsA = new LinkedHashMap<>();
+    private final Map<String, Map.Entry<BlobExpanded, String>> blobsB = new LinkedHashMap<>();
+
+    private void addAll(FolderDiff other) {
+      blobsA.putAll(other.blobsA);
+      blobsB.putAll(other.blobsB);
+    }
+  }
+
+  /**
+   * Walks two folders together. Folder hashes are Merkle hashes, so elements with the same type and
+   * hash on both sides are identical and are skipped without being loaded. Sub folders whose hashes
+   * differ are walked by sub tasks, every other differing element is loaded completely on the side
+   * it exists on.
+   */
+  private class FolderDiffTask extends RecursiveTask<FolderDiff> {
+    // Session of the request when walking sequentially, null when forked in the diff pool
+    private final Session session;
+    private final Set<String> location;
+    private final String folderHashA;
+    private final String folderHashB;
+
+    private FolderDiffTask(
+        Session session, Set<String> location, String folderHashA, String folderHashB) {
+      this.session = session;
+      this.location = location;
+      this.folderHashA = folderHashA;
+      this.folderHashB = folderHashB;
+    }
+
+    @Override
+    protected FolderDiff compute() {
+      FolderDiff folderDiff = new FolderDiff();
+      List<FolderDiffTask> subFolderTasks;
+      if (session != null) {
+        subFolderTasks = compareFolders(session, folderDiff);
+        for (FolderDiffTask subFolderTask : subFolderTasks) {
+          folderDiff.addAll(subFolderTask.compute());
+        }
+        return folderDiff;
+      }
+
+      // Sessions are not thread safe, so each forked task reads through its own session and
+      // closes it before waiting on its sub tasks
+      try (Session taskSession = modelDBHibernateUtil.getSessionFactory().openSession()) {
+        subFolderTasks = compareFolders(taskSession, folderDiff);
+      }
+      for (FolderDiffTask subFolderTask : invokeAll(subFolderTasks)) {
+        folderDiff.addAll(subFolderTask.join());
+      }
+      return folderDiff;
+    }
+
+    private List<FolderDiffTask> compareFolders(Session readSession, FolderDiff folderDiff)
+        throws ModelDBException {
+      Map<String, InternalFolderElementEntity> elementsA =
+          getElementsByName(readSession, folderHashA);
+      Map<String, InternalFolderElementEntity> elementsB =
+          getElementsByName(readSession, folderHashB);
+      Set<String> elementNames = new LinkedHashSet<>(elementsA.keySet());
+      elementNames.addAll(elementsB.keySet());
+
+      List<FolderDiffTask> subFolderTasks = new ArrayList<>();
+      for (String elementName : elementNames) {
+        InternalFolderElementEntity elementA = elementsA.get(elementName);
+        InternalFolderElementEntity elementB = elementsB.get(elementName);
+        if (elementA != null
+            && elementB != null
+            && elementA.getElement_type().equals(elementB.getElement_type())) {
+          if (elementA.getElement_sha().equals(elementB.getElement_sha())) {
+            continue;
+          }
+          if (elementA.getElement_type().equals(TREE)) {
+            subFolderTasks.add(
+                new FolderDiffTask(
+                    session,
+                    getChildLocation(elementName),
+                    elementA.getElement_sha(),
+                    elementB.getElement_sha()));
+            continue;
+          }
+        }
+        if (elementA != null) {
+          collectBlobs(readSession, elementA, folderDiff.blobsA);
+        }
+        if (elementB != null) {
+          collectBlobs(readSession, elementB, folderDiff.blobsB);
+        }
+      }
+      return subFolderTasks;
+    }
+
+    private Map<String, InternalFolderElementEntity> getElementsByName(
+        Session readSession, String folderHash) {
+      Map<String, InternalFolderElementEntity> elementsByName = new LinkedHashMap<>();
+      for (InternalFolderElementEntity element : getFolderElements(readSession, folderHash)) {
+        elementsByName.put(element.getElement_name(), element);
+      }
+      return elementsByName;
+    }
 
-    return finalLocationBlobMap;
+    private void collectBlobs(
+        Session readSession,
+        InternalFolderElementEntity element,
+        Map<String, Map.Entry<BlobExpanded, String>> blobs)
+        throws ModelDBException {
+      if (element.getElement_type().equals(TREE)) {
+        blobs.putAll(
+            getChildFolderBlobMap(
+                readSession,
+                Collections.emptyList(),
+                getChildLocation(element.getElement_name()),
+                element.getElement_sha(),
+                Collections.emptyList()));
+      } else {
+        setBlobInBlobExpandMap(location, blobs, element, getBlob(readSession, element));
+      }
+    }
+
+    private Set<String> getChildLocation(String elementName) {
+      Set<String> childLocation = new LinkedHashSet<>(location);
+      childLocation.add(elementName);
+      return childLocation;
+    }
+  }
+
+  /**
+   * Returns the blobs that differ between the two root folders. The cost is proportional to the
+   * size of the change rather than the size of the commits.
+   */
+  private FolderDiff getFolderDiff(Session session, String rootShaA, String rootShaB) {
+    if (rootShaA.equals(rootShaB)) {
+      return new FolderDiff();
+    }
+    if (diffPool == null) {
+      return new FolderDiffTask(session, new LinkedHashSet<>(), rootShaA, rootShaB).compute();
+    }
+    try {
+      return diffPool.invoke(new FolderDiffTask(null, new LinkedHashSet<>(), rootShaA, rootShaB));
+    } catch (RuntimeException ex) {
+      // Exceptions thrown in other threads of the pool are rethrown wrapped in a new instance of
+      // the same type, unwrap it to keep the status of the original
+      Throwable cause = ex.getCause();
+      if (cause != null && cause.getClass() == ex.getClass()) {
+        throw (RuntimeException) cause;
+      }
+      throw ex;
+    }
   }
 
   @Override
@@ -953,16 +1144,13 @@ public class BlobDAORdbImpl implements BlobDAO {
             getCommonParent(
                 session, internalCommitA.getCommit_hash(), internalCommitB.getCommit_hash());
       }
-      // get list of blob expanded in both commit and group them in a map based on location
-      Map<String, Map.Entry<BlobExpanded, String>> locationBlobsMapCommitA =
-          getCommitBlobMapWithHash(
-              session, internalCommitA.getRootSha(), new ArrayList<>(), Collections.emptyList());
-
-      Map<String, Map.Entry<BlobExpanded, String>> locationBlobsMapCommitB =
-          getCommitBlobMapWithHash(
-              session, internalCommitB.getRootSha(), new ArrayList<>(), Collections.emptyList());
+      // get list of blob expanded in the subtrees that differ between the commits and group them
+      // in a map based on location, identical subtrees can not contribute to the diff
+      FolderDiff folderDiff =
+          getFolderDiff(session, internalCommitA.getRootSha(), internalCommitB.getRootSha());
 
-      return computeDiffFromCommitMaps(locationBlobsMapCommitA, locationBlobsMapCommitB);
+      return computeDiffFromCommitMaps(
+          sortByLocation(folderDiff.blobsA), sortByLocation(folderDiff.blobsB));
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
         return computeRepositoryDiff(repositoryDAO, request);
@@ -1430,26 +1618,12 @@ public class BlobDAORdbImpl implements BlobDAO {
   private CommitEntity getCommonParent(Session session, String commitA, String commitB)
       throws ModelDBException {
     LOGGER.debug("Branch B found in request");
-    List<CommitEntity> parentCommitA = VersioningUtils.getParentCommits(session, commitA);
-    List<CommitEntity> parentCommitB = VersioningUtils.getParentCommits(session, commitB);
-
-    CommitEntity commonParent = null;
-    int itrA = 0;
-    int itrB = 0;
-    // TODO : this algorithm does not require all the commits to be available before starting.
-    while (itrA < parentCommitA.size() && itrB < parentCommitB.size()) {
-      CommitEntity candidateA = parentCommitA.get(itrA);
-      CommitEntity candidateB = parentCommitB.get(itrB);
-      if (candidateA.getCommit_hash().equals(candidateB.getCommit_hash())) {
-        return candidateA;
-      } else if (candidateA.getDate_created() > candidateB.getDate_created()) {
-        itrA++;
-      } else {
-        itrB++;
-      }
-    }
+    String commonParent = new CommitGraph(session).getMergeBase(commitA, commitB);
     // Should never happen, since we have the initial commit
-    throw new ModelDBException("Could not find base commit for merge", Status.Code.INTERNAL);
+    if (commonParent == null) {
+      throw new ModelDBException("Could not find base commit for merge", Status.Code.INTERNAL);
+    }
+    return session.get(CommitEntity.class, commonParent);
   }
 
   private Map<String, Set<BlobExpanded>> getCollectToMap(
@@ -640,8 +640,11 @@ public class CommitDAORdbImpl implements CommitDAO {
 
         session.beginTransaction();
         session.lock(commitEntity, LockMode.PESSIMISTIC_WRITE);
+        List<String> changedCommitShas = new ArrayList<>();
+        changedCommitShas.add(commitEntity.getCommit_hash());
         if (!commitEntity.getChild_commits().isEmpty()) {
           CommitEntity childCommit = new ArrayList<>(commitEntity.getChild_commits()).get(0);
+          changedCommitShas.add(childCommit.getCommit_hash());
           session.lock(childCommit, LockMode.PESSIMISTIC_WRITE);
           String updateChildEntity =
               "UPDATE commit_parent SET parent_hash = :parentHash WHERE child_hash = :childHash";
@@ -664,6 +667,7 @@ public class CommitDAORdbImpl implements CommitDAO {
         DeleteEntitiesCron.deleteAttribute(session, compositeId);
         session.delete(commitEntity);
         session.getTransaction().commit();
+        CommitGraph.invalidate(changedCommitShas);
         session.clear();
       }
     } catch (Exception ex) {
@@ -794,6 +798,7 @@ public class CommitDAORdbImpl implements CommitDAO {
             }
           });
       session.getTransaction().commit();
+      CommitGraph.invalidate(commitShas);
       return true;
     } catch (Exception ex) {
       if (ModelDBUtils.needToRetry(ex)) {
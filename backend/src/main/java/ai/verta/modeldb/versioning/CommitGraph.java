@@ -0,0 +1,412 @@
+package ai.verta.modeldb.versioning;
+
+import ai.verta.modeldb.entities.versioning.CommitEntity;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.prometheus.client.Counter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.hibernate.Session;
+
+/**
+ * Walks the commit_parent graph of a session. Parents are read for a whole frontier of commits per
+ * query and every commit is visited once, so a walk takes one round trip per level of history
+ * instead of one per commit. The log walk visits commits in date order and stops once it visited
+ * the requested number of commits.
+ *
+ * <p>Every commit has a generation number, one more than the highest generation of its parents, so
+ * a commit always has a higher generation than any of its ancestors. The merge base walk visits
+ * commits from the highest generation down and stops at the first one reached from both sides,
+ * instead of reading the full ancestry of both. Commits saved before generations existed have none
+ * until COMMIT_GENERATION_MIGRATION runs, and the walk falls back to the full ancestry when it
+ * meets one.
+ *
+ * <p>The merge base is a best common ancestor, one that is not an ancestor of another common
+ * ancestor, and the one with the highest generation when there are several, as in criss-cross
+ * merges. Before generations existed the most recent common ancestor by date was used, which may be
+ * a different one of the best common ancestors, or not a best one when clocks are skewed.
+ *
+ * <p>Parents and generations of commits can be kept in a process wide cache. Commits only change
+ * parents when a dataset version is deleted, which calls {@link #invalidate}, but only in the
+ * backend that deleted it. Other backends keep their entries until they expire, so the cache is
+ * disabled by default and its entries expire after a short time when it is enabled.
+ */
+public class CommitGraph {
+  private static final Counter commit_graph_cache_hits =
+      Counter.build()
+          .name("verta_backend_commit_graph_cache_hits_total")
+          .help("Total commits whose parents were answered from the commit graph cache.")
+          .register();
+  private static final Counter commit_graph_cache_misses =
+      Counter.build()
+          .name("verta_backend_commit_graph_cache_misses_total")
+          .help("Total commits whose parents required a database query.")
+          .register();
+
+  // Shared by all sessions, null if disabled
+  private static Cache<String, Node> cache = null;
+
+  /** Parents and generation of a commit, the generation is null if not computed yet. */
+  static class Node {
+    final String[] parents;
+    final Long generation;
+    final long dateCreated;
+
+    Node(String[] parents, Long generation, long dateCreated) {
+      this.parents = parents;
+      this.generation = generation;
+      this.dateCreated = dateCreated;
+    }
+  }
+
+  private Session session;
+  private final Map<String, Node> nodes = new HashMap<>();
+
+  public CommitGraph(Session session) {
+    this.session = session;
+  }
+
+  /** Reads the commits not loaded yet with {@code session}, for walks spanning several sessions. */
+  public void useSession(Session session) {
+    this.session = session;
+  }
+
+  /**
+   * Enables the cache of up to {@code maxCommits} commits, 0 disables it. Entries expire {@code
+   * expireSeconds} after they were loaded, 0 keeps them until evicted or invalidated.
+   */
+  public static synchronized void initializeCache(long maxCommits, long expireSeconds) {
+    if (cache == null && maxCommits > 0) {
+      CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxCommits);
+      if (expireSeconds > 0) {
+        cacheBuilder.expireAfterWrite(expireSeconds, TimeUnit.SECONDS);
+      }
+      cache = cacheBuilder.build();
+    }
+  }
+
+  /** Drops the cached parents of commits whose parents changed or which were deleted. */
+  public static void invalidate(Collection<String> commitHashes) {
+    if (cache != null) {
+      cache.invalidateAll(commitHashes);
+    }
+  }
+
+  /** Returns the commit and all its ancestors. */
+  public Set<String> getAncestors(String commitHash) {
+    final Set<String> visited = new LinkedHashSet<>();
+    List<String> frontier = new ArrayList<>();
+    frontier.add(commitHash);
+    visited.add(commitHash);
+    while (!frontier.isEmpty()) {
+      load(frontier);
+      final List<String> nextFrontier = new ArrayList<>();
+      for (String hash : frontier) {
+        final Node node = nodes.get(hash);
+        if (node == null) {
+          continue;
+        }
+        for (String parent : node.parents) {
+          if (visited.add(parent)) {
+            nextFrontier.add(parent);
+          }
+        }
+      }
+      frontier = nextFrontier;
+    }
+    return visited;
+  }
+
+  /**
+   * Starts a walk of the history from the {@code start} commits, most recent first. Commits are
+   * ordered by date created and then by hash, and each commit is visited once, after all the
+   * commits it was reached from. When clocks are skewed a parent may be more recent than its
+   * children, so the walk is only in date order as long as dates follow the history.
+   */
+  public LogWalk walkLog(Collection<String> start) {
+    return new LogWalk(start, List.of(), null);
+  }
+
+  /**
+   * Resumes a walk of the log from the state it was stopped in: the last commit it visited, the
+   * commits it {@link LogWalk#getQueued queued} and the {@link LogWalk#getReachableVisited visited
+   * commits it may still reach}. Only these commits are read, so resuming does not depend on how
+   * much of the log was walked already.
+   */
+  public LogWalk resumeLog(
+      String lastVisited, Collection<String> queued, Collection<String> reachableVisited) {
+    final List<String> visited = new ArrayList<>(reachableVisited);
+    visited.add(lastVisited);
+    return new LogWalk(queued, visited, lastVisited);
+  }
+
+  /**
+   * A walk of the log, which may visit its commits in several calls. The walk keeps the commits it
+   * reached in memory, so a walk over several sessions passes each of them to {@link
+   * #useSession} before reading the next commits. A walk over several requests keeps its state
+   * instead, see {@link #resumeLog}.
+   */
+  public class LogWalk {
+    private final Comparator<String> dateDescending =
+        Comparator.<String>comparingLong(hash -> nodes.get(hash).dateCreated)
+            .thenComparing(Comparator.naturalOrder())
+            .reversed();
+    private final PriorityQueue<String> queue = new PriorityQueue<>(dateDescending);
+    private final Set<String> queued = new HashSet<>();
+    private String lastVisited;
+
+    private LogWalk(Collection<String> start, Collection<String> visited, String lastVisited) {
+      final List<String> commitHashes = new ArrayList<>(start);
+      commitHashes.addAll(visited);
+      load(commitHashes);
+      queued.addAll(visited);
+      this.lastVisited = lastVisited;
+      for (String hash : start) {
+        if (nodes.containsKey(hash) && queued.add(hash)) {
+          queue.add(hash);
+        }
+      }
+    }
+
+    /**
+     * Passes the next {@code limit} commits of the log to {@code visitor}, all remaining ones when
+     * {@code limit} is 0.
+     */
+    public void next(int limit, Consumer<String> visitor) {
+      int visitedCount = 0;
+      while (!queue.isEmpty() && (limit <= 0 || visitedCount < limit)) {
+        visitor.accept(poll());
+        visitedCount++;
+      }
+    }
+
+    public boolean hasNext() {
+      return !queue.isEmpty();
+    }
+
+    /** Returns the commits queued to be visited next, from which the log continues. */
+    public List<String> getQueued() {
+      return new ArrayList<>(queue);
+    }
+
+    /**
+     * Returns the visited commits that the rest of the walk may reach again, which it has to skip.
+     * A commit is only reached from its descendants, which all have a higher generation, so a
+     * visited commit whose generation is not below the one of any queued commit is never reached
+     * again. Commits without generation are always returned, and all visited commits are when a
+     * queued commit has none.
+     */
+    public List<String> getReachableVisited() {
+      long maxQueuedGeneration = Long.MIN_VALUE;
+      for (String hash : queue) {
+        final Long generation = nodes.get(hash).generation;
+        maxQueuedGeneration =
+            generation == null ? Long.MAX_VALUE : Math.max(maxQueuedGeneration, generation);
+      }
+      final Set<String> queuedNotVisited = new HashSet<>(queue);
+      final List<String> reachableVisited = new ArrayList<>();
+      for (String hash : queued) {
+        final Node node = nodes.get(hash);
+        if (node != null
+            && !queuedNotVisited.contains(hash)
+            && (node.generation == null || node.generation < maxQueuedGeneration)) {
+          reachableVisited.add(hash);
+        }
+      }
+      return reachableVisited;
+    }
+
+    /** Returns the last commit visited, null if none. */
+    public String getLastVisited() {
+      return lastVisited;
+    }
+
+    public long getDateCreated(String commitHash) {
+      return nodes.get(commitHash).dateCreated;
+    }
+
+    private String poll() {
+      final String hash = queue.poll();
+      final Node node = nodes.get(hash);
+      loadParents(node, queue);
+      for (String parent : node.parents) {
+        if (nodes.containsKey(parent) && queued.add(parent)) {
+          queue.add(parent);
+        }
+      }
+      lastVisited = hash;
+      return hash;
+    }
+  }
+
+  /**
+   * Returns a best common ancestor of both commits, one that is not an ancestor of another common
+   * ancestor, or null if they share no history.
+   */
+  public String getMergeBase(String commitA, String commitB) {
+    if (commitA.equals(commitB)) {
+      return commitA;
+    }
+    load(List.of(commitA, commitB));
+    if (!hasGeneration(commitA) || !hasGeneration(commitB)) {
+      return getLatestCommonAncestor(commitA, commitB);
+    }
+
+    // Flags of the commits reached so far: 1 from A, 2 from B
+    final Map<String, Integer> reachedFrom = new HashMap<>();
+    final PriorityQueue<String> queue = new PriorityQueue<>(generationDescending());
+    reachedFrom.put(commitA, 1);
+    reachedFrom.put(commitB, 2);
+    queue.add(commitA);
+    queue.add(commitB);
+    while (!queue.isEmpty()) {
+      // Every descendant of the commit in the walk has a higher generation and was already
+      // popped, so its flags are complete
+      final String hash = queue.poll();
+      final int flags = reachedFrom.get(hash);
+      if (flags == 3) {
+        return hash;
+      }
+      final Node node = nodes.get(hash);
+      if (node == null) {
+        continue;
+      }
+      loadParents(node, queue);
+      for (String parent : node.parents) {
+        if (!hasGeneration(parent)) {
+          return getLatestCommonAncestor(commitA, commitB);
+        }
+        final Integer parentFlags = reachedFrom.get(parent);
+        if (parentFlags == null) {
+          reachedFrom.put(parent, flags);
+          queue.add(parent);
+        } else {
+          reachedFrom.put(parent, parentFlags | flags);
+        }
+      }
+    }
+    return null;
+  }
+
+  // Fallback for commits without generation, the legacy choice of the most recent common ancestor
+  private String getLatestCommonAncestor(String commitA, String commitB) {
+    final Set<String> ancestorsA = getAncestors(commitA);
+    String latest = null;
+    for (String hash : getAncestors(commitB)) {
+      final Node node = nodes.get(hash);
+      if (node != null
+          && ancestorsA.contains(hash)
+          && (latest == null || node.dateCreated > nodes.get(latest).dateCreated)) {
+        latest = hash;
+      }
+    }
+    return latest;
+  }
+
+  private boolean hasGeneration(String hash) {
+    final Node node = nodes.get(hash);
+    return node != null && node.generation != null;
+  }
+
+  private Comparator<String> generationDescending() {
+    return Comparator.<String>comparingLong(hash -> nodes.get(hash).generation)
+        .thenComparingLong(hash -> nodes.get(hash).dateCreated)
+        .reversed();
+  }
+
+  // Loads the parents of the commit together with the parents of the queued commits, which the
+  // walk is likely to reach next, in one query
+  private void loadParents(Node node, Collection<String> queued) {
+    final Set<String> pending = new LinkedHashSet<>();
+    addMissingParents(node, pending);
+    if (pending.isEmpty()) {
+      return;
+    }
+    for (String hash : queued) {
+      final Node queuedNode = nodes.get(hash);
+      if (queuedNode != null) {
+        addMissingParents(queuedNode, pending);
+      }
+    }
+    load(pending);
+  }
+
+  private void addMissingParents(Node node, Set<String> missing) {
+    for (String parent : node.parents) {
+      if (!nodes.containsKey(parent)) {
+        missing.add(parent);
+      }
+    }
+  }
+
+  private void load(Collection<String> commitHashes) {
+    final List<String> missing = new ArrayList<>();
+    for (String hash : commitHashes) {
+      if (nodes.containsKey(hash)) {
+        continue;
+      }
+      final Node cached = cache == null ? null : cache.getIfPresent(hash);
+      if (cached != null) {
+        nodes.put(hash, cached);
+        commit_graph_cache_hits.inc();
+      } else {
+        missing.add(hash);
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+    commit_graph_cache_misses.inc(missing.size());
+
+    final String commitQuery =
+        "SELECT c.commit_hash, c.generation, c.date_created FROM "
+            + CommitEntity.class.getSimpleName()
+            + " c WHERE c.commit_hash IN (:commitHashes)";
+    final List<Object[]> commits =
+        session
+            .createQuery(commitQuery, Object[].class)
+            .setParameterList("commitHashes", missing)
+            .list();
+    @SuppressWarnings("unchecked")
+    final List<Object[]> edges =
+        session
+            .createSQLQuery(
+                "SELECT child_hash, parent_hash FROM commit_parent "
+                    + " WHERE child_hash IN (:commitHashes) ORDER BY parent_order")
+            .setParameterList("commitHashes", missing)
+            .list();
+
+    final Map<String, List<String>> parentsByChild = new HashMap<>();
+    for (Object[] edge : edges) {
+      if (edge[1] != null) {
+        parentsByChild
+            .computeIfAbsent((String) edge[0], unused -> new ArrayList<>())
+            .add((String) edge[1]);
+      }
+    }
+    for (Object[] commit : commits) {
+      final String hash = (String) commit[0];
+      final Long dateCreated = (Long) commit[2];
+      final Node node =
+          new Node(
+              parentsByChild.getOrDefault(hash, List.of()).toArray(new String[0]),
+              (Long) commit[1],
+              dateCreated == null ? 0L : dateCreated);
+      nodes.put(hash, node);
+      // Commits without generation are not cached, so the migration is picked up
+      if (cache != null && node.generation != null) {
+        cache.put(hash, node);
+      }
+    }
+  }
+}
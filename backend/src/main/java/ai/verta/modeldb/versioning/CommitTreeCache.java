@@ -0,0 +1,143 @@
+package ai.verta.modeldb.versioning;
+
+import ai.verta.modeldb.entities.versioning.InternalFolderElementEntity;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import io.prometheus.client.Counter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-process cache of resolved commit trees. Folder and blob hashes address immutable content, so
+ * the elements of a folder and the content of a blob never change for a given hash and entries
+ * never need invalidation. The cache is bounded by the approximate serialized size of its entries
+ * and evicts the least recently used ones first.
+ *
+ * <p>Cached folder elements are detached copies and must not be attached to a session.
+ */
+public class CommitTreeCache {
+  private static final String FOLDER = "folder";
+  private static final String BLOB = "blob";
+  // Approximate per entry overhead of the cache, the key and the element objects
+  private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+  private static final Counter commit_tree_cache_hits =
+      Counter.build()
+          .name("verta_backend_commit_tree_cache_hits_total")
+          .help("Total commit tree lookups answered from the commit tree cache.")
+          .labelNames("kind")
+          .register();
+  private static final Counter commit_tree_cache_misses =
+      Counter.build()
+          .name("verta_backend_commit_tree_cache_misses_total")
+          .help("Total commit tree lookups that required a database query.")
+          .labelNames("kind")
+          .register();
+  private static final Counter commit_tree_cache_evictions =
+      Counter.build()
+          .name("verta_backend_commit_tree_cache_evictions_total")
+          .help("Total entries evicted from the commit tree cache to stay within its size.")
+          .register();
+
+  private final Cache<String, Object> entries;
+
+  public CommitTreeCache(long maxBytes) {
+    this.entries =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher(CommitTreeCache::weigh)
+            .removalListener(
+                notification -> {
+                  if (notification.getCause() == RemovalCause.SIZE) {
+                    commit_tree_cache_evictions.inc();
+                  }
+                })
+            .build();
+  }
+
+  /** Returns the elements of the folder, or null if they are not cached. */
+  @SuppressWarnings("unchecked")
+  public List<InternalFolderElementEntity> getFolderElements(String folderHash) {
+    final Object elements = entries.getIfPresent(getFolderKey(folderHash));
+    recordLookup(FOLDER, elements != null);
+    return (List<InternalFolderElementEntity>) elements;
+  }
+
+  /** Caches detached copies of the elements of the folder and returns them. */
+  public List<InternalFolderElementEntity> putFolderElements(
+      String folderHash, List<InternalFolderElementEntity> elements) {
+    final List<InternalFolderElementEntity> copies = new ArrayList<>(elements.size());
+    for (InternalFolderElementEntity element : elements) {
+      final InternalFolderElementEntity copy =
+          new InternalFolderElementEntity(
+              element.getFolder_hash(),
+              element.getElement_sha(),
+              element.getElement_type(),
+              element.getElement_name());
+      copy.setHash_algorithm(element.getHash_algorithm());
+      copies.add(copy);
+    }
+    final List<InternalFolderElementEntity> unmodifiableCopies =
+        Collections.unmodifiableList(copies);
+    entries.put(getFolderKey(folderHash), unmodifiableCopies);
+    return unmodifiableCopies;
+  }
+
+  /** Returns the blob, or null if it is not cached. */
+  public Blob getBlob(String blobType, String blobHash) {
+    final Object blob = entries.getIfPresent(getBlobKey(blobType, blobHash));
+    recordLookup(BLOB, blob != null);
+    return (Blob) blob;
+  }
+
+  public void putBlob(String blobType, String blobHash, Blob blob) {
+    entries.put(getBlobKey(blobType, blobHash), blob);
+  }
+
+  public void invalidateAll() {
+    entries.invalidateAll();
+  }
+
+  private static String getFolderKey(String folderHash) {
+    return FOLDER + ":" + folderHash;
+  }
+
+  private static String getBlobKey(String blobType, String blobHash) {
+    // Blob hashes are unique per blob table only
+    return BLOB + ":" + blobType + ":" + blobHash;
+  }
+
+  private static void recordLookup(String kind, boolean hit) {
+    if (hit) {
+      commit_tree_cache_hits.labels(kind).inc();
+    } else {
+      commit_tree_cache_misses.labels(kind).inc();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int weigh(String key, Object value) {
+    long weight = ENTRY_OVERHEAD_BYTES + 2L * key.length();
+    if (value instanceof Blob) {
+      weight += ((Blob) value).getSerializedSize();
+    } else {
+      for (InternalFolderElementEntity element : (List<InternalFolderElementEntity>) value) {
+        weight +=
+            ENTRY_OVERHEAD_BYTES
+                + 2L
+                    * (getLength(element.getFolder_hash())
+                        + getLength(element.getElement_sha())
+                        + getLength(element.getElement_type())
+                        + getLength(element.getElement_name()));
+      }
+    }
+    return (int) Math.min(weight, Integer.MAX_VALUE);
+  }
+
+  // The columns of folder elements are nullable
+  private static int getLength(String value) {
+    return value == null ? 0 : value.length();
+  }
+}
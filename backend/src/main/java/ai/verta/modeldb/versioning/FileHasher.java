@@ -1,23 +1,160 @@
 package ai.verta.modeldb.versioning;
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.GeneratedMessageV3;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import org.apache.commons.codec.binary.Hex;
 
 public class FileHasher {
 
+  /** Algorithms used to compute folder hashes. Stored next to each folder in folder_element. */
+  public enum HashAlgorithm {
+    // SHA-256 of the protobuf text format, the algorithm of all older hashes
+    TEXT_SHA256,
+    // SHA-256 of the deterministic binary encoding, with folder elements sorted by name. Used once
+    // the algorithm of every older hash is recorded, as it gives identical folders a different hash
+    CANONICAL_SHA256
+  }
+
+  private static final int DIGEST_BUFFER_SIZE = 4096;
+  private static final Comparator<InternalFolderElement> ELEMENT_NAME_COMPARATOR =
+      Comparator.comparing(InternalFolderElement::getElementName)
+          .thenComparing(InternalFolderElement::getElementSha);
+
+  private static final ThreadLocal<MessageDigest> SHA_256 =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+              throw new IllegalStateException(e);
+            }
+          });
+
+  private static volatile HashAlgorithm defaultAlgorithm = HashAlgorithm.TEXT_SHA256;
+
+  private final HashAlgorithm algorithm;
+
+  public FileHasher() {
+    this(defaultAlgorithm);
+  }
+
+  public FileHasher(HashAlgorithm algorithm) {
+    this.algorithm = algorithm;
+  }
+
+  /** Algorithm used by hashers created with the default constructor, set at startup. */
+  public static void setDefaultAlgorithm(HashAlgorithm algorithm) {
+    defaultAlgorithm = algorithm;
+  }
+
+  public HashAlgorithm getAlgorithm() {
+    return algorithm;
+  }
+
   public String getSha(GeneratedMessageV3 path) throws NoSuchAlgorithmException {
-    MessageDigest digest = MessageDigest.getInstance("SHA-256");
-    final String payload = path.toString();
-    byte[] hash = digest.digest(payload.getBytes(StandardCharsets.UTF_8));
-    return new String(new Hex().encode(hash));
+    return getSha(path, algorithm);
+  }
+
+  /**
+   * Returns the hash of the folder. With {@link HashAlgorithm#CANONICAL_SHA256} the blobs and sub
+   * folders are sorted by name first, so the hash does not depend on the order they were added in.
+   */
+  public String getSha(InternalFolder folder) throws NoSuchAlgorithmException {
+    if (algorithm == HashAlgorithm.CANONICAL_SHA256) {
+      return getSha(sortFolder(folder), algorithm);
+    }
+    return getSha(folder, algorithm);
+  }
+
+  /**
+   * Checks a stored folder hash against the folder content. When the algorithm that produced the
+   * hash is unknown ({@code null}), both algorithms are tried so that hashes computed before the
+   * algorithm was recorded still verify.
+   */
+  public static boolean verifySha(InternalFolder folder, String sha, HashAlgorithm algorithm)
+      throws NoSuchAlgorithmException {
+    return getMatchingAlgorithm(folder, sha, algorithm) != null;
+  }
+
+  /** Returns the algorithm that reproduces {@code sha} from the folder, null if none does. */
+  public static HashAlgorithm getMatchingAlgorithm(
+      InternalFolder folder, String sha, HashAlgorithm algorithm) throws NoSuchAlgorithmException {
+    for (HashAlgorithm candidate : HashAlgorithm.values()) {
+      if (algorithm != null && algorithm != candidate) {
+        continue;
+      }
+      if (new FileHasher(candidate).getSha(folder).equals(sha)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  private static String getSha(GeneratedMessageV3 message, HashAlgorithm algorithm)
+      throws NoSuchAlgorithmException {
+    if (algorithm == HashAlgorithm.TEXT_SHA256) {
+      return getSha(message.toString());
+    }
+
+    final MessageDigest digest = SHA_256.get();
+    digest.reset();
+    try {
+      // Stream the encoding into the digest through a fixed size buffer instead of materializing it
+      CodedOutputStream output =
+          CodedOutputStream.newInstance(new DigestUpdatingStream(digest), DIGEST_BUFFER_SIZE);
+      output.useDeterministicSerialization();
+      message.writeTo(output);
+      output.flush();
+    } catch (IOException e) {
+      // The digest stream never throws
+      throw new IllegalStateException(e);
+    }
+    return Hex.encodeHexString(digest.digest());
   }
 
   public static String getSha(String payload) throws NoSuchAlgorithmException {
-    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    final MessageDigest digest = SHA_256.get();
+    digest.reset();
     byte[] hash = digest.digest(payload.getBytes(StandardCharsets.UTF_8));
-    return new String(new Hex().encode(hash));
+    return Hex.encodeHexString(hash);
+  }
+
+  private static InternalFolder sortFolder(InternalFolder folder) {
+    final List<InternalFolderElement> blobs = new ArrayList<>(folder.getBlobsList());
+    final List<InternalFolderElement> subFolders = new ArrayList<>(folder.getSubFoldersList());
+    blobs.sort(ELEMENT_NAME_COMPARATOR);
+    subFolders.sort(ELEMENT_NAME_COMPARATOR);
+    return folder.toBuilder()
+        .clearBlobs()
+        .addAllBlobs(blobs)
+        .clearSubFolders()
+        .addAllSubFolders(subFolders)
+        .build();
+  }
+
+  private static class DigestUpdatingStream extends OutputStream {
+    private final MessageDigest digest;
+
+    private DigestUpdatingStream(MessageDigest digest) {
+      this.digest = digest;
+    }
+
+    @Override
+    public void write(int b) {
+      digest.update((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      digest.update(b, off, len);
+    }
   }
 }
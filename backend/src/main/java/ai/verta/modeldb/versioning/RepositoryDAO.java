@@ -16,7 +16,9 @@ import ai.verta.uac.UserInfo;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 import org.hibernate.Session;
 
 public interface RepositoryDAO {
@@ -107,6 +109,14 @@ public interface RepositoryDAO {
   ListCommitsLogRequest.Response listCommitsLog(ListCommitsLogRequest request)
       throws ModelDBException, ExecutionException, InterruptedException;
 
+  /**
+   * Checks the request and returns a supplier of the log in responses of page_limit commits, each
+   * read in a session of its own, and empty once the log is complete.
+   */
+  Supplier<Optional<ListCommitsLogRequest.Response>> streamCommitsLog(
+      ListCommitsLogRequest request)
+      throws ModelDBException, ExecutionException, InterruptedException;
+
   FindRepositories.Response findRepositories(FindRepositories request)
       throws ModelDBException, InvalidProtocolBufferException, ExecutionException,
           InterruptedException;
@@ -26,10 +26,12 @@ import ai.verta.uac.*;
 import ai.verta.uac.ModelDBActionEnum.ModelDBServiceActions;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.grpc.Status.Code;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.persistence.criteria.*;
 import org.apache.logging.log4j.LogManager;
@@ -112,6 +114,17 @@ public class RepositoryDAORdbImpl implements RepositoryDAO {
           .append(ModelDBConstants.REPOSITORY_ID)
           .append(" = :repoId ")
           .toString();
+  // Commits of the log loaded per query
+  private static final int LOG_COMMIT_BATCH_SIZE = 1000;
+  // Commits per response of the streamed log when the request sets no page limit
+  private static final int DEFAULT_LOG_STREAM_CHUNK_SIZE = 1000;
+  private static final String GET_COMMITS_BY_HASH_HQL =
+      "FROM " + CommitEntity.class.getSimpleName() + " c WHERE c.commit_hash IN (:commitHashes)";
+  private static final String COUNT_REPOSITORY_COMMITS_HQL =
+      "SELECT count(c) FROM "
+          + CommitEntity.class.getSimpleName()
+          + " c JOIN c.repository r "
+          + " WHERE c.commit_hash IN (:commitHashes) AND r.id = :repositoryId";
   public static final String CHECK_BRANCH_IN_REPOSITORY_HQL =
       new StringBuilder("From ")
           .append(BranchEntity.class.getSimpleName())
@@ -1163,62 +1176,244 @@ public class RepositoryDAORdbImpl implements RepositoryDAO {
       throws ModelDBException, ExecutionException, InterruptedException {
     try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
       RepositoryEntity repository = getRepositoryById(session, request.getRepositoryId());
+      LogCursor logCursor = getLogCursor(session, repository, request);
+
+      CommitGraph.LogWalk logWalk = startLogWalk(new CommitGraph(session), logCursor);
+      List<String> commitSHAs = new ArrayList<>();
+      logWalk.next(request.getPageLimit(), commitSHAs::add);
+      List<CommitEntity> commits = getCommitsInOrder(session, commitSHAs);
+
+      ListCommitsLogRequest.Response.Builder response =
+          ListCommitsLogRequest.Response.newBuilder()
+              .addAllCommits(
+                  commits.stream().map(CommitEntity::toCommitProto).collect(Collectors.toList()))
+              .setNextPageToken(createLogPageToken(logCursor, logWalk));
+      if (request.getPageLimit() == 0 && request.getPageToken().isEmpty()) {
+        response.setTotalRecords(commits.size());
+      }
+      return response.build();
+    } catch (Exception ex) {
+      if (ModelDBUtils.needToRetry(ex)) {
+        return listCommitsLog(request);
+      } else {
+        throw ex;
+      }
+    }
+  }
 
-      String referenceCommit;
+  @Override
+  public Supplier<Optional<ListCommitsLogRequest.Response>> streamCommitsLog(
+      ListCommitsLogRequest request)
+      throws ModelDBException, ExecutionException, InterruptedException {
+    int chunkSize =
+        request.getPageLimit() > 0 ? request.getPageLimit() : DEFAULT_LOG_STREAM_CHUNK_SIZE;
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      RepositoryEntity repository = getRepositoryById(session, request.getRepositoryId());
+      return new CommitsLogStream(getLogCursor(session, repository, request), chunkSize);
+    }
+  }
 
-      if (!request.getBranch().isEmpty()) {
-        Query query = session.createQuery(CHECK_BRANCH_IN_REPOSITORY_HQL);
-        query.setParameter("repositoryId", repository.getId());
-        query.setParameter("branch", request.getBranch());
-        BranchEntity branchEntity = (BranchEntity) query.uniqueResult();
-        if (branchEntity == null) {
-          throw new ModelDBException(
-              ModelDBConstants.BRANCH_NOT_FOUND + request.getBranch(), Code.NOT_FOUND);
+  // Reads the pages of a streamed log, each in a session of its own. The walk and the commit graph
+  // it reached are kept between pages, the commits of a page are not.
+  private class CommitsLogStream implements Supplier<Optional<ListCommitsLogRequest.Response>> {
+    private final LogCursor logCursor;
+    private final int chunkSize;
+    private CommitGraph commitGraph = null;
+    private CommitGraph.LogWalk logWalk = null;
+
+    private CommitsLogStream(LogCursor logCursor, int chunkSize) {
+      this.logCursor = logCursor;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Optional<ListCommitsLogRequest.Response> get() {
+      try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+        if (logWalk == null) {
+          commitGraph = new CommitGraph(session);
+          logWalk = startLogWalk(commitGraph, logCursor);
+        } else {
+          commitGraph.useSession(session);
         }
-        referenceCommit = branchEntity.getCommit_hash();
-      } else {
-        CommitEntity commit = session.get(CommitEntity.class, request.getCommitSha());
-        if (commit == null) {
-          throw new ModelDBException(
-              ModelDBConstants.COMMIT_NOT_FOUND + request.getCommitSha(), Code.NOT_FOUND);
+        if (!logWalk.hasNext()) {
+          return Optional.empty();
         }
-        referenceCommit = commit.getCommit_hash();
+        List<String> commitSHAs = new ArrayList<>();
+        logWalk.next(chunkSize, commitSHAs::add);
+        List<CommitEntity> commits = getCommitsInOrder(session, commitSHAs);
+        return Optional.of(
+            ListCommitsLogRequest.Response.newBuilder()
+                .addAllCommits(
+                    commits.stream().map(CommitEntity::toCommitProto).collect(Collectors.toList()))
+                .setNextPageToken(createLogPageToken(logCursor, logWalk))
+                .build());
       }
-      // list of commits to be used in the in clause in the final query
-      Set<String> commitSHAs = new HashSet<>();
-      // List of commits to be traversed
-      List<String> childCommitSHAs = new LinkedList<>();
-      childCommitSHAs.add(referenceCommit);
-      String getParentCommitsQuery = "SELECT parent_hash FROM commit_parent WHERE child_hash = \'";
-
-      while (!childCommitSHAs.isEmpty()) {
-        String childCommit = childCommitSHAs.remove(0);
-        commitSHAs.add(childCommit);
-        Query sqlQuery = session.createSQLQuery(getParentCommitsQuery + childCommit + "\'");
-        List<String> parentCommitSHAs = sqlQuery.list();
-        childCommitSHAs.addAll(parentCommitSHAs);
+    }
+  }
+
+  /**
+   * Where a page of the log starts: the commit the log starts from and, after the first page, the
+   * state of the walk that returned the previous pages. That is the date created and hash of the
+   * last commit returned so far, the commits queued by the walk, and the returned commits it may
+   * still reach.
+   */
+  private static class LogCursor {
+    private final String start;
+    private final String lastCommitSHA;
+    private final long lastDateCreated;
+    private final List<String> queued;
+    private final List<String> reachableVisited;
+
+    private LogCursor(String start) {
+      this(start, null, 0L, List.of(), List.of());
+    }
+
+    private LogCursor(
+        String start,
+        String lastCommitSHA,
+        long lastDateCreated,
+        List<String> queued,
+        List<String> reachableVisited) {
+      this.start = start;
+      this.lastCommitSHA = lastCommitSHA;
+      this.lastDateCreated = lastDateCreated;
+      this.queued = queued;
+      this.reachableVisited = reachableVisited;
+    }
+  }
+
+  /**
+   * Returns where the log starts: after the commit of the page token if any, else at the head of
+   * the branch or the commit of the request.
+   */
+  private LogCursor getLogCursor(
+      Session session, RepositoryEntity repository, ListCommitsLogRequest request)
+      throws ModelDBException {
+    if (request.getPageLimit() < 0) {
+      throw new ModelDBException("Page limit must not be negative", Code.INVALID_ARGUMENT);
+    }
+    if (!request.getPageToken().isEmpty()) {
+      LogCursor logCursor = parseLogPageToken(request.getPageToken());
+      // Every commit of the token must be in the repository, so a token cannot walk another one
+      Set<String> commitHashes = new HashSet<>(logCursor.queued);
+      commitHashes.addAll(logCursor.reachableVisited);
+      commitHashes.add(logCursor.start);
+      commitHashes.add(logCursor.lastCommitSHA);
+      Query<Long> query = session.createQuery(COUNT_REPOSITORY_COMMITS_HQL, Long.class);
+      query.setParameterList("commitHashes", commitHashes);
+      query.setParameter("repositoryId", repository.getId());
+      if (query.uniqueResult() != commitHashes.size()) {
+        throw new ModelDBException("Invalid page token", Code.INVALID_ARGUMENT);
       }
+      return logCursor;
+    }
 
-      String getChildCommits =
-          "FROM "
-              + CommitEntity.class.getSimpleName()
-              + " c WHERE c.commit_hash IN (:childCommitSHAs)  ORDER BY c.date_created DESC";
-      Query query = session.createQuery(getChildCommits);
-      query.setParameterList("childCommitSHAs", commitSHAs);
-      List<CommitEntity> commits = query.list();
-
-      return ListCommitsLogRequest.Response.newBuilder()
-          .addAllCommits(
-              commits.stream().map(CommitEntity::toCommitProto).collect(Collectors.toList()))
-          .setTotalRecords(commits.size())
-          .build();
-    } catch (Exception ex) {
-      if (ModelDBUtils.needToRetry(ex)) {
-        return listCommitsLog(request);
-      } else {
-        throw ex;
+    if (!request.getBranch().isEmpty()) {
+      Query query = session.createQuery(CHECK_BRANCH_IN_REPOSITORY_HQL);
+      query.setParameter("repositoryId", repository.getId());
+      query.setParameter("branch", request.getBranch());
+      BranchEntity branchEntity = (BranchEntity) query.uniqueResult();
+      if (branchEntity == null) {
+        throw new ModelDBException(
+            ModelDBConstants.BRANCH_NOT_FOUND + request.getBranch(), Code.NOT_FOUND);
       }
+      return new LogCursor(branchEntity.getCommit_hash());
     }
+    CommitEntity commit = session.get(CommitEntity.class, request.getCommitSha());
+    if (commit == null) {
+      throw new ModelDBException(
+          ModelDBConstants.COMMIT_NOT_FOUND + request.getCommitSha(), Code.NOT_FOUND);
+    }
+    return new LogCursor(commit.getCommit_hash());
+  }
+
+  /**
+   * Walks the log from its start, or resumes the walk of the previous pages from the state of the
+   * cursor. Resuming only reads the commits of that state, whatever the number of previous pages,
+   * and continues the log without skipping or repeating commits when clocks are skewed.
+   */
+  private static CommitGraph.LogWalk startLogWalk(CommitGraph commitGraph, LogCursor logCursor)
+      throws ModelDBException {
+    if (logCursor.lastCommitSHA == null) {
+      return commitGraph.walkLog(Collections.singletonList(logCursor.start));
+    }
+    CommitGraph.LogWalk logWalk =
+        commitGraph.resumeLog(
+            logCursor.lastCommitSHA, logCursor.queued, logCursor.reachableVisited);
+    if (logWalk.getDateCreated(logCursor.lastCommitSHA) != logCursor.lastDateCreated) {
+      throw new ModelDBException("Invalid page token", Code.INVALID_ARGUMENT);
+    }
+    return logWalk;
+  }
+
+  // Loads the commits in chunks to bound the IN clause, and returns them in the given order
+  private List<CommitEntity> getCommitsInOrder(Session session, List<String> commitSHAs) {
+    Map<String, CommitEntity> commitsBySHA = new HashMap<>();
+    for (int start = 0; start < commitSHAs.size(); start += LOG_COMMIT_BATCH_SIZE) {
+      List<String> chunk =
+          commitSHAs.subList(start, Math.min(start + LOG_COMMIT_BATCH_SIZE, commitSHAs.size()));
+      session
+          .createQuery(GET_COMMITS_BY_HASH_HQL, CommitEntity.class)
+          .setParameterList("commitHashes", chunk)
+          .list()
+          .forEach(commit -> commitsBySHA.put(commit.getCommit_hash(), commit));
+    }
+    List<CommitEntity> commits = new ArrayList<>(commitSHAs.size());
+    for (String commitSHA : commitSHAs) {
+      CommitEntity commit = commitsBySHA.get(commitSHA);
+      if (commit != null) {
+        commits.add(commit);
+      }
+    }
+    return commits;
+  }
+
+  // The token holds the start of the log, the date created and hash of the last returned commit,
+  // and the queued and reachable visited commits of the walk, it is empty once the log is complete
+  private static String createLogPageToken(LogCursor logCursor, CommitGraph.LogWalk logWalk) {
+    String lastCommitSHA = logWalk.getLastVisited();
+    if (!logWalk.hasNext() || lastCommitSHA == null) {
+      return "";
+    }
+    String token =
+        String.join(
+            ",",
+            logCursor.start,
+            String.valueOf(logWalk.getDateCreated(lastCommitSHA)),
+            lastCommitSHA,
+            String.join(";", logWalk.getQueued()),
+            String.join(";", logWalk.getReachableVisited()));
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static LogCursor parseLogPageToken(String token) throws ModelDBException {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      String[] fields = decoded.split(",", -1);
+      if (fields.length == 5 && isCommitSHA(fields[0]) && isCommitSHA(fields[2])) {
+        List<String> queued = parseCommitSHAs(fields[3]);
+        List<String> reachableVisited = parseCommitSHAs(fields[4]);
+        if (!queued.isEmpty()
+            && queued.stream().allMatch(RepositoryDAORdbImpl::isCommitSHA)
+            && reachableVisited.stream().allMatch(RepositoryDAORdbImpl::isCommitSHA)) {
+          return new LogCursor(
+              fields[0], fields[2], Long.parseLong(fields[1]), queued, reachableVisited);
+        }
+      }
+    } catch (IllegalArgumentException ex) {
+      // Not base64 or not a date, reported below
+    }
+    throw new ModelDBException("Invalid page token", Code.INVALID_ARGUMENT);
+  }
+
+  private static List<String> parseCommitSHAs(String field) {
+    return field.isEmpty() ? List.of() : Arrays.asList(field.split(";", -1));
+  }
+
+  private static boolean isCommitSHA(String commitSHA) {
+    return !commitSHA.isEmpty() && commitSHA.length() <= 64;
   }
 
   @Override
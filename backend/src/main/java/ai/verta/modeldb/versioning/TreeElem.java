@@ -4,8 +4,13 @@ import static ai.verta.modeldb.versioning.BlobDAORdbImpl.TREE;
 
 import ai.verta.modeldb.entities.versioning.InternalFolderElementEntity;
 import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +18,23 @@ import java.util.Set;
 import org.hibernate.Session;
 
 public class TreeElem {
+  // Stays below the bind parameter limits of the supported databases
+  private static final int MAX_IN_QUERY_PARAMETERS = 10000;
+  private static final String EXISTING_FOLDER_HASHES_QUERY =
+      "SELECT DISTINCT fe.folder_hash FROM "
+          + InternalFolderElementEntity.class.getSimpleName()
+          + " fe WHERE fe.folder_hash IN (:folderHashes)";
+  // Concurrent commits sharing a new folder both insert its rows, the rows are identical since the
+  // folder hash covers them, so the second insert of a row is skipped instead of failing
+  private static final String INSERT_FOLDER_ELEMENT_POSTGRES_SQL =
+      "INSERT INTO folder_element"
+          + " (folder_hash, element_sha, element_type, element_name, hash_algorithm)"
+          + " VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+  private static final String INSERT_FOLDER_ELEMENT_MYSQL_SQL =
+      "INSERT IGNORE INTO folder_element"
+          + " (folder_hash, element_sha, element_type, element_name, hash_algorithm)"
+          + " VALUES (?, ?, ?, ?, ?)";
+
   private String path;
   private String blobHash = null;
   private String type = null;
@@ -50,49 +72,150 @@ public class TreeElem {
   InternalFolderElement saveFolders(Session session, FileHasher fileHasher, Set<String> hashes)
       throws NoSuchAlgorithmException {
     if (children.isEmpty()) {
-      return InternalFolderElement.newBuilder()
-          .setElementName(getPath())
-          .setElementSha(getBlobHash())
-          .build();
-    } else {
-      InternalFolder.Builder internalFolder = InternalFolder.newBuilder();
-      List<InternalFolderElement> elems = new LinkedList<>();
-      for (TreeElem elem : children.values()) {
-        InternalFolderElement build = elem.saveFolders(session, fileHasher, hashes);
-        elems.add(build);
-        if (elem.getType().equals(TREE)) {
-          internalFolder.addSubFolders(build);
-        } else {
-          internalFolder.addBlobs(build);
-        }
+      return getLeafElement();
+    }
+    List<InternalFolderElement> elems = new LinkedList<>();
+    for (TreeElem elem : children.values()) {
+      elems.add(elem.saveFolders(session, fileHasher, hashes));
+    }
+    final InternalFolderElement treeBuild = buildFolder(fileHasher, elems);
+    for (InternalFolderElementEntity internalFolderElementEntity :
+        getFolderElementEntities(fileHasher, treeBuild, elems)) {
+      String key =
+          internalFolderElementEntity.getFolder_hash()
+              + ":"
+              + internalFolderElementEntity.getElement_name();
+      if (!hashes.contains(key)) {
+        session.saveOrUpdate(internalFolderElementEntity);
+        hashes.add(key);
       }
-      final InternalFolderElement treeBuild =
-          InternalFolderElement.newBuilder()
-              .setElementName(getPath())
-              .setElementSha(fileHasher.getSha(internalFolder.build()))
-              .build();
-      Iterator<TreeElem> iter = children.values().iterator();
-      for (InternalFolderElement elem : elems) {
-        final TreeElem next = iter.next();
-        InternalFolderElementEntity internalFolderElementEntity;
-        if (next.getType().equals(TREE)) {
-          internalFolderElementEntity =
-              new InternalFolderElementEntity(elem, treeBuild.getElementSha(), next.getType());
-        } else {
-          internalFolderElementEntity =
-              new InternalFolderElementEntity(
-                  treeBuild.getElementSha(), next.getBlobHash(), next.getType(), next.getPath());
-        }
-        String key =
-            internalFolderElementEntity.getFolder_hash()
-                + ":"
-                + internalFolderElementEntity.getElement_name();
-        if (!hashes.contains(key)) {
-          session.saveOrUpdate(internalFolderElementEntity);
-          hashes.add(key);
+    }
+    return treeBuild;
+  }
+
+  /**
+   * Bulk variant of {@link #saveFolders}. Computes every folder hash of the tree in memory first,
+   * then looks up which folders already exist with one IN query per {@link
+   * #MAX_IN_QUERY_PARAMETERS} folders and inserts the elements of the new folders only, with JDBC
+   * batches of {@code batchSize} rows. A folder hash covers all of its elements, so a folder found
+   * in the database already has all of its rows. Rows inserted meanwhile by another commit are
+   * skipped.
+   */
+  InternalFolderElement saveFoldersInBatches(
+      Session session, FileHasher fileHasher, int batchSize, boolean isPostgres)
+      throws NoSuchAlgorithmException {
+    final Map<String, List<InternalFolderElementEntity>> folders = new LinkedHashMap<>();
+    final InternalFolderElement rootElement = computeFolders(fileHasher, folders);
+
+    final List<String> folderHashes = new ArrayList<>(folders.keySet());
+    for (int start = 0; start < folderHashes.size(); start += MAX_IN_QUERY_PARAMETERS) {
+      final int end = Math.min(start + MAX_IN_QUERY_PARAMETERS, folderHashes.size());
+      session
+          .createQuery(EXISTING_FOLDER_HASHES_QUERY, String.class)
+          .setParameterList("folderHashes", folderHashes.subList(start, end))
+          .list()
+          .forEach(folders::remove);
+    }
+
+    final List<InternalFolderElementEntity> newElements = new ArrayList<>();
+    folders.values().forEach(newElements::addAll);
+    if (!newElements.isEmpty()) {
+      session.doWork(
+          connection -> insertFolderElements(connection, newElements, batchSize, isPostgres));
+    }
+    return rootElement;
+  }
+
+  private InternalFolderElement computeFolders(
+      FileHasher fileHasher, Map<String, List<InternalFolderElementEntity>> folders)
+      throws NoSuchAlgorithmException {
+    if (children.isEmpty()) {
+      return getLeafElement();
+    }
+    List<InternalFolderElement> elems = new ArrayList<>(children.size());
+    for (TreeElem elem : children.values()) {
+      elems.add(elem.computeFolders(fileHasher, folders));
+    }
+    final InternalFolderElement treeBuild = buildFolder(fileHasher, elems);
+    // Identical sub trees share one set of rows
+    if (!folders.containsKey(treeBuild.getElementSha())) {
+      folders.put(
+          treeBuild.getElementSha(), getFolderElementEntities(fileHasher, treeBuild, elems));
+    }
+    return treeBuild;
+  }
+
+  private InternalFolderElement getLeafElement() {
+    return InternalFolderElement.newBuilder()
+        .setElementName(getPath())
+        .setElementSha(getBlobHash())
+        .build();
+  }
+
+  // elems must be in the iteration order of children
+  private InternalFolderElement buildFolder(
+      FileHasher fileHasher, List<InternalFolderElement> elems) throws NoSuchAlgorithmException {
+    InternalFolder.Builder internalFolder = InternalFolder.newBuilder();
+    Iterator<TreeElem> iter = children.values().iterator();
+    for (InternalFolderElement elem : elems) {
+      if (iter.next().getType().equals(TREE)) {
+        internalFolder.addSubFolders(elem);
+      } else {
+        internalFolder.addBlobs(elem);
+      }
+    }
+    return InternalFolderElement.newBuilder()
+        .setElementName(getPath())
+        .setElementSha(fileHasher.getSha(internalFolder.build()))
+        .build();
+  }
+
+  private List<InternalFolderElementEntity> getFolderElementEntities(
+      FileHasher fileHasher, InternalFolderElement treeBuild, List<InternalFolderElement> elems) {
+    List<InternalFolderElementEntity> entities = new ArrayList<>(elems.size());
+    Iterator<TreeElem> iter = children.values().iterator();
+    for (InternalFolderElement elem : elems) {
+      final TreeElem next = iter.next();
+      InternalFolderElementEntity internalFolderElementEntity;
+      if (next.getType().equals(TREE)) {
+        internalFolderElementEntity =
+            new InternalFolderElementEntity(elem, treeBuild.getElementSha(), next.getType());
+      } else {
+        internalFolderElementEntity =
+            new InternalFolderElementEntity(
+                treeBuild.getElementSha(), next.getBlobHash(), next.getType(), next.getPath());
+      }
+      internalFolderElementEntity.setHash_algorithm(fileHasher.getAlgorithm().name());
+      entities.add(internalFolderElementEntity);
+    }
+    return entities;
+  }
+
+  private static void insertFolderElements(
+      Connection connection,
+      List<InternalFolderElementEntity> elements,
+      int batchSize,
+      boolean isPostgres)
+      throws SQLException {
+    final String insertQuery =
+        isPostgres ? INSERT_FOLDER_ELEMENT_POSTGRES_SQL : INSERT_FOLDER_ELEMENT_MYSQL_SQL;
+    try (PreparedStatement statement = connection.prepareStatement(insertQuery)) {
+      int pending = 0;
+      for (InternalFolderElementEntity element : elements) {
+        statement.setString(1, element.getFolder_hash());
+        statement.setString(2, element.getElement_sha());
+        statement.setString(3, element.getElement_type());
+        statement.setString(4, element.getElement_name());
+        statement.setString(5, element.getHash_algorithm());
+        statement.addBatch();
+        if (++pending >= batchSize) {
+          statement.executeBatch();
+          pending = 0;
         }
       }
-      return treeBuild;
+      if (pending > 0) {
+        statement.executeBatch();
+      }
     }
   }
 }
@@ -11,6 +11,8 @@ import ai.verta.modeldb.common.CommonUtils;
 import ai.verta.modeldb.common.authservice.AuthService;
 import ai.verta.modeldb.common.entities.audit_log.AuditLogLocalEntity;
 import ai.verta.modeldb.common.exceptions.ModelDBException;
+import ai.verta.modeldb.common.futures.FutureGrpc;
+import ai.verta.modeldb.common.futures.InternalFuture;
 import ai.verta.modeldb.entities.versioning.RepositoryEnums;
 import ai.verta.modeldb.experimentRun.ExperimentRunDAO;
 import ai.verta.modeldb.metadata.MetadataServiceImpl;
@@ -34,6 +36,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -51,10 +56,12 @@ public class VersioningServiceImpl extends VersioningServiceImplBase {
   private final Validator validator = new Validator();
   private final ArtifactStoreDAO artifactStoreDAO;
   private final AuditLogLocalDAO auditLogLocalDAO;
+  private final Executor executor;
   private static final String SERVICE_NAME =
       String.format("%s.%s", ModelDBConstants.SERVICE_NAME, ModelDBConstants.REPOSITORY_CAPS);
 
-  public VersioningServiceImpl(ServiceSet serviceSet, DAOSet daoSet, FileHasher fileHasher) {
+  public VersioningServiceImpl(
+      ServiceSet serviceSet, DAOSet daoSet, FileHasher fileHasher, Executor executor) {
     this.authService = serviceSet.authService;
     this.roleService = serviceSet.roleService;
     this.repositoryDAO = daoSet.repositoryDAO;
@@ -64,6 +71,7 @@ public class VersioningServiceImpl extends VersioningServiceImplBase {
     this.artifactStoreDAO = daoSet.artifactStoreDAO;
     this.fileHasher = fileHasher;
     this.auditLogLocalDAO = daoSet.auditLogLocalDAO;
+    this.executor = executor;
   }
 
   private void saveAuditLog(
@@ -742,6 +750,54 @@ public class VersioningServiceImpl extends VersioningServiceImplBase {
     }
   }
 
+  @Override
+  public void streamCommitsLog(
+      ListCommitsLogRequest request,
+      StreamObserver<ListCommitsLogRequest.Response> responseObserver) {
+    try {
+      Repository repository =
+          repositoryDAO
+              .getRepository(
+                  GetRepositoryRequest.newBuilder().setId(request.getRepositoryId()).build())
+              .getRepository();
+      UserInfo currentLoginUserInfo = authService.getCurrentLoginUserInfo();
+      String requestString = ModelDBUtils.getStringFromProtoObject(request);
+      Supplier<Optional<ListCommitsLogRequest.Response>> pages =
+          repositoryDAO.streamCommitsLog(request);
+      // Pages are read once the client is ready for them, and the read is logged once complete
+      AtomicLong streamedCount = new AtomicLong();
+      FutureGrpc.ServerStreamResponse(
+          responseObserver,
+          () ->
+              InternalFuture.supplyAsync(
+                  () -> {
+                    Optional<ListCommitsLogRequest.Response> page = pages.get();
+                    if (page.isPresent()) {
+                      streamedCount.addAndGet(page.get().getCommitsCount());
+                    } else {
+                      saveAuditLog(
+                          Optional.of(currentLoginUserInfo),
+                          ModelDBServiceActions.READ,
+                          Collections.singletonMap(
+                              String.valueOf(repository.getId()),
+                              repository.getWorkspaceServiceId()),
+                          requestString,
+                          ModelDBUtils.getStringFromProtoObjectSilent(
+                              ListCommitsLogRequest.Response.newBuilder()
+                                  .setTotalRecords(streamedCount.get())
+                                  .build()),
+                          repository.getWorkspaceServiceId());
+                    }
+                    return page;
+                  },
+                  executor),
+          executor);
+    } catch (Exception e) {
+      CommonUtils.observeError(
+          responseObserver, e, ListCommitsLogRequest.Response.getDefaultInstance());
+    }
+  }
+
   @Override
   public void listTags(
       ListTagsRequest request, StreamObserver<ListTagsRequest.Response> responseObserver) {
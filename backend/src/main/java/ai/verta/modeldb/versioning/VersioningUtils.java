@@ -31,8 +31,6 @@ public class VersioningUtils {
 
   private static final String COMMIT_BELONGS_TO_REPO_QUERY =
       "SELECT count(*) FROM CommitEntity c Join c.repository r WHERE c.commit_hash =  :commitHash AND r.id = :repositoryId";
-  private static final String GET_PARENT_COMMIT_SHA_PREFIX =
-      "SELECT parent_hash FROM commit_parent WHERE child_hash = \'";
 
   /**
    * Checks the database and returns if a commitHash belongs to a repository
@@ -51,36 +49,6 @@ public class VersioningUtils {
     return count > 0;
   }
 
-  /**
-   * Returns the parents of a commit sorted in descending orderof time
-   *
-   * @param session
-   * @param commitSHA
-   * @return
-   */
-  // TODO: RepoDAO.listBranchCommits should use this
-  public static List<CommitEntity> getParentCommits(Session session, String commitSHA) {
-    List<String> childCommitSHAs = new LinkedList<String>();
-    childCommitSHAs.add(commitSHA);
-    List<String> commitSHAs = new LinkedList<>();
-    while (!childCommitSHAs.isEmpty()) {
-      String childCommit = childCommitSHAs.remove(0);
-      commitSHAs.add(childCommit);
-      @SuppressWarnings("unchecked")
-      Query<String> sqlQuery =
-          session.createSQLQuery(GET_PARENT_COMMIT_SHA_PREFIX + childCommit + "\'");
-      List<String> parentCommitSHAs = sqlQuery.list();
-      childCommitSHAs.addAll(parentCommitSHAs);
-    }
-    String getChildCommits =
-        "FROM "
-            + CommitEntity.class.getSimpleName()
-            + " c WHERE c.commit_hash IN (:childCommitSHAs)  ORDER BY c.date_created DESC";
-    @SuppressWarnings("unchecked")
-    Query<CommitEntity> query = session.createQuery(getChildCommits);
-    query.setParameterList("childCommitSHAs", commitSHAs);
-    return query.list();
-  }
   /**
    * Given commit components returns commitSHA
    *
@@ -11,6 +11,7 @@ import ai.verta.modeldb.metadata.AddLabelsRequest;
 import ai.verta.modeldb.metadata.DeleteLabelsRequest;
 import ai.verta.modeldb.metadata.IDTypeEnum;
 import ai.verta.modeldb.metadata.IdentificationType;
+import ai.verta.modeldb.utils.ModelDBHibernateUtil;
 import ai.verta.modeldb.versioning.Blob;
 import ai.verta.modeldb.versioning.BlobDiff;
 import ai.verta.modeldb.versioning.BlobDiff.ContentCase;
@@ -18,6 +19,7 @@ import ai.verta.modeldb.versioning.BlobExpanded;
 import ai.verta.modeldb.versioning.BlobType;
 import ai.verta.modeldb.versioning.CodeBlob;
 import ai.verta.modeldb.versioning.Commit;
+import ai.verta.modeldb.versioning.CommitGraph;
 import ai.verta.modeldb.versioning.CommitMultipartVersionedBlobArtifact;
 import ai.verta.modeldb.versioning.CommitVersionedBlobArtifactPart;
 import ai.verta.modeldb.versioning.ConfigBlob;
@@ -42,6 +44,7 @@ import ai.verta.modeldb.versioning.HyperparameterConfigBlob;
 import ai.verta.modeldb.versioning.HyperparameterSetConfigBlob;
 import ai.verta.modeldb.versioning.HyperparameterValuesConfigBlob;
 import ai.verta.modeldb.versioning.ListCommitBlobsRequest;
+import ai.verta.modeldb.versioning.ListCommitsLogRequest;
 import ai.verta.modeldb.versioning.ListCommitsRequest;
 import ai.verta.modeldb.versioning.MergeRepositoryCommitsRequest;
 import ai.verta.modeldb.versioning.NotebookCodeBlob;
@@ -77,12 +80,14 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -2709,4 +2714,273 @@ public class CommitTest extends TestsInit {
     LOGGER.info(
         "Create & Delete query dataset blob commit test end................................");
   }
+
+  private Commit createCommit(long dateCreated, Blob.ContentCase contentCase, Commit... parents)
+      throws ModelDBException, NoSuchAlgorithmException {
+    CreateCommitRequest.Builder createCommitRequest =
+        getCreateCommitRequest(repository.getId(), dateCreated, parents[0], contentCase)
+            .toBuilder();
+    for (int i = 1; i < parents.length; i++) {
+      createCommitRequest.getCommitBuilder().addParentShas(parents[i].getCommitSha());
+    }
+    return versioningServiceBlockingStub.createCommit(createCommitRequest.build()).getCommit();
+  }
+
+  @Test
+  public void commitGraphWalkTest() throws ModelDBException, NoSuchAlgorithmException {
+    LOGGER.info("Commit graph walk test start................................");
+
+    // initial <- a <- b <- merge
+    //    ^------ c <------'
+    long time = initialCommit.getDateCreated();
+    Commit commitA = createCommit(time + 1000, Blob.ContentCase.DATASET, initialCommit);
+    Commit commitC = createCommit(time + 2000, Blob.ContentCase.CONFIG, initialCommit);
+    Commit commitB = createCommit(time + 3000, Blob.ContentCase.CODE, commitA);
+    Commit merge = createCommit(time + 4000, Blob.ContentCase.ENVIRONMENT, commitB, commitC);
+    String initialSha = initialCommit.getCommitSha();
+    String shaA = commitA.getCommitSha();
+    String shaB = commitB.getCommitSha();
+    String shaC = commitC.getCommitSha();
+    String mergeSha = merge.getCommitSha();
+
+    try (Session session = ModelDBHibernateUtil.getInstance().getSessionFactory().openSession()) {
+      CommitGraph commitGraph = new CommitGraph(session);
+
+      assertEquals(
+          "Ancestors not match with the expected commits",
+          new HashSet<>(Arrays.asList(mergeSha, shaB, shaA, shaC, initialSha)),
+          commitGraph.getAncestors(mergeSha));
+      assertEquals(
+          "Ancestors not match with the expected commits",
+          new HashSet<>(Arrays.asList(shaC, initialSha)),
+          commitGraph.getAncestors(shaC));
+
+      assertEquals(initialSha, commitGraph.getMergeBase(shaB, shaC));
+      assertEquals(shaA, commitGraph.getMergeBase(shaA, shaB));
+      assertEquals(shaC, commitGraph.getMergeBase(mergeSha, shaC));
+      assertEquals(shaB, commitGraph.getMergeBase(shaB, shaB));
+    }
+
+    // Walk the log two commits at a time, each page in a session of its own
+    List<String> log = new ArrayList<>();
+    CommitGraph commitGraph = null;
+    CommitGraph.LogWalk logWalk = null;
+    int pages = 0;
+    while (logWalk == null || logWalk.hasNext()) {
+      try (Session session =
+          ModelDBHibernateUtil.getInstance().getSessionFactory().openSession()) {
+        if (logWalk == null) {
+          commitGraph = new CommitGraph(session);
+          logWalk = commitGraph.walkLog(Collections.singletonList(mergeSha));
+        } else {
+          commitGraph.useSession(session);
+        }
+        List<String> page = new ArrayList<>();
+        logWalk.next(2, page::add);
+        assertTrue("Log page is larger than the limit", page.size() <= 2);
+        log.addAll(page);
+      }
+      pages++;
+    }
+    assertEquals(3, pages);
+    assertEquals(
+        "Commit log not match with the expected order",
+        Arrays.asList(mergeSha, shaB, shaC, shaA, initialSha),
+        log);
+
+    // A walk resumed from the state of the first page, with a graph of its own, continues the log
+    String lastVisited;
+    List<String> queued;
+    List<String> reachableVisited;
+    try (Session session = ModelDBHibernateUtil.getInstance().getSessionFactory().openSession()) {
+      logWalk = new CommitGraph(session).walkLog(Collections.singletonList(mergeSha));
+      logWalk.next(2, unused -> {});
+      lastVisited = logWalk.getLastVisited();
+      queued = logWalk.getQueued();
+      reachableVisited = logWalk.getReachableVisited();
+    }
+    try (Session session = ModelDBHibernateUtil.getInstance().getSessionFactory().openSession()) {
+      logWalk = new CommitGraph(session).resumeLog(lastVisited, queued, reachableVisited);
+      List<String> rest = new ArrayList<>();
+      logWalk.next(0, rest::add);
+      assertEquals(
+          "Resumed commit log not match with the expected order",
+          Arrays.asList(shaC, shaA, initialSha),
+          rest);
+    }
+
+    for (Commit commit : new Commit[] {merge, commitB, commitC, commitA}) {
+      versioningServiceBlockingStub.deleteCommit(
+          DeleteCommitRequest.newBuilder()
+              .setRepositoryId(
+                  RepositoryIdentification.newBuilder().setRepoId(repository.getId()).build())
+              .setCommitSha(commit.getCommitSha())
+              .build());
+    }
+
+    LOGGER.info("Commit graph walk test stop................................");
+  }
+
+  private ListCommitsLogRequest.Builder getListCommitsLogRequest(Commit commit) {
+    return ListCommitsLogRequest.newBuilder()
+        .setRepositoryId(RepositoryIdentification.newBuilder().setRepoId(repository.getId()))
+        .setCommitSha(commit.getCommitSha());
+  }
+
+  private static List<String> getCommitShas(List<Commit> commits) {
+    List<String> commitShas = new ArrayList<>();
+    for (Commit commit : commits) {
+      commitShas.add(commit.getCommitSha());
+    }
+    return commitShas;
+  }
+
+  @Test
+  public void listCommitsLogPaginationTest() throws ModelDBException, NoSuchAlgorithmException {
+    LOGGER.info("List commits log pagination test start................................");
+
+    // initial <- a <- b <------ merge
+    //            ^--- c <---------'
+    // The clock of a is ahead, so a is more recent than its children b and c
+    long time = initialCommit.getDateCreated();
+    Commit commitA = createCommit(time + 5000, Blob.ContentCase.DATASET, initialCommit);
+    Commit commitB = createCommit(time + 1000, Blob.ContentCase.CONFIG, commitA);
+    Commit commitC = createCommit(time + 3000, Blob.ContentCase.CODE, commitA);
+    Commit merge = createCommit(time + 6000, Blob.ContentCase.ENVIRONMENT, commitB, commitC);
+
+    ListCommitsLogRequest.Response fullLog =
+        versioningServiceBlockingStub.listCommitsLog(getListCommitsLogRequest(merge).build());
+    List<String> expectedLog =
+        Arrays.asList(
+            merge.getCommitSha(),
+            commitC.getCommitSha(),
+            commitA.getCommitSha(),
+            commitB.getCommitSha(),
+            initialCommit.getCommitSha());
+    assertEquals(
+        "Commit log not match with the expected order",
+        expectedLog,
+        getCommitShas(fullLog.getCommitsList()));
+    assertEquals(expectedLog.size(), fullLog.getTotalRecords());
+    assertTrue("Complete log has a next page token", fullLog.getNextPageToken().isEmpty());
+
+    // Every page limit pages through the same log, without skipping or repeating commits
+    for (int pageLimit = 1; pageLimit <= expectedLog.size(); pageLimit++) {
+      List<String> log = new ArrayList<>();
+      String pageToken = "";
+      do {
+        ListCommitsLogRequest.Response page =
+            versioningServiceBlockingStub.listCommitsLog(
+                getListCommitsLogRequest(merge)
+                    .setPageLimit(pageLimit)
+                    .setPageToken(pageToken)
+                    .build());
+        assertTrue("Log page is larger than the limit", page.getCommitsCount() <= pageLimit);
+        assertEquals("Paginated log has total records", 0, page.getTotalRecords());
+        log.addAll(getCommitShas(page.getCommitsList()));
+        pageToken = page.getNextPageToken();
+      } while (!pageToken.isEmpty());
+      assertEquals(
+          "Paginated commit log not match with the expected order for page limit " + pageLimit,
+          expectedLog,
+          log);
+    }
+
+    for (String pageToken : new String[] {"invalid-token", "YWJj"}) {
+      try {
+        versioningServiceBlockingStub.listCommitsLog(
+            getListCommitsLogRequest(merge).setPageLimit(2).setPageToken(pageToken).build());
+        fail();
+      } catch (StatusRuntimeException ex) {
+        assertEquals(Code.INVALID_ARGUMENT, ex.getStatus().getCode());
+      }
+    }
+    try {
+      versioningServiceBlockingStub.listCommitsLog(
+          getListCommitsLogRequest(merge).setPageLimit(-1).build());
+      fail();
+    } catch (StatusRuntimeException ex) {
+      assertEquals(Code.INVALID_ARGUMENT, ex.getStatus().getCode());
+    }
+
+    for (Commit commit : new Commit[] {merge, commitB, commitC, commitA}) {
+      versioningServiceBlockingStub.deleteCommit(
+          DeleteCommitRequest.newBuilder()
+              .setRepositoryId(
+                  RepositoryIdentification.newBuilder().setRepoId(repository.getId()).build())
+              .setCommitSha(commit.getCommitSha())
+              .build());
+    }
+
+    LOGGER.info("List commits log pagination test stop................................");
+  }
+
+  @Test
+  public void streamCommitsLogTest() throws ModelDBException, NoSuchAlgorithmException {
+    LOGGER.info("Stream commits log test start................................");
+
+    long time = initialCommit.getDateCreated();
+    List<Commit> commits = new ArrayList<>();
+    Commit parent = initialCommit;
+    for (int i = 1; i <= 4; i++) {
+      parent = createCommit(time + i * 1000, Blob.ContentCase.DATASET, parent);
+      commits.add(0, parent);
+    }
+    Commit head = commits.get(0);
+    List<String> expectedLog = new ArrayList<>(getCommitShas(commits));
+    expectedLog.add(initialCommit.getCommitSha());
+
+    List<String> log = new ArrayList<>();
+    List<ListCommitsLogRequest.Response> responses = new ArrayList<>();
+    versioningServiceBlockingStub
+        .streamCommitsLog(getListCommitsLogRequest(head).setPageLimit(2).build())
+        .forEachRemaining(responses::add);
+    for (ListCommitsLogRequest.Response response : responses) {
+      assertTrue("Streamed response is larger than the limit", response.getCommitsCount() <= 2);
+      log.addAll(getCommitShas(response.getCommitsList()));
+    }
+    assertEquals(3, responses.size());
+    assertEquals("Streamed commit log not match with the expected order", expectedLog, log);
+    assertTrue(
+        "Last streamed response has a next page token",
+        responses.get(2).getNextPageToken().isEmpty());
+
+    // The token of a streamed response continues the log with listCommitsLog
+    ListCommitsLogRequest.Response rest =
+        versioningServiceBlockingStub.listCommitsLog(
+            getListCommitsLogRequest(head)
+                .setPageToken(responses.get(0).getNextPageToken())
+                .build());
+    assertEquals(expectedLog.subList(2, 5), getCommitShas(rest.getCommitsList()));
+
+    // And a page token continues the streamed log
+    log.clear();
+    versioningServiceBlockingStub
+        .streamCommitsLog(
+            getListCommitsLogRequest(head)
+                .setPageToken(responses.get(1).getNextPageToken())
+                .build())
+        .forEachRemaining(response -> log.addAll(getCommitShas(response.getCommitsList())));
+    assertEquals(expectedLog.subList(4, 5), log);
+
+    try {
+      versioningServiceBlockingStub
+          .streamCommitsLog(getListCommitsLogRequest(head).setPageToken("invalid-token").build())
+          .forEachRemaining(response -> fail());
+      fail();
+    } catch (StatusRuntimeException ex) {
+      assertEquals(Code.INVALID_ARGUMENT, ex.getStatus().getCode());
+    }
+
+    for (Commit commit : commits) {
+      versioningServiceBlockingStub.deleteCommit(
+          DeleteCommitRequest.newBuilder()
+              .setRepositoryId(
+                  RepositoryIdentification.newBuilder().setRepoId(repository.getId()).build())
+              .setCommitSha(commit.getCommitSha())
+              .build());
+    }
+
+    LOGGER.info("Stream commits log test stop................................");
+  }
 }
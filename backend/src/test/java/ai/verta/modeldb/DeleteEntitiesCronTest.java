@@ -0,0 +1,201 @@
+package ai.verta.modeldb;
+
+import static org.junit.Assert.*;
+
+import ai.verta.common.KeyValue;
+import ai.verta.common.ValueTypeEnum.ValueType;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.junit.runners.MethodSorters;
+
+@RunWith(JUnit4.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class DeleteEntitiesCronTest extends TestsInit {
+
+  private static final Logger LOGGER = LogManager.getLogger(DeleteEntitiesCronTest.class);
+  private static final int RUN_COUNT = 2;
+
+  private static Project project;
+  private static Experiment experiment;
+  private static List<String> experimentRunIds;
+  // Observation values are not linked to their run, so they are collected before the deletion
+  private static List<Long> observationKeyValueIds;
+
+  @Before
+  public void createEntities() throws Exception {
+    CreateProject createProjectRequest =
+        ProjectTest.getCreateProjectRequest("project-" + new Date().getTime());
+    project = projectServiceStub.createProject(createProjectRequest).getProject();
+
+    CreateExperiment createExperimentRequest =
+        ExperimentTest.getCreateExperimentRequest(
+            project.getId(), "Experiment-" + new Date().getTime());
+    experiment = experimentServiceStub.createExperiment(createExperimentRequest).getExperiment();
+
+    experimentRunIds = new ArrayList<>();
+    for (int i = 0; i < RUN_COUNT; i++) {
+      CreateExperimentRun createExperimentRunRequest =
+          ExperimentRunTest.getCreateExperimentRunRequest(
+              project.getId(), experiment.getId(), "ExperimentRun-" + i + new Date().getTime());
+      String runId =
+          experimentRunServiceStub
+              .createExperimentRun(createExperimentRunRequest)
+              .getExperimentRun()
+              .getId();
+      experimentRunIds.add(runId);
+
+      KeyValue metric =
+          KeyValue.newBuilder()
+              .setKey("loss")
+              .setValue(Value.newBuilder().setNumberValue(0.5))
+              .setValueType(ValueType.NUMBER)
+              .build();
+      experimentRunServiceStub.logMetric(
+          LogMetric.newBuilder().setId(runId).setMetric(metric).build());
+
+      for (int epoch = 0; epoch < 3; epoch++) {
+        Observation observation =
+            Observation.newBuilder()
+                .setAttribute(
+                    KeyValue.newBuilder()
+                        .setKey("accuracy")
+                        .setValue(Value.newBuilder().setNumberValue(epoch * 0.1))
+                        .setValueType(ValueType.NUMBER))
+                .setTimestamp(Calendar.getInstance().getTimeInMillis())
+                .setEpochNumber(Value.newBuilder().setNumberValue(epoch))
+                .build();
+        experimentRunServiceStub.logObservation(
+            LogObservation.newBuilder().setId(runId).setObservation(observation).build());
+      }
+
+      commentServiceBlockingStub.addExperimentRunComment(
+          AddComment.newBuilder()
+              .setEntityId(runId)
+              .setMessage("Comment " + Calendar.getInstance().getTimeInMillis())
+              .build());
+    }
+
+    observationKeyValueIds =
+        config
+            .getJdbi()
+            .withHandle(
+                handle ->
+                    handle
+                        .createQuery(
+                            "select keyvaluemapping_id from observation "
+                                + "where experiment_run_id in (<ids>) "
+                                + "and keyvaluemapping_id is not null")
+                        .bindList("ids", experimentRunIds)
+                        .mapTo(Long.class)
+                        .list())
+            .get();
+    assertEquals(RUN_COUNT * 3, observationKeyValueIds.size());
+  }
+
+  @After
+  public void removeEntities() {
+    if (project != null) {
+      DeleteProject.Response deleteProjectResponse =
+          projectServiceStub.deleteProject(
+              DeleteProject.newBuilder().setId(project.getId()).build());
+      assertTrue(deleteProjectResponse.getStatus());
+    }
+    project = null;
+    experiment = null;
+    experimentRunIds = null;
+    observationKeyValueIds = null;
+  }
+
+  private static long getCount(String table, String column, List<?> ids) throws Exception {
+    return config
+        .getJdbi()
+        .withHandle(
+            handle ->
+                handle
+                    .createQuery(
+                        "select count(*) from " + table + " where " + column + " in (<ids>)")
+                    .bindList("ids", ids)
+                    .mapTo(Long.class)
+                    .one())
+        .get();
+  }
+
+  private static void assertRunsDeleted() throws Exception {
+    assertEquals("Runs not deleted", 0, getCount("experiment_run", "id", experimentRunIds));
+    assertEquals(
+        "Run key values not deleted",
+        0,
+        getCount("keyvalue", "experiment_run_id", experimentRunIds));
+    assertEquals(
+        "Observations not deleted",
+        0,
+        getCount("observation", "experiment_run_id", experimentRunIds));
+    assertEquals(
+        "Observation values not deleted", 0, getCount("keyvalue", "id", observationKeyValueIds));
+    assertEquals(
+        "Observation rollups not deleted",
+        0,
+        getCount("observation_rollup", "experiment_run_id", experimentRunIds));
+    assertEquals("Comments not deleted", 0, getCount("comment", "entity_id", experimentRunIds));
+  }
+
+  @Test
+  public void a_deleteProjectTest() throws Exception {
+    LOGGER.info("delete entities cron delete project test start................................");
+
+    DeleteProject.Response deleteProjectResponse =
+        projectServiceStub.deleteProject(DeleteProject.newBuilder().setId(project.getId()).build());
+    assertTrue(deleteProjectResponse.getStatus());
+    List<String> projectIds = Collections.singletonList(project.getId());
+    project = null;
+
+    // The project stage marks the experiments as deleted before the experiment stage runs, which
+    // does the same for the runs, so a single run removes the whole project
+    deleteEntitiesCron.run();
+
+    assertEquals("Project not deleted", 0, getCount("project", "id", projectIds));
+    assertEquals(
+        "Experiments not deleted",
+        0,
+        getCount("experiment", "id", Collections.singletonList(experiment.getId())));
+    assertRunsDeleted();
+
+    LOGGER.info("delete entities cron delete project test stop................................");
+  }
+
+  @Test
+  public void b_deleteExperimentTest() throws Exception {
+    LOGGER.info("delete entities cron delete experiment test start.............................");
+
+    DeleteExperiment.Response deleteExperimentResponse =
+        experimentServiceStub.deleteExperiment(
+            DeleteExperiment.newBuilder().setId(experiment.getId()).build());
+    assertTrue(deleteExperimentResponse.getStatus());
+
+    deleteEntitiesCron.run();
+
+    assertEquals(
+        "Experiment not deleted",
+        0,
+        getCount("experiment", "id", Collections.singletonList(experiment.getId())));
+    assertRunsDeleted();
+    assertEquals(
+        "Project of the experiment deleted",
+        1,
+        getCount("project", "id", Collections.singletonList(project.getId())));
+
+    LOGGER.info("delete entities cron delete experiment test stop.............................");
+  }
+}
@@ -45,13 +45,18 @@ import com.google.protobuf.Value.KindCase;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import java.security.NoSuchAlgorithmException;
+import io.grpc.internal.testing.StreamRecorder;
+import io.grpc.stub.StreamObserver;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.After;
@@ -8195,4 +8200,267 @@ public class ExperimentRunTest extends TestsInit {
 
     LOGGER.info("logEnvironment test stop................................");
   }
+
+  private static KeyValue numberKeyValue(String key, double value) {
+    return KeyValue.newBuilder()
+        .setKey(key)
+        .setValue(Value.newBuilder().setNumberValue(value))
+        .setValueType(ValueType.NUMBER)
+        .build();
+  }
+
+  private static LogExperimentRunDataStream.Response streamExperimentRunData(
+      List<LogExperimentRunDataStream> messages) throws Exception {
+    StreamRecorder<LogExperimentRunDataStream.Response> responseRecorder = StreamRecorder.create();
+    StreamObserver<LogExperimentRunDataStream> requestObserver =
+        experimentRunServiceAsyncStub.logExperimentRunDataStream(responseRecorder);
+    messages.forEach(requestObserver::onNext);
+    requestObserver.onCompleted();
+    assertTrue(
+        "Stream not completed in time", responseRecorder.awaitCompletion(1, TimeUnit.MINUTES));
+    if (responseRecorder.getError() != null) {
+      throw (Exception) responseRecorder.getError();
+    }
+    return responseRecorder.firstValue().get();
+  }
+
+  @Test
+  public void logExperimentRunDataStreamTest() throws Exception {
+    LOGGER.info("logExperimentRunDataStream test start................................");
+
+    // More entries than one group holds, so that the stream is written in several groups
+    int messageCount = config.runDataStreamFlushSize / 10 + 3;
+    List<LogExperimentRunDataStream> messages = new ArrayList<>();
+    for (int i = 0; i < messageCount; i++) {
+      LogExperimentRunDataStream.Builder message = LogExperimentRunDataStream.newBuilder();
+      if (i == 0) {
+        message.setId(experimentRun.getId());
+      }
+      for (int j = 0; j < 10; j++) {
+        message.addObservations(
+            Observation.newBuilder()
+                .setAttribute(numberKeyValue("stream_loss", i * 10 + j))
+                .setEpochNumber(Value.newBuilder().setNumberValue(i * 10 + j))
+                .setTimestamp(Calendar.getInstance().getTimeInMillis()));
+      }
+      message.addMetrics(numberKeyValue("stream_metric_" + i, i));
+      messages.add(message.build());
+    }
+
+    LogExperimentRunDataStream.Response response = streamExperimentRunData(messages);
+    assertEquals(messageCount, response.getMetricsLogged());
+    assertEquals(messageCount * 10L, response.getObservationsLogged());
+
+    GetMetrics.Response getMetricsResponse =
+        experimentRunServiceStub.getMetrics(
+            GetMetrics.newBuilder().setId(experimentRun.getId()).build());
+    for (LogExperimentRunDataStream message : messages) {
+      assertTrue(
+          "Streamed metrics not found in the experiment run",
+          getMetricsResponse.getMetricsList().containsAll(message.getMetricsList()));
+    }
+
+    GetObservations.Response getObservationsResponse =
+        experimentRunServiceStub.getObservations(
+            GetObservations.newBuilder()
+                .setId(experimentRun.getId())
+                .setObservationKey("stream_loss")
+                .build());
+    assertEquals(messageCount * 10, getObservationsResponse.getObservationsCount());
+    for (int i = 0; i < getObservationsResponse.getObservationsCount(); i++) {
+      assertEquals(
+          "Streamed observations not stored in arrival order",
+          i,
+          getObservationsResponse.getObservations(i).getEpochNumber().getNumberValue(),
+          0.0);
+    }
+
+    LOGGER.info("logExperimentRunDataStream test stop................................");
+  }
+
+  @Test
+  public void logExperimentRunDataStreamHalfClosedTest() throws Exception {
+    LOGGER.info("logExperimentRunDataStream half closed test start.........................");
+
+    // Fewer entries than one group holds: closing the stream writes them without waiting for the
+    // flush interval, and the response is only sent once they are stored
+    LogExperimentRunDataStream message =
+        LogExperimentRunDataStream.newBuilder()
+            .setId(experimentRun.getId())
+            .addMetrics(numberKeyValue("half_closed_metric", 1))
+            .addObservations(
+                Observation.newBuilder()
+                    .setAttribute(numberKeyValue("half_closed_loss", 0.5))
+                    .setTimestamp(Calendar.getInstance().getTimeInMillis()))
+            .build();
+
+    LogExperimentRunDataStream.Response response =
+        streamExperimentRunData(Collections.singletonList(message));
+    assertEquals(1, response.getMetricsLogged());
+    assertEquals(1, response.getObservationsLogged());
+
+    GetMetrics.Response getMetricsResponse =
+        experimentRunServiceStub.getMetrics(
+            GetMetrics.newBuilder().setId(experimentRun.getId()).build());
+    assertTrue(getMetricsResponse.getMetricsList().containsAll(message.getMetricsList()));
+
+    // A stream closed without any message has no experiment run to log to
+    try {
+      streamExperimentRunData(Collections.emptyList());
+      fail();
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.INVALID_ARGUMENT.getCode(), e.getStatus().getCode());
+    }
+
+    LOGGER.info("logExperimentRunDataStream half closed test stop..........................");
+  }
+
+  @Test
+  public void logExperimentRunDataStreamNegativeTest() throws Exception {
+    LOGGER.info("logExperimentRunDataStream Negative test start...........................");
+
+    // A metric key repeated by a later message of the same group is rejected like separate
+    // logMetrics calls would reject it
+    LogExperimentRunDataStream first =
+        LogExperimentRunDataStream.newBuilder()
+            .setId(experimentRun.getId())
+            .addMetrics(numberKeyValue("stream_duplicate_metric", 1))
+            .build();
+    LogExperimentRunDataStream second =
+        LogExperimentRunDataStream.newBuilder()
+            .addMetrics(numberKeyValue("stream_duplicate_metric", 2))
+            .build();
+    try {
+      streamExperimentRunData(Arrays.asList(first, second));
+      fail();
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.ALREADY_EXISTS.getCode(), e.getStatus().getCode());
+    }
+    GetMetrics.Response getMetricsResponse =
+        experimentRunServiceStub.getMetrics(
+            GetMetrics.newBuilder().setId(experimentRun.getId()).build());
+    assertEquals(
+        "Repeated metric key stored twice",
+        1,
+        getMetricsResponse.getMetricsList().stream()
+            .filter(metric -> metric.getKey().equals("stream_duplicate_metric"))
+            .count());
+
+    // Every message of a stream must target the same experiment run
+    LogExperimentRunDataStream otherRun =
+        LogExperimentRunDataStream.newBuilder()
+            .setId(experimentRun2.getId())
+            .addMetrics(numberKeyValue("stream_other_run_metric", 1))
+            .build();
+    try {
+      streamExperimentRunData(
+          Arrays.asList(
+              LogExperimentRunDataStream.newBuilder().setId(experimentRun.getId()).build(),
+              otherRun));
+      fail();
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.INVALID_ARGUMENT.getCode(), e.getStatus().getCode());
+    }
+
+    LOGGER.info("logExperimentRunDataStream Negative test stop............................");
+  }
+
+  private static List<GetExperimentRunsKeyValueMatrix.Response> getKeyValueMatrixChunks(
+      GetExperimentRunsKeyValueMatrix request) {
+    List<GetExperimentRunsKeyValueMatrix.Response> chunks = new ArrayList<>();
+    experimentRunServiceStub.getExperimentRunsKeyValueMatrix(request).forEachRemaining(chunks::add);
+    return chunks;
+  }
+
+  @Test
+  public void getExperimentRunsKeyValueMatrixTest() {
+    LOGGER.info("getExperimentRunsKeyValueMatrix test start................................");
+
+    // One chunk per run, so that the runs are read over several pages
+    GetExperimentRunsKeyValueMatrix request =
+        GetExperimentRunsKeyValueMatrix.newBuilder()
+            .addExperimentRunIds(experimentRun2.getId())
+            .addExperimentRunIds(experimentRun.getId())
+            .addMetricKeys("loss")
+            .addMetricKeys("missing_metric")
+            .addHyperparameterKeys("tuning")
+            .setChunkSize(1)
+            .build();
+    List<GetExperimentRunsKeyValueMatrix.Response> chunks = getKeyValueMatrixChunks(request);
+    assertEquals(2, chunks.size());
+    List<ExperimentRun> expectedRuns = List.of(experimentRun2, experimentRun);
+    for (int i = 0; i < chunks.size(); i++) {
+      GetExperimentRunsKeyValueMatrix.Response chunk = chunks.get(i);
+      ExperimentRun expectedRun = expectedRuns.get(i);
+      assertEquals(List.of(expectedRun.getId()), chunk.getExperimentRunIdsList());
+
+      GetExperimentRunsKeyValueMatrix.Column loss = chunk.getMetrics(0);
+      assertEquals("loss", loss.getKey());
+      assertTrue(loss.getPresent(0));
+      assertEquals(
+          expectedRun.getMetricsList().stream()
+              .filter(metric -> metric.getKey().equals("loss"))
+              .findFirst()
+              .get()
+              .getValue()
+              .getNumberValue(),
+          loss.getNumberValues(0),
+          0.0);
+      assertFalse(chunk.getMetrics(1).getPresent(0));
+      assertTrue(chunk.getHyperparameters(0).getPresent(0));
+    }
+
+    // Every run of the project is returned once, over pages of one run
+    chunks =
+        getKeyValueMatrixChunks(
+            request.toBuilder().clearExperimentRunIds().setProjectId(project.getId()).build());
+    List<String> runIds = new ArrayList<>();
+    for (GetExperimentRunsKeyValueMatrix.Response chunk : chunks) {
+      assertEquals(1, chunk.getExperimentRunIdsCount());
+      runIds.addAll(chunk.getExperimentRunIdsList());
+    }
+    assertEquals(2, runIds.size());
+    assertTrue(runIds.containsAll(List.of(experimentRun.getId(), experimentRun2.getId())));
+
+    // The runs of the project fit in one chunk
+    chunks =
+        getKeyValueMatrixChunks(
+            request.toBuilder()
+                .clearExperimentRunIds()
+                .setProjectId(project.getId())
+                .setExperimentId(experiment.getId())
+                .setChunkSize(10)
+                .build());
+    assertEquals(1, chunks.size());
+    assertEquals(2, chunks.get(0).getExperimentRunIdsCount());
+
+    LOGGER.info("getExperimentRunsKeyValueMatrix test stop................................");
+  }
+
+  @Test
+  public void getExperimentRunsKeyValueMatrixNegativeTest() {
+    LOGGER.info(
+        "getExperimentRunsKeyValueMatrix Negative test start................................");
+
+    try {
+      getKeyValueMatrixChunks(
+          GetExperimentRunsKeyValueMatrix.newBuilder()
+              .addExperimentRunIds(experimentRun.getId())
+              .build());
+      fail();
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.INVALID_ARGUMENT.getCode(), e.getStatus().getCode());
+    }
+
+    try {
+      getKeyValueMatrixChunks(
+          GetExperimentRunsKeyValueMatrix.newBuilder().addMetricKeys("loss").build());
+      fail();
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.INVALID_ARGUMENT.getCode(), e.getStatus().getCode());
+    }
+
+    LOGGER.info(
+        "getExperimentRunsKeyValueMatrix Negative test stop................................");
+  }
 }
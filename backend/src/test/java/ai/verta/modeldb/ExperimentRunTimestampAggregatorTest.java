@@ -0,0 +1,122 @@
+package ai.verta.modeldb;
+
+import static org.junit.Assert.*;
+
+import ai.verta.modeldb.experimentRun.ExperimentRunTimestampAggregator;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.junit.runners.MethodSorters;
+
+@RunWith(JUnit4.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ExperimentRunTimestampAggregatorTest extends TestsInit {
+
+  private static final Logger LOGGER =
+      LogManager.getLogger(ExperimentRunTimestampAggregatorTest.class);
+  // Long enough that the background flush never runs during a test
+  private static final long FLUSH_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static Project project;
+  private static ExperimentRun experimentRun;
+
+  @Before
+  public void createEntities() {
+    CreateProject createProjectRequest =
+        ProjectTest.getCreateProjectRequest("project-" + new Date().getTime());
+    project = projectServiceStub.createProject(createProjectRequest).getProject();
+
+    CreateExperiment createExperimentRequest =
+        ExperimentTest.getCreateExperimentRequest(
+            project.getId(), "Experiment-" + new Date().getTime());
+    Experiment experiment =
+        experimentServiceStub.createExperiment(createExperimentRequest).getExperiment();
+
+    CreateExperimentRun createExperimentRunRequest =
+        ExperimentRunTest.getCreateExperimentRunRequest(
+            project.getId(), experiment.getId(), "ExperimentRun-" + new Date().getTime());
+    experimentRun =
+        experimentRunServiceStub.createExperimentRun(createExperimentRunRequest).getExperimentRun();
+  }
+
+  @After
+  public void removeEntities() {
+    DeleteProject.Response deleteProjectResponse =
+        projectServiceStub.deleteProject(DeleteProject.newBuilder().setId(project.getId()).build());
+    assertTrue(deleteProjectResponse.getStatus());
+    project = null;
+    experimentRun = null;
+  }
+
+  private static long getPersistedDateUpdated(String runId) throws Exception {
+    return config
+        .getJdbi()
+        .withHandle(
+            handle ->
+                handle
+                    .createQuery("select date_updated from experiment_run where id =:run_id")
+                    .bind("run_id", runId)
+                    .mapTo(Long.class)
+                    .one())
+        .get();
+  }
+
+  @Test
+  public void a_coalesceTimestampsTest() throws Exception {
+    LOGGER.info("coalesce experiment run timestamps test start................................");
+
+    ExperimentRunTimestampAggregator aggregator =
+        new ExperimentRunTimestampAggregator(config.getJdbi(), FLUSH_INTERVAL_MILLIS);
+    final var runId = experimentRun.getId();
+    final long persisted = getPersistedDateUpdated(runId);
+    final long base = persisted + 100000L;
+
+    // Out of order log calls keep only the newest timestamp, and nothing is written yet
+    aggregator.record(runId, base + 1);
+    aggregator.record(runId, base + 3);
+    aggregator.record(runId, base + 2);
+    assertEquals(base + 3, aggregator.getDateUpdated(runId, persisted));
+    assertEquals(base + 3, aggregator.withDateUpdated(experimentRun).getDateUpdated());
+    assertEquals("Timestamp written before the flush", persisted, getPersistedDateUpdated(runId));
+
+    aggregator.flush();
+    assertEquals(base + 3, getPersistedDateUpdated(runId));
+    assertEquals(
+        "Flushed timestamp still held in memory",
+        persisted,
+        aggregator.getDateUpdated(runId, persisted));
+
+    // A timestamp older than the persisted one does not move date_updated back
+    aggregator.record(runId, base);
+    aggregator.flush();
+    assertEquals(base + 3, getPersistedDateUpdated(runId));
+
+    aggregator.shutdown();
+
+    LOGGER.info("coalesce experiment run timestamps test stop................................");
+  }
+
+  @Test
+  public void b_flushOnShutdownTest() throws Exception {
+    LOGGER.info("flush experiment run timestamps on shutdown test start.........................");
+
+    ExperimentRunTimestampAggregator aggregator =
+        new ExperimentRunTimestampAggregator(config.getJdbi(), FLUSH_INTERVAL_MILLIS);
+    aggregator.start();
+    final var runId = experimentRun.getId();
+    final long timestamp = getPersistedDateUpdated(runId) + 100000L;
+
+    aggregator.record(runId, timestamp);
+    aggregator.shutdown();
+    assertEquals("Recorded timestamp lost on shutdown", timestamp, getPersistedDateUpdated(runId));
+
+    LOGGER.info("flush experiment run timestamps on shutdown test stop.........................");
+  }
+}
@@ -6,18 +6,26 @@ import ai.verta.common.KeyValue;
 import ai.verta.common.KeyValueQuery;
 import ai.verta.common.OperatorEnum;
 import ai.verta.modeldb.authservice.*;
+import ai.verta.modeldb.utils.RdbmsUtils;
 import ai.verta.uac.GetUser;
 import ai.verta.uac.ResourceVisibility;
 import ai.verta.uac.UserInfo;
+import com.google.protobuf.FieldMask;
 import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
+import com.google.protobuf.util.JsonFormat;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.After;
@@ -2322,6 +2330,115 @@ public class FindProjectEntitiesTest extends TestsInit {
     LOGGER.info("Find and Sort ExperimentRuns by metrics test stop.........");
   }
 
+  private static String createRunWithMixedMetric(Experiment experiment, Value value) {
+    CreateExperimentRun createExperimentRunRequest =
+        ExperimentRunTest.getCreateExperimentRunRequest(
+            experiment.getProjectId(), experiment.getId(), "ExperimentRun-" + new Date().getTime());
+    createExperimentRunRequest =
+        createExperimentRunRequest
+            .toBuilder()
+            .addMetrics(KeyValue.newBuilder().setKey("mixed_loss").setValue(value).build())
+            .build();
+    return experimentRunServiceStub
+        .createExperimentRun(createExperimentRunRequest)
+        .getExperimentRun()
+        .getId();
+  }
+
+  private static List<String> findRunIdsByMixedMetric(
+      Experiment experiment, boolean ascending, KeyValueQuery predicate) {
+    FindExperimentRuns.Builder findExperimentRuns =
+        FindExperimentRuns.newBuilder()
+            .setExperimentId(experiment.getId())
+            .setAscending(ascending)
+            .setSortKey("metrics.mixed_loss");
+    if (predicate != null) {
+      findExperimentRuns.addPredicates(predicate);
+    }
+    List<String> runIds = new ArrayList<>();
+    for (ExperimentRun experimentRun :
+        experimentRunServiceStub
+            .findExperimentRuns(findExperimentRuns.build())
+            .getExperimentRunsList()) {
+      runIds.add(experimentRun.getId());
+    }
+    return runIds;
+  }
+
+  @Test
+  public void findAndSortExperimentRunsByMixedMetricTest() {
+    LOGGER.info("Find and Sort ExperimentRuns by mixed metric test start.........");
+
+    CreateExperiment createExperimentRequest =
+        ExperimentTest.getCreateExperimentRequest(
+            project1.getId(), "Experiment-mixed-" + new Date().getTime());
+    Experiment experiment =
+        experimentServiceStub.createExperiment(createExperimentRequest).getExperiment();
+
+    // Serialized in the string order 10, 100, 9, so only a numeric sort returns them in this order
+    List<String> numberRunIds = new ArrayList<>();
+    for (double number : new double[] {9, 10, 100}) {
+      numberRunIds.add(
+          createRunWithMixedMetric(experiment, Value.newBuilder().setNumberValue(number).build()));
+    }
+    Set<String> stringRunIds = new HashSet<>();
+    for (String string : new String[] {"abc", "n/a"}) {
+      stringRunIds.add(
+          createRunWithMixedMetric(experiment, Value.newBuilder().setStringValue(string).build()));
+    }
+    List<String> descendingNumberRunIds = new ArrayList<>(numberRunIds);
+    Collections.reverse(descendingNumberRunIds);
+
+    try {
+      // Until the numeric migration completed, the numbers come first in both directions
+      for (boolean ascending : new boolean[] {true, false}) {
+        List<String> runIds = findRunIdsByMixedMetric(experiment, ascending, null);
+        assertEquals("ExperimentRun count not match", 5, runIds.size());
+        assertEquals(
+            "Number values not sorted numerically",
+            ascending ? numberRunIds : descendingNumberRunIds,
+            runIds.subList(0, 3));
+        assertEquals(
+            "String values not sorted after numbers",
+            stringRunIds,
+            new HashSet<>(runIds.subList(3, 5)));
+      }
+
+      // Afterwards the numeric filter and sort read kv_value_num alone
+      RdbmsUtils.setNumericKeyValuesMigrated(true);
+      KeyValueQuery greaterThanNine =
+          KeyValueQuery.newBuilder()
+              .setKey("metrics.mixed_loss")
+              .setValue(Value.newBuilder().setNumberValue(9).build())
+              .setOperator(OperatorEnum.Operator.GT)
+              .build();
+      assertEquals(
+          "Numeric filter not match with expected experimentRuns",
+          numberRunIds.subList(1, 3),
+          findRunIdsByMixedMetric(experiment, true, greaterThanNine));
+
+      for (boolean ascending : new boolean[] {true, false}) {
+        List<String> runIds = findRunIdsByMixedMetric(experiment, ascending, null);
+        assertEquals("ExperimentRun count not match", 5, runIds.size());
+        List<String> sortedNumberRunIds = new ArrayList<>(runIds);
+        sortedNumberRunIds.retainAll(numberRunIds);
+        assertEquals(
+            "Number values not sorted numerically",
+            ascending ? numberRunIds : descendingNumberRunIds,
+            sortedNumberRunIds);
+        // The string values go where the database puts nulls, together at one end
+        assertTrue(
+            "String values not sorted together",
+            stringRunIds.equals(new HashSet<>(runIds.subList(0, 2)))
+                || stringRunIds.equals(new HashSet<>(runIds.subList(3, 5))));
+      }
+    } finally {
+      RdbmsUtils.setNumericKeyValuesMigrated(false);
+    }
+
+    LOGGER.info("Find and Sort ExperimentRuns by mixed metric test stop.........");
+  }
+
   @Test
   public void findExperimentRunsNegativeTest() {
     LOGGER.info("FindExperimentRuns Negative test start................................");
@@ -2602,4 +2719,201 @@ public class FindProjectEntitiesTest extends TestsInit {
 
     LOGGER.info("FindExperimentRuns by experiment test stop.........");
   }
+
+  @Test
+  public void findExperimentRunsWithFieldMaskTest() {
+    LOGGER.info("FindExperimentRuns with field mask test start.........");
+
+    FieldMask fieldMask = FieldMask.newBuilder().addPaths("name").addPaths("tags").build();
+
+    // Sorted on a single valued key, the runs keep their order and only the requested fields
+    FindExperimentRuns findExperimentRuns =
+        FindExperimentRuns.newBuilder()
+            .setProjectId(project1.getId())
+            .setSortKey("metrics.loss")
+            .setAscending(false)
+            .setFieldMask(fieldMask)
+            .build();
+    FindExperimentRuns.Response response =
+        experimentRunServiceStub.findExperimentRuns(findExperimentRuns);
+    assertEquals(
+        "Total records count not matched with expected records count",
+        4,
+        response.getTotalRecords());
+    List<String> expectedRunIds = new ArrayList<>();
+    for (ExperimentRun experimentRun :
+        new ExperimentRun[] {experimentRun22, experimentRun21, experimentRun12, experimentRun11}) {
+      expectedRunIds.add(experimentRun.getId());
+    }
+    List<String> runIds = new ArrayList<>();
+    for (ExperimentRun experimentRun : response.getExperimentRunsList()) {
+      runIds.add(experimentRun.getId());
+      ExperimentRun expectedRun = experimentRunMap.get(experimentRun.getId());
+      assertEquals(expectedRun.getName(), experimentRun.getName());
+      assertEquals(
+          "ExperimentRun tags not match with expected tags",
+          new HashSet<>(expectedRun.getTagsList()),
+          new HashSet<>(experimentRun.getTagsList()));
+      assertEquals("Field not in the mask is returned", 0, experimentRun.getMetricsCount());
+    }
+    assertEquals("ExperimentRun order not match with expected order", expectedRunIds, runIds);
+
+    // Sorted on tags every run joins a row per tag, and the pages still hold distinct runs
+    for (int pageLimit = 1; pageLimit <= 3; pageLimit++) {
+      List<String> pagedRunIds = new ArrayList<>();
+      for (int pageNumber = 1; pageNumber <= (4 + pageLimit - 1) / pageLimit; pageNumber++) {
+        findExperimentRuns =
+            FindExperimentRuns.newBuilder()
+                .setProjectId(project1.getId())
+                .setSortKey("tags")
+                .setAscending(true)
+                .setFieldMask(fieldMask)
+                .setPageNumber(pageNumber)
+                .setPageLimit(pageLimit)
+                .build();
+        response = experimentRunServiceStub.findExperimentRuns(findExperimentRuns);
+        assertEquals(
+            "Total records count not matched with expected records count",
+            4,
+            response.getTotalRecords());
+        assertEquals(
+            "ExperimentRun count of page not match with expected count",
+            Math.min(pageLimit, 4 - (pageNumber - 1) * pageLimit),
+            response.getExperimentRunsCount());
+        for (ExperimentRun experimentRun : response.getExperimentRunsList()) {
+          pagedRunIds.add(experimentRun.getId());
+        }
+      }
+      assertEquals("ExperimentRun repeated across pages", 4, new HashSet<>(pagedRunIds).size());
+      assertEquals(experimentRunMap.keySet(), new HashSet<>(pagedRunIds));
+    }
+
+    LOGGER.info("FindExperimentRuns with field mask test stop.........");
+  }
+
+  private static List<String> findExperimentRunIdsByPageToken(
+      FindExperimentRuns findExperimentRuns, int pageLimit) {
+    List<String> runIds = new ArrayList<>();
+    String pageToken = "";
+    do {
+      FindExperimentRuns.Response response =
+          experimentRunServiceStub.findExperimentRuns(
+              findExperimentRuns
+                  .toBuilder()
+                  .setPageNumber(1)
+                  .setPageLimit(pageLimit)
+                  .setPageToken(pageToken)
+                  .build());
+      assertEquals(
+          "Total records count not matched with expected records count",
+          findExperimentRuns.getSkipTotalRecords() ? 0 : 4,
+          response.getTotalRecords());
+      for (ExperimentRun experimentRun : response.getExperimentRunsList()) {
+        runIds.add(experimentRun.getId());
+      }
+      pageToken = response.getNextPageToken();
+      assertTrue("Page token does not end the pages", runIds.size() <= 4 + pageLimit);
+    } while (!pageToken.isEmpty());
+    return runIds;
+  }
+
+  @Test
+  public void findExperimentRunsWithPageTokenTest() throws Exception {
+    LOGGER.info("FindExperimentRuns with page token test start.........");
+
+    List<String> expectedRunIds = new ArrayList<>();
+    for (ExperimentRun experimentRun :
+        new ExperimentRun[] {experimentRun11, experimentRun12, experimentRun21, experimentRun22}) {
+      expectedRunIds.add(experimentRun.getId());
+    }
+    FindExperimentRuns findExperimentRuns =
+        FindExperimentRuns.newBuilder()
+            .setProjectId(project1.getId())
+            .setSortKey("name")
+            .setAscending(true)
+            .build();
+    FindExperimentRuns findExperimentRunsWithMask =
+        findExperimentRuns
+            .toBuilder()
+            .setFieldMask(FieldMask.newBuilder().addPaths("name"))
+            .build();
+    for (int pageLimit = 1; pageLimit <= 3; pageLimit++) {
+      assertEquals(
+          "ExperimentRun order not match with expected order",
+          expectedRunIds,
+          findExperimentRunIdsByPageToken(findExperimentRuns, pageLimit));
+      assertEquals(
+          "ExperimentRun order not match with expected order",
+          expectedRunIds,
+          findExperimentRunIdsByPageToken(findExperimentRunsWithMask, pageLimit));
+    }
+
+    // Skipping the count leaves the pages unchanged
+    assertEquals(
+        "ExperimentRun order not match with expected order",
+        expectedRunIds,
+        findExperimentRunIdsByPageToken(
+            findExperimentRuns.toBuilder().setSkipTotalRecords(true).build(), 2));
+
+    // Runs without an environment have a null sort value and are still paged, by their id
+    List<String> nullSortRunIds =
+        findExperimentRunIdsByPageToken(
+            findExperimentRuns.toBuilder().setSortKey("environment").build(), 1);
+    List<String> sortedRunIds = new ArrayList<>(expectedRunIds);
+    sortedRunIds.sort(null);
+    assertEquals("ExperimentRuns with null sort value not paged", sortedRunIds, nullSortRunIds);
+
+    String pageToken =
+        experimentRunServiceStub
+            .findExperimentRuns(
+                findExperimentRuns.toBuilder().setPageNumber(1).setPageLimit(1).build())
+            .getNextPageToken();
+    assertFalse("Page token not found in response", pageToken.isEmpty());
+
+    // A token is only valid for the request it was returned for
+    FindExperimentRuns[] otherRequests =
+        new FindExperimentRuns[] {
+          findExperimentRuns.toBuilder().setProjectId(project2.getId()).build(),
+          findExperimentRuns.toBuilder().setAscending(false).build(),
+          findExperimentRuns
+              .toBuilder()
+              .addPredicates(
+                  KeyValueQuery.newBuilder()
+                      .setKey("code_version")
+                      .setValue(Value.newBuilder().setStringValue("4.0"))
+                      .setOperator(OperatorEnum.Operator.EQ))
+              .build()
+        };
+    for (FindExperimentRuns otherRequest : otherRequests) {
+      try {
+        experimentRunServiceStub.findExperimentRuns(
+            otherRequest.toBuilder().setPageLimit(1).setPageToken(pageToken).build());
+        fail("Page token accepted for another request");
+      } catch (StatusRuntimeException e) {
+        assertEquals(Status.INVALID_ARGUMENT.getCode(), e.getStatus().getCode());
+      }
+    }
+
+    // A token whose content was changed is rejected
+    Struct.Builder tokenContent = Struct.newBuilder();
+    JsonFormat.parser()
+        .merge(
+            new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8),
+            tokenContent);
+    tokenContent.putFields("total_records", Value.newBuilder().setNumberValue(1000).build());
+    String changedPageToken =
+        Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                JsonFormat.printer().print(tokenContent).getBytes(StandardCharsets.UTF_8));
+    try {
+      experimentRunServiceStub.findExperimentRuns(
+          findExperimentRuns.toBuilder().setPageLimit(1).setPageToken(changedPageToken).build());
+      fail("Changed page token accepted");
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.INVALID_ARGUMENT.getCode(), e.getStatus().getCode());
+    }
+
+    LOGGER.info("FindExperimentRuns with page token test stop.........");
+  }
 }
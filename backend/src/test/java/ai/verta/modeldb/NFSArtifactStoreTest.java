@@ -4,19 +4,29 @@ import static org.junit.Assert.*;
 import static org.junit.Assume.assumeTrue;
 
 import ai.verta.common.Artifact;
+import ai.verta.common.ArtifactPart;
 import ai.verta.common.ArtifactTypeEnum.ArtifactType;
 import ai.verta.modeldb.authservice.*;
 import com.google.api.client.util.IOUtils;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.After;
@@ -207,4 +217,226 @@ public class NFSArtifactStoreTest extends TestsInit {
 
     LOGGER.info("get artifact test stop................................");
   }
+
+  private URL getDownloadUrl() throws MalformedURLException {
+    GetUrlForArtifact getUrlForArtifactRequest =
+        GetUrlForArtifact.newBuilder()
+            .setId(experimentRun.getId())
+            .setKey(artifactKey)
+            .setMethod("GET")
+            .setArtifactType(ArtifactType.IMAGE)
+            .build();
+    GetUrlForArtifact.Response getUrlForArtifactResponse =
+        experimentRunServiceStub.getUrlForArtifact(getUrlForArtifactRequest);
+    return new URL(getUrlForArtifactResponse.getUrl());
+  }
+
+  private static byte[] readAll(HttpURLConnection connection) throws IOException {
+    try (InputStream inputStream = connection.getInputStream()) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      IOUtils.copy(inputStream, outputStream);
+      return outputStream.toByteArray();
+    }
+  }
+
+  @Test
+  public void getArtifactRangeTest() throws Exception {
+    LOGGER.info("get artifact range test start................................");
+    storeArtifactTest();
+    URL url = getDownloadUrl();
+
+    HttpURLConnection fullConnection = (HttpURLConnection) url.openConnection();
+    byte[] content = readAll(fullConnection);
+    String eTag = fullConnection.getHeaderField("ETag");
+    assertEquals(HttpURLConnection.HTTP_OK, fullConnection.getResponseCode());
+    assertEquals("bytes", fullConnection.getHeaderField("Accept-Ranges"));
+    assertNotNull("ETag not found in download response", eTag);
+    assumeTrue(content.length > 2);
+
+    // Download both halves of the file concurrently, like a parallel range download
+    int middle = content.length / 2;
+    CompletableFuture<byte[]> firstHalf =
+        CompletableFuture.supplyAsync(() -> readRange(url, "bytes=0-" + (middle - 1), null));
+    CompletableFuture<byte[]> secondHalf =
+        CompletableFuture.supplyAsync(() -> readRange(url, "bytes=" + middle + "-", null));
+    ByteArrayOutputStream combined = new ByteArrayOutputStream();
+    combined.write(firstHalf.get());
+    combined.write(secondHalf.get());
+    assertArrayEquals(content, combined.toByteArray());
+
+    // Resume from the middle of the file while it is unchanged
+    assertArrayEquals(
+        Arrays.copyOfRange(content, middle, content.length),
+        readRange(url, "bytes=" + middle + "-", eTag));
+    // A stale If-Range returns the whole file
+    assertArrayEquals(content, readRange(url, "bytes=" + middle + "-", "\"stale\""));
+    // Suffix range
+    assertArrayEquals(
+        Arrays.copyOfRange(content, content.length - 2, content.length),
+        readRange(url, "bytes=-2", null));
+
+    HttpURLConnection unsatisfiable = (HttpURLConnection) url.openConnection();
+    unsatisfiable.setRequestProperty("Range", "bytes=" + content.length + "-");
+    assertEquals(416, unsatisfiable.getResponseCode());
+    assertEquals("bytes */" + content.length, unsatisfiable.getHeaderField("Content-Range"));
+
+    HttpURLConnection conditional = (HttpURLConnection) url.openConnection();
+    conditional.setRequestProperty("If-None-Match", eTag);
+    assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, conditional.getResponseCode());
+
+    LOGGER.info("get artifact range test stop................................");
+  }
+
+  private static byte[] readRange(URL url, String range, String ifRange) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      connection.setRequestProperty("Range", range);
+      if (ifRange != null) {
+        connection.setRequestProperty("If-Range", ifRange);
+      }
+      byte[] content = readAll(connection);
+      if (ifRange == null || connection.getResponseCode() == 206) {
+        assertEquals(206, connection.getResponseCode());
+        assertNotNull(connection.getHeaderField("Content-Range"));
+      }
+      return content;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String getPartUploadUrl(long partNumber) {
+    GetUrlForArtifact getUrlForArtifactRequest =
+        GetUrlForArtifact.newBuilder()
+            .setId(experimentRun.getId())
+            .setKey(artifactKey)
+            .setMethod("PUT")
+            .setArtifactType(ArtifactType.IMAGE)
+            .setPartNumber(partNumber)
+            .build();
+    GetUrlForArtifact.Response getUrlForArtifactResponse =
+        experimentRunServiceStub.getUrlForArtifact(getUrlForArtifactRequest);
+    assertTrue(getUrlForArtifactResponse.getMultipartUploadOk());
+    return getUrlForArtifactResponse.getUrl();
+  }
+
+  private static String uploadPart(String url, byte[] part) {
+    try {
+      HttpURLConnection httpClient = (HttpURLConnection) new URL(url).openConnection();
+      httpClient.setRequestMethod("PUT");
+      httpClient.setDoOutput(true);
+      try (OutputStream out = httpClient.getOutputStream()) {
+        out.write(part);
+      }
+      assertEquals(HttpURLConnection.HTTP_OK, httpClient.getResponseCode());
+      return httpClient.getHeaderField("ETag");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Test
+  public void multipartArtifactTest() throws Exception {
+    LOGGER.info("multipart artifact test start................................");
+    byte[] content = new byte[3 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(content);
+    int partSize = 1024 * 1024;
+    int partCount = (content.length + partSize - 1) / partSize;
+
+    // Upload the parts concurrently, as a client uploading in parallel would
+    List<String> partUrls = new ArrayList<>();
+    for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+      partUrls.add(getPartUploadUrl(partNumber));
+    }
+    List<CompletableFuture<String>> uploads = new ArrayList<>();
+    for (int i = 0; i < partCount; i++) {
+      byte[] part =
+          Arrays.copyOfRange(content, i * partSize, Math.min(content.length, (i + 1) * partSize));
+      String url = partUrls.get(i);
+      uploads.add(CompletableFuture.supplyAsync(() -> uploadPart(url, part)));
+    }
+    for (int i = 0; i < partCount; i++) {
+      String eTag = uploads.get(i).get();
+      assertNotNull("ETag not found in part upload response", eTag);
+      experimentRunServiceStub.commitArtifactPart(
+          CommitArtifactPart.newBuilder()
+              .setId(experimentRun.getId())
+              .setKey(artifactKey)
+              .setArtifactPart(
+                  ArtifactPart.newBuilder().setPartNumber(i + 1).setEtag(eTag).build())
+              .build());
+    }
+    experimentRunServiceStub.commitMultipartArtifact(
+        CommitMultipartArtifact.newBuilder()
+            .setId(experimentRun.getId())
+            .setKey(artifactKey)
+            .build());
+
+    HttpURLConnection connection = (HttpURLConnection) getDownloadUrl().openConnection();
+    assertArrayEquals(content, readAll(connection));
+    LOGGER.info("multipart artifact test stop................................");
+  }
+
+  @Test
+  public void storeArtifactOutsideRootTest() throws Exception {
+    LOGGER.info("store artifact outside root test start................................");
+    GetUrlForArtifact getUrlForArtifactRequest =
+        GetUrlForArtifact.newBuilder()
+            .setId(experimentRun.getId())
+            .setKey(artifactKey)
+            .setMethod("PUT")
+            .setArtifactType(ArtifactType.IMAGE)
+            .build();
+    URL uploadUrl =
+        new URL(experimentRunServiceStub.getUrlForArtifact(getUrlForArtifactRequest).getUrl());
+
+    // Paths escaping the root folder and paths into the multipart staging directory are rejected
+    for (String artifactPath :
+        Arrays.asList("../outside_root.png", "/tmp/outside_root.png", ".multipart/part-1")) {
+      URL url =
+          new URL(
+              uploadUrl.getProtocol(),
+              uploadUrl.getHost(),
+              uploadUrl.getPort(),
+              uploadUrl.getPath()
+                  + "?artifact_path="
+                  + URLEncoder.encode(artifactPath, StandardCharsets.UTF_8));
+      HttpURLConnection httpClient = (HttpURLConnection) url.openConnection();
+      httpClient.setRequestMethod("PUT");
+      httpClient.setDoOutput(true);
+      try (OutputStream out = httpClient.getOutputStream()) {
+        out.write(new byte[] {1, 2, 3});
+      }
+      assertNotEquals(
+          "Artifact stored at " + artifactPath,
+          HttpURLConnection.HTTP_OK,
+          httpClient.getResponseCode());
+    }
+    LOGGER.info("store artifact outside root test stop................................");
+  }
+
+  @Test
+  public void getArtifactOutsideRootTest() throws Exception {
+    LOGGER.info("get artifact outside root test start................................");
+    URL downloadUrl = getDownloadUrl();
+
+    // Files outside the root folder and staged multipart parts are never served
+    for (String artifactPath :
+        Arrays.asList("../../../../../../etc/hostname", "/etc/hostname", ".multipart")) {
+      URL url =
+          new URL(
+              downloadUrl.getProtocol(),
+              downloadUrl.getHost(),
+              downloadUrl.getPort(),
+              downloadUrl.getPath()
+                  + "?artifact_path="
+                  + URLEncoder.encode(artifactPath, StandardCharsets.UTF_8));
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      assertEquals(
+          "Artifact served for " + artifactPath,
+          HttpURLConnection.HTTP_NOT_FOUND,
+          connection.getResponseCode());
+    }
+    LOGGER.info("get artifact outside root test stop................................");
+  }
 }
@@ -0,0 +1,299 @@
+package ai.verta.modeldb;
+
+import static org.junit.Assert.*;
+
+import ai.verta.common.KeyValue;
+import ai.verta.common.ValueTypeEnum.ValueType;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.modeldb.experimentRun.subtypes.ObservationHandler;
+import com.google.protobuf.Value;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.junit.runners.MethodSorters;
+
+@RunWith(JUnit4.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ObservationHandlerTest extends TestsInit {
+
+  private static final Logger LOGGER = LogManager.getLogger(ObservationHandlerTest.class);
+  private static final int OBSERVATION_COUNT = 1000;
+  private static final long ROLLUP_BUCKET_SIZE = 100;
+  private static final Comparator<Observation> EPOCH_COMPARATOR =
+      Comparator.comparingDouble(observation -> observation.getEpochNumber().getNumberValue());
+
+  private static Project project;
+  private static ExperimentRun experimentRun;
+  private static ExecutorService executor;
+
+  @Before
+  public void createEntities() {
+    CreateProject createProjectRequest =
+        ProjectTest.getCreateProjectRequest("project-" + new Date().getTime());
+    project = projectServiceStub.createProject(createProjectRequest).getProject();
+
+    CreateExperiment createExperimentRequest =
+        ExperimentTest.getCreateExperimentRequest(
+            project.getId(), "Experiment-" + new Date().getTime());
+    Experiment experiment =
+        experimentServiceStub.createExperiment(createExperimentRequest).getExperiment();
+
+    CreateExperimentRun createExperimentRunRequest =
+        ExperimentRunTest.getCreateExperimentRunRequest(
+            project.getId(), experiment.getId(), "ExperimentRun-" + new Date().getTime());
+    experimentRun =
+        experimentRunServiceStub.createExperimentRun(createExperimentRunRequest).getExperimentRun();
+
+    executor = Executors.newFixedThreadPool(config.grpcServer.threadCount);
+  }
+
+  @After
+  public void removeEntities() throws InterruptedException {
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    executor = null;
+
+    DeleteProject.Response deleteProjectResponse =
+        projectServiceStub.deleteProject(DeleteProject.newBuilder().setId(project.getId()).build());
+    assertTrue(deleteProjectResponse.getStatus());
+    project = null;
+    experimentRun = null;
+  }
+
+  private static ObservationHandler createHandler(long rollupBucketSize) {
+    return new ObservationHandler(
+        executor,
+        config.getJdbi(),
+        rollupBucketSize,
+        config.database.RdbConfiguration.isPostgres());
+  }
+
+  // Sawtooth series: the value of each epoch is its remainder by 100
+  private static Observation getObservation(String key, long epoch) {
+    return Observation.newBuilder()
+        .setAttribute(
+            KeyValue.newBuilder()
+                .setKey(key)
+                .setValue(Value.newBuilder().setNumberValue(epoch % 100))
+                .setValueType(ValueType.NUMBER))
+        .setEpochNumber(Value.newBuilder().setNumberValue(epoch))
+        .build();
+  }
+
+  private static List<Long> getEpochs(List<Observation> observations) {
+    List<Long> epochs = new ArrayList<>();
+    for (Observation observation : observations) {
+      epochs.add((long) observation.getEpochNumber().getNumberValue());
+    }
+    return epochs;
+  }
+
+  private static void assertMinMaxPoints(List<Observation> points) {
+    // Every 100 epochs hold one minimum, at their first epoch, and one maximum, at their last
+    assertEquals(OBSERVATION_COUNT / 100 * 2, points.size());
+    for (int i = 0; i < points.size(); i++) {
+      Observation point = points.get(i);
+      long bucketStart = i / 2 * 100L;
+      if (i % 2 == 0) {
+        assertEquals(bucketStart, (long) point.getEpochNumber().getNumberValue());
+        assertEquals(0, point.getAttribute().getValue().getNumberValue(), 0.0);
+      } else {
+        assertEquals(bucketStart + 99, (long) point.getEpochNumber().getNumberValue());
+        assertEquals(99, point.getAttribute().getValue().getNumberValue(), 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void a_downsampleObservationsTest() throws Exception {
+    LOGGER.info("downsample observations test start................................");
+
+    ObservationHandler observationHandler = createHandler(0);
+    final var runId = experimentRun.getId();
+    final var key = "downsample_loss";
+    List<Observation> observations = new ArrayList<>();
+    for (int epoch = 0; epoch < OBSERVATION_COUNT; epoch++) {
+      observations.add(getObservation(key, epoch));
+    }
+    observationHandler
+        .logObservations(runId, observations, Calendar.getInstance().getTimeInMillis())
+        .get();
+
+    assertEquals(
+        OBSERVATION_COUNT,
+        observationHandler
+            .getObservations(runId, key, GetObservations.DownsampleMethod.NONE, 10)
+            .get()
+            .size());
+
+    List<Long> everyNth =
+        getEpochs(
+            observationHandler
+                .getObservations(runId, key, GetObservations.DownsampleMethod.EVERY_NTH, 100)
+                .get());
+    assertEquals(100, everyNth.size());
+    for (int i = 0; i < everyNth.size(); i++) {
+      assertEquals(i * 10L, (long) everyNth.get(i));
+    }
+
+    assertMinMaxPoints(
+        observationHandler
+            .getObservations(runId, key, GetObservations.DownsampleMethod.MIN_MAX, 20)
+            .get());
+
+    List<Long> lttb =
+        getEpochs(
+            observationHandler
+                .getObservations(runId, key, GetObservations.DownsampleMethod.LTTB, 50)
+                .get());
+    assertTrue("Too many points kept", lttb.size() <= 50 && lttb.size() > 2);
+    assertEquals(0L, (long) lttb.get(0));
+    assertEquals(OBSERVATION_COUNT - 1L, (long) lttb.get(lttb.size() - 1));
+    for (int i = 1; i < lttb.size(); i++) {
+      assertTrue("Downsampled points not in epoch order", lttb.get(i - 1) < lttb.get(i));
+    }
+
+    LOGGER.info("downsample observations test stop................................");
+  }
+
+  @Test
+  public void b_concurrentRollupTest() throws Exception {
+    LOGGER.info("concurrent observation rollup test start................................");
+
+    ObservationHandler observationHandler = createHandler(ROLLUP_BUCKET_SIZE);
+    final var runId = experimentRun.getId();
+    final var key = "rollup_loss";
+    final var now = Calendar.getInstance().getTimeInMillis();
+
+    // Every call logs into every bucket, so that concurrent transactions update the same rows
+    final int callCount = 8;
+    List<InternalFuture<Void>> calls = new ArrayList<>();
+    for (int call = 0; call < callCount; call++) {
+      List<Observation> observations = new ArrayList<>();
+      for (int epoch = call; epoch < OBSERVATION_COUNT; epoch += callCount) {
+        observations.add(getObservation(key, epoch));
+      }
+      calls.add(observationHandler.logObservations(runId, observations, now));
+    }
+    for (InternalFuture<Void> call : calls) {
+      call.get();
+    }
+
+    List<long[]> buckets =
+        config
+            .getJdbi()
+            .withHandle(
+                handle ->
+                    handle
+                        .createQuery(
+                            "select bucket, point_count, min_epoch, max_epoch from observation_rollup "
+                                + "where experiment_run_id =:run_id and kv_key =:key order by bucket")
+                        .bind("run_id", runId)
+                        .bind("key", key)
+                        .map(
+                            (rs, ctx) ->
+                                new long[] {
+                                  rs.getLong("bucket"),
+                                  rs.getLong("point_count"),
+                                  rs.getLong("min_epoch"),
+                                  rs.getLong("max_epoch")
+                                })
+                        .list())
+            .get();
+    assertEquals(
+        "Rollup buckets duplicated or missing",
+        OBSERVATION_COUNT / ROLLUP_BUCKET_SIZE,
+        buckets.size());
+    for (int i = 0; i < buckets.size(); i++) {
+      long[] bucket = buckets.get(i);
+      assertEquals(i, bucket[0]);
+      assertEquals("Rollup bucket lost an update", ROLLUP_BUCKET_SIZE, bucket[1]);
+      assertEquals(i * ROLLUP_BUCKET_SIZE, bucket[2]);
+      assertEquals(i * ROLLUP_BUCKET_SIZE + 99, bucket[3]);
+    }
+
+    // The counts add up, so MIN_MAX is answered from the rollup
+    assertMinMaxPoints(
+        observationHandler
+            .getObservations(runId, key, GetObservations.DownsampleMethod.MIN_MAX, 20)
+            .get());
+
+    LOGGER.info("concurrent observation rollup test stop................................");
+  }
+
+  @Test
+  public void c_batchedLogMatchesOneByOneLogTest() throws Exception {
+    LOGGER.info("batched log matches one by one log test start................................");
+
+    ObservationHandler observationHandler = createHandler(0);
+    final var runId = experimentRun.getId();
+    final var now = Calendar.getInstance().getTimeInMillis();
+    final int keyCount = 4;
+    final int observationCount = 40;
+
+    // Observation i is logged under key i % keyCount without an epoch, so that the epochs of a
+    // key are inferred in the order of its observations in the request
+    for (String keyPrefix : new String[] {"one_by_one_", "batched_"}) {
+      List<Observation> observations = new ArrayList<>();
+      for (int i = 0; i < observationCount; i++) {
+        observations.add(
+            Observation.newBuilder()
+                .setAttribute(
+                    KeyValue.newBuilder()
+                        .setKey(keyPrefix + (i % keyCount))
+                        .setValue(Value.newBuilder().setNumberValue(i))
+                        .setValueType(ValueType.NUMBER))
+                .build());
+      }
+      if (keyPrefix.equals("batched_")) {
+        observationHandler.logObservations(runId, observations, now).get();
+      } else {
+        for (Observation observation : observations) {
+          observationHandler
+              .logObservations(runId, Collections.singletonList(observation), now)
+              .get();
+        }
+      }
+    }
+
+    for (int key = 0; key < keyCount; key++) {
+      List<Observation> oneByOne =
+          new ArrayList<>(observationHandler.getObservations(runId, "one_by_one_" + key).get());
+      List<Observation> batched =
+          new ArrayList<>(observationHandler.getObservations(runId, "batched_" + key).get());
+      oneByOne.sort(EPOCH_COMPARATOR);
+      batched.sort(EPOCH_COMPARATOR);
+      assertEquals(
+          "Persisted observation count of key " + key, observationCount / keyCount, batched.size());
+      assertEquals(oneByOne.size(), batched.size());
+      for (int epoch = 0; epoch < batched.size(); epoch++) {
+        assertEquals(epoch, batched.get(epoch).getEpochNumber().getNumberValue(), 0.0);
+        assertEquals(oneByOne.get(epoch).getEpochNumber(), batched.get(epoch).getEpochNumber());
+        assertEquals(
+            "Observation persisted out of order",
+            key + epoch * keyCount,
+            batched.get(epoch).getAttribute().getValue().getNumberValue(),
+            0.0);
+        assertEquals(
+            oneByOne.get(epoch).getAttribute().getValue(),
+            batched.get(epoch).getAttribute().getValue());
+      }
+    }
+
+    LOGGER.info("batched log matches one by one log test stop................................");
+  }
+}
@@ -0,0 +1,193 @@
+package ai.verta.modeldb;
+
+import static org.junit.Assert.*;
+
+import ai.verta.modeldb.cron_jobs.ParentTimestampUpdateCron;
+import ai.verta.modeldb.entities.ExperimentRunEntity;
+import ai.verta.modeldb.utils.ModelDBHibernateUtil;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.junit.runners.MethodSorters;
+
+@RunWith(JUnit4.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ParentTimestampUpdateCronTest extends TestsInit {
+
+  private static final Logger LOGGER = LogManager.getLogger(ParentTimestampUpdateCronTest.class);
+  private static final ModelDBHibernateUtil modelDBHibernateUtil =
+      ModelDBHibernateUtil.getInstance();
+  private static final int RECORD_UPDATE_LIMIT = 100;
+
+  private static Project project;
+  private static Experiment experiment;
+  private static ExperimentRun experimentRun;
+
+  @Before
+  public void createEntities() {
+    CreateProject createProjectRequest =
+        ProjectTest.getCreateProjectRequest("project-" + new Date().getTime());
+    project = projectServiceStub.createProject(createProjectRequest).getProject();
+
+    CreateExperiment createExperimentRequest =
+        ExperimentTest.getCreateExperimentRequest(
+            project.getId(), "Experiment-" + new Date().getTime());
+    experiment = experimentServiceStub.createExperiment(createExperimentRequest).getExperiment();
+
+    CreateExperimentRun createExperimentRunRequest =
+        ExperimentRunTest.getCreateExperimentRunRequest(
+            project.getId(), experiment.getId(), "ExperimentRun-" + new Date().getTime());
+    experimentRun =
+        experimentRunServiceStub.createExperimentRun(createExperimentRunRequest).getExperimentRun();
+  }
+
+  @After
+  public void removeEntities() {
+    DeleteProject.Response deleteProjectResponse =
+        projectServiceStub.deleteProject(DeleteProject.newBuilder().setId(project.getId()).build());
+    assertTrue(deleteProjectResponse.getStatus());
+    project = null;
+    experiment = null;
+    experimentRun = null;
+  }
+
+  private static ParentTimestampUpdateCron getCron(long minDirtyAgeMillis) {
+    return new ParentTimestampUpdateCron(
+        RECORD_UPDATE_LIMIT, minDirtyAgeMillis, config.database.RdbConfiguration.isPostgres());
+  }
+
+  private static long getDateUpdated(String table, String id) throws Exception {
+    return config
+        .getJdbi()
+        .withHandle(
+            handle ->
+                handle
+                    .createQuery("select date_updated from " + table + " where id = :id")
+                    .bind("id", id)
+                    .mapTo(Long.class)
+                    .one())
+        .get();
+  }
+
+  private static long getTableCount(String table) throws Exception {
+    return config
+        .getJdbi()
+        .withHandle(
+            handle -> handle.createQuery("select count(*) from " + table).mapTo(Long.class).one())
+        .get();
+  }
+
+  private static long getDirtyCount(String experimentId) throws Exception {
+    return config
+        .getJdbi()
+        .withHandle(
+            handle ->
+                handle
+                    .createQuery(
+                        "select count(*) from parent_timestamp_dirty "
+                            + "where entity_type = 'experiment' and entity_id = :id")
+                    .bind("id", experimentId)
+                    .mapTo(Long.class)
+                    .one())
+        .get();
+  }
+
+  // Updates the run through Hibernate, which records its experiment in the dirty table
+  private static long updateRun() {
+    long dateUpdated = experimentRun.getDateUpdated() + 100000L;
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      Transaction transaction = session.beginTransaction();
+      ExperimentRunEntity experimentRunEntity =
+          session.get(ExperimentRunEntity.class, experimentRun.getId());
+      experimentRunEntity.setDate_updated(dateUpdated);
+      session.update(experimentRunEntity);
+      transaction.commit();
+    }
+    return dateUpdated;
+  }
+
+  @Test
+  public void a_propagateRunToProjectTest() throws Exception {
+    LOGGER.info("propagate run timestamp to project test start................................");
+
+    long dateUpdated = updateRun();
+    // Experiments go first in a tick, so the project they mark is updated in the same tick
+    getCron(0L).run();
+
+    assertEquals(
+        "Experiment date_updated not propagated from its run",
+        dateUpdated,
+        getDateUpdated("experiment", experiment.getId()));
+    assertEquals(
+        "Project date_updated not propagated from its experiment",
+        dateUpdated,
+        getDateUpdated("project", project.getId()));
+
+    LOGGER.info("propagate run timestamp to project test stop................................");
+  }
+
+  @Test
+  public void b_minDirtyAgeTest() throws Exception {
+    LOGGER.info("min dirty age test start................................");
+
+    long dateUpdated = updateRun();
+    getCron(TimeUnit.HOURS.toMillis(1)).run();
+    assertEquals(
+        "Experiment mark removed before it is old enough", 1, getDirtyCount(experiment.getId()));
+
+    // The mark is kept for the next tick
+    getCron(0L).run();
+    assertEquals("Experiment mark not removed", 0, getDirtyCount(experiment.getId()));
+    assertEquals(
+        "Experiment date_updated not propagated from its run",
+        dateUpdated,
+        getDateUpdated("experiment", experiment.getId()));
+
+    LOGGER.info("min dirty age test stop................................");
+  }
+
+  @Test
+  public void c_reconcileUnmarkedParentsTest() throws Exception {
+    LOGGER.info("reconcile unmarked parents test start................................");
+
+    // A bulk update does not go through Hibernate, so nothing marks the experiment
+    long dateUpdated = experimentRun.getDateUpdated() + 100000L;
+    config
+        .getJdbi()
+        .useHandle(
+            handle ->
+                handle
+                    .createUpdate("update experiment_run set date_updated = :date where id = :id")
+                    .bind("date", dateUpdated)
+                    .bind("id", experimentRun.getId())
+                    .execute())
+        .get();
+
+    // Enough ticks for the reconciliation to walk every experiment once
+    ParentTimestampUpdateCron parentTimestampUpdateCron = getCron(0L);
+    long ticks = getTableCount("experiment") / RECORD_UPDATE_LIMIT + 1;
+    for (long i = 0; i < ticks; i++) {
+      parentTimestampUpdateCron.run();
+    }
+
+    assertEquals(
+        "Experiment date_updated not reconciled with its run",
+        dateUpdated,
+        getDateUpdated("experiment", experiment.getId()));
+    assertEquals(
+        "Project date_updated not propagated from its experiment",
+        dateUpdated,
+        getDateUpdated("project", project.getId()));
+
+    LOGGER.info("reconcile unmarked parents test stop................................");
+  }
+}
@@ -0,0 +1,103 @@
+package ai.verta.modeldb;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import ai.verta.modeldb.artifactStore.storageservice.s3.RefCountedS3Client;
+import ai.verta.modeldb.artifactStore.storageservice.s3.S3Client;
+import ai.verta.modeldb.artifactStore.storageservice.s3.S3Service;
+import ai.verta.modeldb.config.S3Config;
+import io.prometheus.client.CollectorRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.junit.runners.MethodSorters;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+// Runs against a local S3-compatible store such as minio, configured through
+// artifactStoreConfig.S3.minioEndpoint, and is skipped when the tests use another artifact store.
+@RunWith(JUnit4.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class S3ArtifactStoreTest extends TestsInit {
+
+  private static final Logger LOGGER = LogManager.getLogger(S3ArtifactStoreTest.class);
+
+  private S3Config s3Config;
+
+  @Before
+  public void checkArtifactStore() {
+    assumeTrue(config.artifactStoreConfig.artifactStoreType.equals(ModelDBConstants.S3));
+    s3Config = config.artifactStoreConfig.S3;
+    assumeTrue(s3Config.minioEndpoint != null);
+  }
+
+  @Test
+  public void concurrentMultipartUploadTest() throws Exception {
+    LOGGER.info("concurrent multipart upload test start................................");
+
+    S3Service s3Service = new S3Service(s3Config.cloudBucketName);
+    // More uploads than part threads, each large enough to be split into parts, so that the
+    // uploads waiting for their parts would hold every part thread if they shared the pool
+    int uploadCount = s3Config.uploadThreadCount * 2;
+    byte[] contents = new byte[12 * 1024 * 1024];
+    new Random().nextBytes(contents);
+
+    List<String> keys = new ArrayList<>();
+    List<Future<String>> uploads = new ArrayList<>();
+    ExecutorService requestExecutor = Executors.newFixedThreadPool(uploadCount);
+    try {
+      for (int i = 0; i < uploadCount; i++) {
+        String key = "s3-upload-test/" + UUID.randomUUID() + ".bin";
+        keys.add(key);
+        uploads.add(
+            requestExecutor.submit(
+                () -> {
+                  MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/");
+                  request.setContentType("application/octet-stream");
+                  request.setContent(contents);
+                  return s3Service.uploadFile(key, request, 0L, null);
+                }));
+      }
+      for (Future<String> upload : uploads) {
+        assertFalse("Upload returned no ETag", upload.get(5, TimeUnit.MINUTES).isEmpty());
+      }
+    } finally {
+      requestExecutor.shutdownNow();
+    }
+
+    Double partsInFlight =
+        CollectorRegistry.defaultRegistry.getSampleValue("verta_backend_s3_upload_parts_in_flight");
+    assertEquals(0.0, partsInFlight, 0.0);
+
+    for (String key : keys) {
+      try (InputStream inputStream = s3Service.downloadFileFromStorage(key)) {
+        ByteArrayOutputStream downloaded = new ByteArrayOutputStream();
+        inputStream.transferTo(downloaded);
+        assertArrayEquals("Uploaded artifact not match", contents, downloaded.toByteArray());
+      }
+    }
+
+    S3Client s3Client = new S3Client(s3Config.cloudBucketName);
+    try (RefCountedS3Client client = s3Client.getRefCountedClient()) {
+      for (String key : keys) {
+        client.getClient().deleteObject(s3Config.cloudBucketName, key);
+      }
+    }
+
+    LOGGER.info("concurrent multipart upload test stop................................");
+  }
+}
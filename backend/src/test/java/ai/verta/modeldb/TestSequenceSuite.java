@@ -3,9 +3,15 @@ package ai.verta.modeldb;
 import ai.verta.modeldb.blobs.BlobEquality;
 import ai.verta.modeldb.blobs.BlobProtoEquality;
 import ai.verta.modeldb.blobs.DiffAndMerge;
+import ai.verta.modeldb.common.authservice.AuthzDecisionCacheTest;
+import ai.verta.modeldb.common.authservice.UACRequestBatcherTest;
+import ai.verta.modeldb.common.reconcilers.ReconcilerTest;
 import ai.verta.modeldb.lineage.LineageServiceImplNegativeTest;
 import ai.verta.modeldb.metadata.MetadataTest;
 import ai.verta.modeldb.utils.ModelDBUtilsTest;
+import ai.verta.modeldb.versioning.CommitTreeCacheTest;
+import ai.verta.modeldb.versioning.FileHasherTest;
+import ai.verta.modeldb.versioning.TreeElemTest;
 import ai.verta.modeldb.versioning.blob.visitors.ValidatorBlobDiffTest;
 import ai.verta.modeldb.versioning.blob.visitors.ValidatorBlobTest;
 import org.junit.runner.RunWith;
@@ -16,18 +22,28 @@ import org.junit.runners.Suite;
   ProjectTest.class,
   ExperimentTest.class,
   ExperimentRunTest.class,
+  ObservationHandlerTest.class,
+  ExperimentRunTimestampAggregatorTest.class,
   CollaboratorTest.class,
   CommentTest.class,
   HydratedServiceTest.class,
   DatasetTest.class,
+  DeleteEntitiesCronTest.class,
+  ParentTimestampUpdateCronTest.class,
   DatasetVersionTest.class,
   ModelDBUtilsTest.class,
+  UACRequestBatcherTest.class,
+  AuthzDecisionCacheTest.class,
+  ReconcilerTest.class,
   LineageTest.class,
   LineageServiceImplNegativeTest.class,
   FindProjectEntitiesTest.class,
   FindDatasetEntitiesTest.class,
   RepositoryTest.class,
   CommitTest.class,
+  TreeElemTest.class,
+  FileHasherTest.class,
+  CommitTreeCacheTest.class,
   MetadataTest.class,
   DiffTest.class,
   BlobEquality.class,
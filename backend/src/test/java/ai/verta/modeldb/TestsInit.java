@@ -29,6 +29,7 @@ public class TestsInit {
 
   protected static Config config;
   protected static DeleteEntitiesCron deleteEntitiesCron;
+  private static DAOSet daos;
   protected static AuthService authService;
 
   // all service stubs
@@ -44,6 +45,7 @@ public class TestsInit {
       experimentRunServiceStub;
   protected static ExperimentRunServiceGrpc.ExperimentRunServiceBlockingStub
       experimentRunServiceStubClient2;
+  protected static ExperimentRunServiceGrpc.ExperimentRunServiceStub experimentRunServiceAsyncStub;
   protected static CommentServiceGrpc.CommentServiceBlockingStub commentServiceBlockingStub;
   protected static OrganizationServiceGrpc.OrganizationServiceBlockingStub
       organizationServiceBlockingStub;
@@ -76,10 +78,10 @@ public class TestsInit {
     config = Config.getInstance();
     final Executor handleExecutor = FutureGrpc.initializeExecutor(config.grpcServer.threadCount);
     // Initialize services that we depend on
-    ServiceSet services = ServiceSet.fromConfig(config);
+    ServiceSet services = ServiceSet.fromConfig(config, handleExecutor);
     authService = services.authService;
     // Initialize data access
-    DAOSet daos = DAOSet.fromServices(services, config.getJdbi(), handleExecutor);
+    daos = DAOSet.fromServices(services, config.getJdbi(), handleExecutor);
     App.migrate(config);
 
     App.initializeBackendServices(serverBuilder, services, daos, handleExecutor);
@@ -123,6 +125,7 @@ public class TestsInit {
     experimentServiceStub = ExperimentServiceGrpc.newBlockingStub(channel);
     experimentRunServiceStub = ExperimentRunServiceGrpc.newBlockingStub(channel);
     experimentRunServiceStubClient2 = ExperimentRunServiceGrpc.newBlockingStub(client2Channel);
+    experimentRunServiceAsyncStub = ExperimentRunServiceGrpc.newStub(channel);
     commentServiceBlockingStub = CommentServiceGrpc.newBlockingStub(channel);
     versioningServiceBlockingStub = VersioningServiceGrpc.newBlockingStub(channel);
     versioningServiceBlockingStubClient2 = VersioningServiceGrpc.newBlockingStub(client2Channel);
@@ -147,6 +150,7 @@ public class TestsInit {
   @AfterClass
   public static void removeServerAndService() {
     App.initiateShutdown(0);
+    daos.timestampAggregator.shutdown();
 
     // Remove all entities
     // removeEntities();
@@ -0,0 +1,192 @@
+package ai.verta.modeldb.common.authservice;
+
+import ai.verta.common.ModelDBResourceEnum.ModelDBServiceResourceTypes;
+import ai.verta.modeldb.common.futures.InternalFuture;
+import ai.verta.modeldb.common.interceptors.MetadataForwarder;
+import ai.verta.uac.ModelDBActionEnum.ModelDBServiceActions;
+import com.google.common.base.Ticker;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AuthzDecisionCacheTest {
+
+  private static final long TTL_MILLIS = 2000;
+
+  private static class FakeTicker extends Ticker {
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+
+    void advance(long millis) {
+      nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+  }
+
+  private final FakeTicker ticker = new FakeTicker();
+  // Number of checks sent to UAC
+  private final AtomicInteger uacCalls = new AtomicInteger();
+
+  private static Metadata getHeaders(String email, String developerKey) {
+    Metadata headers = new Metadata();
+    if (email != null) {
+      headers.put(Metadata.Key.of("email", Metadata.ASCII_STRING_MARSHALLER), email);
+    }
+    if (developerKey != null) {
+      headers.put(
+          Metadata.Key.of("developer_key", Metadata.ASCII_STRING_MARSHALLER), developerKey);
+    }
+    return headers;
+  }
+
+  // Checks the permission as the caller of the headers, UAC allowing everything
+  private boolean isSelfAllowed(
+      AuthzDecisionCache cache,
+      Metadata headers,
+      ModelDBServiceActions action,
+      ModelDBServiceResourceTypes resourceType,
+      List<String> resourceIds)
+      throws Exception {
+    return Context.current()
+        .withValue(MetadataForwarder.METADATA_INFO, headers)
+        .call(
+            () ->
+                cache
+                    .isSelfAllowed(
+                        action,
+                        resourceType,
+                        resourceIds,
+                        () -> {
+                          uacCalls.incrementAndGet();
+                          return InternalFuture.completedInternalFuture(true);
+                        })
+                    .get());
+  }
+
+  private boolean isSelfAllowed(AuthzDecisionCache cache, String... resourceIds)
+      throws Exception {
+    return isSelfAllowed(
+        cache,
+        getHeaders("user@verta.ai", "key"),
+        ModelDBServiceActions.READ,
+        ModelDBServiceResourceTypes.PROJECT,
+        Arrays.asList(resourceIds));
+  }
+
+  @Test
+  public void decisionCachedPerCallerActionTypeAndIds() throws Exception {
+    AuthzDecisionCache cache = new AuthzDecisionCache(TTL_MILLIS, 100, ticker);
+    Metadata headers = getHeaders("user@verta.ai", "key");
+
+    Assert.assertTrue(isSelfAllowed(cache, "a", "b"));
+    // The order of the ids does not matter
+    Assert.assertTrue(isSelfAllowed(cache, "b", "a"));
+    Assert.assertEquals("Same check sent to UAC again", 1, uacCalls.get());
+
+    // Every part of the key makes another decision
+    Assert.assertTrue(
+        isSelfAllowed(
+            cache,
+            getHeaders("other@verta.ai", "key"),
+            ModelDBServiceActions.READ,
+            ModelDBServiceResourceTypes.PROJECT,
+            Arrays.asList("a", "b")));
+    Assert.assertTrue(
+        isSelfAllowed(
+            cache,
+            getHeaders("user@verta.ai", "other-key"),
+            ModelDBServiceActions.READ,
+            ModelDBServiceResourceTypes.PROJECT,
+            Arrays.asList("a", "b")));
+    Assert.assertTrue(
+        isSelfAllowed(
+            cache,
+            headers,
+            ModelDBServiceActions.UPDATE,
+            ModelDBServiceResourceTypes.PROJECT,
+            Arrays.asList("a", "b")));
+    Assert.assertTrue(
+        isSelfAllowed(
+            cache,
+            headers,
+            ModelDBServiceActions.READ,
+            ModelDBServiceResourceTypes.EXPERIMENT_RUN,
+            Arrays.asList("a", "b")));
+    Assert.assertTrue(isSelfAllowed(cache, "a"));
+    Assert.assertEquals("Different checks answered from the cache", 6, uacCalls.get());
+  }
+
+  @Test
+  public void callerWithoutCredentialsNotCached() throws Exception {
+    AuthzDecisionCache cache = new AuthzDecisionCache(TTL_MILLIS, 100, ticker);
+    for (int i = 0; i < 2; i++) {
+      Assert.assertTrue(
+          isSelfAllowed(
+              cache,
+              getHeaders(null, null),
+              ModelDBServiceActions.READ,
+              ModelDBServiceResourceTypes.PROJECT,
+              Collections.singletonList("a")));
+    }
+    Assert.assertEquals(2, uacCalls.get());
+  }
+
+  @Test
+  public void decisionExpiresAfterTtl() throws Exception {
+    AuthzDecisionCache cache = new AuthzDecisionCache(TTL_MILLIS, 100, ticker);
+
+    isSelfAllowed(cache, "a");
+    ticker.advance(TTL_MILLIS - 1);
+    isSelfAllowed(cache, "a");
+    Assert.assertEquals("Decision expired before its TTL", 1, uacCalls.get());
+
+    ticker.advance(1);
+    isSelfAllowed(cache, "a");
+    Assert.assertEquals("Decision not expired after its TTL", 2, uacCalls.get());
+  }
+
+  @Test
+  public void zeroTtlBypassesCache() throws Exception {
+    AuthzDecisionCache cache = new AuthzDecisionCache(0, 100, ticker);
+    for (int i = 0; i < 3; i++) {
+      isSelfAllowed(cache, "a");
+    }
+    Assert.assertEquals("Check answered from a disabled cache", 3, uacCalls.get());
+
+    cache.invalidateResource("a");
+    cache.invalidateAll();
+  }
+
+  @Test
+  public void invalidationDropsDecisions() throws Exception {
+    AuthzDecisionCache cache = new AuthzDecisionCache(TTL_MILLIS, 100, ticker);
+    isSelfAllowed(cache, "a", "b");
+    isSelfAllowed(cache, "c");
+
+    // A role binding set on a resource drops the decisions involving it
+    cache.invalidateResource("b");
+    isSelfAllowed(cache, "c");
+    Assert.assertEquals("Decision of another resource dropped", 2, uacCalls.get());
+    isSelfAllowed(cache, "a", "b");
+    Assert.assertEquals("Decision of the resource not dropped", 3, uacCalls.get());
+
+    // Deleted role bindings drop every decision
+    cache.invalidateAll();
+    isSelfAllowed(cache, "a", "b");
+    isSelfAllowed(cache, "c");
+    Assert.assertEquals("Decisions not dropped", 5, uacCalls.get());
+  }
+}
@@ -0,0 +1,149 @@
+package ai.verta.modeldb.common.authservice;
+
+import ai.verta.modeldb.common.futures.InternalFuture;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UACRequestBatcherTest {
+
+  private static final long BATCH_WINDOW_MILLIS = 200;
+
+  // Records the arguments of every request sent and answers with the union of its arguments
+  private static class RecordingRequest
+      implements Function<List<Set<String>>, InternalFuture<Set<String>>> {
+    private final List<List<Set<String>>> requests = new CopyOnWriteArrayList<>();
+
+    @Override
+    public InternalFuture<Set<String>> apply(List<Set<String>> arguments) {
+      requests.add(new ArrayList<>(arguments));
+      Set<String> response = new HashSet<>();
+      arguments.forEach(response::addAll);
+      return InternalFuture.completedInternalFuture(response);
+    }
+  }
+
+  @Test
+  public void callsWithSameKeyShareRequest() throws Exception {
+    UACRequestBatcher<String, Set<String>, Set<String>> batcher =
+        new UACRequestBatcher<>("test", BATCH_WINDOW_MILLIS);
+    RecordingRequest request = new RecordingRequest();
+
+    InternalFuture<Set<String>> first =
+        batcher.submit("caller", Collections.singleton("a"), request);
+    InternalFuture<Set<String>> second =
+        batcher.submit("caller", Collections.singleton("b"), request);
+    InternalFuture<Set<String>> third =
+        batcher.submit("caller", Collections.singleton("c"), request);
+
+    Set<String> expected = new HashSet<>(Arrays.asList("a", "b", "c"));
+    Assert.assertEquals(expected, first.get());
+    Assert.assertEquals(expected, second.get());
+    Assert.assertEquals(expected, third.get());
+    Assert.assertEquals("Calls were not merged in one request", 1, request.requests.size());
+    Assert.assertEquals(3, request.requests.get(0).size());
+  }
+
+  @Test
+  public void callsWithDifferentKeysUseSeparateRequests() throws Exception {
+    UACRequestBatcher<String, Set<String>, Set<String>> batcher =
+        new UACRequestBatcher<>("test", BATCH_WINDOW_MILLIS);
+    RecordingRequest request = new RecordingRequest();
+
+    InternalFuture<Set<String>> first =
+        batcher.submit("caller1", Collections.singleton("a"), request);
+    InternalFuture<Set<String>> second =
+        batcher.submit("caller2", Collections.singleton("b"), request);
+
+    Assert.assertEquals(Collections.singleton("a"), first.get());
+    Assert.assertEquals(Collections.singleton("b"), second.get());
+    Assert.assertEquals(2, request.requests.size());
+  }
+
+  @Test
+  public void callsAfterFlushOpenNewBatch() throws Exception {
+    UACRequestBatcher<String, Set<String>, Set<String>> batcher =
+        new UACRequestBatcher<>("test", BATCH_WINDOW_MILLIS);
+    RecordingRequest request = new RecordingRequest();
+
+    Assert.assertEquals(
+        Collections.singleton("a"),
+        batcher.submit("caller", Collections.singleton("a"), request).get());
+    Assert.assertEquals(
+        Collections.singleton("b"),
+        batcher.submit("caller", Collections.singleton("b"), request).get());
+    Assert.assertEquals(2, request.requests.size());
+  }
+
+  @Test
+  public void zeroWindowDisablesBatching() throws Exception {
+    UACRequestBatcher<String, Set<String>, Set<String>> batcher =
+        new UACRequestBatcher<>("test", 0);
+    RecordingRequest request = new RecordingRequest();
+
+    batcher.submit("caller", Collections.singleton("a"), request).get();
+    batcher.submit("caller", Collections.singleton("b"), request).get();
+    Assert.assertEquals(2, request.requests.size());
+  }
+
+  @Test
+  public void failedRequestFailsEveryCallOfBatch() throws Exception {
+    UACRequestBatcher<String, Set<String>, Set<String>> batcher =
+        new UACRequestBatcher<>("test", BATCH_WINDOW_MILLIS);
+    StatusRuntimeException error = Status.UNAVAILABLE.asRuntimeException();
+    Function<List<Set<String>>, InternalFuture<Set<String>>> failingRequest =
+        arguments -> InternalFuture.failedStage(error);
+
+    List<InternalFuture<Set<String>>> calls =
+        Arrays.asList(
+            batcher.submit("caller", Collections.singleton("a"), failingRequest),
+            batcher.submit("caller", Collections.singleton("b"), failingRequest));
+    for (InternalFuture<Set<String>> call : calls) {
+      try {
+        call.get();
+        Assert.fail("Call succeeded although its request failed");
+      } catch (ExecutionException e) {
+        Assert.assertSame(error, e.getCause());
+      }
+    }
+  }
+
+  @Test
+  public void requestThrowingFailsEveryCallOfBatch() throws Exception {
+    UACRequestBatcher<String, Set<String>, Set<String>> batcher =
+        new UACRequestBatcher<>("test", BATCH_WINDOW_MILLIS);
+    StatusRuntimeException error = Status.PERMISSION_DENIED.asRuntimeException();
+    Function<List<Set<String>>, InternalFuture<Set<String>>> throwingRequest =
+        arguments -> {
+          throw error;
+        };
+
+    InternalFuture<Set<String>> call =
+        batcher.submit("caller", Collections.singleton("a"), throwingRequest);
+    try {
+      call.get();
+      Assert.fail("Call succeeded although its request failed");
+    } catch (ExecutionException e) {
+      Assert.assertSame(error, e.getCause());
+    }
+
+    // The failed batch is closed, so the next call sends a new request
+    RecordingRequest request = new RecordingRequest();
+    Assert.assertEquals(
+        Collections.singleton("b"),
+        batcher.submit("caller", Collections.singleton("b"), request).get());
+  }
+}
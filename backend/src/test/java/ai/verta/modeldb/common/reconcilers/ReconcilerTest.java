@@ -0,0 +1,216 @@
+package ai.verta.modeldb.common.reconcilers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReconcilerTest {
+
+  private static final Logger LOGGER = LogManager.getLogger(ReconcilerTest.class);
+  private static final long RETRY_INITIAL_BACKOFF_MILLIS = 200;
+
+  // Records every batch and its result, holds the batch of "block" until released and fails the
+  // batches of "fail"
+  private static class StubReconciler extends Reconciler<String> {
+    private final BlockingQueue<Set<String>> batches = new LinkedBlockingQueue<>();
+    private final BlockingQueue<ReconcileResult> results = new LinkedBlockingQueue<>();
+    private final List<Long> failedAttemptNanos = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch blockStarted = new CountDownLatch(1);
+    private final CountDownLatch blockReleased = new CountDownLatch(1);
+
+    StubReconciler(ReconcilerConfig config) {
+      super(config, LOGGER);
+    }
+
+    @Override
+    public void resync() {}
+
+    @Override
+    protected ReconcileResult reconcile(Set<String> objs) {
+      batches.add(new TreeSet<>(objs));
+      if (objs.contains("block")) {
+        blockStarted.countDown();
+        try {
+          blockReleased.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (objs.contains("fail")) {
+        failedAttemptNanos.add(System.nanoTime());
+        // Both ways of failing a batch are retried
+        if (failedAttemptNanos.size() == 1) {
+          throw new IllegalStateException("First attempt fails");
+        }
+        return new ReconcileResult().retry(objs);
+      }
+      return new ReconcileResult();
+    }
+
+    @Override
+    protected void onReconciled(ReconcileResult result) {
+      results.add(result);
+    }
+
+    // Waits for a worker to take the batch of "block"
+    void awaitBlockStarted() throws InterruptedException {
+      Assert.assertTrue(blockStarted.await(10, TimeUnit.SECONDS));
+    }
+
+    Set<String> nextBatch(long timeoutMillis) throws InterruptedException {
+      return batches.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    ReconcileResult nextResult(long timeoutMillis) throws InterruptedException {
+      return results.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  // One worker taking one element at a time, so the batches follow the queue order
+  private static ReconcilerConfig getConfig() {
+    ReconcilerConfig config = new ReconcilerConfig();
+    config.resyncPeriodSeconds = 3600;
+    config.batchSize = 1;
+    config.workerCount = 1;
+    config.retryInitialBackoffMillis = RETRY_INITIAL_BACKOFF_MILLIS;
+    config.retryMaxBackoffMillis = 10 * RETRY_INITIAL_BACKOFF_MILLIS;
+    config.maxRetries = 2;
+    return config;
+  }
+
+  @Test
+  public void elementsReconciledInInsertOrder() throws Exception {
+    StubReconciler reconciler = new StubReconciler(getConfig());
+    try {
+      reconciler.insert("block");
+      reconciler.awaitBlockStarted();
+      Assert.assertEquals(Collections.singleton("block"), reconciler.nextBatch(0));
+
+      List<String> elements = Arrays.asList("c", "a", "d", "b");
+      elements.forEach(reconciler::insert);
+      Assert.assertEquals(elements.size(), reconciler.getQueueDepth());
+      reconciler.blockReleased.countDown();
+
+      for (String element : elements) {
+        Assert.assertEquals(
+            "Elements not reconciled in insert order",
+            Collections.singleton(element),
+            reconciler.nextBatch(10000));
+      }
+      Assert.assertEquals(0, reconciler.getQueueDepth());
+    } finally {
+      reconciler.blockReleased.countDown();
+      reconciler.shutdown(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void queuedElementNotQueuedAgain() throws Exception {
+    StubReconciler reconciler = new StubReconciler(getConfig());
+    try {
+      reconciler.insert("block");
+      reconciler.awaitBlockStarted();
+      reconciler.nextBatch(0);
+
+      reconciler.insert("a");
+      reconciler.insert("b");
+      reconciler.insert("a");
+      Assert.assertEquals("Queued element queued again", 2, reconciler.getQueueDepth());
+      reconciler.blockReleased.countDown();
+
+      Assert.assertEquals(Collections.singleton("a"), reconciler.nextBatch(10000));
+      Assert.assertEquals(Collections.singleton("b"), reconciler.nextBatch(10000));
+      Assert.assertNull("Element reconciled twice", reconciler.nextBatch(2000));
+
+      // Once taken off the queue, the element can be queued again
+      reconciler.insert("a");
+      Assert.assertEquals(Collections.singleton("a"), reconciler.nextBatch(10000));
+    } finally {
+      reconciler.blockReleased.countDown();
+      reconciler.shutdown(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void failedElementRetriedWithBackoffThenDropped() throws Exception {
+    ReconcilerConfig config = getConfig();
+    StubReconciler reconciler = new StubReconciler(config);
+    try {
+      reconciler.insert("fail");
+
+      // The first attempt and maxRetries retries, the last one not retried again
+      for (int attempt = 0; attempt <= config.maxRetries; attempt++) {
+        ReconcileResult result = reconciler.nextResult(10000);
+        Assert.assertNotNull("Failed element not retried", result);
+        Assert.assertEquals(1, result.getBatchSize());
+        Assert.assertEquals(attempt < config.maxRetries ? 1 : 0, result.getRetriedCount());
+      }
+      Assert.assertNull(
+          "Element not dropped after its retries",
+          reconciler.nextResult(4 * RETRY_INITIAL_BACKOFF_MILLIS * (config.maxRetries + 1)));
+      Assert.assertEquals(config.maxRetries + 1, reconciler.failedAttemptNanos.size());
+
+      // The backoff doubles on every failure
+      for (int retry = 1; retry <= config.maxRetries; retry++) {
+        long waitedMillis =
+            TimeUnit.NANOSECONDS.toMillis(
+                reconciler.failedAttemptNanos.get(retry)
+                    - reconciler.failedAttemptNanos.get(retry - 1));
+        Assert.assertTrue(
+            "Retry " + retry + " did not wait for its backoff, waited " + waitedMillis + " ms",
+            waitedMillis >= RETRY_INITIAL_BACKOFF_MILLIS << (retry - 1));
+      }
+    } finally {
+      reconciler.shutdown(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void shutdownStopsWorkers() throws Exception {
+    StubReconciler reconciler = new StubReconciler(getConfig());
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      reconciler.insert("block");
+      reconciler.awaitBlockStarted();
+
+      // Shutdown waits for the batch in progress
+      Future<?> shutdown =
+          executor.submit(
+              () -> {
+                reconciler.shutdown(10, TimeUnit.SECONDS);
+                return null;
+              });
+      Thread.sleep(500);
+      Assert.assertFalse("Shutdown did not wait for the batch in progress", shutdown.isDone());
+      reconciler.blockReleased.countDown();
+      shutdown.get(10, TimeUnit.SECONDS);
+      Assert.assertNotNull("Batch in progress not completed", reconciler.nextResult(0));
+
+      // No worker is left to take elements inserted afterwards
+      reconciler.nextBatch(0);
+      reconciler.insert("a");
+      Assert.assertNull("Element reconciled after shutdown", reconciler.nextBatch(3000));
+      Assert.assertEquals(1, reconciler.getQueueDepth());
+    } finally {
+      reconciler.blockReleased.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package ai.verta.modeldb.versioning;
+
+import static org.junit.Assert.*;
+
+import ai.verta.modeldb.entities.versioning.InternalFolderElementEntity;
+import io.prometheus.client.CollectorRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CommitTreeCacheTest {
+
+  private static final String FOLDER_HASH = "folder-hash";
+
+  private static double getCount(String name, String... labels) {
+    Double count =
+        labels.length == 0
+            ? CollectorRegistry.defaultRegistry.getSampleValue(name)
+            : CollectorRegistry.defaultRegistry.getSampleValue(
+                name, new String[] {"kind"}, labels);
+    return count == null ? 0 : count;
+  }
+
+  private static List<InternalFolderElementEntity> getElements(String folderHash) {
+    return Arrays.asList(
+        new InternalFolderElementEntity(folderHash, "sha-a", "blob", "a.txt"),
+        new InternalFolderElementEntity(folderHash, "sha-b", "folder", "b"));
+  }
+
+  @Test
+  public void lookupsCountHitsAndMisses() {
+    CommitTreeCache cache = new CommitTreeCache(1024 * 1024);
+    double folderHits = getCount("verta_backend_commit_tree_cache_hits_total", "folder");
+    double folderMisses = getCount("verta_backend_commit_tree_cache_misses_total", "folder");
+    double blobHits = getCount("verta_backend_commit_tree_cache_hits_total", "blob");
+    double blobMisses = getCount("verta_backend_commit_tree_cache_misses_total", "blob");
+
+    assertNull(cache.getFolderElements(FOLDER_HASH));
+    List<InternalFolderElementEntity> cachedElements =
+        cache.putFolderElements(FOLDER_HASH, getElements(FOLDER_HASH));
+    List<InternalFolderElementEntity> elements = cache.getFolderElements(FOLDER_HASH);
+    assertSame(cachedElements, elements);
+    assertEquals(2, elements.size());
+    assertEquals("a.txt", elements.get(0).getElement_name());
+
+    assertNull(cache.getBlob("config", "blob-hash"));
+    Blob blob = Blob.getDefaultInstance();
+    cache.putBlob("config", "blob-hash", blob);
+    assertSame(blob, cache.getBlob("config", "blob-hash"));
+    // Blob hashes are only unique per blob type
+    assertNull(cache.getBlob("dataset", "blob-hash"));
+
+    assertEquals(
+        folderHits + 1, getCount("verta_backend_commit_tree_cache_hits_total", "folder"), 0);
+    assertEquals(
+        folderMisses + 1, getCount("verta_backend_commit_tree_cache_misses_total", "folder"), 0);
+    assertEquals(blobHits + 1, getCount("verta_backend_commit_tree_cache_hits_total", "blob"), 0);
+    assertEquals(
+        blobMisses + 2, getCount("verta_backend_commit_tree_cache_misses_total", "blob"), 0);
+  }
+
+  @Test
+  public void elementsWithNullColumnsCached() {
+    CommitTreeCache cache = new CommitTreeCache(1024 * 1024);
+    cache.putFolderElements(
+        FOLDER_HASH,
+        Collections.singletonList(
+            new InternalFolderElementEntity(FOLDER_HASH, "sha-a", null, null)));
+    assertNull(cache.getFolderElements(FOLDER_HASH).get(0).getElement_type());
+  }
+
+  @Test
+  public void entriesEvictedBeyondMaxBytes() {
+    // Room for a few folders of two elements only
+    CommitTreeCache cache = new CommitTreeCache(2048);
+    double evictions = getCount("verta_backend_commit_tree_cache_evictions_total");
+
+    int folderCount = 50;
+    for (int i = 0; i < folderCount; i++) {
+      cache.putFolderElements(FOLDER_HASH + i, getElements(FOLDER_HASH + i));
+    }
+    int cachedCount = 0;
+    for (int i = 0; i < folderCount; i++) {
+      if (cache.getFolderElements(FOLDER_HASH + i) != null) {
+        cachedCount++;
+      }
+    }
+    assertTrue("No folder evicted", cachedCount < folderCount);
+    assertEquals(
+        "Evictions not counted",
+        evictions + folderCount - cachedCount,
+        getCount("verta_backend_commit_tree_cache_evictions_total"),
+        0);
+    // The last folder put is the most recently used one
+    assertNotNull(cache.getFolderElements(FOLDER_HASH + (folderCount - 1)));
+  }
+}
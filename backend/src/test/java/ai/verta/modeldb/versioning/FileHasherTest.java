@@ -0,0 +1,72 @@
+package ai.verta.modeldb.versioning;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FileHasherTest {
+
+  // Blobs out of name order, hashes computed independently of FileHasher
+  private static final InternalFolder FOLDER =
+      InternalFolder.newBuilder()
+          .addBlobs(getElement("b.txt", "sha-b"))
+          .addBlobs(getElement("a.txt", "sha-a"))
+          .addSubFolders(getElement("dir", "sha-dir"))
+          .build();
+  private static final String TEXT_SHA =
+      "0830695fc7d9993c85101fe82c28d4e5cc31809ec5928d6b250af6dbb306b01d";
+  private static final String CANONICAL_SHA =
+      "d948e34977eccb22ac3dad5ee7b6d740371e1329cfd7323fce87453f36064586";
+
+  private static InternalFolderElement getElement(String name, String sha) {
+    return InternalFolderElement.newBuilder().setElementName(name).setElementSha(sha).build();
+  }
+
+  @Test
+  public void stringShaTest() throws Exception {
+    assertEquals(
+        "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        FileHasher.getSha("abc"));
+  }
+
+  @Test
+  public void textShaTest() throws Exception {
+    assertEquals(TEXT_SHA, new FileHasher(FileHasher.HashAlgorithm.TEXT_SHA256).getSha(FOLDER));
+    assertEquals(TEXT_SHA, FileHasher.getSha(FOLDER.toString()));
+  }
+
+  @Test
+  public void canonicalShaTest() throws Exception {
+    FileHasher fileHasher = new FileHasher(FileHasher.HashAlgorithm.CANONICAL_SHA256);
+    assertEquals(CANONICAL_SHA, fileHasher.getSha(FOLDER));
+
+    // The order the elements were added in does not change the hash
+    InternalFolder sortedFolder =
+        FOLDER.toBuilder()
+            .clearBlobs()
+            .addBlobs(getElement("a.txt", "sha-a"))
+            .addBlobs(getElement("b.txt", "sha-b"))
+            .build();
+    assertEquals(CANONICAL_SHA, fileHasher.getSha(sortedFolder));
+    assertNotEquals(
+        TEXT_SHA, new FileHasher(FileHasher.HashAlgorithm.TEXT_SHA256).getSha(sortedFolder));
+  }
+
+  @Test
+  public void matchingAlgorithmTest() throws Exception {
+    assertEquals(
+        FileHasher.HashAlgorithm.TEXT_SHA256,
+        FileHasher.getMatchingAlgorithm(FOLDER, TEXT_SHA, null));
+    assertEquals(
+        FileHasher.HashAlgorithm.CANONICAL_SHA256,
+        FileHasher.getMatchingAlgorithm(FOLDER, CANONICAL_SHA, null));
+    assertNull(
+        FileHasher.getMatchingAlgorithm(
+            FOLDER, TEXT_SHA, FileHasher.HashAlgorithm.CANONICAL_SHA256));
+    assertTrue(FileHasher.verifySha(FOLDER, CANONICAL_SHA, null));
+    assertFalse(FileHasher.verifySha(FOLDER, FileHasher.getSha("abc"), null));
+  }
+}
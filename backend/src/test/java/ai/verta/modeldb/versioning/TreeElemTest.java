@@ -0,0 +1,226 @@
+package ai.verta.modeldb.versioning;
+
+import static ai.verta.modeldb.versioning.blob.factory.BlobFactory.CONFIG_BLOB;
+import static org.junit.Assert.*;
+
+import ai.verta.modeldb.TestsInit;
+import ai.verta.modeldb.batchProcess.FolderHashAlgorithmMigration;
+import ai.verta.modeldb.entities.versioning.InternalFolderElementEntity;
+import ai.verta.modeldb.utils.ModelDBHibernateUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TreeElemTest extends TestsInit {
+
+  private static final Logger LOGGER = LogManager.getLogger(TreeElemTest.class);
+  private static final ModelDBHibernateUtil modelDBHibernateUtil =
+      ModelDBHibernateUtil.getInstance();
+  private static final int BATCH_SIZE = 2;
+
+  // Every element of the test trees is named with this prefix, so that their rows can be removed
+  private String namePrefix;
+
+  @Before
+  public void createPrefix() {
+    namePrefix = "tree-elem-test-" + UUID.randomUUID() + "-";
+  }
+
+  @After
+  public void removeFolderElements() {
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      Transaction transaction = session.beginTransaction();
+      session
+          .createQuery(
+              "DELETE FROM "
+                  + InternalFolderElementEntity.class.getSimpleName()
+                  + " fe WHERE fe.element_name LIKE :prefix")
+          .setParameter("prefix", namePrefix + "%")
+          .executeUpdate();
+      transaction.commit();
+    }
+  }
+
+  // Two folders of two blobs each, new to the database
+  private TreeElem getTree() throws Exception {
+    TreeElem rootTree = new TreeElem();
+    for (int i = 0; i < 4; i++) {
+      rootTree.push(
+          Arrays.asList("", namePrefix + "folder-" + i % 2, namePrefix + "blob-" + i),
+          FileHasher.getSha(namePrefix + "blob-" + i),
+          CONFIG_BLOB);
+    }
+    return rootTree;
+  }
+
+  private static String saveTree(Session session, TreeElem rootTree) throws Exception {
+    return saveTree(session, rootTree, new FileHasher());
+  }
+
+  private static String saveTree(Session session, TreeElem rootTree, FileHasher fileHasher)
+      throws Exception {
+    return rootTree
+        .saveFoldersInBatches(
+            session, fileHasher, BATCH_SIZE, config.database.RdbConfiguration.isPostgres())
+        .getElementSha();
+  }
+
+  // Names sharing a bucket of the children map of a folder holding only them, in name order
+  private List<String> getCollidingNames(int count) {
+    Map<Integer, List<String>> namesByBucket = new HashMap<>();
+    for (int i = 0; ; i++) {
+      String name = namePrefix + "blob-" + i;
+      int hash = name.hashCode();
+      List<String> names =
+          namesByBucket.computeIfAbsent((hash ^ (hash >>> 16)) & 15, key -> new ArrayList<>());
+      names.add(name);
+      if (names.size() == count) {
+        Collections.sort(names);
+        return names;
+      }
+    }
+  }
+
+  private static List<String> getHashAlgorithms(String folderHash) {
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      return session
+          .createQuery(
+              "SELECT DISTINCT fe.hash_algorithm FROM "
+                  + InternalFolderElementEntity.class.getSimpleName()
+                  + " fe WHERE fe.folder_hash = :folderHash",
+              String.class)
+          .setParameter("folderHash", folderHash)
+          .list();
+    }
+  }
+
+  private static long getElementCount(String folderHash) {
+    try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      return session
+          .createQuery(
+              "SELECT COUNT(*) FROM "
+                  + InternalFolderElementEntity.class.getSimpleName()
+                  + " fe WHERE fe.folder_hash = :folderHash",
+              Long.class)
+          .setParameter("folderHash", folderHash)
+          .getSingleResult();
+    }
+  }
+
+  @Test
+  public void saveSameTreeTwiceTest() throws Exception {
+    LOGGER.info("save same tree twice test start................................");
+
+    List<String> rootHashes = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+        Transaction transaction = session.beginTransaction();
+        rootHashes.add(saveTree(session, getTree()));
+        transaction.commit();
+      }
+    }
+    assertEquals("Same tree saved with another hash", rootHashes.get(0), rootHashes.get(1));
+    assertEquals("Root folder rows not match", 2, getElementCount(rootHashes.get(0)));
+
+    LOGGER.info("save same tree twice test stop................................");
+  }
+
+  @Test
+  public void saveSameTreeConcurrentlyTest() throws Exception {
+    LOGGER.info("save same tree concurrently test start................................");
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (Session firstSession = modelDBHibernateUtil.getSessionFactory().openSession()) {
+      // The first commit writes the tree without committing, so the second one finds no folder
+      // of it and inserts the same rows
+      Transaction firstTransaction = firstSession.beginTransaction();
+      String firstRootHash = saveTree(firstSession, getTree());
+
+      CountDownLatch secondStarted = new CountDownLatch(1);
+      Future<String> secondRootHash =
+          executor.submit(
+              () -> {
+                try (Session secondSession =
+                    modelDBHibernateUtil.getSessionFactory().openSession()) {
+                  Transaction secondTransaction = secondSession.beginTransaction();
+                  secondStarted.countDown();
+                  String rootHash = saveTree(secondSession, getTree());
+                  secondTransaction.commit();
+                  return rootHash;
+                }
+              });
+      assertTrue(secondStarted.await(1, TimeUnit.MINUTES));
+      // Let the second insert reach the rows of the first before they are committed
+      Thread.sleep(500);
+      firstTransaction.commit();
+
+      assertEquals(
+          "Same tree saved with another hash",
+          firstRootHash,
+          secondRootHash.get(1, TimeUnit.MINUTES));
+      assertEquals("Root folder rows not match", 2, getElementCount(firstRootHash));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    LOGGER.info("save same tree concurrently test stop................................");
+  }
+
+  @Test
+  public void migrateFolderHashAlgorithmTest() throws Exception {
+    LOGGER.info("migrate folder hash algorithm test start................................");
+
+    // Blobs added in reverse name order, so their names sharing a map bucket were hashed in an
+    // order that is not stored
+    List<String> names = getCollidingNames(3);
+    for (FileHasher.HashAlgorithm algorithm : FileHasher.HashAlgorithm.values()) {
+      TreeElem rootTree = new TreeElem();
+      for (int i = names.size() - 1; i >= 0; i--) {
+        rootTree.push(
+            Arrays.asList("", names.get(i)), FileHasher.getSha(names.get(i)), CONFIG_BLOB);
+      }
+      String rootHash;
+      try (Session session = modelDBHibernateUtil.getSessionFactory().openSession()) {
+        Transaction transaction = session.beginTransaction();
+        rootHash = saveTree(session, rootTree, new FileHasher(algorithm));
+        // As saved before the algorithm was recorded
+        session
+            .createQuery(
+                "UPDATE "
+                    + InternalFolderElementEntity.class.getSimpleName()
+                    + " fe SET fe.hash_algorithm = NULL WHERE fe.folder_hash = :folderHash")
+            .setParameter("folderHash", rootHash)
+            .executeUpdate();
+        transaction.commit();
+      }
+
+      FolderHashAlgorithmMigration.execute(100);
+      assertEquals(
+          "Migrated hash algorithm not match",
+          Collections.singletonList(algorithm.name()),
+          getHashAlgorithms(rootHash));
+    }
+    assertTrue(FolderHashAlgorithmMigration.isComplete());
+
+    LOGGER.info("migrate folder hash algorithm test stop................................");
+  }
+}